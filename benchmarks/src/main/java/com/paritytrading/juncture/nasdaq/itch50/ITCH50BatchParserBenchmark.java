@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50Batches.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time per message of computing the notional value of Add
+ * Order messages with the parser and with the batch parser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class ITCH50BatchParserBenchmark {
+
+    private static final int MESSAGES = 1000;
+
+    @Param({"heap", "direct"})
+    public String buffer;
+    private ByteBuffer messages;
+
+    private ITCH50Parser parser;
+
+    private ITCH50BatchParser batchParser;
+
+    private long notional;
+
+    @Setup
+    public void prepare() {
+        messages = ITCH50Messages.allocate(MESSAGE_LENGTH_ADD_ORDER * MESSAGES, buffer.equals("direct"));
+
+        for (int i = 0; i < MESSAGES; i++)
+            ITCH50Messages.message(MESSAGE_TYPE_ADD_ORDER, i).put(messages);
+
+        messages.flip();
+
+        parser = new ITCH50Parser(new ITCH50ListenerAdapter() {
+
+            @Override
+            public void addOrder(AddOrder message) {
+                notional += message.price * message.shares;
+            }
+
+        });
+
+        batchParser = new ITCH50BatchParser(new Listener(), null, 256, MESSAGE_TYPE_ADD_ORDER);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long parser() throws IOException {
+        notional = 0;
+
+        messages.position(0);
+
+        while (messages.hasRemaining()) {
+            messages.limit(messages.position() + MESSAGE_LENGTH_ADD_ORDER);
+
+            parser.message(messages);
+
+            messages.limit(messages.capacity());
+        }
+
+        return notional;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long batchParser() throws IOException {
+        notional = 0;
+
+        messages.position(0);
+
+        while (messages.hasRemaining()) {
+            messages.limit(messages.position() + MESSAGE_LENGTH_ADD_ORDER);
+
+            batchParser.message(messages);
+
+            messages.limit(messages.capacity());
+        }
+
+        batchParser.flush();
+
+        return notional;
+    }
+
+    private class Listener implements ITCH50BatchListener {
+
+        @Override
+        public void addOrder(AddOrderBatch batch) {
+            long sum = 0;
+
+            for (int i = 0; i < batch.size(); i++)
+                sum += batch.price[i] * batch.shares[i];
+
+            notional += sum;
+        }
+
+        @Override
+        public void orderExecuted(OrderExecutedBatch batch) {
+        }
+
+        @Override
+        public void orderCancel(OrderCancelBatch batch) {
+        }
+
+        @Override
+        public void orderDelete(OrderDeleteBatch batch) {
+        }
+
+    }
+
+}
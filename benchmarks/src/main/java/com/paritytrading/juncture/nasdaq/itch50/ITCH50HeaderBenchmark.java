@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.foundation.ByteBuffers.*;
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding the common header of a message mix field by field and
+ * with wide loads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class ITCH50HeaderBenchmark {
+
+    private static final int MESSAGES = 100;
+
+    @Param({"heap", "direct"})
+    public String buffer;
+
+    private ByteBuffer messages;
+
+    private int[] offsets;
+
+    private ITCH50Header header;
+
+    @Setup
+    public void prepare() {
+        messages = ITCH50Messages.allocate(64 * 1024, buffer.equals("direct"));
+
+        ITCH50Messages.mix(messages);
+
+        offsets = new int[MESSAGES];
+
+        for (int i = 0, offset = 0; i < MESSAGES; i++) {
+            offsets[i] = offset;
+
+            offset += messageLength(messages.get(offset));
+        }
+
+        header = new ITCH50Header();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long fields() {
+        long sum = 0;
+
+        for (int offset : offsets) {
+            int  stockLocate    = getUnsignedShort(messages, offset + 1);
+            int  trackingNumber = getUnsignedShort(messages, offset + 3);
+            int  timestampHigh  = getUnsignedShort(messages, offset + 5);
+            long timestampLow   = getUnsignedInt(messages, offset + 7);
+
+            sum += stockLocate + trackingNumber + (((long)timestampHigh << 32) | timestampLow);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long header() {
+        long sum = 0;
+
+        for (int offset : offsets) {
+            header.get(messages, offset);
+
+            sum += header.stockLocate + header.trackingNumber + header.timestamp;
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long timestamp() {
+        long sum = 0;
+
+        for (int offset : offsets)
+            sum += ITCH50Header.timestamp(messages, offset);
+
+        return sum;
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading and writing each message type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class ITCH50MessageBenchmark {
+
+    @Param({
+        "S", "R", "H", "Y", "L", "V", "W", "K", "J", "h", "A",
+        "F", "E", "C", "X", "D", "U", "P", "Q", "B", "I", "N",
+    })
+    public String messageType;
+
+    @Param({"heap", "direct"})
+    public String buffer;
+
+    private ByteBuffer messages;
+
+    private Message message;
+
+    @Setup
+    public void prepare() {
+        messages = ITCH50Messages.allocate(64, buffer.equals("direct"));
+
+        message = ITCH50Messages.message((byte)messageType.charAt(0), 1);
+
+        message.put(messages);
+    }
+
+    @Benchmark
+    public Message get() {
+        messages.position(1);
+
+        message.get(messages);
+
+        return message;
+    }
+
+    @Benchmark
+    public ByteBuffer put() {
+        messages.clear();
+
+        message.put(messages);
+
+        return messages;
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.foundation.ASCII;
+import java.nio.ByteBuffer;
+
+/**
+ * Sample messages.
+ */
+class ITCH50Messages {
+
+    /*
+     * The message mix, in messages per 100 messages, roughly follows the
+     * distribution of a TotalView-ITCH 5.0 day file.
+     */
+    private static final byte[] MIX_MESSAGE_TYPES = {
+        MESSAGE_TYPE_ADD_ORDER,
+        MESSAGE_TYPE_ORDER_DELETE,
+        MESSAGE_TYPE_ORDER_REPLACE,
+        MESSAGE_TYPE_ORDER_EXECUTED,
+        MESSAGE_TYPE_ORDER_CANCEL,
+        MESSAGE_TYPE_ADD_ORDER_MPID,
+        MESSAGE_TYPE_TRADE,
+        MESSAGE_TYPE_ORDER_EXECUTED_WITH_PRICE,
+        MESSAGE_TYPE_NOII,
+        MESSAGE_TYPE_STOCK_TRADING_ACTION,
+    };
+
+    private static final int[] MIX_WEIGHTS = {
+        40,
+        37,
+        9,
+        6,
+        2,
+        2,
+        1,
+        1,
+        1,
+        1,
+    };
+
+    private static final long STOCK = ASCII.packLong("FOO     ");
+
+    private ITCH50Messages() {
+    }
+
+    /**
+     * Allocate a buffer.
+     *
+     * @param capacity the capacity
+     * @param direct if true, allocate a direct buffer, otherwise allocate
+     *   a heap buffer
+     * @return a buffer
+     */
+    static ByteBuffer allocate(int capacity, boolean direct) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Write a message mix of 100 messages to a buffer. The messages are
+     * written back to back without framing.
+     *
+     * @param buffer a buffer
+     * @return the number of messages
+     */
+    static int mix(ByteBuffer buffer) {
+        int count = 100;
+
+        for (int i = 0; i < count; i++)
+            message(messageType(i), i).put(buffer);
+
+        return count;
+    }
+
+    private static byte messageType(int i) {
+        int j = (i * 37) % 100;
+
+        for (int k = 0; k < MIX_WEIGHTS.length; k++) {
+            if (j < MIX_WEIGHTS[k])
+                return MIX_MESSAGE_TYPES[k];
+
+            j -= MIX_WEIGHTS[k];
+        }
+
+        return MESSAGE_TYPE_ADD_ORDER;
+    }
+
+    /**
+     * Create a sample message.
+     *
+     * @param messageType the message type
+     * @param n a sequence number used to vary the field values
+     * @return a sample message
+     */
+    static Message message(byte messageType, long n) {
+        switch (messageType) {
+        case MESSAGE_TYPE_SYSTEM_EVENT:
+            SystemEvent systemEvent = new SystemEvent();
+            systemEvent.stockLocate    = 0;
+            systemEvent.trackingNumber = 2;
+            systemEvent.timestampHigh  = timestampHigh(n);
+            systemEvent.timestampLow   = timestampLow(n);
+            systemEvent.eventCode      = EVENT_CODE_START_OF_MARKET_HOURS;
+            return systemEvent;
+        case MESSAGE_TYPE_STOCK_DIRECTORY:
+            StockDirectory stockDirectory = new StockDirectory();
+            stockDirectory.stockLocate                 = 1;
+            stockDirectory.trackingNumber              = 2;
+            stockDirectory.timestampHigh               = timestampHigh(n);
+            stockDirectory.timestampLow                = timestampLow(n);
+            stockDirectory.stock                       = STOCK;
+            stockDirectory.marketCategory              = MARKET_CATEGORY_NASDAQ_GLOBAL_SELECT_MARKET;
+            stockDirectory.financialStatusIndicator    = FINANCIAL_STATUS_INDICATOR_NORMAL;
+            stockDirectory.roundLotSize                = 100;
+            stockDirectory.roundLotsOnly               = NO;
+            stockDirectory.issueClassification         = 'C';
+            stockDirectory.issueSubType                = (short)(('Z' << 8) | ' ');
+            stockDirectory.authenticity                = AUTHENTICITY_PRODUCTION;
+            stockDirectory.shortSaleThresholdIndicator = NO;
+            stockDirectory.ipoFlag                     = NO;
+            stockDirectory.luldReferencePriceTier      = LULD_REFERENCE_PRICE_TIER_1;
+            stockDirectory.etpFlag                     = NO;
+            stockDirectory.etpLeverageFactor           = 0;
+            stockDirectory.inverseIndicator            = NO;
+            return stockDirectory;
+        case MESSAGE_TYPE_STOCK_TRADING_ACTION:
+            StockTradingAction stockTradingAction = new StockTradingAction();
+            stockTradingAction.stockLocate    = 1;
+            stockTradingAction.trackingNumber = 2;
+            stockTradingAction.timestampHigh  = timestampHigh(n);
+            stockTradingAction.timestampLow   = timestampLow(n);
+            stockTradingAction.stock          = STOCK;
+            stockTradingAction.tradingState   = TRADING_STATE_TRADING;
+            stockTradingAction.reserved       = ' ';
+            stockTradingAction.reason         = ASCII.packInt("    ");
+            return stockTradingAction;
+        case MESSAGE_TYPE_REG_SHO_RESTRICTION:
+            RegSHORestriction regSHORestriction = new RegSHORestriction();
+            regSHORestriction.locateCode     = 1;
+            regSHORestriction.trackingNumber = 2;
+            regSHORestriction.timestampHigh  = timestampHigh(n);
+            regSHORestriction.timestampLow   = timestampLow(n);
+            regSHORestriction.stock          = STOCK;
+            regSHORestriction.regSHOAction   = REG_SHO_ACTION_NO_PRICE_TEST;
+            return regSHORestriction;
+        case MESSAGE_TYPE_MARKET_PARTICIPANT_POSITION:
+            MarketParticipantPosition marketParticipantPosition = new MarketParticipantPosition();
+            marketParticipantPosition.stockLocate            = 1;
+            marketParticipantPosition.trackingNumber         = 2;
+            marketParticipantPosition.timestampHigh          = timestampHigh(n);
+            marketParticipantPosition.timestampLow           = timestampLow(n);
+            marketParticipantPosition.mpid                   = ASCII.packInt("ABCD");
+            marketParticipantPosition.stock                  = STOCK;
+            marketParticipantPosition.primaryMarketMaker     = NO;
+            marketParticipantPosition.marketMakerMode        = MARKET_MAKER_MODE_NORMAL;
+            marketParticipantPosition.marketParticipantState = MARKET_PARTICIPANT_STATE_ACTIVE;
+            return marketParticipantPosition;
+        case MESSAGE_TYPE_MWCB_DECLINE_LEVEL:
+            MWCBDeclineLevel mwcbDeclineLevel = new MWCBDeclineLevel();
+            mwcbDeclineLevel.stockLocate    = 0;
+            mwcbDeclineLevel.trackingNumber = 2;
+            mwcbDeclineLevel.timestampHigh  = timestampHigh(n);
+            mwcbDeclineLevel.timestampLow   = timestampLow(n);
+            mwcbDeclineLevel.level1         = 3_000_00000000L;
+            mwcbDeclineLevel.level2         = 2_800_00000000L;
+            mwcbDeclineLevel.level3         = 2_500_00000000L;
+            return mwcbDeclineLevel;
+        case MESSAGE_TYPE_MWCB_STATUS:
+            MWCBStatus mwcbStatus = new MWCBStatus();
+            mwcbStatus.stockLocate    = 0;
+            mwcbStatus.trackingNumber = 2;
+            mwcbStatus.timestampHigh  = timestampHigh(n);
+            mwcbStatus.timestampLow   = timestampLow(n);
+            mwcbStatus.breachedLevel  = BREACHED_LEVEL_1;
+            return mwcbStatus;
+        case MESSAGE_TYPE_IPO_QUOTING_PERIOD_UPDATE:
+            IPOQuotingPeriodUpdate ipoQuotingPeriodUpdate = new IPOQuotingPeriodUpdate();
+            ipoQuotingPeriodUpdate.stockLocate                  = 1;
+            ipoQuotingPeriodUpdate.trackingNumber               = 2;
+            ipoQuotingPeriodUpdate.timestampHigh                = timestampHigh(n);
+            ipoQuotingPeriodUpdate.timestampLow                 = timestampLow(n);
+            ipoQuotingPeriodUpdate.stock                        = STOCK;
+            ipoQuotingPeriodUpdate.ipoQuotationReleaseTime      = 36_000;
+            ipoQuotingPeriodUpdate.ipoQuotationReleaseQualifier = IPO_QUOTATION_RELEASE_QUALIFIER_ANTICIPATED_QUOTATION_TIME;
+            ipoQuotingPeriodUpdate.ipoPrice                     = 20_0000;
+            return ipoQuotingPeriodUpdate;
+        case MESSAGE_TYPE_LULD_AUCTION_COLLAR:
+            LULDAuctionCollar luldAuctionCollar = new LULDAuctionCollar();
+            luldAuctionCollar.stockLocate                 = 1;
+            luldAuctionCollar.trackingNumber              = 2;
+            luldAuctionCollar.timestampHigh               = timestampHigh(n);
+            luldAuctionCollar.timestampLow                = timestampLow(n);
+            luldAuctionCollar.stock                       = STOCK;
+            luldAuctionCollar.auctionCollarReferencePrice = 20_0000;
+            luldAuctionCollar.upperAuctionCollarPrice     = 21_0000;
+            luldAuctionCollar.lowerAuctionCollarPrice     = 19_0000;
+            luldAuctionCollar.auctionCollarExtension      = 0;
+            return luldAuctionCollar;
+        case MESSAGE_TYPE_OPERATIONAL_HALT:
+            OperationalHalt operationalHalt = new OperationalHalt();
+            operationalHalt.stockLocate           = 1;
+            operationalHalt.trackingNumber        = 2;
+            operationalHalt.timestampHigh         = timestampHigh(n);
+            operationalHalt.timestampLow          = timestampLow(n);
+            operationalHalt.stock                 = STOCK;
+            operationalHalt.marketCode            = MARKET_CODE_NASDAQ;
+            operationalHalt.operationalHaltAction = OPERATIONAL_HALT_ACTION_OPERATIONALLY_HALTED;
+            return operationalHalt;
+        case MESSAGE_TYPE_ADD_ORDER:
+            AddOrder addOrder = new AddOrder();
+            addOrder.stockLocate          = 1;
+            addOrder.trackingNumber       = 2;
+            addOrder.timestampHigh        = timestampHigh(n);
+            addOrder.timestampLow         = timestampLow(n);
+            addOrder.orderReferenceNumber = n;
+            addOrder.buySellIndicator     = (n & 1) == 0 ? BUY : SELL;
+            addOrder.shares               = 100;
+            addOrder.stock                = STOCK;
+            addOrder.price                = 20_0000 + n % 100;
+            return addOrder;
+        case MESSAGE_TYPE_ADD_ORDER_MPID:
+            AddOrderMPID addOrderMPID = new AddOrderMPID();
+            addOrderMPID.stockLocate          = 1;
+            addOrderMPID.trackingNumber       = 2;
+            addOrderMPID.timestampHigh        = timestampHigh(n);
+            addOrderMPID.timestampLow         = timestampLow(n);
+            addOrderMPID.orderReferenceNumber = n;
+            addOrderMPID.buySellIndicator     = (n & 1) == 0 ? BUY : SELL;
+            addOrderMPID.shares               = 100;
+            addOrderMPID.stock                = STOCK;
+            addOrderMPID.price                = 20_0000 + n % 100;
+            addOrderMPID.attribution          = ASCII.packInt("ABCD");
+            return addOrderMPID;
+        case MESSAGE_TYPE_ORDER_EXECUTED:
+            OrderExecuted orderExecuted = new OrderExecuted();
+            orderExecuted.stockLocate          = 1;
+            orderExecuted.trackingNumber       = 2;
+            orderExecuted.timestampHigh        = timestampHigh(n);
+            orderExecuted.timestampLow         = timestampLow(n);
+            orderExecuted.orderReferenceNumber = n;
+            orderExecuted.executedShares       = 100;
+            orderExecuted.matchNumber          = n;
+            return orderExecuted;
+        case MESSAGE_TYPE_ORDER_EXECUTED_WITH_PRICE:
+            OrderExecutedWithPrice orderExecutedWithPrice = new OrderExecutedWithPrice();
+            orderExecutedWithPrice.stockLocate          = 1;
+            orderExecutedWithPrice.trackingNumber       = 2;
+            orderExecutedWithPrice.timestampHigh        = timestampHigh(n);
+            orderExecutedWithPrice.timestampLow         = timestampLow(n);
+            orderExecutedWithPrice.orderReferenceNumber = n;
+            orderExecutedWithPrice.executedShares       = 100;
+            orderExecutedWithPrice.matchNumber          = n;
+            orderExecutedWithPrice.printable            = YES;
+            orderExecutedWithPrice.executionPrice       = 20_0000;
+            return orderExecutedWithPrice;
+        case MESSAGE_TYPE_ORDER_CANCEL:
+            OrderCancel orderCancel = new OrderCancel();
+            orderCancel.stockLocate          = 1;
+            orderCancel.trackingNumber       = 2;
+            orderCancel.timestampHigh        = timestampHigh(n);
+            orderCancel.timestampLow         = timestampLow(n);
+            orderCancel.orderReferenceNumber = n;
+            orderCancel.canceledShares       = 50;
+            return orderCancel;
+        case MESSAGE_TYPE_ORDER_DELETE:
+            OrderDelete orderDelete = new OrderDelete();
+            orderDelete.stockLocate          = 1;
+            orderDelete.trackingNumber       = 2;
+            orderDelete.timestampHigh        = timestampHigh(n);
+            orderDelete.timestampLow         = timestampLow(n);
+            orderDelete.orderReferenceNumber = n;
+            return orderDelete;
+        case MESSAGE_TYPE_ORDER_REPLACE:
+            OrderReplace orderReplace = new OrderReplace();
+            orderReplace.stockLocate                  = 1;
+            orderReplace.trackingNumber               = 2;
+            orderReplace.timestampHigh                = timestampHigh(n);
+            orderReplace.timestampLow                 = timestampLow(n);
+            orderReplace.originalOrderReferenceNumber = n;
+            orderReplace.newOrderReferenceNumber      = n + 1;
+            orderReplace.shares                       = 200;
+            orderReplace.price                        = 20_0000 + n % 100;
+            return orderReplace;
+        case MESSAGE_TYPE_TRADE:
+            Trade trade = new Trade();
+            trade.stockLocate          = 1;
+            trade.trackingNumber       = 2;
+            trade.timestampHigh        = timestampHigh(n);
+            trade.timestampLow         = timestampLow(n);
+            trade.orderReferenceNumber = 0;
+            trade.buySellIndicator     = BUY;
+            trade.shares               = 100;
+            trade.stock                = STOCK;
+            trade.price                = 20_0000;
+            trade.matchNumber          = n;
+            return trade;
+        case MESSAGE_TYPE_CROSS_TRADE:
+            CrossTrade crossTrade = new CrossTrade();
+            crossTrade.stockLocate    = 1;
+            crossTrade.trackingNumber = 2;
+            crossTrade.timestampHigh  = timestampHigh(n);
+            crossTrade.timestampLow   = timestampLow(n);
+            crossTrade.shares         = 10_000;
+            crossTrade.stock          = STOCK;
+            crossTrade.crossPrice     = 20_0000;
+            crossTrade.matchNumber    = n;
+            crossTrade.crossType      = CROSS_TYPE_OPENING_CROSS;
+            return crossTrade;
+        case MESSAGE_TYPE_BROKEN_TRADE:
+            BrokenTrade brokenTrade = new BrokenTrade();
+            brokenTrade.stockLocate    = 1;
+            brokenTrade.trackingNumber = 2;
+            brokenTrade.timestampHigh  = timestampHigh(n);
+            brokenTrade.timestampLow   = timestampLow(n);
+            brokenTrade.matchNumber    = n;
+            return brokenTrade;
+        case MESSAGE_TYPE_NOII:
+            NOII noii = new NOII();
+            noii.stockLocate             = 1;
+            noii.trackingNumber          = 2;
+            noii.timestampHigh           = timestampHigh(n);
+            noii.timestampLow            = timestampLow(n);
+            noii.pairedShares            = 10_000;
+            noii.imbalanceShares         = 500;
+            noii.imbalanceDirection      = IMBALANCE_DIRECTION_BUY_IMBALANCE;
+            noii.stock                   = STOCK;
+            noii.farPrice                = 20_0000;
+            noii.nearPrice               = 20_0000;
+            noii.currentReferencePrice   = 20_0000;
+            noii.crossType               = CROSS_TYPE_CLOSING_CROSS;
+            noii.priceVariationIndicator = PRICE_VARIATION_INDICATOR_LESS_THAN_1_PCT;
+            return noii;
+        case MESSAGE_TYPE_RPII:
+            RPII rpii = new RPII();
+            rpii.stockLocate    = 1;
+            rpii.trackingNumber = 2;
+            rpii.timestampHigh  = timestampHigh(n);
+            rpii.timestampLow   = timestampLow(n);
+            rpii.stock          = STOCK;
+            rpii.interestFlag   = INTEREST_FLAG_BOTH;
+            return rpii;
+        default:
+            throw new IllegalArgumentException("Unknown message type: " + (char)messageType);
+        }
+    }
+
+    private static int timestampHigh(long n) {
+        return (int)((34_200_000_000_000L + n) >>> 32);
+    }
+
+    private static long timestampLow(long n) {
+        return (34_200_000_000_000L + n) & 0xffffffffL;
+    }
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time and allocation per message of the parser on a message
+ * mix that follows a TotalView-ITCH 5.0 day file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class ITCH50ParserBenchmark {
+
+    private static final int MESSAGES = 100;
+
+    @Param({"heap", "direct"})
+    public String buffer;
+
+    @Param({"all", "trades"})
+    public String messageTypes;
+
+    private ByteBuffer messages;
+
+    private ITCH50Parser parser;
+
+    @Setup
+    public void prepare(Blackhole blackhole) {
+        messages = ITCH50Messages.allocate(64 * MESSAGES, buffer.equals("direct"));
+
+        if (ITCH50Messages.mix(messages) != MESSAGES)
+            throw new IllegalStateException();
+
+        messages.flip();
+
+        Listener listener = new Listener(blackhole);
+
+        if (messageTypes.equals("trades")) {
+            parser = new ITCH50Parser(listener,
+                    MESSAGE_TYPE_ORDER_EXECUTED,
+                    MESSAGE_TYPE_ORDER_EXECUTED_WITH_PRICE,
+                    MESSAGE_TYPE_TRADE,
+                    MESSAGE_TYPE_CROSS_TRADE,
+                    MESSAGE_TYPE_BROKEN_TRADE);
+        } else {
+            parser = new ITCH50Parser(listener);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void message() throws IOException {
+        messages.position(0);
+
+        while (messages.hasRemaining())
+            parser.message(messages);
+    }
+
+    private static class Listener implements ITCH50Listener {
+
+        private final Blackhole blackhole;
+
+        Listener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void systemEvent(SystemEvent message) {
+            blackhole.consume(message.eventCode);
+        }
+
+        @Override
+        public void stockDirectory(StockDirectory message) {
+            blackhole.consume(message.stock);
+        }
+
+        @Override
+        public void stockTradingAction(StockTradingAction message) {
+            blackhole.consume(message.tradingState);
+        }
+
+        @Override
+        public void regSHORestriction(RegSHORestriction message) {
+            blackhole.consume(message.regSHOAction);
+        }
+
+        @Override
+        public void marketParticipantPosition(MarketParticipantPosition message) {
+            blackhole.consume(message.marketParticipantState);
+        }
+
+        @Override
+        public void mwcbDeclineLevel(MWCBDeclineLevel message) {
+            blackhole.consume(message.level1);
+        }
+
+        @Override
+        public void mwcbStatus(MWCBStatus message) {
+            blackhole.consume(message.breachedLevel);
+        }
+
+        @Override
+        public void ipoQuotingPeriodUpdate(IPOQuotingPeriodUpdate message) {
+            blackhole.consume(message.ipoPrice);
+        }
+
+        @Override
+        public void luldAuctionCollar(LULDAuctionCollar message) {
+            blackhole.consume(message.auctionCollarReferencePrice);
+        }
+
+        @Override
+        public void operationalHalt(OperationalHalt message) {
+            blackhole.consume(message.operationalHaltAction);
+        }
+
+        @Override
+        public void addOrder(AddOrder message) {
+            blackhole.consume(message.orderReferenceNumber);
+        }
+
+        @Override
+        public void addOrderMPID(AddOrderMPID message) {
+            blackhole.consume(message.orderReferenceNumber);
+        }
+
+        @Override
+        public void orderExecuted(OrderExecuted message) {
+            blackhole.consume(message.orderReferenceNumber);
+        }
+
+        @Override
+        public void orderExecutedWithPrice(OrderExecutedWithPrice message) {
+            blackhole.consume(message.orderReferenceNumber);
+        }
+
+        @Override
+        public void orderCancel(OrderCancel message) {
+            blackhole.consume(message.orderReferenceNumber);
+        }
+
+        @Override
+        public void orderDelete(OrderDelete message) {
+            blackhole.consume(message.orderReferenceNumber);
+        }
+
+        @Override
+        public void orderReplace(OrderReplace message) {
+            blackhole.consume(message.newOrderReferenceNumber);
+        }
+
+        @Override
+        public void trade(Trade message) {
+            blackhole.consume(message.matchNumber);
+        }
+
+        @Override
+        public void crossTrade(CrossTrade message) {
+            blackhole.consume(message.matchNumber);
+        }
+
+        @Override
+        public void brokenTrade(BrokenTrade message) {
+            blackhole.consume(message.matchNumber);
+        }
+
+        @Override
+        public void noii(NOII message) {
+            blackhole.consume(message.imbalanceShares);
+        }
+
+        @Override
+        public void rpii(RPII message) {
+            blackhole.consume(message.interestFlag);
+        }
+
+    }
+
+}
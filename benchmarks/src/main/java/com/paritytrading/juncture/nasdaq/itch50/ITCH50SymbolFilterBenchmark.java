@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time per message of consuming the messages of one in a
+ * hundred instruments with the parser alone and with the symbol filter in
+ * front of the parser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class ITCH50SymbolFilterBenchmark {
+
+    private static final int MESSAGES = 1000;
+
+    private static final int STOCK_LOCATES = 100;
+
+    private static final int SUBSCRIBED = 1;
+
+    @Param({"heap", "direct"})
+    public String buffer;
+    private ByteBuffer messages;
+
+    private int[] limits;
+
+    private ITCH50Parser parser;
+
+    private ITCH50SymbolFilter filter;
+
+    private long notional;
+
+    @Setup
+    public void prepare() throws IOException {
+        messages = ITCH50Messages.allocate(MESSAGE_LENGTH_ADD_ORDER * MESSAGES, buffer.equals("direct"));
+
+        limits = new int[MESSAGES];
+
+        for (int i = 0; i < MESSAGES; i++) {
+            AddOrder message = (AddOrder)ITCH50Messages.message(MESSAGE_TYPE_ADD_ORDER, i);
+
+            message.stockLocate = 1 + i % STOCK_LOCATES;
+
+            message.put(messages);
+
+            limits[i] = messages.position();
+        }
+
+        messages.flip();
+
+        ITCH50Listener listener = new ITCH50ListenerAdapter() {
+
+            @Override
+            public void addOrder(AddOrder message) {
+                if (message.stockLocate == SUBSCRIBED)
+                    notional += message.price * message.shares;
+            }
+
+        };
+
+        parser = new ITCH50Parser(listener);
+
+        filter = new ITCH50SymbolFilter(new ITCH50Parser(listener));
+
+        StockDirectory stockDirectory = new StockDirectory();
+
+        stockDirectory.stockLocate = SUBSCRIBED;
+        stockDirectory.stock       = ITCH50Directory.encode("FOO");
+
+        ByteBuffer directory = ByteBuffer.allocate(MESSAGE_LENGTH_STOCK_DIRECTORY);
+
+        stockDirectory.put(directory);
+
+        directory.flip();
+
+        filter.subscribe("FOO");
+        filter.message(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long parser() throws IOException {
+        return consume(parser);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long filter() throws IOException {
+        return consume(filter);
+    }
+
+    private long consume(MessageListener listener) throws IOException {
+        notional = 0;
+
+        messages.position(0);
+
+        for (int i = 0; i < MESSAGES; i++) {
+            messages.limit(limits[i]);
+
+            listener.message(messages);
+
+            messages.limit(messages.capacity());
+        }
+
+        return notional;
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50Views.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time and allocation per message of the view parser on a
+ * message mix that follows a TotalView-ITCH 5.0 day file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class ITCH50ViewParserBenchmark {
+
+    private static final int MESSAGES = 100;
+
+    @Param({"heap", "direct"})
+    public String buffer;
+
+    private ByteBuffer messages;
+
+    private ITCH50ViewParser parser;
+
+    @Setup
+    public void prepare(Blackhole blackhole) {
+        messages = ITCH50Messages.allocate(64 * MESSAGES, buffer.equals("direct"));
+
+        if (ITCH50Messages.mix(messages) != MESSAGES)
+            throw new IllegalStateException();
+
+        messages.flip();
+
+        parser = new ITCH50ViewParser(new Listener(blackhole));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void message() throws IOException {
+        messages.position(0);
+
+        while (messages.hasRemaining())
+            parser.message(messages);
+    }
+
+    private static class Listener implements ITCH50ViewListener {
+
+        private final Blackhole blackhole;
+
+        Listener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void systemEvent(SystemEventView view) {
+            blackhole.consume(view.eventCode());
+        }
+
+        @Override
+        public void stockDirectory(StockDirectoryView view) {
+            blackhole.consume(view.stock());
+        }
+
+        @Override
+        public void stockTradingAction(StockTradingActionView view) {
+            blackhole.consume(view.tradingState());
+        }
+
+        @Override
+        public void regSHORestriction(RegSHORestrictionView view) {
+            blackhole.consume(view.regSHOAction());
+        }
+
+        @Override
+        public void marketParticipantPosition(MarketParticipantPositionView view) {
+            blackhole.consume(view.marketParticipantState());
+        }
+
+        @Override
+        public void mwcbDeclineLevel(MWCBDeclineLevelView view) {
+            blackhole.consume(view.level1());
+        }
+
+        @Override
+        public void mwcbStatus(MWCBStatusView view) {
+            blackhole.consume(view.breachedLevel());
+        }
+
+        @Override
+        public void ipoQuotingPeriodUpdate(IPOQuotingPeriodUpdateView view) {
+            blackhole.consume(view.ipoPrice());
+        }
+
+        @Override
+        public void luldAuctionCollar(LULDAuctionCollarView view) {
+            blackhole.consume(view.auctionCollarReferencePrice());
+        }
+
+        @Override
+        public void operationalHalt(OperationalHaltView view) {
+            blackhole.consume(view.operationalHaltAction());
+        }
+
+        @Override
+        public void addOrder(AddOrderView view) {
+            blackhole.consume(view.orderReferenceNumber());
+        }
+
+        @Override
+        public void addOrderMPID(AddOrderMPIDView view) {
+            blackhole.consume(view.orderReferenceNumber());
+        }
+
+        @Override
+        public void orderExecuted(OrderExecutedView view) {
+            blackhole.consume(view.orderReferenceNumber());
+        }
+
+        @Override
+        public void orderExecutedWithPrice(OrderExecutedWithPriceView view) {
+            blackhole.consume(view.orderReferenceNumber());
+        }
+
+        @Override
+        public void orderCancel(OrderCancelView view) {
+            blackhole.consume(view.orderReferenceNumber());
+        }
+
+        @Override
+        public void orderDelete(OrderDeleteView view) {
+            blackhole.consume(view.orderReferenceNumber());
+        }
+
+        @Override
+        public void orderReplace(OrderReplaceView view) {
+            blackhole.consume(view.newOrderReferenceNumber());
+        }
+
+        @Override
+        public void trade(TradeView view) {
+            blackhole.consume(view.matchNumber());
+        }
+
+        @Override
+        public void crossTrade(CrossTradeView view) {
+            blackhole.consume(view.matchNumber());
+        }
+
+        @Override
+        public void brokenTrade(BrokenTradeView view) {
+            blackhole.consume(view.matchNumber());
+        }
+
+        @Override
+        public void noii(NOIIView view) {
+            blackhole.consume(view.imbalanceShares());
+        }
+
+        @Override
+        public void rpii(RPIIView view) {
+            blackhole.consume(view.interestFlag());
+        }
+
+    }
+
+}
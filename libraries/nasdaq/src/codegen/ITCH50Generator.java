@@ -0,0 +1,563 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A code generator for the message classes, parsers and listeners.
+ *
+ * <p>The generator reads a message schema and expands the placeholders in
+ * each template. A placeholder is a line of the form {@code @name@}. The
+ * generated lines are indented like the placeholder.</p>
+ *
+ * <p>Run the generator with the Java launcher:</p>
+ *
+ * <pre>
+ * java ITCH50Generator.java &lt;schema&gt; &lt;template-directory&gt; &lt;output-directory&gt;
+ * </pre>
+ */
+public class ITCH50Generator {
+
+    private static final String TEMPLATE_SUFFIX = ".in";
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("^( *)@([a-z]+)@$");
+
+    private static final Pattern MESSAGE = Pattern.compile("^message +(\\w+) +(\\w+) +(\\w+) +(an?) +\"([^\"]+)\"(?: +([0-9.]+))?$");
+
+    private static final Pattern FIELD = Pattern.compile("^ +(\\w+) +(u16|u32|byte|short|int|long)$");
+
+    /*
+     * The header fields after the Message Type field: Stock Locate,
+     * Tracking Number and Timestamp.
+     */
+    private static final int HEADER_FIELDS = 4;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3)
+            usage();
+
+        List<Message> messages = parse(Paths.get(args[0]));
+
+        Path templates = Paths.get(args[1]);
+        Path output    = Paths.get(args[2]);
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(templates, "*" + TEMPLATE_SUFFIX)) {
+            for (Path template : stream) {
+                String name = template.getFileName().toString();
+
+                Path file = output.resolve(name.substring(0, name.length() - TEMPLATE_SUFFIX.length()));
+
+                Files.write(file, expand(template, messages), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: ITCH50Generator <schema> <template-directory> <output-directory>");
+        System.exit(2);
+    }
+
+    private static List<Message> parse(Path schema) throws IOException {
+        List<Message> messages = new ArrayList<>();
+
+        Message message = null;
+
+        int lineNumber = 0;
+
+        for (String line : Files.readAllLines(schema, StandardCharsets.UTF_8)) {
+            lineNumber++;
+
+            if (line.isBlank() || line.startsWith("#"))
+                continue;
+
+            Matcher matcher = MESSAGE.matcher(line);
+            if (matcher.matches()) {
+                message = new Message(matcher.group(1), matcher.group(2), matcher.group(3),
+                        matcher.group(4), matcher.group(5), matcher.group(6));
+
+                messages.add(message);
+                continue;
+            }
+
+            matcher = FIELD.matcher(line);
+            if (matcher.matches() && message != null) {
+                message.add(new Field(matcher.group(1), Type.valueOf(matcher.group(2).toUpperCase())));
+                continue;
+            }
+
+            throw new IOException(schema + ":" + lineNumber + ": Malformed line: " + line);
+        }
+
+        for (Message m : messages) {
+            if (m.fields.size() < HEADER_FIELDS)
+                throw new IOException(schema + ": Missing header fields: " + m.name);
+        }
+
+        return messages;
+    }
+
+    private static List<String> expand(Path template, List<Message> messages) throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        for (String line : Files.readAllLines(template, StandardCharsets.UTF_8)) {
+            Matcher matcher = PLACEHOLDER.matcher(line);
+            if (!matcher.matches()) {
+                lines.add(line);
+                continue;
+            }
+
+            String indent = matcher.group(1);
+
+            for (String generated : generate(template, matcher.group(2), messages))
+                lines.add(generated.isEmpty() ? generated : indent + generated);
+        }
+
+        return lines;
+    }
+
+    private static List<String> generate(Path template, String placeholder, List<Message> messages) throws IOException {
+        String name = template.getFileName().toString();
+
+        Code code = new Code();
+
+        switch (name.substring(0, name.length() - TEMPLATE_SUFFIX.length()) + "@" + placeholder) {
+        case "ITCH50.java@messages":
+            messages(code, messages);
+            break;
+        case "ITCH50Listener.java@methods":
+            listenerMethods(code, messages, "", "message", "message");
+            break;
+        case "ITCH50ListenerAdapter.java@methods":
+            adapterMethods(code, messages);
+            break;
+        case "ITCH50Parser.java@fields":
+            parserFields(code, messages, "private ", "");
+            break;
+        case "ITCH50Parser.java@allocations":
+            parserAllocations(code, messages, "");
+            break;
+        case "ITCH50Parser.java@cases":
+            parserCases(code, messages);
+            break;
+        case "ITCH50Views.java@views":
+            views(code, messages);
+            break;
+        case "ITCH50ViewListener.java@methods":
+            listenerMethods(code, messages, "View", "view", "message view");
+            break;
+        case "ITCH50ViewParser.java@fields":
+            parserFields(code, messages, "private final ", "View");
+            break;
+        case "ITCH50ViewParser.java@allocations":
+            parserAllocations(code, messages, "View");
+            break;
+        case "ITCH50ViewParser.java@cases":
+            viewParserCases(code, messages);
+            break;
+        default:
+            throw new IOException(template + ": Unknown placeholder: " + placeholder);
+        }
+
+        return code.lines;
+    }
+
+    private static void messages(Code code, List<Message> messages) {
+        for (Message message : messages) {
+            if (message != messages.get(0))
+                code.line("");
+
+            code.line("/**");
+            code.line(" * %s.", message.doc());
+            code.line(" */");
+            code.line("public static class %s implements Message {", message.name);
+
+            int typeWidth = 0;
+
+            for (Field field : message.fields)
+                typeWidth = Math.max(typeWidth, field.type.javaType.length());
+
+            for (Field field : message.fields)
+                code.line("    public %s %s;", pad(field.type.javaType, typeWidth), field.name);
+
+            code.line("");
+            code.line("    @Override");
+            code.line("    public void get(ByteBuffer buffer) {");
+
+            decode(code, message);
+
+            code.line("    }");
+            code.line("");
+            code.line("    @Override");
+            code.line("    public void put(ByteBuffer buffer) {");
+            code.line("        buffer.put(MESSAGE_TYPE_%s);", message.messageType);
+
+            for (Field field : message.fields)
+                code.line("        %s;", field.type.put(field.name));
+
+            code.line("    }");
+            code.line("");
+            code.line("    /**");
+            code.line("     * Get the Timestamp.");
+            code.line("     *");
+            code.line("     * @return the Timestamp as nanoseconds since midnight");
+            code.line("     */");
+            code.line("    public long timestamp() {");
+            code.line("        return ((long)timestampHigh << 32) | timestampLow;");
+            code.line("    }");
+            code.line("}");
+        }
+    }
+
+    /*
+     * Decode the fields with absolute reads after a single bounds check.
+     * Adjacent fields that fit into a word are decoded from one wide read.
+     * A wide read may extend past the last field in the word, but never
+     * past the end of the message.
+     */
+    private static void decode(Code code, Message message) {
+        List<Field> fields = message.fields;
+
+        int length = 0;
+
+        for (Field field : fields)
+            length += field.type.size;
+
+        List<int[]>  words  = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+
+        int offset = 0;
+
+        for (int i = 0; i < fields.size(); ) {
+            int end  = i;
+            int size = 0;
+
+            while (end < fields.size() && size + fields.get(end).type.size <= Long.BYTES)
+                size += fields.get(end++).type.size;
+
+            while (end - i > 1 && offset + width(size) > length)
+                size -= fields.get(--end).type.size;
+
+            if (end - i == 1) {
+                values.add(fields.get(i).type.get(offset));
+            } else {
+                String word = "word" + words.size();
+
+                int width = width(size);
+
+                words.add(new int[] { width, offset });
+
+                int position = 0;
+
+                for (int j = i; j < end; j++) {
+                    Type type = fields.get(j).type;
+
+                    values.add(type.extract(word, width, (width - position - type.size) * Byte.SIZE));
+
+                    position += type.size;
+                }
+            }
+
+            for (int j = i; j < end; j++)
+                offset += fields.get(j).type.size;
+
+            i = end;
+        }
+
+        code.line("        int offset = advance(buffer, MESSAGE_LENGTH_%s - 1);", message.messageType);
+        code.line("");
+
+        if (!words.isEmpty()) {
+            int typeWidth = 0;
+
+            for (int[] word : words)
+                typeWidth = Math.max(typeWidth, wordType(word[0]).length());
+
+            for (int i = 0; i < words.size(); i++) {
+                int width = words.get(i)[0];
+                int index = words.get(i)[1];
+
+                code.line("        %s word%d = buffer.%s(%s);", pad(wordType(width), typeWidth), i,
+                        wordGetter(width), index == 0 ? "offset" : "offset + " + index);
+            }
+
+            code.line("");
+        }
+
+        int nameWidth = message.nameWidth();
+
+        for (int i = 0; i < fields.size(); i++)
+            code.line("        %s = %s;", pad(fields.get(i).name, nameWidth), values.get(i));
+    }
+
+    private static int width(int size) {
+        return size <= Short.BYTES ? Short.BYTES : size <= Integer.BYTES ? Integer.BYTES : Long.BYTES;
+    }
+
+    private static String wordType(int width) {
+        return width == Short.BYTES ? "short" : width == Integer.BYTES ? "int" : "long";
+    }
+
+    private static String wordGetter(int width) {
+        return width == Short.BYTES ? "getShort" : width == Integer.BYTES ? "getInt" : "getLong";
+    }
+
+    private static void listenerMethods(Code code, List<Message> messages, String suffix,
+            String parameter, String parameterDoc) {
+        for (Message message : messages) {
+            if (message != messages.get(0))
+                code.line("");
+
+            code.line("/**");
+            code.line(" * Receive %s %s message.", message.article, message.title);
+            code.line(" *");
+            code.line(" * @param %s the %s", parameter, parameterDoc);
+            code.line(" * @throws IOException if an I/O error occurs");
+            code.line(" */");
+            code.line("void %s(%s%s %s) throws IOException;", message.method, message.name, suffix, parameter);
+        }
+    }
+
+    private static void adapterMethods(Code code, List<Message> messages) {
+        for (Message message : messages) {
+            if (message != messages.get(0))
+                code.line("");
+
+            code.line("@Override");
+            code.line("public void %s(%s message) throws IOException {", message.method, message.name);
+            code.line("}");
+        }
+    }
+
+    private static void parserFields(Code code, List<Message> messages, String modifiers, String suffix) {
+        int typeWidth = 0;
+
+        for (Message message : messages)
+            typeWidth = Math.max(typeWidth, message.name.length() + suffix.length());
+
+        for (Message message : messages)
+            code.line("%s%s %s;", modifiers, pad(message.name + suffix, typeWidth), message.method);
+    }
+
+    private static void parserAllocations(Code code, List<Message> messages, String suffix) {
+        int nameWidth = 0;
+
+        for (Message message : messages)
+            nameWidth = Math.max(nameWidth, message.method.length());
+
+        for (Message message : messages)
+            code.line("this.%s = new %s%s();", pad(message.method, nameWidth), message.name, suffix);
+    }
+
+    private static void parserCases(Code code, List<Message> messages) {
+        for (Message message : messages) {
+            code.line("case MESSAGE_TYPE_%s:", message.messageType);
+            code.line("    %s.get(buffer);", message.method);
+            code.line("    listener.%s(%s);", message.method, message.method);
+            code.line("    break;");
+        }
+    }
+
+    private static void viewParserCases(Code code, List<Message> messages) {
+        for (Message message : messages) {
+            code.line("case MESSAGE_TYPE_%s:", message.messageType);
+            code.line("    %s.wrap(buffer, skip(buffer, MESSAGE_LENGTH_%s));", message.method, message.messageType);
+            code.line("    listener.%s(%s);", message.method, message.method);
+            code.line("    break;");
+        }
+    }
+
+    private static void views(Code code, List<Message> messages) {
+        for (Message message : messages) {
+            if (message != messages.get(0))
+                code.line("");
+
+            code.line("/**");
+            code.line(" * A view over %s %s message.", message.article, message.titleAndSection());
+            code.line(" */");
+            code.line("public static class %sView extends View {", message.name);
+            code.line("");
+            code.line("    @Override");
+            code.line("    public int length() {");
+            code.line("        return MESSAGE_LENGTH_%s;", message.messageType);
+            code.line("    }");
+
+            Field stockLocate = message.fields.get(0);
+            if (!stockLocate.name.equals("stockLocate")) {
+                code.line("");
+                code.line("    public %s %s() {", stockLocate.type.javaType, stockLocate.name);
+                code.line("        return stockLocate();");
+                code.line("    }");
+            }
+
+            int offset = 1;
+
+            for (Field field : message.fields) {
+                if (message.fields.indexOf(field) >= HEADER_FIELDS) {
+                    code.line("");
+                    code.line("    public %s %s() {", field.type.javaType, field.name);
+                    code.line("        return %s;", field.type.get(offset));
+                    code.line("    }");
+                }
+
+                offset += field.type.size;
+            }
+
+            code.line("}");
+        }
+    }
+
+    private static String pad(String s, int width) {
+        StringBuilder builder = new StringBuilder(s);
+
+        while (builder.length() < width)
+            builder.append(' ');
+
+        return builder.toString();
+    }
+
+    private enum Type {
+        U16(2, "int", "getUnsignedShort(buffer%s)", "putUnsignedShort(buffer, %s)"),
+        U32(4, "long", "getUnsignedInt(buffer%s)", "putUnsignedInt(buffer, %s)"),
+        BYTE(1, "byte", "buffer.get(%s)", "buffer.put(%s)"),
+        SHORT(2, "short", "buffer.getShort(%s)", "buffer.putShort(%s)"),
+        INT(4, "int", "buffer.getInt(%s)", "buffer.putInt(%s)"),
+        LONG(8, "long", "buffer.getLong(%s)", "buffer.putLong(%s)");
+
+        final int    size;
+        final String javaType;
+        final String get;
+        final String put;
+
+        Type(int size, String javaType, String get, String put) {
+            this.size     = size;
+            this.javaType = javaType;
+            this.get      = get;
+            this.put      = put;
+        }
+
+        String get() {
+            return String.format(get, "");
+        }
+
+        String get(int offset) {
+            String index = "offset + " + offset;
+
+            return String.format(get, get.startsWith("buffer.") ? index : ", " + index);
+        }
+
+        String put(String value) {
+            return String.format(put, value);
+        }
+
+        String extract(String word, int width, int shift) {
+            String shifted = shift == 0 ? word : "(" + word + " >>> " + shift + ")";
+
+            boolean top = shift + size * Byte.SIZE == width * Byte.SIZE;
+
+            switch (this) {
+            case U16:
+                if (width == Long.BYTES)
+                    return top ? "(int)" + shifted : "(int)" + shifted + " & 0xffff";
+                if (width == Integer.BYTES)
+                    return top ? word + " >>> " + shift : shifted + " & 0xffff";
+                return word + " & 0xffff";
+            case U32:
+                if (width == Long.BYTES)
+                    return top ? word + " >>> " + shift : shifted + " & 0xffffffffL";
+                return word + " & 0xffffffffL";
+            case BYTE:
+                return "(byte)" + shifted;
+            case SHORT:
+                return width == Short.BYTES ? word : "(short)" + shifted;
+            case INT:
+                return width == Integer.BYTES ? word : "(int)" + shifted;
+            default:
+                return word;
+            }
+        }
+    }
+
+    private static class Field {
+        final String name;
+        final Type   type;
+
+        Field(String name, Type type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private static class Message {
+        final String name;
+        final String method;
+        final String messageType;
+        final String article;
+        final String title;
+        final String section;
+
+        final List<Field> fields;
+
+        Message(String name, String method, String messageType, String article, String title, String section) {
+            this.name        = name;
+            this.method      = method;
+            this.messageType = messageType;
+            this.article     = article;
+            this.title       = title;
+            this.section     = section;
+
+            this.fields = new ArrayList<>();
+        }
+
+        void add(Field field) {
+            fields.add(field);
+        }
+
+        String titleAndSection() {
+            return section != null ? title + " (" + section + ")" : title;
+        }
+
+        String doc() {
+            return Character.toUpperCase(article.charAt(0)) + article.substring(1) + " " + titleAndSection() + " message";
+        }
+
+        int nameWidth() {
+            int width = 0;
+
+            for (Field field : fields)
+                width = Math.max(width, field.name.length());
+
+            return width;
+        }
+    }
+
+    private static class Code {
+        final List<String> lines = new ArrayList<>();
+
+        void line(String format, Object... args) {
+            lines.add(String.format(format, args));
+        }
+    }
+
+}
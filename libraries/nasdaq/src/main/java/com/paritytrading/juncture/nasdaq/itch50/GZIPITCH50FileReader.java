@@ -0,0 +1,939 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A reader for gzip-compressed NASDAQ TotalView-ITCH 5.0 files.
+ *
+ * <p>A file consists of messages, each preceded by a two-byte length field.
+ * The reader decompresses the file on a dedicated thread into two buffers:
+ * while the listener processes the messages in one buffer, the other buffer
+ * is filled. A message that crosses the end of a buffer is reassembled
+ * before it is passed to the message listener.</p>
+ *
+ * <p>If a thread pool is given, the members of a multi-member gzip file are
+ * inflated in parallel. As member boundaries are not known in advance, the
+ * reader speculatively inflates members from the offsets that look like
+ * member headers and uses the results that line up with the end of the
+ * preceding member. A member that is larger than the buffer size, or whose
+ * speculative inflation fails, is inflated sequentially. The buffers and
+ * inflaters are pooled across members.</p>
+ */
+public class GZIPITCH50FileReader implements Closeable {
+
+    /**
+     * The default buffer size.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    private static final int MIN_BUFFER_SIZE = 2 + 65535;
+
+    private static final int INPUT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int ID1 = 0x1f;
+    private static final int ID2 = 0x8b;
+    private static final int CM  = 8;
+
+    private static final int FHCRC     = 0x02;
+    private static final int FEXTRA    = 0x04;
+    private static final int FNAME     = 0x08;
+    private static final int FCOMMENT  = 0x10;
+    private static final int FRESERVED = 0xe0;
+
+    private static final long POLL_TIMEOUT_MILLIS = 10;
+
+    private static final Block END = new Block(0);
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final FileChannel channel;
+
+    private final MessageListener listener;
+
+    private final ForkJoinPool pool;
+
+    private final int bufferSize;
+
+    private final long size;
+
+    private final BlockingQueue<Block> empty;
+    private final BlockingQueue<Block> full;
+
+    private final ByteBuffer carry;
+
+    private volatile boolean stopped;
+
+    private IOException failure;
+
+    /**
+     * Create a reader that inflates members sequentially.
+     *
+     * @param channel the input channel
+     * @param listener the message listener
+     * @throws IOException if an I/O error occurs
+     */
+    public GZIPITCH50FileReader(FileChannel channel, MessageListener listener) throws IOException {
+        this(channel, listener, null, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a reader.
+     *
+     * @param channel the input channel
+     * @param listener the message listener
+     * @param pool the thread pool for inflating members in parallel or
+     *   {@code null} to inflate members sequentially
+     * @param bufferSize the buffer size
+     * @throws IllegalArgumentException if the buffer size is less than the
+     *   maximum length of a message including the length field
+     * @throws IOException if an I/O error occurs
+     */
+    public GZIPITCH50FileReader(FileChannel channel, MessageListener listener,
+            ForkJoinPool pool, int bufferSize) throws IOException {
+        if (bufferSize < MIN_BUFFER_SIZE)
+            throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+
+        this.channel    = channel;
+        this.listener   = listener;
+        this.pool       = pool;
+        this.bufferSize = bufferSize;
+
+        this.size = channel.size();
+
+        this.empty = new ArrayBlockingQueue<>(2);
+        this.full  = new ArrayBlockingQueue<>(3);
+
+        this.empty.add(new Block(bufferSize));
+        this.empty.add(new Block(bufferSize));
+
+        this.carry = ByteBuffer.allocate(MIN_BUFFER_SIZE);
+    }
+
+    /**
+     * Open a reader that inflates members sequentially.
+     *
+     * @param file the input file
+     * @param listener the message listener
+     * @return a reader
+     * @throws IOException if an I/O error occurs
+     */
+    public static GZIPITCH50FileReader open(File file, MessageListener listener) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            return new GZIPITCH50FileReader(channel, listener);
+        } catch (IOException e) {
+            channel.close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Read all messages until the end of the file.
+     *
+     * @return the number of messages read
+     * @throws ITCH50Exception if the file ends in the middle of a message
+     * @throws ZipException if the file is not a valid gzip file
+     * @throws IOException if an I/O error occurs
+     */
+    public long readAll() throws IOException {
+        Source source = pool != null ? new ParallelSource() : new StreamingSource();
+
+        Thread thread = new Thread(() -> decompress(source), "GZIPITCH50FileReader");
+
+        thread.start();
+
+        long messages = 0;
+
+        Block block = null;
+
+        try {
+            while (true) {
+                block = full.take();
+                if (block == END)
+                    break;
+
+                messages += parse(block.buffer);
+
+                empty.put(block);
+
+                block = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException();
+        } finally {
+            if (block != END) {
+                stopped = true;
+
+                if (block != null)
+                    empty.add(block);
+            }
+
+            join(thread);
+        }
+
+        if (failure != null)
+            throw failure;
+
+        if (carry.position() > 0)
+            throw new ITCH50Exception("Unexpected end of file");
+
+        return messages;
+    }
+
+    /**
+     * Close the underlying channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long parse(ByteBuffer buffer) throws IOException {
+        long messages = 0;
+
+        if (carry.position() > 0) {
+            if (!complete(buffer))
+                return 0;
+
+            carry.flip();
+            carry.position(2);
+
+            listener.message(carry);
+
+            carry.clear();
+
+            messages++;
+        }
+
+        int limit = buffer.limit();
+
+        while (buffer.remaining() >= 2) {
+            int position = buffer.position();
+
+            int next = position + 2 + (buffer.getShort(position) & 0xffff);
+            if (next > limit)
+                break;
+
+            buffer.limit(next);
+            buffer.position(position + 2);
+
+            listener.message(buffer);
+
+            buffer.limit(limit);
+            buffer.position(next);
+
+            messages++;
+        }
+
+        carry.put(buffer);
+
+        return messages;
+    }
+
+    private boolean complete(ByteBuffer buffer) {
+        if (carry.position() < 2)
+            take(buffer, 2 - carry.position());
+
+        if (carry.position() < 2)
+            return false;
+
+        int length = 2 + (carry.getShort(0) & 0xffff);
+
+        take(buffer, length - carry.position());
+
+        return carry.position() == length;
+    }
+
+    private void take(ByteBuffer buffer, int count) {
+        int limit = buffer.limit();
+
+        buffer.limit(buffer.position() + Math.min(count, buffer.remaining()));
+
+        carry.put(buffer);
+
+        buffer.limit(limit);
+    }
+
+    private void decompress(Source source) {
+        try {
+            boolean eof = false;
+
+            while (!eof) {
+                Block block = empty.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (stopped)
+                    break;
+
+                if (block == null)
+                    continue;
+
+                byte[] array = block.buffer.array();
+
+                int length = 0;
+
+                while (length < array.length && !stopped) {
+                    int count = source.read(array, length, array.length - length);
+                    if (count < 0) {
+                        eof = true;
+                        break;
+                    }
+
+                    length += count;
+                }
+
+                block.buffer.limit(length);
+                block.buffer.position(0);
+
+                full.add(block);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException();
+        } catch (Throwable e) {
+            /*
+             * Any failure must reach the reader thread, as otherwise the
+             * file would appear to end here.
+             */
+            failure = new IOException(e);
+        } finally {
+            try {
+                source.close();
+            } finally {
+                full.add(END);
+            }
+        }
+    }
+
+    private static void join(Thread thread) {
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private static class Block {
+
+        final ByteBuffer buffer;
+
+        Block(int capacity) {
+            this.buffer = ByteBuffer.allocate(capacity);
+        }
+
+    }
+
+    private interface Source {
+
+        int read(byte[] b, int off, int len) throws IOException;
+
+        void close();
+
+    }
+
+    private class StreamingSource implements Source {
+
+        private final Member member;
+
+        private boolean inMember;
+
+        private long members;
+
+        StreamingSource() {
+            this.member = new Member(new Input(0, ByteBuffer.allocate(INPUT_BUFFER_SIZE)), new Inflater(true));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (true) {
+                if (!inMember) {
+                    if (!member.header()) {
+                        if (members == 0)
+                            throw new ZipException("Not in GZIP format");
+
+                        return -1;
+                    }
+
+                    inMember = true;
+
+                    members++;
+                }
+
+                int count = member.inflate(b, off, len);
+                if (count >= 0)
+                    return count;
+
+                member.reset();
+
+                inMember = false;
+            }
+        }
+
+        @Override
+        public void close() {
+            member.end();
+        }
+
+    }
+
+    private class ParallelSource implements Source {
+
+        private final int window;
+
+        private final ArrayDeque<Candidate> candidates;
+
+        private final byte[] scanBuffer;
+
+        private final Queue<byte[]> dataBuffers;
+
+        private final Queue<ByteBuffer> inputBuffers;
+
+        private final Queue<Inflater> inflaters;
+
+        private long scanPosition;
+
+        private long expected;
+
+        private Result current;
+
+        private int currentOffset;
+
+        ParallelSource() {
+            this.window = 2 * pool.getParallelism();
+
+            this.candidates = new ArrayDeque<>();
+
+            this.scanBuffer = new byte[INPUT_BUFFER_SIZE];
+
+            this.dataBuffers  = new ConcurrentLinkedQueue<>();
+            this.inputBuffers = new ConcurrentLinkedQueue<>();
+            this.inflaters    = new ConcurrentLinkedQueue<>();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (true) {
+                if (current != null) {
+                    if (currentOffset < current.length) {
+                        int count = Math.min(len, current.length - currentOffset);
+
+                        System.arraycopy(current.data, currentOffset, b, off, count);
+
+                        currentOffset += count;
+
+                        return count;
+                    }
+
+                    if (current.member == null) {
+                        expected = current.end;
+
+                        release(current);
+
+                        current = null;
+                        continue;
+                    }
+
+                    int count = current.member.inflate(b, off, len);
+                    if (count >= 0)
+                        return count;
+
+                    expected = current.member.offset();
+
+                    release(current);
+
+                    current = null;
+                    continue;
+                }
+
+                if (expected >= size)
+                    return -1;
+
+                schedule();
+
+                Result result = null;
+
+                Candidate candidate = candidates.peekFirst();
+                if (candidate != null && candidate.offset == expected) {
+                    candidates.removeFirst();
+
+                    result = candidate.task.join();
+                }
+
+                if (result == null) {
+                    Member member = member(expected);
+
+                    if (!member.header()) {
+                        recycle(member);
+
+                        if (expected == 0)
+                            throw new ZipException("Not in GZIP format");
+
+                        return -1;
+                    }
+
+                    result = new Result(EMPTY, 0, member, -1);
+                }
+
+                current       = result;
+                currentOffset = 0;
+            }
+        }
+
+        @Override
+        public void close() {
+            for (Candidate candidate : candidates)
+                abandon(candidate);
+
+            /*
+             * An abandoned task returns its buffers and inflater to the
+             * pools before it completes.
+             */
+            for (Candidate candidate : candidates)
+                candidate.task.quietlyJoin();
+
+            candidates.clear();
+
+            release(current);
+
+            current = null;
+
+            while (true) {
+                Inflater inflater = inflaters.poll();
+                if (inflater == null)
+                    break;
+
+                inflater.end();
+            }
+        }
+
+        private void schedule() throws IOException {
+            while (!candidates.isEmpty() && candidates.peekFirst().offset < expected)
+                abandon(candidates.removeFirst());
+
+            scanPosition = Math.max(scanPosition, expected);
+
+            long scanLimit = Math.min(expected + (long)window * bufferSize, size);
+
+            while (candidates.size() < window && scanPosition < scanLimit) {
+                int length = readAt(scanBuffer, scanPosition);
+
+                int i = 0;
+
+                while (i + 3 < length && candidates.size() < window) {
+                    if (isHeader(scanBuffer, i)) {
+                        Candidate candidate = new Candidate(scanPosition + i);
+
+                        candidate.task = pool.submit(() -> speculate(candidate));
+
+                        candidates.addLast(candidate);
+                    }
+
+                    i++;
+                }
+
+                /*
+                 * The last three bytes are scanned again with the next
+                 * bytes, unless the end of the file has been reached.
+                 */
+                if (length < scanBuffer.length && i + 3 >= length)
+                    scanPosition = size;
+                else
+                    scanPosition += i;
+            }
+        }
+
+        private int readAt(byte[] buffer, long position) throws IOException {
+            ByteBuffer wrapper = ByteBuffer.wrap(buffer);
+
+            while (wrapper.hasRemaining()) {
+                int count = channel.read(wrapper, position + wrapper.position());
+                if (count < 0)
+                    break;
+            }
+
+            return wrapper.position();
+        }
+
+        private Result speculate(Candidate candidate) {
+            Result result = inflate(candidate);
+
+            if (!candidate.state.compareAndSet(Candidate.PENDING, Candidate.DONE)) {
+                release(result);
+
+                return null;
+            }
+
+            return result;
+        }
+
+        private Result inflate(Candidate candidate) {
+            Member member = member(candidate.offset);
+
+            byte[] data = null;
+
+            try {
+                if (!member.header()) {
+                    recycle(member);
+
+                    return null;
+                }
+
+                data = dataBuffer();
+
+                int length = 0;
+
+                while (candidate.state.get() == Candidate.PENDING) {
+                    if (length == data.length)
+                        return new Result(data, length, member, -1);
+
+                    int count = member.inflate(data, length, data.length - length);
+                    if (count < 0) {
+                        long end = member.offset();
+
+                        recycle(member);
+
+                        return new Result(data, length, null, end);
+                    }
+
+                    length += count;
+                }
+            } catch (IOException | RuntimeException e) {
+                /*
+                 * A member that fails to inflate speculatively is inflated
+                 * sequentially, which reports the failure.
+                 */
+            }
+
+            recycle(member);
+
+            if (data != null)
+                dataBuffers.add(data);
+
+            return null;
+        }
+
+        private void abandon(Candidate candidate) {
+            if (!candidate.state.compareAndSet(Candidate.PENDING, Candidate.ABANDONED))
+                release(candidate.task.join());
+        }
+
+        private Member member(long offset) {
+            ByteBuffer buffer = inputBuffers.poll();
+            if (buffer == null)
+                buffer = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+
+            Inflater inflater = inflaters.poll();
+            if (inflater == null)
+                inflater = new Inflater(true);
+
+            return new Member(new Input(offset, buffer), inflater);
+        }
+
+        private byte[] dataBuffer() {
+            byte[] data = dataBuffers.poll();
+
+            return data != null ? data : new byte[bufferSize];
+        }
+
+        private void release(Result result) {
+            if (result == null)
+                return;
+
+            if (result.data != EMPTY)
+                dataBuffers.add(result.data);
+
+            if (result.member != null)
+                recycle(result.member);
+        }
+
+        private void recycle(Member member) {
+            member.reset();
+
+            inflaters.add(member.inflater);
+            inputBuffers.add(member.input.buffer);
+        }
+
+    }
+
+    private static boolean isHeader(byte[] buffer, int offset) {
+        return (buffer[offset] & 0xff) == ID1 && (buffer[offset + 1] & 0xff) == ID2 &&
+            buffer[offset + 2] == CM && (buffer[offset + 3] & FRESERVED) == 0;
+    }
+
+    /*
+     * A member header candidate. The task inflating the candidate and the
+     * reader race to complete or abandon the candidate, and the loser
+     * releases the result.
+     */
+    private static class Candidate {
+
+        static final int PENDING   = 0;
+        static final int DONE      = 1;
+        static final int ABANDONED = 2;
+
+        final long offset;
+
+        final AtomicInteger state;
+
+        ForkJoinTask<Result> task;
+
+        Candidate(long offset) {
+            this.offset = offset;
+            this.state  = new AtomicInteger(PENDING);
+        }
+
+    }
+
+    /*
+     * The inflated data of a member. If the member is larger than the data,
+     * the rest of the member is inflated from the member inflater.
+     */
+    private static class Result {
+
+        final byte[] data;
+
+        final int length;
+
+        final Member member;
+
+        final long end;
+
+        Result(byte[] data, int length, Member member, long end) {
+            this.data   = data;
+            this.length = length;
+            this.member = member;
+            this.end    = end;
+        }
+
+    }
+
+    private class Input {
+
+        private final ByteBuffer buffer;
+
+        private long end;
+
+        Input(long offset, ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.buffer.clear();
+            this.buffer.flip();
+
+            this.end = offset;
+        }
+
+        long offset() {
+            return end - buffer.remaining();
+        }
+
+        boolean hasRemaining() throws IOException {
+            return buffer.hasRemaining() || fill();
+        }
+
+        int get() throws IOException {
+            if (!hasRemaining())
+                throw new ZipException("Unexpected end of GZIP input");
+
+            return buffer.get() & 0xff;
+        }
+
+        void feed(Inflater inflater) throws IOException {
+            if (!hasRemaining())
+                throw new ZipException("Unexpected end of GZIP input");
+
+            inflater.setInput(buffer.array(), buffer.position(), buffer.remaining());
+
+            buffer.position(buffer.limit());
+        }
+
+        void unread(int count) {
+            buffer.position(buffer.position() - count);
+        }
+
+        private boolean fill() throws IOException {
+            buffer.compact();
+
+            int count = 0;
+
+            while (count == 0 && end < size)
+                count = channel.read(buffer, end);
+
+            buffer.flip();
+
+            if (count <= 0)
+                return false;
+
+            end += count;
+
+            return true;
+        }
+
+    }
+
+    private static class Member {
+
+        private final Input input;
+
+        private final Inflater inflater;
+
+        private final CRC32 checksum;
+
+        private long inflated;
+
+        Member(Input input, Inflater inflater) {
+            this.input    = input;
+            this.inflater = inflater;
+            this.checksum = new CRC32();
+        }
+
+        long offset() {
+            return input.offset();
+        }
+
+        boolean header() throws IOException {
+            if (!input.hasRemaining())
+                return false;
+
+            if (input.get() != ID1)
+                return false;
+
+            if (input.get() != ID2 || input.get() != CM)
+                throw new ZipException("Not in GZIP format");
+
+            int flags = input.get();
+            if ((flags & FRESERVED) != 0)
+                throw new ZipException("Unsupported GZIP flags: " + flags);
+
+            skip(6);
+
+            if ((flags & FEXTRA) != 0)
+                skip(input.get() | input.get() << 8);
+
+            if ((flags & FNAME) != 0)
+                skipString();
+
+            if ((flags & FCOMMENT) != 0)
+                skipString();
+
+            if ((flags & FHCRC) != 0)
+                skip(2);
+
+            return true;
+        }
+
+        int inflate(byte[] b, int off, int len) throws IOException {
+            try {
+                while (true) {
+                    int count = inflater.inflate(b, off, len);
+                    if (count > 0) {
+                        checksum.update(b, off, count);
+
+                        inflated += count;
+
+                        return count;
+                    }
+
+                    if (inflater.finished()) {
+                        input.unread(inflater.getRemaining());
+
+                        trailer();
+
+                        return -1;
+                    }
+
+                    if (inflater.needsDictionary())
+                        throw new ZipException("Unexpected preset dictionary");
+
+                    if (inflater.needsInput())
+                        input.feed(inflater);
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+        }
+
+        void reset() {
+            inflater.reset();
+            checksum.reset();
+
+            inflated = 0;
+        }
+
+        void end() {
+            inflater.end();
+        }
+
+        private void trailer() throws IOException {
+            long crc   = getInt();
+            long isize = getInt();
+
+            if (crc != checksum.getValue() || isize != (inflated & 0xffffffffL))
+                throw new ZipException("Corrupt GZIP trailer");
+        }
+
+        private long getInt() throws IOException {
+            return input.get() | input.get() << 8 | input.get() << 16 | (long)input.get() << 24;
+        }
+
+        private void skip(int count) throws IOException {
+            for (int i = 0; i < count; i++)
+                input.get();
+        }
+
+        private void skipString() throws IOException {
+            while (true) {
+                if (input.get() == 0)
+                    break;
+            }
+        }
+
+    }
+
+}
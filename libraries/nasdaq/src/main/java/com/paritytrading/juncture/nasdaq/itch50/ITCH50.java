@@ -60,6 +60,32 @@ public class ITCH50 {
     public static final byte MESSAGE_TYPE_NOII                        = 'I';
     public static final byte MESSAGE_TYPE_RPII                        = 'N';
 
+    /*
+     * Message lengths, including the Message Type field.
+     */
+    public static final int MESSAGE_LENGTH_SYSTEM_EVENT                = 12;
+    public static final int MESSAGE_LENGTH_STOCK_DIRECTORY             = 39;
+    public static final int MESSAGE_LENGTH_STOCK_TRADING_ACTION        = 25;
+    public static final int MESSAGE_LENGTH_REG_SHO_RESTRICTION         = 20;
+    public static final int MESSAGE_LENGTH_MARKET_PARTICIPANT_POSITION = 26;
+    public static final int MESSAGE_LENGTH_MWCB_DECLINE_LEVEL          = 35;
+    public static final int MESSAGE_LENGTH_MWCB_STATUS                 = 12;
+    public static final int MESSAGE_LENGTH_IPO_QUOTING_PERIOD_UPDATE   = 28;
+    public static final int MESSAGE_LENGTH_LULD_AUCTION_COLLAR         = 35;
+    public static final int MESSAGE_LENGTH_OPERATIONAL_HALT            = 21;
+    public static final int MESSAGE_LENGTH_ADD_ORDER                   = 36;
+    public static final int MESSAGE_LENGTH_ADD_ORDER_MPID              = 40;
+    public static final int MESSAGE_LENGTH_ORDER_EXECUTED              = 31;
+    public static final int MESSAGE_LENGTH_ORDER_EXECUTED_WITH_PRICE   = 36;
+    public static final int MESSAGE_LENGTH_ORDER_CANCEL                = 23;
+    public static final int MESSAGE_LENGTH_ORDER_DELETE                = 19;
+    public static final int MESSAGE_LENGTH_ORDER_REPLACE               = 35;
+    public static final int MESSAGE_LENGTH_TRADE                       = 44;
+    public static final int MESSAGE_LENGTH_CROSS_TRADE                 = 40;
+    public static final int MESSAGE_LENGTH_BROKEN_TRADE                = 19;
+    public static final int MESSAGE_LENGTH_NOII                        = 50;
+    public static final int MESSAGE_LENGTH_RPII                        = 20;
+
     /*
      * Event Code (4.1) values.
      */
@@ -210,6 +236,60 @@ public class ITCH50 {
     public static final byte INTEREST_FLAG_BOTH = 'A';
     public static final byte INTEREST_FLAG_NONE = 'N';
 
+    private static final int[] MESSAGE_LENGTHS = new int[256];
+
+    static {
+        MESSAGE_LENGTHS[MESSAGE_TYPE_SYSTEM_EVENT]                = MESSAGE_LENGTH_SYSTEM_EVENT;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_STOCK_DIRECTORY]             = MESSAGE_LENGTH_STOCK_DIRECTORY;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_STOCK_TRADING_ACTION]        = MESSAGE_LENGTH_STOCK_TRADING_ACTION;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_REG_SHO_RESTRICTION]         = MESSAGE_LENGTH_REG_SHO_RESTRICTION;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_MARKET_PARTICIPANT_POSITION] = MESSAGE_LENGTH_MARKET_PARTICIPANT_POSITION;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_MWCB_DECLINE_LEVEL]          = MESSAGE_LENGTH_MWCB_DECLINE_LEVEL;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_MWCB_STATUS]                 = MESSAGE_LENGTH_MWCB_STATUS;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_IPO_QUOTING_PERIOD_UPDATE]   = MESSAGE_LENGTH_IPO_QUOTING_PERIOD_UPDATE;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_LULD_AUCTION_COLLAR]         = MESSAGE_LENGTH_LULD_AUCTION_COLLAR;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_OPERATIONAL_HALT]            = MESSAGE_LENGTH_OPERATIONAL_HALT;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_ADD_ORDER]                   = MESSAGE_LENGTH_ADD_ORDER;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_ADD_ORDER_MPID]              = MESSAGE_LENGTH_ADD_ORDER_MPID;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_ORDER_EXECUTED]              = MESSAGE_LENGTH_ORDER_EXECUTED;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_ORDER_EXECUTED_WITH_PRICE]   = MESSAGE_LENGTH_ORDER_EXECUTED_WITH_PRICE;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_ORDER_CANCEL]                = MESSAGE_LENGTH_ORDER_CANCEL;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_ORDER_DELETE]                = MESSAGE_LENGTH_ORDER_DELETE;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_ORDER_REPLACE]               = MESSAGE_LENGTH_ORDER_REPLACE;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_TRADE]                       = MESSAGE_LENGTH_TRADE;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_CROSS_TRADE]                 = MESSAGE_LENGTH_CROSS_TRADE;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_BROKEN_TRADE]                = MESSAGE_LENGTH_BROKEN_TRADE;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_NOII]                        = MESSAGE_LENGTH_NOII;
+        MESSAGE_LENGTHS[MESSAGE_TYPE_RPII]                        = MESSAGE_LENGTH_RPII;
+    }
+
+    /**
+     * Get the length of a message, including the Message Type field.
+     *
+     * @param messageType the message type
+     * @return the length of the message or zero if the message type is
+     *   unknown
+     */
+    public static int messageLength(byte messageType) {
+        return MESSAGE_LENGTHS[messageType & 0xff];
+    }
+
+    /*
+     * Advance the position of the buffer past the fields of a message and
+     * return the original position. The fields are then decoded with
+     * absolute reads.
+     */
+    private static int advance(ByteBuffer buffer, int length) {
+        int offset = buffer.position();
+
+        if (buffer.remaining() < length)
+            throw new BufferUnderflowException();
+
+        buffer.position(offset + length);
+
+        return offset;
+    }
+
     /**
      * A message.
      */
@@ -248,11 +328,15 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate    = getUnsignedShort(buffer);
-            trackingNumber = getUnsignedShort(buffer);
-            timestampHigh  = getUnsignedShort(buffer);
-            timestampLow   = getUnsignedInt(buffer);
-            eventCode      = buffer.get();
+            int offset = advance(buffer, MESSAGE_LENGTH_SYSTEM_EVENT - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate    = (int)(word0 >>> 48);
+            trackingNumber = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh  = (int)(word0 >>> 16) & 0xffff;
+            timestampLow   = getUnsignedInt(buffer, offset + 6);
+            eventCode      = buffer.get(offset + 10);
         }
 
         @Override
@@ -264,6 +348,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, timestampLow);
             buffer.put(eventCode);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -291,24 +384,30 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate                 = getUnsignedShort(buffer);
-            trackingNumber              = getUnsignedShort(buffer);
-            timestampHigh               = getUnsignedShort(buffer);
-            timestampLow                = getUnsignedInt(buffer);
-            stock                       = buffer.getLong();
-            marketCategory              = buffer.get();
-            financialStatusIndicator    = buffer.get();
-            roundLotSize                = getUnsignedInt(buffer);
-            roundLotsOnly               = buffer.get();
-            issueClassification         = buffer.get();
-            issueSubType                = buffer.getShort();
-            authenticity                = buffer.get();
-            shortSaleThresholdIndicator = buffer.get();
-            ipoFlag                     = buffer.get();
-            luldReferencePriceTier      = buffer.get();
-            etpFlag                     = buffer.get();
-            etpLeverageFactor           = getUnsignedInt(buffer);
-            inverseIndicator            = buffer.get();
+            int offset = advance(buffer, MESSAGE_LENGTH_STOCK_DIRECTORY - 1);
+
+            long word0 = buffer.getLong(offset);
+            long word1 = buffer.getLong(offset + 18);
+            long word2 = buffer.getLong(offset + 26);
+
+            stockLocate                 = (int)(word0 >>> 48);
+            trackingNumber              = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh               = (int)(word0 >>> 16) & 0xffff;
+            timestampLow                = getUnsignedInt(buffer, offset + 6);
+            stock                       = buffer.getLong(offset + 10);
+            marketCategory              = (byte)(word1 >>> 56);
+            financialStatusIndicator    = (byte)(word1 >>> 48);
+            roundLotSize                = (word1 >>> 16) & 0xffffffffL;
+            roundLotsOnly               = (byte)(word1 >>> 8);
+            issueClassification         = (byte)word1;
+            issueSubType                = (short)(word2 >>> 48);
+            authenticity                = (byte)(word2 >>> 40);
+            shortSaleThresholdIndicator = (byte)(word2 >>> 32);
+            ipoFlag                     = (byte)(word2 >>> 24);
+            luldReferencePriceTier      = (byte)(word2 >>> 16);
+            etpFlag                     = (byte)(word2 >>> 8);
+            etpLeverageFactor           = getUnsignedInt(buffer, offset + 33);
+            inverseIndicator            = buffer.get(offset + 37);
         }
 
         @Override
@@ -333,6 +432,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, etpLeverageFactor);
             buffer.put(inverseIndicator);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -350,14 +458,19 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate    = getUnsignedShort(buffer);
-            trackingNumber = getUnsignedShort(buffer);
-            timestampHigh  = getUnsignedShort(buffer);
-            timestampLow   = getUnsignedInt(buffer);
-            stock          = buffer.getLong();
-            tradingState   = buffer.get();
-            reserved       = buffer.get();
-            reason         = buffer.getInt();
+            int offset = advance(buffer, MESSAGE_LENGTH_STOCK_TRADING_ACTION - 1);
+
+            long  word0 = buffer.getLong(offset);
+            short word1 = buffer.getShort(offset + 18);
+
+            stockLocate    = (int)(word0 >>> 48);
+            trackingNumber = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh  = (int)(word0 >>> 16) & 0xffff;
+            timestampLow   = getUnsignedInt(buffer, offset + 6);
+            stock          = buffer.getLong(offset + 10);
+            tradingState   = (byte)(word1 >>> 8);
+            reserved       = (byte)word1;
+            reason         = buffer.getInt(offset + 20);
         }
 
         @Override
@@ -372,6 +485,15 @@ public class ITCH50 {
             buffer.put(reserved);
             buffer.putInt(reason);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -387,12 +509,16 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            locateCode     = getUnsignedShort(buffer);
-            trackingNumber = getUnsignedShort(buffer);
-            timestampHigh  = getUnsignedShort(buffer);
-            timestampLow   = getUnsignedInt(buffer);
-            stock          = buffer.getLong();
-            regSHOAction   = buffer.get();
+            int offset = advance(buffer, MESSAGE_LENGTH_REG_SHO_RESTRICTION - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            locateCode     = (int)(word0 >>> 48);
+            trackingNumber = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh  = (int)(word0 >>> 16) & 0xffff;
+            timestampLow   = getUnsignedInt(buffer, offset + 6);
+            stock          = buffer.getLong(offset + 10);
+            regSHOAction   = buffer.get(offset + 18);
         }
 
         @Override
@@ -405,6 +531,15 @@ public class ITCH50 {
             buffer.putLong(stock);
             buffer.put(regSHOAction);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -423,15 +558,21 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate            = getUnsignedShort(buffer);
-            trackingNumber         = getUnsignedShort(buffer);
-            timestampHigh          = getUnsignedShort(buffer);
-            timestampLow           = getUnsignedInt(buffer);
-            mpid                   = buffer.getInt();
-            stock                  = buffer.getLong();
-            primaryMarketMaker     = buffer.get();
-            marketMakerMode        = buffer.get();
-            marketParticipantState = buffer.get();
+            int offset = advance(buffer, MESSAGE_LENGTH_MARKET_PARTICIPANT_POSITION - 1);
+
+            long  word0 = buffer.getLong(offset);
+            long  word1 = buffer.getLong(offset + 6);
+            short word2 = buffer.getShort(offset + 22);
+
+            stockLocate            = (int)(word0 >>> 48);
+            trackingNumber         = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh          = (int)(word0 >>> 16) & 0xffff;
+            timestampLow           = word1 >>> 32;
+            mpid                   = (int)word1;
+            stock                  = buffer.getLong(offset + 14);
+            primaryMarketMaker     = (byte)(word2 >>> 8);
+            marketMakerMode        = (byte)word2;
+            marketParticipantState = buffer.get(offset + 24);
         }
 
         @Override
@@ -447,6 +588,15 @@ public class ITCH50 {
             buffer.put(marketMakerMode);
             buffer.put(marketParticipantState);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -463,13 +613,17 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate    = getUnsignedShort(buffer);
-            trackingNumber = getUnsignedShort(buffer);
-            timestampHigh  = getUnsignedShort(buffer);
-            timestampLow   = getUnsignedInt(buffer);
-            level1         = buffer.getLong();
-            level2         = buffer.getLong();
-            level3         = buffer.getLong();
+            int offset = advance(buffer, MESSAGE_LENGTH_MWCB_DECLINE_LEVEL - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate    = (int)(word0 >>> 48);
+            trackingNumber = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh  = (int)(word0 >>> 16) & 0xffff;
+            timestampLow   = getUnsignedInt(buffer, offset + 6);
+            level1         = buffer.getLong(offset + 10);
+            level2         = buffer.getLong(offset + 18);
+            level3         = buffer.getLong(offset + 26);
         }
 
         @Override
@@ -483,6 +637,15 @@ public class ITCH50 {
             buffer.putLong(level2);
             buffer.putLong(level3);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -497,11 +660,15 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate    = getUnsignedShort(buffer);
-            trackingNumber = getUnsignedShort(buffer);
-            timestampHigh  = getUnsignedShort(buffer);
-            timestampLow   = getUnsignedInt(buffer);
-            breachedLevel  = buffer.get();
+            int offset = advance(buffer, MESSAGE_LENGTH_MWCB_STATUS - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate    = (int)(word0 >>> 48);
+            trackingNumber = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh  = (int)(word0 >>> 16) & 0xffff;
+            timestampLow   = getUnsignedInt(buffer, offset + 6);
+            breachedLevel  = buffer.get(offset + 10);
         }
 
         @Override
@@ -513,6 +680,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, timestampLow);
             buffer.put(breachedLevel);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -530,14 +706,19 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate                  = getUnsignedShort(buffer);
-            trackingNumber               = getUnsignedShort(buffer);
-            timestampHigh                = getUnsignedShort(buffer);
-            timestampLow                 = getUnsignedInt(buffer);
-            stock                        = buffer.getLong();
-            ipoQuotationReleaseTime      = getUnsignedInt(buffer);
-            ipoQuotationReleaseQualifier = buffer.get();
-            ipoPrice                     = getUnsignedInt(buffer);
+            int offset = advance(buffer, MESSAGE_LENGTH_IPO_QUOTING_PERIOD_UPDATE - 1);
+
+            long word0 = buffer.getLong(offset);
+            long word1 = buffer.getLong(offset + 18);
+
+            stockLocate                  = (int)(word0 >>> 48);
+            trackingNumber               = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh                = (int)(word0 >>> 16) & 0xffff;
+            timestampLow                 = getUnsignedInt(buffer, offset + 6);
+            stock                        = buffer.getLong(offset + 10);
+            ipoQuotationReleaseTime      = word1 >>> 32;
+            ipoQuotationReleaseQualifier = (byte)(word1 >>> 24);
+            ipoPrice                     = getUnsignedInt(buffer, offset + 23);
         }
 
         @Override
@@ -552,6 +733,15 @@ public class ITCH50 {
             buffer.put(ipoQuotationReleaseQualifier);
             putUnsignedInt(buffer, ipoPrice);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -570,15 +760,21 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate                 = getUnsignedShort(buffer);
-            trackingNumber              = getUnsignedShort(buffer);
-            timestampHigh               = getUnsignedShort(buffer);
-            timestampLow                = getUnsignedInt(buffer);
-            stock                       = buffer.getLong();
-            auctionCollarReferencePrice = getUnsignedInt(buffer);
-            upperAuctionCollarPrice     = getUnsignedInt(buffer);
-            lowerAuctionCollarPrice     = getUnsignedInt(buffer);
-            auctionCollarExtension      = getUnsignedInt(buffer);
+            int offset = advance(buffer, MESSAGE_LENGTH_LULD_AUCTION_COLLAR - 1);
+
+            long word0 = buffer.getLong(offset);
+            long word1 = buffer.getLong(offset + 18);
+            long word2 = buffer.getLong(offset + 26);
+
+            stockLocate                 = (int)(word0 >>> 48);
+            trackingNumber              = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh               = (int)(word0 >>> 16) & 0xffff;
+            timestampLow                = getUnsignedInt(buffer, offset + 6);
+            stock                       = buffer.getLong(offset + 10);
+            auctionCollarReferencePrice = word1 >>> 32;
+            upperAuctionCollarPrice     = word1 & 0xffffffffL;
+            lowerAuctionCollarPrice     = word2 >>> 32;
+            auctionCollarExtension      = word2 & 0xffffffffL;
         }
 
         @Override
@@ -594,6 +790,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, lowerAuctionCollarPrice);
             putUnsignedInt(buffer, auctionCollarExtension);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -610,13 +815,18 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate           = getUnsignedShort(buffer);
-            trackingNumber        = getUnsignedShort(buffer);
-            timestampHigh         = getUnsignedShort(buffer);
-            timestampLow          = getUnsignedInt(buffer);
-            stock                 = buffer.getLong();
-            marketCode            = buffer.get();
-            operationalHaltAction = buffer.get();
+            int offset = advance(buffer, MESSAGE_LENGTH_OPERATIONAL_HALT - 1);
+
+            long  word0 = buffer.getLong(offset);
+            short word1 = buffer.getShort(offset + 18);
+
+            stockLocate           = (int)(word0 >>> 48);
+            trackingNumber        = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh         = (int)(word0 >>> 16) & 0xffff;
+            timestampLow          = getUnsignedInt(buffer, offset + 6);
+            stock                 = buffer.getLong(offset + 10);
+            marketCode            = (byte)(word1 >>> 8);
+            operationalHaltAction = (byte)word1;
         }
 
         @Override
@@ -630,6 +840,15 @@ public class ITCH50 {
             buffer.put(marketCode);
             buffer.put(operationalHaltAction);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -648,15 +867,20 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate          = getUnsignedShort(buffer);
-            trackingNumber       = getUnsignedShort(buffer);
-            timestampHigh        = getUnsignedShort(buffer);
-            timestampLow         = getUnsignedInt(buffer);
-            orderReferenceNumber = buffer.getLong();
-            buySellIndicator     = buffer.get();
-            shares               = getUnsignedInt(buffer);
-            stock                = buffer.getLong();
-            price                = getUnsignedInt(buffer);
+            int offset = advance(buffer, MESSAGE_LENGTH_ADD_ORDER - 1);
+
+            long word0 = buffer.getLong(offset);
+            long word1 = buffer.getLong(offset + 18);
+
+            stockLocate          = (int)(word0 >>> 48);
+            trackingNumber       = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh        = (int)(word0 >>> 16) & 0xffff;
+            timestampLow         = getUnsignedInt(buffer, offset + 6);
+            orderReferenceNumber = buffer.getLong(offset + 10);
+            buySellIndicator     = (byte)(word1 >>> 56);
+            shares               = (word1 >>> 24) & 0xffffffffL;
+            stock                = buffer.getLong(offset + 23);
+            price                = getUnsignedInt(buffer, offset + 31);
         }
 
         @Override
@@ -672,6 +896,15 @@ public class ITCH50 {
             buffer.putLong(stock);
             putUnsignedInt(buffer, price);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -691,16 +924,22 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate          = getUnsignedShort(buffer);
-            trackingNumber       = getUnsignedShort(buffer);
-            timestampHigh        = getUnsignedShort(buffer);
-            timestampLow         = getUnsignedInt(buffer);
-            orderReferenceNumber = buffer.getLong();
-            buySellIndicator     = buffer.get();
-            shares               = getUnsignedInt(buffer);
-            stock                = buffer.getLong();
-            price                = getUnsignedInt(buffer);
-            attribution          = buffer.getInt();
+            int offset = advance(buffer, MESSAGE_LENGTH_ADD_ORDER_MPID - 1);
+
+            long word0 = buffer.getLong(offset);
+            long word1 = buffer.getLong(offset + 18);
+            long word2 = buffer.getLong(offset + 31);
+
+            stockLocate          = (int)(word0 >>> 48);
+            trackingNumber       = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh        = (int)(word0 >>> 16) & 0xffff;
+            timestampLow         = getUnsignedInt(buffer, offset + 6);
+            orderReferenceNumber = buffer.getLong(offset + 10);
+            buySellIndicator     = (byte)(word1 >>> 56);
+            shares               = (word1 >>> 24) & 0xffffffffL;
+            stock                = buffer.getLong(offset + 23);
+            price                = word2 >>> 32;
+            attribution          = (int)word2;
         }
 
         @Override
@@ -717,6 +956,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, price);
             buffer.putInt(attribution);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -733,13 +981,17 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate          = getUnsignedShort(buffer);
-            trackingNumber       = getUnsignedShort(buffer);
-            timestampHigh        = getUnsignedShort(buffer);
-            timestampLow         = getUnsignedInt(buffer);
-            orderReferenceNumber = buffer.getLong();
-            executedShares       = getUnsignedInt(buffer);
-            matchNumber          = buffer.getLong();
+            int offset = advance(buffer, MESSAGE_LENGTH_ORDER_EXECUTED - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate          = (int)(word0 >>> 48);
+            trackingNumber       = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh        = (int)(word0 >>> 16) & 0xffff;
+            timestampLow         = getUnsignedInt(buffer, offset + 6);
+            orderReferenceNumber = buffer.getLong(offset + 10);
+            executedShares       = getUnsignedInt(buffer, offset + 18);
+            matchNumber          = buffer.getLong(offset + 22);
         }
 
         @Override
@@ -753,6 +1005,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, executedShares);
             buffer.putLong(matchNumber);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -771,15 +1032,19 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate          = getUnsignedShort(buffer);
-            trackingNumber       = getUnsignedShort(buffer);
-            timestampHigh        = getUnsignedShort(buffer);
-            timestampLow         = getUnsignedInt(buffer);
-            orderReferenceNumber = buffer.getLong();
-            executedShares       = getUnsignedInt(buffer);
-            matchNumber          = buffer.getLong();
-            printable            = buffer.get();
-            executionPrice       = getUnsignedInt(buffer);
+            int offset = advance(buffer, MESSAGE_LENGTH_ORDER_EXECUTED_WITH_PRICE - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate          = (int)(word0 >>> 48);
+            trackingNumber       = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh        = (int)(word0 >>> 16) & 0xffff;
+            timestampLow         = getUnsignedInt(buffer, offset + 6);
+            orderReferenceNumber = buffer.getLong(offset + 10);
+            executedShares       = getUnsignedInt(buffer, offset + 18);
+            matchNumber          = buffer.getLong(offset + 22);
+            printable            = buffer.get(offset + 30);
+            executionPrice       = getUnsignedInt(buffer, offset + 31);
         }
 
         @Override
@@ -795,6 +1060,15 @@ public class ITCH50 {
             buffer.put(printable);
             putUnsignedInt(buffer, executionPrice);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -810,12 +1084,16 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate          = getUnsignedShort(buffer);
-            trackingNumber       = getUnsignedShort(buffer);
-            timestampHigh        = getUnsignedShort(buffer);
-            timestampLow         = getUnsignedInt(buffer);
-            orderReferenceNumber = buffer.getLong();
-            canceledShares       = getUnsignedInt(buffer);
+            int offset = advance(buffer, MESSAGE_LENGTH_ORDER_CANCEL - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate          = (int)(word0 >>> 48);
+            trackingNumber       = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh        = (int)(word0 >>> 16) & 0xffff;
+            timestampLow         = getUnsignedInt(buffer, offset + 6);
+            orderReferenceNumber = buffer.getLong(offset + 10);
+            canceledShares       = getUnsignedInt(buffer, offset + 18);
         }
 
         @Override
@@ -828,6 +1106,15 @@ public class ITCH50 {
             buffer.putLong(orderReferenceNumber);
             putUnsignedInt(buffer, canceledShares);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -842,11 +1129,15 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate          = getUnsignedShort(buffer);
-            trackingNumber       = getUnsignedShort(buffer);
-            timestampHigh        = getUnsignedShort(buffer);
-            timestampLow         = getUnsignedInt(buffer);
-            orderReferenceNumber = buffer.getLong();
+            int offset = advance(buffer, MESSAGE_LENGTH_ORDER_DELETE - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate          = (int)(word0 >>> 48);
+            trackingNumber       = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh        = (int)(word0 >>> 16) & 0xffff;
+            timestampLow         = getUnsignedInt(buffer, offset + 6);
+            orderReferenceNumber = buffer.getLong(offset + 10);
         }
 
         @Override
@@ -858,6 +1149,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, timestampLow);
             buffer.putLong(orderReferenceNumber);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -875,14 +1175,19 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate                  = getUnsignedShort(buffer);
-            trackingNumber               = getUnsignedShort(buffer);
-            timestampHigh                = getUnsignedShort(buffer);
-            timestampLow                 = getUnsignedInt(buffer);
-            originalOrderReferenceNumber = buffer.getLong();
-            newOrderReferenceNumber      = buffer.getLong();
-            shares                       = getUnsignedInt(buffer);
-            price                        = getUnsignedInt(buffer);
+            int offset = advance(buffer, MESSAGE_LENGTH_ORDER_REPLACE - 1);
+
+            long word0 = buffer.getLong(offset);
+            long word1 = buffer.getLong(offset + 26);
+
+            stockLocate                  = (int)(word0 >>> 48);
+            trackingNumber               = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh                = (int)(word0 >>> 16) & 0xffff;
+            timestampLow                 = getUnsignedInt(buffer, offset + 6);
+            originalOrderReferenceNumber = buffer.getLong(offset + 10);
+            newOrderReferenceNumber      = buffer.getLong(offset + 18);
+            shares                       = word1 >>> 32;
+            price                        = word1 & 0xffffffffL;
         }
 
         @Override
@@ -897,6 +1202,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, shares);
             putUnsignedInt(buffer, price);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -916,16 +1230,21 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate          = getUnsignedShort(buffer);
-            trackingNumber       = getUnsignedShort(buffer);
-            timestampHigh        = getUnsignedShort(buffer);
-            timestampLow         = getUnsignedInt(buffer);
-            orderReferenceNumber = buffer.getLong();
-            buySellIndicator     = buffer.get();
-            shares               = getUnsignedInt(buffer);
-            stock                = buffer.getLong();
-            price                = getUnsignedInt(buffer);
-            matchNumber          = buffer.getLong();
+            int offset = advance(buffer, MESSAGE_LENGTH_TRADE - 1);
+
+            long word0 = buffer.getLong(offset);
+            long word1 = buffer.getLong(offset + 18);
+
+            stockLocate          = (int)(word0 >>> 48);
+            trackingNumber       = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh        = (int)(word0 >>> 16) & 0xffff;
+            timestampLow         = getUnsignedInt(buffer, offset + 6);
+            orderReferenceNumber = buffer.getLong(offset + 10);
+            buySellIndicator     = (byte)(word1 >>> 56);
+            shares               = (word1 >>> 24) & 0xffffffffL;
+            stock                = buffer.getLong(offset + 23);
+            price                = getUnsignedInt(buffer, offset + 31);
+            matchNumber          = buffer.getLong(offset + 35);
         }
 
         @Override
@@ -942,6 +1261,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, price);
             buffer.putLong(matchNumber);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -960,15 +1288,19 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate    = getUnsignedShort(buffer);
-            trackingNumber = getUnsignedShort(buffer);
-            timestampHigh  = getUnsignedShort(buffer);
-            timestampLow   = getUnsignedInt(buffer);
-            shares         = getUnsignedInt(buffer);
-            stock          = buffer.getLong();
-            crossPrice     = getUnsignedInt(buffer);
-            matchNumber    = buffer.getLong();
-            crossType      = buffer.get();
+            int offset = advance(buffer, MESSAGE_LENGTH_CROSS_TRADE - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate    = (int)(word0 >>> 48);
+            trackingNumber = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh  = (int)(word0 >>> 16) & 0xffff;
+            timestampLow   = getUnsignedInt(buffer, offset + 6);
+            shares         = buffer.getLong(offset + 10);
+            stock          = buffer.getLong(offset + 18);
+            crossPrice     = getUnsignedInt(buffer, offset + 26);
+            matchNumber    = buffer.getLong(offset + 30);
+            crossType      = buffer.get(offset + 38);
         }
 
         @Override
@@ -978,12 +1310,21 @@ public class ITCH50 {
             putUnsignedShort(buffer, trackingNumber);
             putUnsignedShort(buffer, timestampHigh);
             putUnsignedInt(buffer, timestampLow);
-            putUnsignedInt(buffer, shares);
+            buffer.putLong(shares);
             buffer.putLong(stock);
             putUnsignedInt(buffer, crossPrice);
             buffer.putLong(matchNumber);
             buffer.put(crossType);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -998,11 +1339,15 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate    = getUnsignedShort(buffer);
-            trackingNumber = getUnsignedShort(buffer);
-            timestampHigh  = getUnsignedShort(buffer);
-            timestampLow   = getUnsignedInt(buffer);
-            matchNumber    = buffer.getLong();
+            int offset = advance(buffer, MESSAGE_LENGTH_BROKEN_TRADE - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate    = (int)(word0 >>> 48);
+            trackingNumber = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh  = (int)(word0 >>> 16) & 0xffff;
+            timestampLow   = getUnsignedInt(buffer, offset + 6);
+            matchNumber    = buffer.getLong(offset + 10);
         }
 
         @Override
@@ -1014,6 +1359,15 @@ public class ITCH50 {
             putUnsignedInt(buffer, timestampLow);
             buffer.putLong(matchNumber);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -1036,19 +1390,25 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate             = getUnsignedShort(buffer);
-            trackingNumber          = getUnsignedShort(buffer);
-            timestampHigh           = getUnsignedShort(buffer);
-            timestampLow            = getUnsignedInt(buffer);
-            pairedShares            = buffer.getLong();
-            imbalanceShares         = buffer.getLong();
-            imbalanceDirection      = buffer.get();
-            stock                   = buffer.getLong();
-            farPrice                = getUnsignedInt(buffer);
-            nearPrice               = getUnsignedInt(buffer);
-            currentReferencePrice   = getUnsignedInt(buffer);
-            crossType               = buffer.get();
-            priceVariationIndicator = buffer.get();
+            int offset = advance(buffer, MESSAGE_LENGTH_NOII - 1);
+
+            long  word0 = buffer.getLong(offset);
+            long  word1 = buffer.getLong(offset + 35);
+            short word2 = buffer.getShort(offset + 47);
+
+            stockLocate             = (int)(word0 >>> 48);
+            trackingNumber          = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh           = (int)(word0 >>> 16) & 0xffff;
+            timestampLow            = getUnsignedInt(buffer, offset + 6);
+            pairedShares            = buffer.getLong(offset + 10);
+            imbalanceShares         = buffer.getLong(offset + 18);
+            imbalanceDirection      = buffer.get(offset + 26);
+            stock                   = buffer.getLong(offset + 27);
+            farPrice                = word1 >>> 32;
+            nearPrice               = word1 & 0xffffffffL;
+            currentReferencePrice   = getUnsignedInt(buffer, offset + 43);
+            crossType               = (byte)(word2 >>> 8);
+            priceVariationIndicator = (byte)word2;
         }
 
         @Override
@@ -1068,6 +1428,15 @@ public class ITCH50 {
             buffer.put(crossType);
             buffer.put(priceVariationIndicator);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
     /**
@@ -1083,12 +1452,16 @@ public class ITCH50 {
 
         @Override
         public void get(ByteBuffer buffer) {
-            stockLocate    = getUnsignedShort(buffer);
-            trackingNumber = getUnsignedShort(buffer);
-            timestampHigh  = getUnsignedShort(buffer);
-            timestampLow   = getUnsignedInt(buffer);
-            stock          = buffer.getLong();
-            interestFlag   = buffer.get();
+            int offset = advance(buffer, MESSAGE_LENGTH_RPII - 1);
+
+            long word0 = buffer.getLong(offset);
+
+            stockLocate    = (int)(word0 >>> 48);
+            trackingNumber = (int)(word0 >>> 32) & 0xffff;
+            timestampHigh  = (int)(word0 >>> 16) & 0xffff;
+            timestampLow   = getUnsignedInt(buffer, offset + 6);
+            stock          = buffer.getLong(offset + 10);
+            interestFlag   = buffer.get(offset + 18);
         }
 
         @Override
@@ -1101,6 +1474,15 @@ public class ITCH50 {
             buffer.putLong(stock);
             buffer.put(interestFlag);
         }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ((long)timestampHigh << 32) | timestampLow;
+        }
     }
 
 }
@@ -0,0 +1,501 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A bar aggregator for all instruments.
+ *
+ * <p>The bar aggregator handles Order Executed, Order Executed With Price,
+ * Trade, Cross Trade and Broken Trade messages. It accumulates the open,
+ * high, low and close prices, the volume, the notional value and the
+ * number of trades of each instrument over intervals of exchange time and
+ * passes a bar for each instrument that traded in an interval to the bar
+ * listener. The bars of an interval are passed when the Timestamp of a
+ * message enters a new interval, or when {@link #flush()} is invoked.</p>
+ *
+ * <p>Order Executed With Price messages are only included if they are
+ * printable, and Cross Trade messages only if their shares are
+ * non-zero.</p>
+ *
+ * <p>The price of an Order Executed message is the price of the executed
+ * order, which is looked up from an order book. The bar aggregator does
+ * not pass messages to the order book: they must be passed to the bar
+ * aggregator before the order book.</p>
+ *
+ * <p>Executions are indexed by Match Number. If a Broken Trade message
+ * refers to an execution in an interval that has not been passed yet, the
+ * execution is backed out of the bar. Otherwise, the bar is recomputed
+ * without the execution and passed to the bar listener as a
+ * correction.</p>
+ *
+ * <p>Executions are kept in a preallocated ring, so that the bar
+ * aggregator does not allocate memory after construction. Executions are
+ * evicted a whole interval at a time: once the end of an interval is older
+ * than the correction horizon at the start of the current interval, all of
+ * its executions are evicted, after which a Broken Trade message referring
+ * to one of them is ignored. If the ring is full, the executions of the
+ * oldest passed interval are evicted early. The ring must therefore hold
+ * at least the executions of one interval, and the executions of the
+ * correction horizon for corrections to be complete. A Broken Trade
+ * message referring to a bar that is only partly retained is ignored
+ * rather than corrected from the remaining executions.</p>
+ */
+public class ITCH50BarAggregator extends ITCH50ListenerAdapter {
+
+    private static final int NONE = -1;
+
+    private static final int EVICTED = -2;
+
+    private static final int STOCK_LOCATES = 65536;
+
+    private final ITCH50OrderBook book;
+
+    private final long interval;
+
+    private final Listener listener;
+
+    private final long horizon;
+
+    private final LongIntHashMap index;
+
+    private final long[]    executionMatchNumbers;
+    private final long[]    executionPrices;
+    private final long[]    executionShares;
+    private final long[]    executionTimestamps;
+    private final int[]     executionStockLocates;
+    private final int[]     executionBars;
+    private final int[]     executionPrevious;
+    private final int[]     executionNext;
+    private final boolean[] executionBroken;
+
+    private int head;
+
+    private int executions;
+
+    private final int[]  bars;
+    private final long[] barTimestamps;
+    private final long[] opens;
+    private final long[] highs;
+    private final long[] lows;
+    private final long[] closes;
+    private final long[] volumes;
+    private final long[] notionals;
+    private final long[] trades;
+    private final int[]  lastExecutions;
+
+    private final int[] changes;
+
+    private int changeCount;
+
+    private int barCount;
+
+    private long window;
+
+    private final Bar bar;
+
+    /**
+     * Create a bar aggregator.
+     *
+     * @param book the order book
+     * @param interval the interval in nanoseconds of exchange time
+     * @param horizon the correction horizon in nanoseconds of exchange time
+     * @param executions the maximum number of retained executions
+     * @param listener the bar listener
+     * @throws IllegalArgumentException if the interval or the maximum
+     *   number of retained executions is not positive or if the correction
+     *   horizon is negative
+     */
+    public ITCH50BarAggregator(ITCH50OrderBook book, long interval, long horizon,
+            int executions, Listener listener) {
+        if (interval < 1)
+            throw new IllegalArgumentException("Interval not positive: " + interval);
+        if (horizon < 0)
+            throw new IllegalArgumentException("Negative horizon: " + horizon);
+        if (executions < 1)
+            throw new IllegalArgumentException("Executions not positive: " + executions);
+
+        this.book     = book;
+        this.interval = interval;
+        this.horizon  = horizon;
+        this.listener = listener;
+
+        this.index = new LongIntHashMap(executions);
+
+        this.executionMatchNumbers = new long[executions];
+        this.executionPrices       = new long[executions];
+        this.executionShares       = new long[executions];
+        this.executionTimestamps   = new long[executions];
+        this.executionStockLocates = new int[executions];
+        this.executionBars         = new int[executions];
+        this.executionPrevious     = new int[executions];
+        this.executionNext         = new int[executions];
+        this.executionBroken       = new boolean[executions];
+
+        this.bars           = new int[STOCK_LOCATES];
+        this.barTimestamps  = new long[STOCK_LOCATES];
+        this.opens          = new long[STOCK_LOCATES];
+        this.highs          = new long[STOCK_LOCATES];
+        this.lows           = new long[STOCK_LOCATES];
+        this.closes         = new long[STOCK_LOCATES];
+        this.volumes        = new long[STOCK_LOCATES];
+        this.notionals      = new long[STOCK_LOCATES];
+        this.trades         = new long[STOCK_LOCATES];
+        this.lastExecutions = new int[STOCK_LOCATES];
+
+        this.changes = new int[STOCK_LOCATES];
+
+        this.bar = new Bar();
+    }
+
+    /**
+     * Remove all executions and bars without passing the bars to the bar
+     * listener.
+     */
+    public void clear() {
+        index.clear();
+
+        head       = 0;
+        executions = 0;
+
+        Arrays.fill(bars, 0);
+
+        changeCount = 0;
+
+        barCount = 0;
+
+        window = 0;
+    }
+
+    /**
+     * Get the number of retained executions.
+     *
+     * @return the number of retained executions
+     */
+    public int executions() {
+        return executions;
+    }
+
+    /**
+     * Pass the bars of the current interval to the bar listener.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        for (int i = 0; i < changeCount; i++) {
+            int stockLocate = changes[i];
+
+            bars[stockLocate] = 0;
+
+            if (trades[stockLocate] == 0)
+                continue;
+
+            bar.stockLocate = stockLocate;
+            bar.timestamp   = barTimestamps[stockLocate];
+            bar.open        = opens[stockLocate];
+            bar.high        = highs[stockLocate];
+            bar.low         = lows[stockLocate];
+            bar.close       = closes[stockLocate];
+            bar.volume      = volumes[stockLocate];
+            bar.notional    = notionals[stockLocate];
+            bar.trades      = trades[stockLocate];
+
+            listener.bar(bar);
+        }
+
+        changeCount = 0;
+    }
+
+    @Override
+    public void orderExecuted(OrderExecuted message) throws IOException {
+        update(message.timestamp());
+
+        int order = book.order(message.orderReferenceNumber);
+        if (order == ITCH50OrderBook.NONE)
+            return;
+
+        execution(message.stockLocate, message.timestamp(), message.matchNumber,
+                book.orderPrice(order), message.executedShares);
+    }
+
+    @Override
+    public void orderExecutedWithPrice(OrderExecutedWithPrice message) throws IOException {
+        update(message.timestamp());
+
+        if (message.printable != YES)
+            return;
+
+        execution(message.stockLocate, message.timestamp(), message.matchNumber,
+                message.executionPrice, message.executedShares);
+    }
+
+    @Override
+    public void trade(Trade message) throws IOException {
+        update(message.timestamp());
+
+        execution(message.stockLocate, message.timestamp(), message.matchNumber,
+                message.price, message.shares);
+    }
+
+    @Override
+    public void crossTrade(CrossTrade message) throws IOException {
+        update(message.timestamp());
+
+        if (message.shares == 0)
+            return;
+
+        execution(message.stockLocate, message.timestamp(), message.matchNumber,
+                message.crossPrice, message.shares);
+    }
+
+    @Override
+    public void brokenTrade(BrokenTrade message) throws IOException {
+        update(message.timestamp());
+
+        int execution = index.get(message.matchNumber);
+        if (execution == LongIntHashMap.MISSING || executionBroken[execution])
+            return;
+
+        int first = first(execution);
+        if (first == NONE)
+            return;
+
+        executionBroken[execution] = true;
+
+        int stockLocate = executionStockLocates[execution];
+
+        recompute(first);
+
+        if (executionBars[execution] != bars[stockLocate]) {
+            listener.correction(bar);
+            return;
+        }
+
+        opens[stockLocate]     = bar.open;
+        highs[stockLocate]     = bar.high;
+        lows[stockLocate]      = bar.low;
+        closes[stockLocate]    = bar.close;
+        volumes[stockLocate]   = bar.volume;
+        notionals[stockLocate] = bar.notional;
+        trades[stockLocate]    = bar.trades;
+    }
+
+    private void update(long timestamp) throws IOException {
+        long window = timestamp / interval;
+
+        if (window != this.window) {
+            flush();
+
+            this.window = window;
+
+            long cutoff = window * interval - horizon;
+
+            while (executions > 0 && (executionTimestamps[head] / interval + 1) * interval <= cutoff)
+                evict();
+        }
+    }
+
+    private void execution(int stockLocate, long timestamp, long matchNumber, long price, long shares) {
+        int capacity = executionPrices.length;
+
+        if (executions == capacity) {
+            long oldest = executionTimestamps[head] / interval;
+            if (oldest == window)
+                throw new IllegalStateException("Execution capacity exceeded");
+
+            while (executions > 0 && executionTimestamps[head] / interval == oldest)
+                evict();
+        }
+
+        int execution = head + executions < capacity ? head + executions : head + executions - capacity;
+
+        executions++;
+
+        index.put(matchNumber, execution);
+
+        executionMatchNumbers[execution] = matchNumber;
+        executionPrices[execution]       = price;
+        executionShares[execution]       = shares;
+        executionTimestamps[execution]   = timestamp;
+        executionStockLocates[execution] = stockLocate;
+        executionNext[execution]         = NONE;
+        executionBroken[execution]       = false;
+
+        if (bars[stockLocate] == 0) {
+            bars[stockLocate]          = ++barCount;
+            barTimestamps[stockLocate] = window * interval;
+            volumes[stockLocate]       = 0;
+            notionals[stockLocate]     = 0;
+            trades[stockLocate]        = 0;
+
+            executionPrevious[execution] = NONE;
+
+            changes[changeCount++] = stockLocate;
+        } else {
+            int last = lastExecutions[stockLocate];
+
+            executionPrevious[execution] = last;
+            executionNext[last]          = execution;
+        }
+
+        executionBars[execution] = bars[stockLocate];
+
+        lastExecutions[stockLocate] = execution;
+
+        if (trades[stockLocate] == 0) {
+            opens[stockLocate] = price;
+            highs[stockLocate] = price;
+            lows[stockLocate]  = price;
+        } else {
+            highs[stockLocate] = Math.max(highs[stockLocate], price);
+            lows[stockLocate]  = Math.min(lows[stockLocate], price);
+        }
+
+        closes[stockLocate]     = price;
+        volumes[stockLocate]   += shares;
+        notionals[stockLocate] += price * shares;
+        trades[stockLocate]    += 1;
+    }
+
+    /*
+     * Evict the oldest execution. As executions are evicted in order, it is
+     * the first remaining execution of its bar. The next execution of the
+     * bar, if any, is marked so that the bar is known to be partly evicted.
+     */
+    private void evict() {
+        int execution = head;
+
+        if (index.get(executionMatchNumbers[execution]) == execution)
+            index.remove(executionMatchNumbers[execution]);
+
+        int next = executionNext[execution];
+        if (next != NONE)
+            executionPrevious[next] = EVICTED;
+
+        head = head + 1 < executionPrices.length ? head + 1 : 0;
+
+        executions--;
+    }
+
+    /*
+     * Find the first execution of the bar of an execution, or NONE if the
+     * bar has been partly evicted.
+     */
+    private int first(int execution) {
+        int first = execution;
+
+        while (executionPrevious[first] >= 0)
+            first = executionPrevious[first];
+
+        return executionPrevious[first] == NONE ? first : NONE;
+    }
+
+    /*
+     * Recompute a bar from its first execution, skipping the executions
+     * that are broken.
+     */
+    private void recompute(int first) {
+        bar.stockLocate = executionStockLocates[first];
+        bar.timestamp   = executionTimestamps[first] / interval * interval;
+        bar.open        = 0;
+        bar.high        = 0;
+        bar.low         = 0;
+        bar.close       = 0;
+        bar.volume      = 0;
+        bar.notional    = 0;
+        bar.trades      = 0;
+
+        for (int i = first; i != NONE; i = executionNext[i]) {
+            if (executionBroken[i])
+                continue;
+
+            long price  = executionPrices[i];
+            long shares = executionShares[i];
+
+            if (bar.trades == 0) {
+                bar.open = price;
+                bar.high = price;
+                bar.low  = price;
+            } else {
+                bar.high = Math.max(bar.high, price);
+                bar.low  = Math.min(bar.low, price);
+            }
+
+            bar.close     = price;
+            bar.volume   += shares;
+            bar.notional += price * shares;
+            bar.trades   += 1;
+        }
+    }
+
+    /**
+     * The interface for bars.
+     */
+    public interface Listener {
+
+        /**
+         * Receive a bar.
+         *
+         * @param bar the bar
+         * @throws IOException if an I/O error occurs
+         */
+        void bar(Bar bar) throws IOException;
+
+        /**
+         * Receive a correction to a bar that has already been received.
+         * A bar without trades has prices of zero.
+         *
+         * @param bar the corrected bar
+         * @throws IOException if an I/O error occurs
+         */
+        void correction(Bar bar) throws IOException;
+
+    }
+
+    /**
+     * A bar.
+     *
+     * <p>The Timestamp is the start of the interval as nanoseconds since
+     * midnight. The notional value is the sum of price times shares over
+     * the trades.</p>
+     */
+    public static class Bar {
+        public int  stockLocate;
+        public long timestamp;
+        public long open;
+        public long high;
+        public long low;
+        public long close;
+        public long volume;
+        public long notional;
+        public long trades;
+
+        /**
+         * Get the volume-weighted average price.
+         *
+         * @return the volume-weighted average price or zero if the volume
+         *   is zero
+         */
+        public double vwap() {
+            return volume != 0 ? (double)notional / volume : 0.0;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50Batches.*;
+
+import java.io.IOException;
+
+/**
+ * The interface for batches of inbound messages.
+ *
+ * <p>A batch is only valid for the duration of the callback.</p>
+ */
+public interface ITCH50BatchListener {
+
+    /**
+     * Receive a batch of Add Order messages.
+     *
+     * @param batch the batch
+     * @throws IOException if an I/O error occurs
+     */
+    void addOrder(AddOrderBatch batch) throws IOException;
+
+    /**
+     * Receive a batch of Order Executed messages.
+     *
+     * @param batch the batch
+     * @throws IOException if an I/O error occurs
+     */
+    void orderExecuted(OrderExecutedBatch batch) throws IOException;
+
+    /**
+     * Receive a batch of Order Cancel messages.
+     *
+     * @param batch the batch
+     * @throws IOException if an I/O error occurs
+     */
+    void orderCancel(OrderCancelBatch batch) throws IOException;
+
+    /**
+     * Receive a batch of Order Delete messages.
+     *
+     * @param batch the batch
+     * @throws IOException if an I/O error occurs
+     */
+    void orderDelete(OrderDeleteBatch batch) throws IOException;
+
+}
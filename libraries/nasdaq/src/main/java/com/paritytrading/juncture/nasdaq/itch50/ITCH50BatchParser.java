@@ -0,0 +1,186 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50Batches.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A parser for batches of inbound messages.
+ *
+ * <p>The parser decodes consecutive Add Order, Order Executed, Order
+ * Cancel and Order Delete messages into struct-of-arrays batches and
+ * passes each batch to the batch listener. Other messages are passed to
+ * the fallback listener or, if there is none, skipped without decoding
+ * them.</p>
+ *
+ * <p>The parser preserves the order of messages. It passes the pending
+ * batch to the batch listener when the batch is full, before it processes
+ * a message of another message type and when {@link #flush()} is invoked.
+ * Skipped messages do not cause the pending batch to be passed. The fewer
+ * message types are batched or passed to the fallback listener, the longer
+ * the batches.</p>
+ */
+public class ITCH50BatchParser implements MessageListener {
+
+    private final AddOrderBatch      addOrder;
+    private final OrderExecutedBatch orderExecuted;
+    private final OrderCancelBatch   orderCancel;
+    private final OrderDeleteBatch   orderDelete;
+
+    private final Batch[] batches;
+
+    private final ITCH50BatchListener listener;
+
+    private final ITCH50Parser fallback;
+
+    private Batch pending;
+
+    /**
+     * Create a parser for batches of inbound messages. Add Order, Order
+     * Executed, Order Cancel and Order Delete messages are batched.
+     *
+     * @param listener the batch listener
+     * @param fallback the message listener for other messages or
+     *   {@code null}
+     * @param capacity the maximum number of messages in a batch
+     */
+    public ITCH50BatchParser(ITCH50BatchListener listener, ITCH50Listener fallback, int capacity) {
+        this(listener, fallback, capacity, MESSAGE_TYPE_ADD_ORDER, MESSAGE_TYPE_ORDER_EXECUTED,
+                MESSAGE_TYPE_ORDER_CANCEL, MESSAGE_TYPE_ORDER_DELETE);
+    }
+
+    /**
+     * Create a parser for batches of inbound messages of the specified
+     * message types. Messages of other message types are passed to the
+     * fallback listener.
+     *
+     * @param listener the batch listener
+     * @param fallback the message listener for other messages or
+     *   {@code null}
+     * @param capacity the maximum number of messages in a batch
+     * @param messageTypes the message types to batch, a subset of Add
+     *   Order, Order Executed, Order Cancel and Order Delete
+     * @throws IllegalArgumentException if the capacity is not positive or
+     *   if a message type cannot be batched
+     */
+    public ITCH50BatchParser(ITCH50BatchListener listener, ITCH50Listener fallback, int capacity,
+            byte... messageTypes) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity not positive: " + capacity);
+
+        this.addOrder      = new AddOrderBatch(capacity);
+        this.orderExecuted = new OrderExecutedBatch(capacity);
+        this.orderCancel   = new OrderCancelBatch(capacity);
+        this.orderDelete   = new OrderDeleteBatch(capacity);
+
+        this.batches = new Batch[256];
+
+        for (byte messageType : messageTypes)
+            this.batches[messageType & 0xff] = batch(messageType);
+
+        this.listener = listener;
+
+        this.fallback = fallback != null ? new ITCH50Parser(fallback) : null;
+    }
+
+    private Batch batch(byte messageType) {
+        switch (messageType) {
+        case MESSAGE_TYPE_ADD_ORDER:
+            return addOrder;
+        case MESSAGE_TYPE_ORDER_EXECUTED:
+            return orderExecuted;
+        case MESSAGE_TYPE_ORDER_CANCEL:
+            return orderCancel;
+        case MESSAGE_TYPE_ORDER_DELETE:
+            return orderDelete;
+        default:
+            throw new IllegalArgumentException("Message type cannot be batched: " + (char)messageType);
+        }
+    }
+
+    @Override
+    public void message(ByteBuffer buffer) throws IOException {
+        byte messageType = buffer.get(buffer.position());
+
+        Batch batch = batches[messageType & 0xff];
+
+        if (batch == null) {
+            if (fallback != null) {
+                flush();
+
+                fallback.message(buffer);
+            } else {
+                skip(buffer, messageType);
+            }
+            return;
+        }
+
+        int offset = buffer.position();
+
+        if (buffer.remaining() < batch.length())
+            throw new BufferUnderflowException();
+
+        if (batch != pending) {
+            flush();
+
+            pending = batch;
+        }
+
+        buffer.position(offset + batch.length());
+
+        batch.add(buffer, offset);
+
+        if (batch.size == batch.capacity())
+            flush();
+    }
+
+    /**
+     * Pass the pending batch, if any, to the batch listener.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        Batch batch = pending;
+        if (batch == null)
+            return;
+
+        pending = null;
+
+        try {
+            batch.deliver(listener);
+        } finally {
+            batch.size = 0;
+        }
+    }
+
+    private static void skip(ByteBuffer buffer, byte messageType) throws ITCH50Exception {
+        int length = messageLength(messageType);
+        if (length == 0)
+            throw new ITCH50Exception("Unknown message type: " + (char)messageType);
+
+        if (buffer.remaining() < length)
+            throw new BufferUnderflowException();
+
+        buffer.position(buffer.position() + length);
+    }
+
+}
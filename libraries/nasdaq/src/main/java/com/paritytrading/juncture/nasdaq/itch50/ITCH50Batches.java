@@ -0,0 +1,226 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.foundation.ByteBuffers.*;
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Struct-of-arrays batches of inbound messages.
+ *
+ * <p>A batch holds consecutive messages of one message type as parallel
+ * primitive arrays, one array for each field. The element at index
+ * {@code i} of each array belongs to the {@code i}th message in the batch.
+ * Only the first {@link Batch#size()} elements are valid.</p>
+ *
+ * <p>A batch holds the Stock Locate and Timestamp fields of each message,
+ * the latter decoded into a single value of nanoseconds since midnight. The
+ * Tracking Number and Stock fields are omitted: the Stock can be looked up
+ * by the Stock Locate, for example, with {@link ITCH50Directory}.</p>
+ */
+public class ITCH50Batches {
+
+    private ITCH50Batches() {
+    }
+
+    /**
+     * A batch of messages.
+     */
+    public abstract static class Batch {
+        public final int[]  stockLocate;
+        public final long[] timestamp;
+
+        int size;
+
+        Batch(int capacity) {
+            this.stockLocate = new int[capacity];
+            this.timestamp   = new long[capacity];
+        }
+
+        /**
+         * Get the number of messages in this batch.
+         *
+         * @return the number of messages in this batch
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Get the maximum number of messages in this batch.
+         *
+         * @return the maximum number of messages in this batch
+         */
+        public int capacity() {
+            return timestamp.length;
+        }
+
+        /**
+         * Get the length of each message, including the Message Type
+         * field.
+         *
+         * @return the length of each message
+         */
+        public abstract int length();
+
+        void add(ByteBuffer buffer, int offset) {
+            int index = size++;
+
+            stockLocate[index] = ITCH50Header.stockLocate(buffer, offset);
+            timestamp[index]   = ITCH50Header.timestamp(buffer, offset);
+
+            get(buffer, offset, index);
+        }
+
+        abstract void get(ByteBuffer buffer, int offset, int index);
+
+        abstract void deliver(ITCH50BatchListener listener) throws IOException;
+    }
+
+    /**
+     * A batch of Add Order (4.3.1) messages.
+     */
+    public static class AddOrderBatch extends Batch {
+        public final long[] orderReferenceNumber;
+        public final byte[] buySellIndicator;
+        public final long[] shares;
+        public final long[] price;
+
+        AddOrderBatch(int capacity) {
+            super(capacity);
+
+            this.orderReferenceNumber = new long[capacity];
+            this.buySellIndicator     = new byte[capacity];
+            this.shares               = new long[capacity];
+            this.price                = new long[capacity];
+        }
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ADD_ORDER;
+        }
+
+        @Override
+        void get(ByteBuffer buffer, int offset, int index) {
+            orderReferenceNumber[index] = buffer.getLong(offset + 11);
+            buySellIndicator[index]     = buffer.get(offset + 19);
+            shares[index]               = getUnsignedInt(buffer, offset + 20);
+            price[index]                = getUnsignedInt(buffer, offset + 32);
+        }
+
+        @Override
+        void deliver(ITCH50BatchListener listener) throws IOException {
+            listener.addOrder(this);
+        }
+    }
+
+    /**
+     * A batch of Order Executed (4.4.1) messages.
+     */
+    public static class OrderExecutedBatch extends Batch {
+        public final long[] orderReferenceNumber;
+        public final long[] executedShares;
+        public final long[] matchNumber;
+
+        OrderExecutedBatch(int capacity) {
+            super(capacity);
+
+            this.orderReferenceNumber = new long[capacity];
+            this.executedShares       = new long[capacity];
+            this.matchNumber          = new long[capacity];
+        }
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ORDER_EXECUTED;
+        }
+
+        @Override
+        void get(ByteBuffer buffer, int offset, int index) {
+            orderReferenceNumber[index] = buffer.getLong(offset + 11);
+            executedShares[index]       = getUnsignedInt(buffer, offset + 19);
+            matchNumber[index]          = buffer.getLong(offset + 23);
+        }
+
+        @Override
+        void deliver(ITCH50BatchListener listener) throws IOException {
+            listener.orderExecuted(this);
+        }
+    }
+
+    /**
+     * A batch of Order Cancel (4.4.3) messages.
+     */
+    public static class OrderCancelBatch extends Batch {
+        public final long[] orderReferenceNumber;
+        public final long[] canceledShares;
+
+        OrderCancelBatch(int capacity) {
+            super(capacity);
+
+            this.orderReferenceNumber = new long[capacity];
+            this.canceledShares       = new long[capacity];
+        }
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ORDER_CANCEL;
+        }
+
+        @Override
+        void get(ByteBuffer buffer, int offset, int index) {
+            orderReferenceNumber[index] = buffer.getLong(offset + 11);
+            canceledShares[index]       = getUnsignedInt(buffer, offset + 19);
+        }
+
+        @Override
+        void deliver(ITCH50BatchListener listener) throws IOException {
+            listener.orderCancel(this);
+        }
+    }
+
+    /**
+     * A batch of Order Delete (4.4.4) messages.
+     */
+    public static class OrderDeleteBatch extends Batch {
+        public final long[] orderReferenceNumber;
+
+        OrderDeleteBatch(int capacity) {
+            super(capacity);
+
+            this.orderReferenceNumber = new long[capacity];
+        }
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ORDER_DELETE;
+        }
+
+        @Override
+        void get(ByteBuffer buffer, int offset, int index) {
+            orderReferenceNumber[index] = buffer.getLong(offset + 11);
+        }
+
+        @Override
+        void deliver(ITCH50BatchListener listener) throws IOException {
+            listener.orderDelete(this);
+        }
+    }
+
+}
@@ -0,0 +1,477 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.foundation.ASCII;
+import java.util.Arrays;
+
+/**
+ * An instrument directory.
+ *
+ * <p>The instrument directory handles Stock Directory, Stock Trading
+ * Action, Reg SHO Short Sale Price Test Restricted Indicator and Operational
+ * Halt messages. Instrument records are kept in arrays indexed by Stock
+ * Locate, so that looking up an instrument by Stock Locate is a single array
+ * access. Instruments can also be looked up by the Stock field, which holds
+ * the symbol as a packed eight-byte ASCII value.</p>
+ *
+ * <p>Accessing an instrument that has never been in the directory returns
+ * zero.</p>
+ */
+public class ITCH50Directory extends ITCH50ListenerAdapter {
+
+    /**
+     * The value that indicates an unknown instrument.
+     */
+    public static final int NONE = -1;
+
+    private static final int STOCK_LOCATES = 65536;
+
+    private static final int STOCK_LENGTH = 8;
+
+    private static final int MARKETS = 3;
+
+    private final LongIntHashMap index;
+
+    private final boolean[] present;
+
+    private final long[]  stocks;
+    private final byte[]  marketCategories;
+    private final byte[]  financialStatusIndicators;
+    private final long[]  roundLotSizes;
+    private final byte[]  roundLotsOnly;
+    private final byte[]  issueClassifications;
+    private final short[] issueSubTypes;
+    private final byte[]  authenticities;
+    private final byte[]  shortSaleThresholdIndicators;
+    private final byte[]  ipoFlags;
+    private final byte[]  luldReferencePriceTiers;
+    private final byte[]  etpFlags;
+    private final long[]  etpLeverageFactors;
+    private final byte[]  inverseIndicators;
+
+    private final byte[] tradingStates;
+    private final int[]  reasons;
+    private final byte[] regSHOActions;
+    private final byte[] operationalHaltActions;
+
+    /**
+     * Create an instrument directory.
+     */
+    public ITCH50Directory() {
+        this.index = new LongIntHashMap(STOCK_LOCATES);
+
+        this.present = new boolean[STOCK_LOCATES];
+
+        this.stocks                       = new long[STOCK_LOCATES];
+        this.marketCategories             = new byte[STOCK_LOCATES];
+        this.financialStatusIndicators    = new byte[STOCK_LOCATES];
+        this.roundLotSizes                = new long[STOCK_LOCATES];
+        this.roundLotsOnly                = new byte[STOCK_LOCATES];
+        this.issueClassifications         = new byte[STOCK_LOCATES];
+        this.issueSubTypes                = new short[STOCK_LOCATES];
+        this.authenticities               = new byte[STOCK_LOCATES];
+        this.shortSaleThresholdIndicators = new byte[STOCK_LOCATES];
+        this.ipoFlags                     = new byte[STOCK_LOCATES];
+        this.luldReferencePriceTiers      = new byte[STOCK_LOCATES];
+        this.etpFlags                     = new byte[STOCK_LOCATES];
+        this.etpLeverageFactors           = new long[STOCK_LOCATES];
+        this.inverseIndicators            = new byte[STOCK_LOCATES];
+
+        this.tradingStates          = new byte[STOCK_LOCATES];
+        this.reasons                = new int[STOCK_LOCATES];
+        this.regSHOActions          = new byte[STOCK_LOCATES];
+        this.operationalHaltActions = new byte[MARKETS * STOCK_LOCATES];
+    }
+
+    /**
+     * Encode a symbol into a Stock field value.
+     *
+     * @param symbol the symbol
+     * @return the Stock field value
+     * @throws IllegalArgumentException if the symbol is longer than eight
+     *   characters
+     */
+    public static long encode(CharSequence symbol) {
+        if (symbol.length() > STOCK_LENGTH)
+            throw new IllegalArgumentException("Symbol too long: " + symbol);
+
+        return ASCII.packLong(symbol);
+    }
+
+    /**
+     * Decode a Stock field value into a symbol.
+     *
+     * @param stock the Stock field value
+     * @return the symbol
+     */
+    public static String decode(long stock) {
+        return ASCII.unpackLong(stock).trim();
+    }
+
+    /**
+     * Decode a Stock field value into a symbol and append it to a string
+     * builder. Unlike {@link #decode(long)}, this method does not allocate
+     * memory as long as the string builder has sufficient capacity.
+     *
+     * @param stock the Stock field value
+     * @param symbol the string builder
+     * @return the string builder
+     */
+    public static StringBuilder decode(long stock, StringBuilder symbol) {
+        int length = STOCK_LENGTH;
+
+        while (length > 0 && (byte)(stock >>> (8 * (STOCK_LENGTH - length))) == ' ')
+            length--;
+
+        for (int i = 0; i < length; i++)
+            symbol.append((char)((stock >>> (8 * (STOCK_LENGTH - 1 - i))) & 0xff));
+
+        return symbol;
+    }
+
+    /**
+     * Remove all instruments.
+     */
+    public void clear() {
+        index.clear();
+
+        Arrays.fill(present, false);
+
+        Arrays.fill(stocks, 0);
+        Arrays.fill(marketCategories, (byte)0);
+        Arrays.fill(financialStatusIndicators, (byte)0);
+        Arrays.fill(roundLotSizes, 0);
+        Arrays.fill(roundLotsOnly, (byte)0);
+        Arrays.fill(issueClassifications, (byte)0);
+        Arrays.fill(issueSubTypes, (short)0);
+        Arrays.fill(authenticities, (byte)0);
+        Arrays.fill(shortSaleThresholdIndicators, (byte)0);
+        Arrays.fill(ipoFlags, (byte)0);
+        Arrays.fill(luldReferencePriceTiers, (byte)0);
+        Arrays.fill(etpFlags, (byte)0);
+        Arrays.fill(etpLeverageFactors, 0);
+        Arrays.fill(inverseIndicators, (byte)0);
+
+        Arrays.fill(tradingStates, (byte)0);
+        Arrays.fill(reasons, 0);
+        Arrays.fill(regSHOActions, (byte)0);
+        Arrays.fill(operationalHaltActions, (byte)0);
+    }
+
+    /**
+     * Get the number of instruments.
+     *
+     * @return the number of instruments
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Check whether an instrument is in the directory.
+     *
+     * @param stockLocate the Stock Locate
+     * @return true if the instrument is in the directory, otherwise false
+     */
+    public boolean contains(int stockLocate) {
+        return present[stockLocate];
+    }
+
+    /**
+     * Find an instrument by the Stock field.
+     *
+     * @param stock the Stock field value
+     * @return the Stock Locate or {@link #NONE} if the instrument is unknown
+     */
+    public int locate(long stock) {
+        return index.get(stock);
+    }
+
+    /**
+     * Find an instrument by symbol.
+     *
+     * @param symbol the symbol
+     * @return the Stock Locate or {@link #NONE} if the instrument is unknown
+     */
+    public int locate(CharSequence symbol) {
+        if (symbol.length() > STOCK_LENGTH)
+            return NONE;
+
+        return index.get(ASCII.packLong(symbol));
+    }
+
+    /**
+     * Get the Stock field of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Stock field value
+     */
+    public long stock(int stockLocate) {
+        return stocks[stockLocate];
+    }
+
+    /**
+     * Get the symbol of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the symbol or {@code null} if the instrument is unknown
+     */
+    public String symbol(int stockLocate) {
+        return present[stockLocate] ? decode(stocks[stockLocate]) : null;
+    }
+
+    /**
+     * Get the Market Category of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Market Category
+     */
+    public byte marketCategory(int stockLocate) {
+        return marketCategories[stockLocate];
+    }
+
+    /**
+     * Get the Financial Status Indicator of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Financial Status Indicator
+     */
+    public byte financialStatusIndicator(int stockLocate) {
+        return financialStatusIndicators[stockLocate];
+    }
+
+    /**
+     * Get the Round Lot Size of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Round Lot Size
+     */
+    public long roundLotSize(int stockLocate) {
+        return roundLotSizes[stockLocate];
+    }
+
+    /**
+     * Get the Round Lots Only field of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Round Lots Only field
+     */
+    public byte roundLotsOnly(int stockLocate) {
+        return roundLotsOnly[stockLocate];
+    }
+
+    /**
+     * Get the Issue Classification of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Issue Classification
+     */
+    public byte issueClassification(int stockLocate) {
+        return issueClassifications[stockLocate];
+    }
+
+    /**
+     * Get the Issue Sub-Type of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Issue Sub-Type
+     */
+    public short issueSubType(int stockLocate) {
+        return issueSubTypes[stockLocate];
+    }
+
+    /**
+     * Get the Authenticity of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Authenticity
+     */
+    public byte authenticity(int stockLocate) {
+        return authenticities[stockLocate];
+    }
+
+    /**
+     * Get the Short Sale Threshold Indicator of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Short Sale Threshold Indicator
+     */
+    public byte shortSaleThresholdIndicator(int stockLocate) {
+        return shortSaleThresholdIndicators[stockLocate];
+    }
+
+    /**
+     * Get the IPO Flag of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the IPO Flag
+     */
+    public byte ipoFlag(int stockLocate) {
+        return ipoFlags[stockLocate];
+    }
+
+    /**
+     * Get the LULD Reference Price Tier of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the LULD Reference Price Tier
+     */
+    public byte luldReferencePriceTier(int stockLocate) {
+        return luldReferencePriceTiers[stockLocate];
+    }
+
+    /**
+     * Get the ETP Flag of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the ETP Flag
+     */
+    public byte etpFlag(int stockLocate) {
+        return etpFlags[stockLocate];
+    }
+
+    /**
+     * Get the ETP Leverage Factor of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the ETP Leverage Factor
+     */
+    public long etpLeverageFactor(int stockLocate) {
+        return etpLeverageFactors[stockLocate];
+    }
+
+    /**
+     * Get the Inverse Indicator of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Inverse Indicator
+     */
+    public byte inverseIndicator(int stockLocate) {
+        return inverseIndicators[stockLocate];
+    }
+
+    /**
+     * Get the Trading State of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Trading State
+     */
+    public byte tradingState(int stockLocate) {
+        return tradingStates[stockLocate];
+    }
+
+    /**
+     * Get the Reason field of the last Stock Trading Action message for an
+     * instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Reason field
+     */
+    public int reason(int stockLocate) {
+        return reasons[stockLocate];
+    }
+
+    /**
+     * Get the Reg SHO Action of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the Reg SHO Action
+     */
+    public byte regSHOAction(int stockLocate) {
+        return regSHOActions[stockLocate];
+    }
+
+    /**
+     * Get the Operational Halt Action of an instrument on a market.
+     *
+     * @param stockLocate the Stock Locate
+     * @param marketCode the Market Code
+     * @return the Operational Halt Action or zero if the market is unknown
+     */
+    public byte operationalHaltAction(int stockLocate, byte marketCode) {
+        int market = market(marketCode);
+        if (market < 0)
+            return 0;
+
+        return operationalHaltActions[MARKETS * stockLocate + market];
+    }
+
+    @Override
+    public void stockDirectory(StockDirectory message) {
+        int stockLocate = message.stockLocate;
+
+        if (present[stockLocate] && stocks[stockLocate] != message.stock)
+            index.remove(stocks[stockLocate]);
+
+        int previous = index.put(message.stock, stockLocate);
+        if (previous != NONE && previous != stockLocate)
+            present[previous] = false;
+
+        present[stockLocate] = true;
+
+        stocks[stockLocate]                       = message.stock;
+        marketCategories[stockLocate]             = message.marketCategory;
+        financialStatusIndicators[stockLocate]    = message.financialStatusIndicator;
+        roundLotSizes[stockLocate]                = message.roundLotSize;
+        roundLotsOnly[stockLocate]                = message.roundLotsOnly;
+        issueClassifications[stockLocate]         = message.issueClassification;
+        issueSubTypes[stockLocate]                = message.issueSubType;
+        authenticities[stockLocate]               = message.authenticity;
+        shortSaleThresholdIndicators[stockLocate] = message.shortSaleThresholdIndicator;
+        ipoFlags[stockLocate]                     = message.ipoFlag;
+        luldReferencePriceTiers[stockLocate]      = message.luldReferencePriceTier;
+        etpFlags[stockLocate]                     = message.etpFlag;
+        etpLeverageFactors[stockLocate]           = message.etpLeverageFactor;
+        inverseIndicators[stockLocate]            = message.inverseIndicator;
+    }
+
+    @Override
+    public void stockTradingAction(StockTradingAction message) {
+        tradingStates[message.stockLocate] = message.tradingState;
+        reasons[message.stockLocate]       = message.reason;
+    }
+
+    @Override
+    public void regSHORestriction(RegSHORestriction message) {
+        regSHOActions[message.locateCode] = message.regSHOAction;
+    }
+
+    @Override
+    public void operationalHalt(OperationalHalt message) {
+        int market = market(message.marketCode);
+        if (market < 0)
+            return;
+
+        operationalHaltActions[MARKETS * message.stockLocate + market] = message.operationalHaltAction;
+    }
+
+    private static int market(byte marketCode) {
+        switch (marketCode) {
+        case MARKET_CODE_NASDAQ:
+            return 0;
+        case MARKET_CODE_BX:
+            return 1;
+        case MARKET_CODE_PSX:
+            return 2;
+        default:
+            return -1;
+        }
+    }
+
+}
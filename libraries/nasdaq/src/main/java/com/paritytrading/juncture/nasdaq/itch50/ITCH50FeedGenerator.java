@@ -0,0 +1,649 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.foundation.ASCII;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.SplittableRandom;
+
+/**
+ * A generator of synthetic NASDAQ TotalView-ITCH 5.0 message streams.
+ *
+ * <p>A stream starts with a System Event message indicating the start of
+ * messages, a Stock Directory message and a Stock Trading Action message
+ * for each instrument and a System Event message indicating the start of
+ * market hours. After that, the stream consists of order and trade messages
+ * drawn from a weighted message mix.</p>
+ *
+ * <p>The generator keeps track of the open orders, so that Order Executed,
+ * Order Executed With Price, Order Cancel, Order Delete and Order Replace
+ * messages always refer to an open order. An order is opened instead if
+ * there are no open orders, and an order is deleted instead if the maximum
+ * number of open orders is reached.</p>
+ *
+ * <p>The generator does not allocate memory after construction.</p>
+ */
+public class ITCH50FeedGenerator {
+
+    /*
+     * The default message mix, in messages per 100 messages, roughly follows
+     * the distribution of a TotalView-ITCH 5.0 day file.
+     */
+    private static final byte[] DEFAULT_MESSAGE_TYPES = {
+        MESSAGE_TYPE_ADD_ORDER,
+        MESSAGE_TYPE_ORDER_DELETE,
+        MESSAGE_TYPE_ORDER_REPLACE,
+        MESSAGE_TYPE_ORDER_EXECUTED,
+        MESSAGE_TYPE_ORDER_CANCEL,
+        MESSAGE_TYPE_ADD_ORDER_MPID,
+        MESSAGE_TYPE_TRADE,
+        MESSAGE_TYPE_ORDER_EXECUTED_WITH_PRICE,
+    };
+
+    private static final int[] DEFAULT_WEIGHTS = {
+        40,
+        37,
+        9,
+        6,
+        2,
+        2,
+        1,
+        1,
+    };
+
+    /*
+     * The maximum length of a generated message.
+     */
+    private static final int MAX_MESSAGE_LENGTH = MESSAGE_LENGTH_TRADE;
+
+    private static final long START_TIMESTAMP = 34_200_000_000_000L;
+
+    private static final int MAX_TIMESTAMP_STEP = 1000;
+
+    private static final long TICK = 100;
+
+    private static final int ROUND_LOT_SIZE = 100;
+
+    private static final int ATTRIBUTION = ASCII.packInt("JNCT");
+
+    private final SplittableRandom random;
+
+    private final long[] stocks;
+    private final long[] prices;
+
+    private final byte[] messageTypes;
+    private final int[]  weights;
+
+    private final int totalWeight;
+
+    private final long[] orderReferenceNumbers;
+    private final int[]  orderStockLocates;
+    private final byte[] orderSides;
+    private final long[] orderPrices;
+    private final long[] orderShares;
+
+    private int orders;
+
+    private long timestamp;
+
+    private long nextOrderReferenceNumber;
+
+    private long nextMatchNumber;
+
+    private int preamble;
+
+    private final SystemEvent            systemEvent;
+    private final StockDirectory         stockDirectory;
+    private final StockTradingAction     stockTradingAction;
+    private final AddOrder               addOrder;
+    private final AddOrderMPID           addOrderMPID;
+    private final OrderExecuted          orderExecuted;
+    private final OrderExecutedWithPrice orderExecutedWithPrice;
+    private final OrderCancel            orderCancel;
+    private final OrderDelete            orderDelete;
+    private final OrderReplace           orderReplace;
+    private final Trade                  trade;
+
+    /**
+     * Create a generator with the default message mix.
+     *
+     * @param symbols the symbols
+     * @param orders the maximum number of open orders
+     * @param seed the random seed
+     * @throws IllegalArgumentException if the number of symbols or the
+     *   maximum number of open orders is invalid
+     */
+    public ITCH50FeedGenerator(String[] symbols, int orders, long seed) {
+        this(symbols, orders, seed, DEFAULT_MESSAGE_TYPES, DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * Create a generator.
+     *
+     * <p>The message mix consists of message types and their relative
+     * weights. The supported message types are Add Order, Add Order with
+     * MPID, Order Executed, Order Executed With Price, Order Cancel, Order
+     * Delete, Order Replace and Trade.</p>
+     *
+     * @param symbols the symbols
+     * @param orders the maximum number of open orders
+     * @param seed the random seed
+     * @param messageTypes the message types
+     * @param weights the weights of the message types
+     * @throws IllegalArgumentException if the number of symbols, the
+     *   maximum number of open orders or the message mix is invalid
+     */
+    public ITCH50FeedGenerator(String[] symbols, int orders, long seed,
+            byte[] messageTypes, int[] weights) {
+        if (symbols.length < 1 || symbols.length > 65535)
+            throw new IllegalArgumentException("Invalid number of symbols: " + symbols.length);
+        if (orders < 1)
+            throw new IllegalArgumentException("Too few orders: " + orders);
+        if (messageTypes.length != weights.length)
+            throw new IllegalArgumentException("Message types and weights do not match");
+
+        int totalWeight = 0;
+
+        for (int i = 0; i < messageTypes.length; i++) {
+            if (!isSupported(messageTypes[i]))
+                throw new IllegalArgumentException("Unsupported message type: " + (char)messageTypes[i]);
+            if (weights[i] < 0)
+                throw new IllegalArgumentException("Negative weight: " + weights[i]);
+
+            totalWeight += weights[i];
+        }
+
+        if (totalWeight == 0)
+            throw new IllegalArgumentException("No weights");
+
+        this.random = new SplittableRandom(seed);
+
+        this.stocks = new long[symbols.length + 1];
+        this.prices = new long[symbols.length + 1];
+
+        for (int i = 0; i < symbols.length; i++) {
+            this.stocks[i + 1] = ITCH50Directory.encode(symbols[i]);
+            this.prices[i + 1] = TICK * (1000 + random.nextInt(10000));
+        }
+
+        this.messageTypes = messageTypes.clone();
+        this.weights      = weights.clone();
+        this.totalWeight  = totalWeight;
+
+        this.orderReferenceNumbers = new long[orders];
+        this.orderStockLocates     = new int[orders];
+        this.orderSides            = new byte[orders];
+        this.orderPrices           = new long[orders];
+        this.orderShares           = new long[orders];
+
+        this.timestamp = START_TIMESTAMP;
+
+        this.nextOrderReferenceNumber = 1;
+        this.nextMatchNumber          = 1;
+
+        this.systemEvent            = new SystemEvent();
+        this.stockDirectory         = new StockDirectory();
+        this.stockTradingAction     = new StockTradingAction();
+        this.addOrder               = new AddOrder();
+        this.addOrderMPID           = new AddOrderMPID();
+        this.orderExecuted          = new OrderExecuted();
+        this.orderExecutedWithPrice = new OrderExecutedWithPrice();
+        this.orderCancel            = new OrderCancel();
+        this.orderDelete            = new OrderDelete();
+        this.orderReplace           = new OrderReplace();
+        this.trade                  = new Trade();
+
+        this.addOrderMPID.attribution = ATTRIBUTION;
+
+        this.orderExecutedWithPrice.printable = YES;
+
+        this.stockTradingAction.tradingState = TRADING_STATE_TRADING;
+        this.stockTradingAction.reserved     = ' ';
+        this.stockTradingAction.reason       = ASCII.packInt("    ");
+
+        this.stockDirectory.marketCategory              = MARKET_CATEGORY_NASDAQ_GLOBAL_SELECT_MARKET;
+        this.stockDirectory.financialStatusIndicator    = FINANCIAL_STATUS_INDICATOR_NORMAL;
+        this.stockDirectory.roundLotSize                = ROUND_LOT_SIZE;
+        this.stockDirectory.roundLotsOnly               = NO;
+        this.stockDirectory.issueClassification         = 'C';
+        this.stockDirectory.issueSubType                = (short)(('Z' << 8) | ' ');
+        this.stockDirectory.authenticity                = AUTHENTICITY_PRODUCTION;
+        this.stockDirectory.shortSaleThresholdIndicator = NO;
+        this.stockDirectory.ipoFlag                     = NO;
+        this.stockDirectory.luldReferencePriceTier      = LULD_REFERENCE_PRICE_TIER_1;
+        this.stockDirectory.etpFlag                     = NO;
+        this.stockDirectory.etpLeverageFactor           = 0;
+        this.stockDirectory.inverseIndicator            = NO;
+
+        this.trade.orderReferenceNumber = 0;
+    }
+
+    /**
+     * Get the number of open orders.
+     *
+     * @return the number of open orders
+     */
+    public int orders() {
+        return orders;
+    }
+
+    /**
+     * Write the next message to a buffer. The message is written without
+     * framing.
+     *
+     * @param buffer a buffer
+     * @return the message type
+     * @throws java.nio.BufferOverflowException if the buffer does not have
+     *   room for the message
+     */
+    public byte message(ByteBuffer buffer) {
+        timestamp += 1 + random.nextInt(MAX_TIMESTAMP_STEP);
+
+        int stockLocates = stocks.length - 1;
+
+        if (preamble < 2 * stockLocates + 2)
+            return preamble(buffer, preamble++, stockLocates);
+
+        byte messageType = messageType();
+
+        if (orders == 0 && messageType != MESSAGE_TYPE_TRADE)
+            messageType = MESSAGE_TYPE_ADD_ORDER;
+        else if (orders == orderReferenceNumbers.length && isAdd(messageType))
+            messageType = MESSAGE_TYPE_ORDER_DELETE;
+
+        switch (messageType) {
+        case MESSAGE_TYPE_ADD_ORDER:
+            addOrder(buffer);
+            break;
+        case MESSAGE_TYPE_ADD_ORDER_MPID:
+            addOrderMPID(buffer);
+            break;
+        case MESSAGE_TYPE_ORDER_EXECUTED:
+            orderExecuted(buffer);
+            break;
+        case MESSAGE_TYPE_ORDER_EXECUTED_WITH_PRICE:
+            orderExecutedWithPrice(buffer);
+            break;
+        case MESSAGE_TYPE_ORDER_CANCEL:
+            messageType = orderCancel(buffer);
+            break;
+        case MESSAGE_TYPE_ORDER_DELETE:
+            orderDelete(buffer, random.nextInt(orders));
+            break;
+        case MESSAGE_TYPE_ORDER_REPLACE:
+            orderReplace(buffer);
+            break;
+        case MESSAGE_TYPE_TRADE:
+            trade(buffer);
+            break;
+        default:
+            throw new IllegalStateException();
+        }
+
+        return messageType;
+    }
+
+    /**
+     * Write messages to a buffer until it does not have room for another
+     * message. Each message is preceded by a two-byte length field.
+     *
+     * @param buffer a buffer
+     * @return the number of messages
+     */
+    public int fill(ByteBuffer buffer) {
+        return fill(buffer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Write messages to a channel. Each message is preceded by a two-byte
+     * length field.
+     *
+     * @param channel a channel
+     * @param buffer a buffer used for staging messages
+     * @param messages the number of messages
+     * @throws IllegalArgumentException if the buffer does not have room for
+     *   a message
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(WritableByteChannel channel, ByteBuffer buffer, long messages) throws IOException {
+        if (buffer.capacity() < 2 + MAX_MESSAGE_LENGTH)
+            throw new IllegalArgumentException("Buffer too small: " + buffer.capacity());
+
+        while (messages > 0) {
+            buffer.clear();
+
+            messages -= fill(buffer, (int)Math.min(messages, Integer.MAX_VALUE));
+
+            buffer.flip();
+
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    private int fill(ByteBuffer buffer, int messages) {
+        int count = 0;
+
+        while (count < messages && buffer.remaining() >= 2 + MAX_MESSAGE_LENGTH) {
+            int position = buffer.position();
+
+            buffer.position(position + 2);
+
+            message(buffer);
+
+            buffer.putShort(position, (short)(buffer.position() - position - 2));
+
+            count++;
+        }
+
+        return count;
+    }
+
+    private byte preamble(ByteBuffer buffer, int index, int stockLocates) {
+        if (index == 0)
+            return systemEvent(buffer, EVENT_CODE_START_OF_MESSAGES);
+
+        if (index <= stockLocates)
+            return stockDirectory(buffer, index);
+
+        if (index <= 2 * stockLocates)
+            return stockTradingAction(buffer, index - stockLocates);
+
+        return systemEvent(buffer, EVENT_CODE_START_OF_MARKET_HOURS);
+    }
+
+    private byte systemEvent(ByteBuffer buffer, byte eventCode) {
+        systemEvent.stockLocate    = 0;
+        systemEvent.trackingNumber = 0;
+        systemEvent.timestampHigh  = timestampHigh();
+        systemEvent.timestampLow   = timestampLow();
+        systemEvent.eventCode      = eventCode;
+
+        systemEvent.put(buffer);
+
+        return MESSAGE_TYPE_SYSTEM_EVENT;
+    }
+
+    private byte stockDirectory(ByteBuffer buffer, int stockLocate) {
+        stockDirectory.stockLocate    = stockLocate;
+        stockDirectory.trackingNumber = 0;
+        stockDirectory.timestampHigh  = timestampHigh();
+        stockDirectory.timestampLow   = timestampLow();
+        stockDirectory.stock          = stocks[stockLocate];
+
+        stockDirectory.put(buffer);
+
+        return MESSAGE_TYPE_STOCK_DIRECTORY;
+    }
+
+    private byte stockTradingAction(ByteBuffer buffer, int stockLocate) {
+        stockTradingAction.stockLocate    = stockLocate;
+        stockTradingAction.trackingNumber = 0;
+        stockTradingAction.timestampHigh  = timestampHigh();
+        stockTradingAction.timestampLow   = timestampLow();
+        stockTradingAction.stock          = stocks[stockLocate];
+
+        stockTradingAction.put(buffer);
+
+        return MESSAGE_TYPE_STOCK_TRADING_ACTION;
+    }
+
+    private void addOrder(ByteBuffer buffer) {
+        int order = open();
+
+        addOrder.stockLocate          = orderStockLocates[order];
+        addOrder.trackingNumber       = 0;
+        addOrder.timestampHigh        = timestampHigh();
+        addOrder.timestampLow         = timestampLow();
+        addOrder.orderReferenceNumber = orderReferenceNumbers[order];
+        addOrder.buySellIndicator     = orderSides[order];
+        addOrder.shares               = orderShares[order];
+        addOrder.stock                = stocks[orderStockLocates[order]];
+        addOrder.price                = orderPrices[order];
+
+        addOrder.put(buffer);
+    }
+
+    private void addOrderMPID(ByteBuffer buffer) {
+        int order = open();
+
+        addOrderMPID.stockLocate          = orderStockLocates[order];
+        addOrderMPID.trackingNumber       = 0;
+        addOrderMPID.timestampHigh        = timestampHigh();
+        addOrderMPID.timestampLow         = timestampLow();
+        addOrderMPID.orderReferenceNumber = orderReferenceNumbers[order];
+        addOrderMPID.buySellIndicator     = orderSides[order];
+        addOrderMPID.shares               = orderShares[order];
+        addOrderMPID.stock                = stocks[orderStockLocates[order]];
+        addOrderMPID.price                = orderPrices[order];
+
+        addOrderMPID.put(buffer);
+    }
+
+    private void orderExecuted(ByteBuffer buffer) {
+        int order = random.nextInt(orders);
+
+        long executedShares = executedShares(order);
+
+        orderExecuted.stockLocate          = orderStockLocates[order];
+        orderExecuted.trackingNumber       = 0;
+        orderExecuted.timestampHigh        = timestampHigh();
+        orderExecuted.timestampLow         = timestampLow();
+        orderExecuted.orderReferenceNumber = orderReferenceNumbers[order];
+        orderExecuted.executedShares       = executedShares;
+        orderExecuted.matchNumber          = nextMatchNumber++;
+
+        orderExecuted.put(buffer);
+
+        execute(order, executedShares);
+    }
+
+    private void orderExecutedWithPrice(ByteBuffer buffer) {
+        int order = random.nextInt(orders);
+
+        long executedShares = executedShares(order);
+
+        orderExecutedWithPrice.stockLocate          = orderStockLocates[order];
+        orderExecutedWithPrice.trackingNumber       = 0;
+        orderExecutedWithPrice.timestampHigh        = timestampHigh();
+        orderExecutedWithPrice.timestampLow         = timestampLow();
+        orderExecutedWithPrice.orderReferenceNumber = orderReferenceNumbers[order];
+        orderExecutedWithPrice.executedShares       = executedShares;
+        orderExecutedWithPrice.matchNumber          = nextMatchNumber++;
+        orderExecutedWithPrice.executionPrice       = orderPrices[order];
+
+        orderExecutedWithPrice.put(buffer);
+
+        execute(order, executedShares);
+    }
+
+    private byte orderCancel(ByteBuffer buffer) {
+        int order = random.nextInt(orders);
+
+        long lots = orderShares[order] / ROUND_LOT_SIZE;
+
+        /*
+         * Canceling all remaining shares is represented by an Order Delete
+         * message.
+         */
+        if (lots < 2) {
+            orderDelete(buffer, order);
+
+            return MESSAGE_TYPE_ORDER_DELETE;
+        }
+
+        long canceledShares = ROUND_LOT_SIZE * (1 + random.nextLong(lots - 1));
+
+        orderCancel.stockLocate          = orderStockLocates[order];
+        orderCancel.trackingNumber       = 0;
+        orderCancel.timestampHigh        = timestampHigh();
+        orderCancel.timestampLow         = timestampLow();
+        orderCancel.orderReferenceNumber = orderReferenceNumbers[order];
+        orderCancel.canceledShares       = canceledShares;
+
+        orderCancel.put(buffer);
+
+        orderShares[order] -= canceledShares;
+
+        return MESSAGE_TYPE_ORDER_CANCEL;
+    }
+
+    private void orderDelete(ByteBuffer buffer, int order) {
+        orderDelete.stockLocate          = orderStockLocates[order];
+        orderDelete.trackingNumber       = 0;
+        orderDelete.timestampHigh        = timestampHigh();
+        orderDelete.timestampLow         = timestampLow();
+        orderDelete.orderReferenceNumber = orderReferenceNumbers[order];
+
+        orderDelete.put(buffer);
+
+        close(order);
+    }
+
+    private void orderReplace(ByteBuffer buffer) {
+        int order = random.nextInt(orders);
+
+        long originalOrderReferenceNumber = orderReferenceNumbers[order];
+
+        int stockLocate = orderStockLocates[order];
+
+        orderReferenceNumbers[order] = nextOrderReferenceNumber++;
+        orderPrices[order]           = price(stockLocate, orderSides[order]);
+        orderShares[order]           = shares();
+
+        orderReplace.stockLocate                  = stockLocate;
+        orderReplace.trackingNumber               = 0;
+        orderReplace.timestampHigh                = timestampHigh();
+        orderReplace.timestampLow                 = timestampLow();
+        orderReplace.originalOrderReferenceNumber = originalOrderReferenceNumber;
+        orderReplace.newOrderReferenceNumber      = orderReferenceNumbers[order];
+        orderReplace.shares                       = orderShares[order];
+        orderReplace.price                        = orderPrices[order];
+
+        orderReplace.put(buffer);
+    }
+
+    private void trade(ByteBuffer buffer) {
+        int stockLocate = 1 + random.nextInt(stocks.length - 1);
+
+        trade.stockLocate      = stockLocate;
+        trade.trackingNumber   = 0;
+        trade.timestampHigh    = timestampHigh();
+        trade.timestampLow     = timestampLow();
+        trade.buySellIndicator = BUY;
+        trade.shares           = shares();
+        trade.stock            = stocks[stockLocate];
+        trade.price            = prices[stockLocate];
+        trade.matchNumber      = nextMatchNumber++;
+
+        trade.put(buffer);
+    }
+
+    private int open() {
+        int order = orders++;
+
+        int stockLocate = 1 + random.nextInt(stocks.length - 1);
+
+        byte side = random.nextBoolean() ? BUY : SELL;
+
+        orderReferenceNumbers[order] = nextOrderReferenceNumber++;
+        orderStockLocates[order]     = stockLocate;
+        orderSides[order]            = side;
+        orderPrices[order]           = price(stockLocate, side);
+        orderShares[order]           = shares();
+
+        return order;
+    }
+
+    private void execute(int order, long executedShares) {
+        prices[orderStockLocates[order]] = orderPrices[order];
+
+        orderShares[order] -= executedShares;
+
+        if (orderShares[order] == 0)
+            close(order);
+    }
+
+    private void close(int order) {
+        int last = --orders;
+
+        orderReferenceNumbers[order] = orderReferenceNumbers[last];
+        orderStockLocates[order]     = orderStockLocates[last];
+        orderSides[order]            = orderSides[last];
+        orderPrices[order]           = orderPrices[last];
+        orderShares[order]           = orderShares[last];
+    }
+
+    private long executedShares(int order) {
+        return Math.min(orderShares[order], ROUND_LOT_SIZE * (1 + random.nextInt(3)));
+    }
+
+    private long price(int stockLocate, byte side) {
+        long offset = TICK * (1 + random.nextInt(10));
+
+        return side == BUY ? Math.max(prices[stockLocate] - offset, TICK) : prices[stockLocate] + offset;
+    }
+
+    private long shares() {
+        return ROUND_LOT_SIZE * (1 + random.nextInt(10));
+    }
+
+    private byte messageType() {
+        int weight = random.nextInt(totalWeight);
+
+        for (int i = 0; i < weights.length; i++) {
+            if (weight < weights[i])
+                return messageTypes[i];
+
+            weight -= weights[i];
+        }
+
+        return messageTypes[messageTypes.length - 1];
+    }
+
+    private int timestampHigh() {
+        return (int)(timestamp >>> 32);
+    }
+
+    private long timestampLow() {
+        return timestamp & 0xffffffffL;
+    }
+
+    private static boolean isAdd(byte messageType) {
+        return messageType == MESSAGE_TYPE_ADD_ORDER || messageType == MESSAGE_TYPE_ADD_ORDER_MPID;
+    }
+
+    private static boolean isSupported(byte messageType) {
+        switch (messageType) {
+        case MESSAGE_TYPE_ADD_ORDER:
+        case MESSAGE_TYPE_ADD_ORDER_MPID:
+        case MESSAGE_TYPE_ORDER_EXECUTED:
+        case MESSAGE_TYPE_ORDER_EXECUTED_WITH_PRICE:
+        case MESSAGE_TYPE_ORDER_CANCEL:
+        case MESSAGE_TYPE_ORDER_DELETE:
+        case MESSAGE_TYPE_ORDER_REPLACE:
+        case MESSAGE_TYPE_TRADE:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+}
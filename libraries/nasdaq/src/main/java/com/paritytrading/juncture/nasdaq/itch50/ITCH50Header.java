@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The common message header.
+ *
+ * <p>Every message starts with the Message Type, Stock Locate, Tracking
+ * Number and Timestamp fields. Instead of decoding each field separately,
+ * the header is decoded with two wide big-endian loads: an 8-byte load
+ * spanning the Stock Locate, Tracking Number and the first 32 bits of the
+ * Timestamp, and a 2-byte load for the rest of the Timestamp.</p>
+ *
+ * <p>The Timestamp is decoded into a single value of nanoseconds since
+ * midnight.</p>
+ */
+public class ITCH50Header {
+
+    /**
+     * The length of the header, including the Message Type field.
+     */
+    public static final int LENGTH = 11;
+
+    private static final VarHandle BUFFER_LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final VarHandle BUFFER_SHORT = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final VarHandle ARRAY_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final VarHandle ARRAY_SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final long TIMESTAMP_MASK = 0xffffffffffffL;
+
+    public byte messageType;
+    public int  stockLocate;
+    public int  trackingNumber;
+    public long timestamp;
+
+    /**
+     * Read a header from the buffer. The position of the buffer is not
+     * modified.
+     *
+     * @param buffer a buffer
+     * @param offset the offset of the Message Type field
+     * @throws IndexOutOfBoundsException if the header extends beyond the
+     *   limit of the buffer
+     */
+    public void get(ByteBuffer buffer, int offset) {
+        long  high = (long)BUFFER_LONG.get(buffer, offset + 1);
+        short low  = (short)BUFFER_SHORT.get(buffer, offset + 9);
+
+        messageType    = buffer.get(offset);
+        stockLocate    = (int)(high >>> 48);
+        trackingNumber = (int)(high >>> 32) & 0xffff;
+        timestamp      = (high & 0xffffffffL) << 16 | (low & 0xffff);
+    }
+
+    /**
+     * Read a header from the byte array.
+     *
+     * @param bytes a byte array
+     * @param offset the offset of the Message Type field
+     * @throws IndexOutOfBoundsException if the header extends beyond the
+     *   end of the byte array
+     */
+    public void get(byte[] bytes, int offset) {
+        long  high = (long)ARRAY_LONG.get(bytes, offset + 1);
+        short low  = (short)ARRAY_SHORT.get(bytes, offset + 9);
+
+        messageType    = bytes[offset];
+        stockLocate    = (int)(high >>> 48);
+        trackingNumber = (int)(high >>> 32) & 0xffff;
+        timestamp      = (high & 0xffffffffL) << 16 | (low & 0xffff);
+    }
+
+    /**
+     * Get the Stock Locate of a message in the buffer.
+     *
+     * @param buffer a buffer
+     * @param offset the offset of the Message Type field
+     * @return the Stock Locate
+     * @throws IndexOutOfBoundsException if the header extends beyond the
+     *   limit of the buffer
+     */
+    public static int stockLocate(ByteBuffer buffer, int offset) {
+        return (short)BUFFER_SHORT.get(buffer, offset + 1) & 0xffff;
+    }
+
+    /**
+     * Get the Stock Locate of a message in the byte array.
+     *
+     * @param bytes a byte array
+     * @param offset the offset of the Message Type field
+     * @return the Stock Locate
+     * @throws IndexOutOfBoundsException if the header extends beyond the
+     *   end of the byte array
+     */
+    public static int stockLocate(byte[] bytes, int offset) {
+        return (short)ARRAY_SHORT.get(bytes, offset + 1) & 0xffff;
+    }
+
+    /**
+     * Get the Timestamp of a message in the buffer.
+     *
+     * <p>The Timestamp is decoded with a single 8-byte load spanning the
+     * Tracking Number and the Timestamp.</p>
+     *
+     * @param buffer a buffer
+     * @param offset the offset of the Message Type field
+     * @return the Timestamp as nanoseconds since midnight
+     * @throws IndexOutOfBoundsException if the header extends beyond the
+     *   limit of the buffer
+     */
+    public static long timestamp(ByteBuffer buffer, int offset) {
+        return (long)BUFFER_LONG.get(buffer, offset + 3) & TIMESTAMP_MASK;
+    }
+
+    /**
+     * Get the Timestamp of a message in the byte array.
+     *
+     * @param bytes a byte array
+     * @param offset the offset of the Message Type field
+     * @return the Timestamp as nanoseconds since midnight
+     * @throws IndexOutOfBoundsException if the header extends beyond the
+     *   end of the byte array
+     */
+    public static long timestamp(byte[] bytes, int offset) {
+        return (long)ARRAY_LONG.get(bytes, offset + 3) & TIMESTAMP_MASK;
+    }
+
+    /**
+     * Get the high 16 bits of a Timestamp.
+     *
+     * @param timestamp the Timestamp as nanoseconds since midnight
+     * @return the high 16 bits of the Timestamp
+     */
+    public static int timestampHigh(long timestamp) {
+        return (int)(timestamp >>> 32) & 0xffff;
+    }
+
+    /**
+     * Get the low 32 bits of a Timestamp.
+     *
+     * @param timestamp the Timestamp as nanoseconds since midnight
+     * @return the low 32 bits of the Timestamp
+     */
+    public static long timestampLow(long timestamp) {
+        return timestamp & 0xffffffffL;
+    }
+
+}
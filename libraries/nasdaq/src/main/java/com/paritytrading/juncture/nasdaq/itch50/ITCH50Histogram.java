@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A histogram of non-negative values.
+ *
+ * <p>The histogram uses log-linear buckets: values below 128 have a bucket
+ * each, and each power of two above that is divided into 64 buckets. This
+ * bounds the relative error of a recorded value to less than 1/64. The
+ * buckets are allocated up front, so that recording a value does not
+ * allocate memory.</p>
+ *
+ * <p>The histogram has a single writer. Readers may run on other threads
+ * and never block the writer; they see each bucket count atomically, but
+ * not necessarily all bucket counts at the same point in time.</p>
+ */
+public class ITCH50Histogram {
+
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int SUB_BUCKET_BITS = 7;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+
+    private final long[] counts;
+
+    /**
+     * Create a histogram.
+     */
+    public ITCH50Histogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    /**
+     * Record a value. Negative values are recorded as zero.
+     *
+     * <p>This method must only be invoked by the writer.</p>
+     *
+     * @param value the value
+     */
+    public void record(long value) {
+        int index = index(Math.max(value, 0));
+
+        COUNTS.setOpaque(counts, index, counts[index] + 1);
+    }
+
+    /**
+     * Copy the bucket counts of this histogram to another histogram.
+     *
+     * <p>Queries on the copy do not race with the writer of this
+     * histogram.</p>
+     *
+     * @param histogram the other histogram
+     */
+    public void copyTo(ITCH50Histogram histogram) {
+        for (int i = 0; i < BUCKETS; i++)
+            histogram.counts[i] = count(i);
+    }
+
+    /**
+     * Get the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long count() {
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++)
+            count += count(i);
+
+        return count;
+    }
+
+    /**
+     * Get the maximum recorded value. The value is rounded up to the highest
+     * value of its bucket.
+     *
+     * @return the maximum recorded value or zero if no values have been
+     *   recorded
+     */
+    public long max() {
+        for (int i = BUCKETS - 1; i >= 0; i--) {
+            if (count(i) != 0)
+                return highestValue(i);
+        }
+
+        return 0;
+    }
+
+    /**
+     * Get the value at a quantile. The value is rounded up to the highest
+     * value of its bucket.
+     *
+     * @param quantile the quantile, between zero and one
+     * @return the value at the quantile or zero if no values have been
+     *   recorded
+     */
+    public long valueAtQuantile(double quantile) {
+        long count = count();
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max((long)Math.ceil(Math.min(Math.max(quantile, 0.0), 1.0) * count), 1);
+
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            total += count(i);
+            if (total >= rank)
+                return highestValue(i);
+        }
+
+        return max();
+    }
+
+    private long count(int index) {
+        return (long)COUNTS.getOpaque(counts, index);
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS)
+            return (int)value;
+
+        int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+
+        int shift = magnitude - SUB_BUCKET_BITS + 1;
+
+        return SUB_BUCKETS + (magnitude - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS
+            + (int)(value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    private static long lowestValue(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int offset = index - SUB_BUCKETS;
+
+        int shift = offset / HALF_SUB_BUCKETS + 1;
+
+        return (long)(HALF_SUB_BUCKETS + offset % HALF_SUB_BUCKETS) << shift;
+    }
+
+    private static long highestValue(int index) {
+        return index + 1 < BUCKETS ? lowestValue(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+}
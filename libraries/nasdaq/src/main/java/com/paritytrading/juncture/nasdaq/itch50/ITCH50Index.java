@@ -0,0 +1,523 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * An index of a NASDAQ TotalView-ITCH 5.0 file.
+ *
+ * <p>The index holds the file positions of the messages of each instrument
+ * and a sparse index from Timestamps to file positions. It is built in one
+ * pass over a file and can be saved into a sidecar file. With the index,
+ * the messages of an instrument can be read without scanning the whole
+ * file, and reading the file can start close to a given time of day.</p>
+ *
+ * <p>The file positions of each instrument are stored as differences
+ * between consecutive positions, encoded as variable-length integers. This
+ * takes one or two bytes per message for an actively traded instrument and
+ * three or four bytes per message for a thinly traded instrument, whose
+ * messages are further apart. The sparse index holds the Timestamp and the
+ * file position of every {@code stride}th message.</p>
+ *
+ * <p>A file position refers to the length field preceding a message.</p>
+ */
+public class ITCH50Index {
+
+    /**
+     * The default number of messages between sparse index entries.
+     */
+    public static final int DEFAULT_STRIDE = 4096;
+
+    private static final long MAGIC = 0x4954434835304958L;
+
+    private static final int VERSION = 1;
+
+    private static final int STOCK_LOCATES = 65536;
+
+    private static final int STOCK_OFFSET = 11;
+
+    private static final int STOCK_LENGTH = 8;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /*
+     * A block has room for a message of the maximum length.
+     */
+    private static final int BLOCK_SIZE = 2 + 65535;
+
+    /*
+     * A read extends past the last message it is sized for by room for a
+     * message of any known message type, including the length field.
+     */
+    private static final int READ_AHEAD = 64;
+
+    private final long size;
+
+    private final int stride;
+
+    private final long[] timestamps;
+    private final long[] positions;
+
+    private final long[]   stocks;
+    private final long[]   counts;
+    private final byte[][] deltas;
+    private final int[]    lengths;
+
+    private ITCH50Index(long size, int stride, long[] timestamps, long[] positions,
+            long[] stocks, long[] counts, byte[][] deltas, int[] lengths) {
+        this.size       = size;
+        this.stride     = stride;
+        this.timestamps = timestamps;
+        this.positions  = positions;
+        this.stocks     = stocks;
+        this.counts     = counts;
+        this.deltas     = deltas;
+        this.lengths    = lengths;
+    }
+
+    /**
+     * Build an index of a file with the default stride.
+     *
+     * @param channel the input channel
+     * @return an index
+     * @throws ITCH50Exception if the file ends in the middle of a message
+     * @throws IOException if an I/O error occurs
+     */
+    public static ITCH50Index build(FileChannel channel) throws IOException {
+        return build(channel, DEFAULT_STRIDE);
+    }
+
+    /**
+     * Build an index of a file. The file is read from the current position
+     * of the input channel to the end.
+     *
+     * @param channel the input channel
+     * @param stride the number of messages between sparse index entries
+     * @return an index
+     * @throws IllegalArgumentException if the stride is not positive
+     * @throws ITCH50Exception if the file ends in the middle of a message
+     * @throws IOException if an I/O error occurs
+     */
+    public static ITCH50Index build(FileChannel channel, int stride) throws IOException {
+        if (stride < 1)
+            throw new IllegalArgumentException("Non-positive stride: " + stride);
+
+        long size = channel.size();
+
+        long[] timestamps = new long[16];
+        long[] positions  = new long[16];
+
+        int entries = 0;
+
+        long[]   stocks  = new long[STOCK_LOCATES];
+        long[]   counts  = new long[STOCK_LOCATES];
+        byte[][] deltas  = new byte[STOCK_LOCATES][];
+        int[]    lengths = new int[STOCK_LOCATES];
+        long[]   lasts   = new long[STOCK_LOCATES];
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        buffer.flip();
+
+        long position = channel.position();
+        long messages = 0;
+
+        while (true) {
+            if (!fill(channel, buffer, 2))
+                break;
+
+            int offset = buffer.position();
+
+            int messageLength = buffer.getShort(offset) & 0xffff;
+
+            if (!fill(channel, buffer, 2 + messageLength))
+                throw new ITCH50Exception("Unexpected end of file");
+
+            offset = buffer.position();
+
+            if (messageLength < ITCH50Header.LENGTH)
+                throw new ITCH50Exception("Message too short: " + messageLength);
+
+            byte messageType = buffer.get(offset + 2);
+
+            int  stockLocate = ITCH50Header.stockLocate(buffer, offset + 2);
+            long timestamp   = ITCH50Header.timestamp(buffer, offset + 2);
+
+            if (messageType == MESSAGE_TYPE_STOCK_DIRECTORY && messageLength >= STOCK_OFFSET + STOCK_LENGTH)
+                stocks[stockLocate] = buffer.getLong(offset + 2 + STOCK_OFFSET);
+
+            if (messages % stride == 0) {
+                if (entries == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, 2 * entries);
+                    positions  = Arrays.copyOf(positions, 2 * entries);
+                }
+
+                timestamps[entries] = timestamp;
+                positions[entries]  = position;
+
+                entries++;
+            }
+
+            byte[] bytes = deltas[stockLocate];
+            if (bytes == null)
+                deltas[stockLocate] = bytes = new byte[64];
+            else if (lengths[stockLocate] + 10 > bytes.length)
+                deltas[stockLocate] = bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+
+            lengths[stockLocate] = putVarLong(bytes, lengths[stockLocate], position - lasts[stockLocate]);
+
+            lasts[stockLocate] = position;
+
+            counts[stockLocate]++;
+
+            buffer.position(offset + 2 + messageLength);
+
+            position += 2 + messageLength;
+
+            messages++;
+        }
+
+        return new ITCH50Index(size, stride, Arrays.copyOf(timestamps, entries),
+                Arrays.copyOf(positions, entries), stocks, counts, deltas, lengths);
+    }
+
+    /**
+     * Load an index from a sidecar file.
+     *
+     * @param file the sidecar file
+     * @return an index
+     * @throws ITCH50Exception if the file is not an index file
+     * @throws IOException if an I/O error occurs
+     */
+    public static ITCH50Index load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readLong() != MAGIC)
+                throw new ITCH50Exception("Not an index file");
+
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new ITCH50Exception("Unsupported index version: " + version);
+
+            long size    = in.readLong();
+            int  stride  = in.readInt();
+            int  entries = in.readInt();
+
+            long[] timestamps = new long[entries];
+            long[] positions  = new long[entries];
+
+            for (int i = 0; i < entries; i++) {
+                timestamps[i] = in.readLong();
+                positions[i]  = in.readLong();
+            }
+
+            long[]   stocks  = new long[STOCK_LOCATES];
+            long[]   counts  = new long[STOCK_LOCATES];
+            byte[][] deltas  = new byte[STOCK_LOCATES][];
+            int[]    lengths = new int[STOCK_LOCATES];
+
+            int instruments = in.readInt();
+
+            for (int i = 0; i < instruments; i++) {
+                int stockLocate = in.readUnsignedShort();
+
+                stocks[stockLocate]  = in.readLong();
+                counts[stockLocate]  = in.readLong();
+                lengths[stockLocate] = in.readInt();
+                deltas[stockLocate]  = new byte[lengths[stockLocate]];
+
+                in.readFully(deltas[stockLocate]);
+            }
+
+            return new ITCH50Index(size, stride, timestamps, positions, stocks, counts, deltas, lengths);
+        }
+    }
+
+    /**
+     * Save the index into a sidecar file.
+     *
+     * @param file the sidecar file
+     * @throws IOException if an I/O error occurs
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(size);
+            out.writeInt(stride);
+            out.writeInt(timestamps.length);
+
+            for (int i = 0; i < timestamps.length; i++) {
+                out.writeLong(timestamps[i]);
+                out.writeLong(positions[i]);
+            }
+
+            int instruments = 0;
+
+            for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+                if (counts[stockLocate] > 0)
+                    instruments++;
+            }
+
+            out.writeInt(instruments);
+
+            for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+                if (counts[stockLocate] == 0)
+                    continue;
+
+                out.writeShort(stockLocate);
+                out.writeLong(stocks[stockLocate]);
+                out.writeLong(counts[stockLocate]);
+                out.writeInt(lengths[stockLocate]);
+                out.write(deltas[stockLocate], 0, lengths[stockLocate]);
+            }
+        }
+    }
+
+    /**
+     * Get the size of the indexed file.
+     *
+     * @return the size of the indexed file
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get the Stock Locate of an instrument.
+     *
+     * @param symbol the symbol
+     * @return the Stock Locate or {@link ITCH50Directory#NONE} if the
+     *   instrument is not in the file
+     * @throws IllegalArgumentException if the symbol is longer than eight
+     *   characters
+     */
+    public int locate(CharSequence symbol) {
+        long stock = ITCH50Directory.encode(symbol);
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            if (stocks[stockLocate] == stock)
+                return stockLocate;
+        }
+
+        return ITCH50Directory.NONE;
+    }
+
+    /**
+     * Get the number of messages with a Stock Locate.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the number of messages
+     */
+    public long messages(int stockLocate) {
+        return counts[stockLocate];
+    }
+
+    /**
+     * Get a file position from which to read the messages at or after a
+     * Timestamp. The file position is the position of the last sparse index
+     * entry whose Timestamp precedes the Timestamp.
+     *
+     * @param timestamp the Timestamp as nanoseconds since midnight
+     * @return the file position
+     */
+    public long position(long timestamp) {
+        int i = Arrays.binarySearch(timestamps, timestamp);
+        if (i < 0)
+            i = -i - 1;
+
+        /*
+         * Find the first entry with the Timestamp, as several entries may
+         * share it, and step back to the preceding entry.
+         */
+        while (i > 0 && timestamps[i - 1] >= timestamp)
+            i--;
+
+        return i > 0 ? positions[i - 1] : positions.length > 0 ? positions[0] : 0;
+    }
+
+    /**
+     * Read the messages with a Stock Locate from the indexed file. The
+     * buffer passed to the message listener is positioned at the first byte
+     * of the message and limited to the last byte of the message.
+     *
+     * <p>Each read from the file spans the upcoming messages of the
+     * instrument that fit into one block, so that the messages of a thinly
+     * traded instrument are read with small reads.</p>
+     *
+     * @param channel the input channel
+     * @param stockLocate the Stock Locate
+     * @param listener the message listener
+     * @return the number of messages read
+     * @throws ITCH50Exception if the file does not match the index
+     * @throws IOException if an I/O error occurs
+     */
+    public long read(FileChannel channel, int stockLocate, MessageListener listener) throws IOException {
+        if (channel.size() != size)
+            throw new ITCH50Exception("File does not match index");
+
+        byte[] bytes  = deltas[stockLocate];
+        int    length = lengths[stockLocate];
+
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+
+        long blockStart = 0;
+        int  blockSize  = 0;
+
+        long position = 0;
+        long messages = 0;
+
+        int i = 0;
+
+        while (i < length) {
+            long delta = 0;
+
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[i++];
+
+                delta |= (long)(b & 0x7f) << shift;
+
+                if (b >= 0)
+                    break;
+            }
+
+            position += delta;
+
+            long offset = position - blockStart;
+
+            if (offset + 2 > blockSize || offset + 2 + (block.getShort((int)offset) & 0xffff) > blockSize) {
+                blockStart = position;
+                blockSize  = read(channel, block, position, span(bytes, i, length) + READ_AHEAD);
+
+                offset = 0;
+
+                if (blockSize < 2)
+                    throw new ITCH50Exception("File does not match index");
+
+                int messageLength = 2 + (block.getShort(0) & 0xffff);
+
+                if (messageLength > blockSize)
+                    blockSize = read(channel, block, position, messageLength);
+
+                if (messageLength > blockSize)
+                    throw new ITCH50Exception("File does not match index");
+            }
+
+            int next = (int)offset + 2 + (block.getShort((int)offset) & 0xffff);
+
+            block.limit(next);
+            block.position((int)offset + 2);
+
+            listener.message(block);
+
+            block.limit(blockSize);
+
+            messages++;
+        }
+
+        return messages;
+    }
+
+    /*
+     * Return the distance from the current message to the furthest upcoming
+     * message that still leaves room for read-ahead in a block.
+     */
+    private static int span(byte[] bytes, int i, int length) {
+        long span = 0;
+
+        while (i < length) {
+            long delta = 0;
+
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[i++];
+
+                delta |= (long)(b & 0x7f) << shift;
+
+                if (b >= 0)
+                    break;
+            }
+
+            if (span + delta > BLOCK_SIZE - READ_AHEAD)
+                break;
+
+            span += delta;
+        }
+
+        return (int)span;
+    }
+
+    private static int read(FileChannel channel, ByteBuffer block, long position, int length) throws IOException {
+        block.clear();
+        block.limit(length);
+
+        while (block.hasRemaining()) {
+            if (channel.read(block, position + block.position()) < 0)
+                break;
+        }
+
+        block.flip();
+
+        return block.limit();
+    }
+
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        if (buffer.remaining() >= length)
+            return true;
+
+        buffer.compact();
+
+        try {
+            while (buffer.position() < length) {
+                if (channel.read(buffer) < 0) {
+                    if (buffer.position() > 0)
+                        throw new ITCH50Exception("Unexpected end of file");
+
+                    return false;
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+
+        return true;
+    }
+
+    private static int putVarLong(byte[] bytes, int offset, long value) {
+        while ((value & ~0x7fL) != 0) {
+            bytes[offset++] = (byte)(value & 0x7f | 0x80);
+
+            value >>>= 7;
+        }
+
+        bytes[offset++] = (byte)value;
+
+        return offset;
+    }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+
+/**
+ * A parser for inbound messages that records metrics.
+ *
+ * <p>For each message type, the parser counts the messages and their bytes
+ * and accumulates the time spent decoding the messages and the time spent
+ * in the message listener. In addition, the parser records the decode time
+ * and the listener time of each message into histograms.</p>
+ *
+ * <p>The decode time of a message is measured from the invocation of
+ * {@link #message(ByteBuffer)} to the invocation of the message listener,
+ * and the listener time from the invocation of the message listener to its
+ * return. Messages that the parser skips are counted, but their times are
+ * not recorded.</p>
+ *
+ * <p>The metrics can be read from other threads without blocking the
+ * thread that invokes the parser.</p>
+ */
+public class ITCH50InstrumentedParser implements MessageListener {
+
+    private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final ITCH50Parser parser;
+
+    private final ITCH50Listener listener;
+
+    private final long[] messages;
+    private final long[] bytes;
+    private final long[] decodeTimes;
+    private final long[] listenerTimes;
+
+    private final ITCH50Histogram decodeTime;
+    private final ITCH50Histogram listenerTime;
+
+    private boolean decoded;
+
+    private long decodedAt;
+
+    /**
+     * Create a parser for inbound messages.
+     *
+     * @param listener the message listener
+     */
+    public ITCH50InstrumentedParser(ITCH50Listener listener) {
+        this(listener, null, false);
+    }
+
+    /**
+     * Create a parser for inbound messages of the specified message types.
+     *
+     * <p>The parser skips messages of other message types without decoding
+     * them.</p>
+     *
+     * @param listener the message listener
+     * @param messageTypes the message types
+     */
+    public ITCH50InstrumentedParser(ITCH50Listener listener, byte... messageTypes) {
+        this(listener, messageTypes, true);
+    }
+
+    private ITCH50InstrumentedParser(ITCH50Listener listener, byte[] messageTypes, boolean subscribe) {
+        this.parser = subscribe ? new ITCH50Parser(new Listener(), messageTypes) : new ITCH50Parser(new Listener());
+
+        this.listener = listener;
+
+        this.messages      = new long[256];
+        this.bytes         = new long[256];
+        this.decodeTimes   = new long[256];
+        this.listenerTimes = new long[256];
+
+        this.decodeTime   = new ITCH50Histogram();
+        this.listenerTime = new ITCH50Histogram();
+    }
+
+    @Override
+    public void message(ByteBuffer buffer) throws IOException {
+        int messageType = buffer.get(buffer.position()) & 0xff;
+        int length      = buffer.remaining();
+
+        decoded = false;
+
+        long start = System.nanoTime();
+
+        parser.message(buffer);
+
+        add(messages, messageType, 1);
+        add(bytes, messageType, length);
+
+        if (!decoded)
+            return;
+
+        long end = System.nanoTime();
+
+        add(decodeTimes, messageType, decodedAt - start);
+        add(listenerTimes, messageType, end - decodedAt);
+
+        decodeTime.record(decodedAt - start);
+        listenerTime.record(end - decodedAt);
+    }
+
+    /**
+     * Get the number of messages of a message type.
+     *
+     * @param messageType the message type
+     * @return the number of messages
+     */
+    public long messages(byte messageType) {
+        return get(messages, messageType);
+    }
+
+    /**
+     * Get the number of bytes in messages of a message type.
+     *
+     * @param messageType the message type
+     * @return the number of bytes
+     */
+    public long bytes(byte messageType) {
+        return get(bytes, messageType);
+    }
+
+    /**
+     * Get the total time spent decoding messages of a message type.
+     *
+     * @param messageType the message type
+     * @return the total decode time in nanoseconds
+     */
+    public long decodeTime(byte messageType) {
+        return get(decodeTimes, messageType);
+    }
+
+    /**
+     * Get the total time spent in the message listener for messages of a
+     * message type.
+     *
+     * @param messageType the message type
+     * @return the total listener time in nanoseconds
+     */
+    public long listenerTime(byte messageType) {
+        return get(listenerTimes, messageType);
+    }
+
+    /**
+     * Get the histogram of decode times in nanoseconds.
+     *
+     * @return the histogram of decode times
+     */
+    public ITCH50Histogram decodeTime() {
+        return decodeTime;
+    }
+
+    /**
+     * Get the histogram of listener times in nanoseconds.
+     *
+     * @return the histogram of listener times
+     */
+    public ITCH50Histogram listenerTime() {
+        return listenerTime;
+    }
+
+    private void decoded() {
+        decodedAt = System.nanoTime();
+
+        decoded = true;
+    }
+
+    private static void add(long[] counters, int index, long value) {
+        COUNTERS.setOpaque(counters, index, counters[index] + value);
+    }
+
+    private static long get(long[] counters, byte messageType) {
+        return (long)COUNTERS.getOpaque(counters, messageType & 0xff);
+    }
+
+    private class Listener implements ITCH50Listener {
+
+        @Override
+        public void systemEvent(SystemEvent message) throws IOException {
+            decoded();
+
+            listener.systemEvent(message);
+        }
+
+        @Override
+        public void stockDirectory(StockDirectory message) throws IOException {
+            decoded();
+
+            listener.stockDirectory(message);
+        }
+
+        @Override
+        public void stockTradingAction(StockTradingAction message) throws IOException {
+            decoded();
+
+            listener.stockTradingAction(message);
+        }
+
+        @Override
+        public void regSHORestriction(RegSHORestriction message) throws IOException {
+            decoded();
+
+            listener.regSHORestriction(message);
+        }
+
+        @Override
+        public void marketParticipantPosition(MarketParticipantPosition message) throws IOException {
+            decoded();
+
+            listener.marketParticipantPosition(message);
+        }
+
+        @Override
+        public void mwcbDeclineLevel(MWCBDeclineLevel message) throws IOException {
+            decoded();
+
+            listener.mwcbDeclineLevel(message);
+        }
+
+        @Override
+        public void mwcbStatus(MWCBStatus message) throws IOException {
+            decoded();
+
+            listener.mwcbStatus(message);
+        }
+
+        @Override
+        public void ipoQuotingPeriodUpdate(IPOQuotingPeriodUpdate message) throws IOException {
+            decoded();
+
+            listener.ipoQuotingPeriodUpdate(message);
+        }
+
+        @Override
+        public void luldAuctionCollar(LULDAuctionCollar message) throws IOException {
+            decoded();
+
+            listener.luldAuctionCollar(message);
+        }
+
+        @Override
+        public void operationalHalt(OperationalHalt message) throws IOException {
+            decoded();
+
+            listener.operationalHalt(message);
+        }
+
+        @Override
+        public void addOrder(AddOrder message) throws IOException {
+            decoded();
+
+            listener.addOrder(message);
+        }
+
+        @Override
+        public void addOrderMPID(AddOrderMPID message) throws IOException {
+            decoded();
+
+            listener.addOrderMPID(message);
+        }
+
+        @Override
+        public void orderExecuted(OrderExecuted message) throws IOException {
+            decoded();
+
+            listener.orderExecuted(message);
+        }
+
+        @Override
+        public void orderExecutedWithPrice(OrderExecutedWithPrice message) throws IOException {
+            decoded();
+
+            listener.orderExecutedWithPrice(message);
+        }
+
+        @Override
+        public void orderCancel(OrderCancel message) throws IOException {
+            decoded();
+
+            listener.orderCancel(message);
+        }
+
+        @Override
+        public void orderDelete(OrderDelete message) throws IOException {
+            decoded();
+
+            listener.orderDelete(message);
+        }
+
+        @Override
+        public void orderReplace(OrderReplace message) throws IOException {
+            decoded();
+
+            listener.orderReplace(message);
+        }
+
+        @Override
+        public void trade(Trade message) throws IOException {
+            decoded();
+
+            listener.trade(message);
+        }
+
+        @Override
+        public void crossTrade(CrossTrade message) throws IOException {
+            decoded();
+
+            listener.crossTrade(message);
+        }
+
+        @Override
+        public void brokenTrade(BrokenTrade message) throws IOException {
+            decoded();
+
+            listener.brokenTrade(message);
+        }
+
+        @Override
+        public void noii(NOII message) throws IOException {
+            decoded();
+
+            listener.noii(message);
+        }
+
+        @Override
+        public void rpii(RPII message) throws IOException {
+            decoded();
+
+            listener.rpii(message);
+        }
+
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import java.io.IOException;
+
+/**
+ * An adapter for inbound messages. The methods in this class do nothing.
+ */
+public abstract class ITCH50ListenerAdapter implements ITCH50Listener {
+
+    @Override
+    public void systemEvent(SystemEvent message) throws IOException {
+    }
+
+    @Override
+    public void stockDirectory(StockDirectory message) throws IOException {
+    }
+
+    @Override
+    public void stockTradingAction(StockTradingAction message) throws IOException {
+    }
+
+    @Override
+    public void regSHORestriction(RegSHORestriction message) throws IOException {
+    }
+
+    @Override
+    public void marketParticipantPosition(MarketParticipantPosition message) throws IOException {
+    }
+
+    @Override
+    public void mwcbDeclineLevel(MWCBDeclineLevel message) throws IOException {
+    }
+
+    @Override
+    public void mwcbStatus(MWCBStatus message) throws IOException {
+    }
+
+    @Override
+    public void ipoQuotingPeriodUpdate(IPOQuotingPeriodUpdate message) throws IOException {
+    }
+
+    @Override
+    public void luldAuctionCollar(LULDAuctionCollar message) throws IOException {
+    }
+
+    @Override
+    public void operationalHalt(OperationalHalt message) throws IOException {
+    }
+
+    @Override
+    public void addOrder(AddOrder message) throws IOException {
+    }
+
+    @Override
+    public void addOrderMPID(AddOrderMPID message) throws IOException {
+    }
+
+    @Override
+    public void orderExecuted(OrderExecuted message) throws IOException {
+    }
+
+    @Override
+    public void orderExecutedWithPrice(OrderExecutedWithPrice message) throws IOException {
+    }
+
+    @Override
+    public void orderCancel(OrderCancel message) throws IOException {
+    }
+
+    @Override
+    public void orderDelete(OrderDelete message) throws IOException {
+    }
+
+    @Override
+    public void orderReplace(OrderReplace message) throws IOException {
+    }
+
+    @Override
+    public void trade(Trade message) throws IOException {
+    }
+
+    @Override
+    public void crossTrade(CrossTrade message) throws IOException {
+    }
+
+    @Override
+    public void brokenTrade(BrokenTrade message) throws IOException {
+    }
+
+    @Override
+    public void noii(NOII message) throws IOException {
+    }
+
+    @Override
+    public void rpii(RPII message) throws IOException {
+    }
+
+}
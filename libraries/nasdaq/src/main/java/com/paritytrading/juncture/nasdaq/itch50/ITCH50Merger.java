@@ -0,0 +1,281 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reader that merges NASDAQ TotalView-ITCH 5.0 files by Timestamp.
+ *
+ * <p>Each source consists of messages, each preceded by a two-byte length
+ * field, in Timestamp order. Nasdaq, BX and PSX publish their feeds in the
+ * same format, so the sources can come from different markets. The reader
+ * reads each source into its own buffer and passes the messages of all
+ * sources to the message listeners in Timestamp order. Each message is
+ * passed to the message listener of its source, and {@link #source()}
+ * returns the index of the source during the invocation.</p>
+ *
+ * <p>Messages with equal Timestamps are passed on in the order of the
+ * sources. The next message is selected by a linear scan over the head of
+ * each source, which is faster than a priority queue for the small number
+ * of sources that a merge typically has.</p>
+ */
+public class ITCH50Merger implements Closeable {
+
+    /**
+     * The default buffer size.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final int MIN_BUFFER_SIZE = 2 + 65535;
+
+    /*
+     * The Timestamp of an exhausted source. It is greater than any 48-bit
+     * Timestamp.
+     */
+    private static final long END = Long.MAX_VALUE;
+
+    private final ReadableByteChannel[] channels;
+
+    private final MessageListener[] listeners;
+
+    private final ByteBuffer[] buffers;
+
+    private final long[] heads;
+
+    private int source;
+
+    /**
+     * Create a reader.
+     *
+     * @param channels the input channels
+     * @param listeners the message listeners, one for each input channel
+     * @throws IllegalArgumentException if there are no input channels or
+     *   if the number of message listeners does not match the number of
+     *   input channels
+     */
+    public ITCH50Merger(ReadableByteChannel[] channels, MessageListener[] listeners) {
+        this(channels, listeners, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a reader.
+     *
+     * @param channels the input channels
+     * @param listeners the message listeners, one for each input channel
+     * @param bufferSize the buffer size of each input channel
+     * @throws IllegalArgumentException if there are no input channels, if
+     *   the number of message listeners does not match the number of input
+     *   channels or if the buffer size is less than the maximum length of a
+     *   message including the length field
+     */
+    public ITCH50Merger(ReadableByteChannel[] channels, MessageListener[] listeners,
+            int bufferSize) {
+        if (channels.length == 0)
+            throw new IllegalArgumentException("No channels");
+        if (listeners.length != channels.length)
+            throw new IllegalArgumentException("Channels and listeners do not match");
+        if (bufferSize < MIN_BUFFER_SIZE)
+            throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+
+        this.channels  = channels.clone();
+        this.listeners = listeners.clone();
+
+        this.buffers = new ByteBuffer[channels.length];
+        this.heads   = new long[channels.length];
+
+        for (int i = 0; i < channels.length; i++) {
+            this.buffers[i] = ByteBuffer.allocateDirect(bufferSize);
+
+            this.buffers[i].flip();
+        }
+
+        this.source = -1;
+    }
+
+    /**
+     * Open a reader.
+     *
+     * @param files the input files
+     * @param listeners the message listeners, one for each input file
+     * @return a reader
+     * @throws IllegalArgumentException if there are no input files or if
+     *   the number of message listeners does not match the number of input
+     *   files
+     * @throws IOException if an I/O error occurs
+     */
+    public static ITCH50Merger open(File[] files, MessageListener[] listeners) throws IOException {
+        FileChannel[] channels = new FileChannel[files.length];
+
+        try {
+            for (int i = 0; i < files.length; i++)
+                channels[i] = FileChannel.open(files[i].toPath(), StandardOpenOption.READ);
+
+            return new ITCH50Merger(channels, listeners);
+        } catch (IOException | RuntimeException e) {
+            for (FileChannel channel : channels) {
+                if (channel != null)
+                    channel.close();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Get the index of the source of the message that is being passed to a
+     * message listener.
+     *
+     * @return the index of the source or -1 if no message is being passed
+     *   to a message listener
+     */
+    public int source() {
+        return source;
+    }
+
+    /**
+     * Read all messages until the end of all input channels.
+     *
+     * @return the number of messages read
+     * @throws ITCH50Exception if an input channel ends in the middle of a
+     *   message or if a message is too short to contain a Timestamp
+     * @throws IOException if an I/O error occurs
+     */
+    public long readAll() throws IOException {
+        for (int i = 0; i < channels.length; i++)
+            heads[i] = head(i);
+
+        long messages = 0;
+
+        while (true) {
+            int  next = -1;
+            long min  = END;
+
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] < min) {
+                    min  = heads[i];
+                    next = i;
+                }
+            }
+
+            if (next < 0)
+                break;
+
+            deliver(next);
+
+            heads[next] = head(next);
+
+            messages++;
+        }
+
+        return messages;
+    }
+
+    /**
+     * Close the underlying channels.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+
+        for (ReadableByteChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+
+        if (failure != null)
+            throw failure;
+    }
+
+    private long head(int i) throws IOException {
+        ByteBuffer buffer = buffers[i];
+
+        if (!fill(i, 2))
+            return END;
+
+        int messageLength = buffer.getShort(buffer.position()) & 0xffff;
+
+        if (!fill(i, 2 + messageLength))
+            throw new ITCH50Exception("Unexpected end of file");
+
+        if (messageLength < ITCH50Header.LENGTH)
+            throw new ITCH50Exception("Message too short: " + messageLength);
+
+        return ITCH50Header.timestamp(buffer, buffer.position() + 2);
+    }
+
+    private void deliver(int i) throws IOException {
+        ByteBuffer buffer = buffers[i];
+
+        int offset = buffer.position();
+        int limit  = buffer.limit();
+        int next   = offset + 2 + (buffer.getShort(offset) & 0xffff);
+
+        buffer.limit(next);
+        buffer.position(offset + 2);
+
+        source = i;
+
+        try {
+            listeners[i].message(buffer);
+        } finally {
+            source = -1;
+
+            buffer.limit(limit);
+            buffer.position(next);
+        }
+    }
+
+    private boolean fill(int i, int length) throws IOException {
+        ByteBuffer buffer = buffers[i];
+
+        if (buffer.remaining() >= length)
+            return true;
+
+        buffer.compact();
+
+        try {
+            while (buffer.position() < length) {
+                if (channels[i].read(buffer) < 0) {
+                    if (buffer.position() > 0)
+                        throw new ITCH50Exception("Unexpected end of file");
+
+                    return false;
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+
+        return true;
+    }
+
+}
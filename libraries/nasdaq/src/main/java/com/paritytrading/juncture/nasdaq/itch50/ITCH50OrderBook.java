@@ -0,0 +1,523 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import java.util.Arrays;
+
+/**
+ * A full-depth order book for all instruments.
+ *
+ * <p>The order book handles Add Order, Add Order with MPID, Order Executed,
+ * Order Executed With Price, Order Cancel, Order Delete and Order Replace
+ * messages. Orders and price levels are kept in preallocated pools and
+ * indexed by primitive keys, so that the order book does not allocate
+ * memory after construction.</p>
+ *
+ * <p>Orders and price levels are identified by handles. A handle is only
+ * valid until the order or price level is removed from the order book.
+ * The price levels of each side are ordered from the best price to the
+ * worst price, and the orders of each price level are ordered by time
+ * priority.</p>
+ *
+ * <p>Messages that refer to unknown orders are ignored.</p>
+ */
+public class ITCH50OrderBook extends ITCH50ListenerAdapter {
+
+    /**
+     * The handle that indicates no order or price level.
+     */
+    public static final int NONE = -1;
+
+    private static final int STOCK_LOCATES = 65536;
+
+    private static final int BID = 0;
+    private static final int ASK = 1;
+
+    private final LongIntHashMap index;
+
+    private final long[] orderReferenceNumbers;
+    private final long[] orderShares;
+    private final int[]  orderLevels;
+    private final int[]  orderPrevious;
+    private final int[]  orderNext;
+
+    private int freeOrder;
+
+    private final long[] levelPrices;
+    private final long[] levelShares;
+    private final int[]  levelOrders;
+    private final int[]  levelBooks;
+    private final int[]  levelFirst;
+    private final int[]  levelLast;
+    private final int[]  levelPrevious;
+    private final int[]  levelNext;
+
+    private int freeLevel;
+
+    private final int[] bestLevels;
+
+    /**
+     * Create an order book.
+     *
+     * @param orders the maximum number of open orders
+     * @param levels the maximum number of price levels
+     */
+    public ITCH50OrderBook(int orders, int levels) {
+        this.index = new LongIntHashMap(orders);
+
+        this.orderReferenceNumbers = new long[orders];
+        this.orderShares           = new long[orders];
+        this.orderLevels           = new int[orders];
+        this.orderPrevious         = new int[orders];
+        this.orderNext             = new int[orders];
+
+        this.levelPrices   = new long[levels];
+        this.levelShares   = new long[levels];
+        this.levelOrders   = new int[levels];
+        this.levelBooks    = new int[levels];
+        this.levelFirst    = new int[levels];
+        this.levelLast     = new int[levels];
+        this.levelPrevious = new int[levels];
+        this.levelNext     = new int[levels];
+
+        this.bestLevels = new int[2 * STOCK_LOCATES];
+
+        clear();
+    }
+
+    /**
+     * Remove all orders and price levels.
+     */
+    public void clear() {
+        index.clear();
+
+        for (int i = 0; i < orderNext.length; i++)
+            orderNext[i] = i + 1 < orderNext.length ? i + 1 : NONE;
+
+        freeOrder = orderNext.length > 0 ? 0 : NONE;
+
+        for (int i = 0; i < levelNext.length; i++)
+            levelNext[i] = i + 1 < levelNext.length ? i + 1 : NONE;
+
+        freeLevel = levelNext.length > 0 ? 0 : NONE;
+
+        Arrays.fill(bestLevels, NONE);
+    }
+
+    /**
+     * Get the number of open orders.
+     *
+     * @return the number of open orders
+     */
+    public int orders() {
+        return index.size();
+    }
+
+    /**
+     * Find an order.
+     *
+     * @param orderReferenceNumber the order reference number
+     * @return the order or {@link #NONE} if the order is unknown
+     */
+    public int order(long orderReferenceNumber) {
+        return index.get(orderReferenceNumber);
+    }
+
+    /**
+     * Get the order reference number of an order.
+     *
+     * @param order an order
+     * @return the order reference number
+     */
+    public long orderReferenceNumber(int order) {
+        return orderReferenceNumbers[order];
+    }
+
+    /**
+     * Get the Stock Locate of an order.
+     *
+     * @param order an order
+     * @return the Stock Locate
+     */
+    public int orderStockLocate(int order) {
+        return levelStockLocate(orderLevels[order]);
+    }
+
+    /**
+     * Get the side of an order.
+     *
+     * @param order an order
+     * @return the side, either {@link ITCH50#BUY} or {@link ITCH50#SELL}
+     */
+    public byte orderSide(int order) {
+        return levelSide(orderLevels[order]);
+    }
+
+    /**
+     * Get the price of an order.
+     *
+     * @param order an order
+     * @return the price
+     */
+    public long orderPrice(int order) {
+        return levelPrices[orderLevels[order]];
+    }
+
+    /**
+     * Get the remaining shares of an order.
+     *
+     * @param order an order
+     * @return the remaining shares
+     */
+    public long orderShares(int order) {
+        return orderShares[order];
+    }
+
+    /**
+     * Get the price level of an order.
+     *
+     * @param order an order
+     * @return the price level
+     */
+    public int orderLevel(int order) {
+        return orderLevels[order];
+    }
+
+    /**
+     * Get the next order at the same price level.
+     *
+     * @param order an order
+     * @return the next order or {@link #NONE} if this is the last order at
+     *   the price level
+     */
+    public int nextOrder(int order) {
+        return orderNext[order];
+    }
+
+    /**
+     * Get the best price level of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @param side the side, either {@link ITCH50#BUY} or {@link ITCH50#SELL}
+     * @return the best price level or {@link #NONE} if the side is empty
+     */
+    public int bestLevel(int stockLocate, byte side) {
+        return bestLevels[book(stockLocate, side)];
+    }
+
+    /**
+     * Get the next price level on the same side.
+     *
+     * @param level a price level
+     * @return the next price level or {@link #NONE} if this is the worst
+     *   price level
+     */
+    public int nextLevel(int level) {
+        return levelNext[level];
+    }
+
+    /**
+     * Get the Stock Locate of a price level.
+     *
+     * @param level a price level
+     * @return the Stock Locate
+     */
+    public int levelStockLocate(int level) {
+        return levelBooks[level] >> 1;
+    }
+
+    /**
+     * Get the side of a price level.
+     *
+     * @param level a price level
+     * @return the side, either {@link ITCH50#BUY} or {@link ITCH50#SELL}
+     */
+    public byte levelSide(int level) {
+        return (levelBooks[level] & 1) == BID ? BUY : SELL;
+    }
+
+    /**
+     * Get the price of a price level.
+     *
+     * @param level a price level
+     * @return the price
+     */
+    public long levelPrice(int level) {
+        return levelPrices[level];
+    }
+
+    /**
+     * Get the total shares of a price level.
+     *
+     * @param level a price level
+     * @return the total shares
+     */
+    public long levelShares(int level) {
+        return levelShares[level];
+    }
+
+    /**
+     * Get the number of orders at a price level.
+     *
+     * @param level a price level
+     * @return the number of orders
+     */
+    public int levelOrders(int level) {
+        return levelOrders[level];
+    }
+
+    /**
+     * Get the first order at a price level.
+     *
+     * @param level a price level
+     * @return the first order
+     */
+    public int firstOrder(int level) {
+        return levelFirst[level];
+    }
+
+    /**
+     * Add an order.
+     *
+     * @param stockLocate the Stock Locate
+     * @param orderReferenceNumber the order reference number
+     * @param side the side, either {@link ITCH50#BUY} or {@link ITCH50#SELL}
+     * @param price the price
+     * @param shares the shares
+     * @return the order
+     * @throws IllegalStateException if the order or price level capacity
+     *   is exceeded
+     */
+    public int add(int stockLocate, long orderReferenceNumber, byte side, long price, long shares) {
+        int order = freeOrder;
+        if (order == NONE)
+            throw new IllegalStateException("Order capacity exceeded");
+
+        int level = level(book(stockLocate, side), price);
+
+        freeOrder = orderNext[order];
+
+        orderReferenceNumbers[order] = orderReferenceNumber;
+        orderShares[order]           = shares;
+        orderLevels[order]           = level;
+        orderPrevious[order]         = levelLast[level];
+        orderNext[order]             = NONE;
+
+        if (levelLast[level] != NONE)
+            orderNext[levelLast[level]] = order;
+        else
+            levelFirst[level] = order;
+
+        levelLast[level] = order;
+
+        levelShares[level] += shares;
+        levelOrders[level] += 1;
+
+        int previous = index.put(orderReferenceNumber, order);
+        if (previous != LongIntHashMap.MISSING)
+            remove(previous);
+
+        return order;
+    }
+
+    /**
+     * Reduce the remaining shares of an order. If no shares remain, the
+     * order is deleted.
+     *
+     * @param order an order
+     * @param shares the shares
+     */
+    public void reduce(int order, long shares) {
+        long remaining = orderShares[order];
+
+        if (shares >= remaining) {
+            delete(order);
+        } else {
+            orderShares[order] = remaining - shares;
+
+            levelShares[orderLevels[order]] -= shares;
+        }
+    }
+
+    /**
+     * Delete an order.
+     *
+     * @param order an order
+     */
+    public void delete(int order) {
+        index.remove(orderReferenceNumbers[order]);
+
+        remove(order);
+    }
+
+    @Override
+    public void addOrder(AddOrder message) {
+        add(message.stockLocate, message.orderReferenceNumber,
+                message.buySellIndicator, message.price, message.shares);
+    }
+
+    @Override
+    public void addOrderMPID(AddOrderMPID message) {
+        add(message.stockLocate, message.orderReferenceNumber,
+                message.buySellIndicator, message.price, message.shares);
+    }
+
+    @Override
+    public void orderExecuted(OrderExecuted message) {
+        int order = index.get(message.orderReferenceNumber);
+        if (order == NONE)
+            return;
+
+        reduce(order, message.executedShares);
+    }
+
+    @Override
+    public void orderExecutedWithPrice(OrderExecutedWithPrice message) {
+        int order = index.get(message.orderReferenceNumber);
+        if (order == NONE)
+            return;
+
+        reduce(order, message.executedShares);
+    }
+
+    @Override
+    public void orderCancel(OrderCancel message) {
+        int order = index.get(message.orderReferenceNumber);
+        if (order == NONE)
+            return;
+
+        reduce(order, message.canceledShares);
+    }
+
+    @Override
+    public void orderDelete(OrderDelete message) {
+        int order = index.get(message.orderReferenceNumber);
+        if (order == NONE)
+            return;
+
+        delete(order);
+    }
+
+    @Override
+    public void orderReplace(OrderReplace message) {
+        int order = index.get(message.originalOrderReferenceNumber);
+        if (order == NONE)
+            return;
+
+        int  stockLocate = orderStockLocate(order);
+        byte side        = orderSide(order);
+
+        delete(order);
+
+        add(stockLocate, message.newOrderReferenceNumber, side, message.price, message.shares);
+    }
+
+    private void remove(int order) {
+        int level = orderLevels[order];
+
+        int previous = orderPrevious[order];
+        int next     = orderNext[order];
+
+        if (previous != NONE)
+            orderNext[previous] = next;
+        else
+            levelFirst[level] = next;
+
+        if (next != NONE)
+            orderPrevious[next] = previous;
+        else
+            levelLast[level] = previous;
+
+        levelShares[level] -= orderShares[order];
+        levelOrders[level] -= 1;
+
+        if (levelOrders[level] == 0)
+            removeLevel(level);
+
+        orderNext[order] = freeOrder;
+
+        freeOrder = order;
+    }
+
+    private int level(int book, long price) {
+        boolean bid = (book & 1) == BID;
+
+        int previous = NONE;
+        int level    = bestLevels[book];
+
+        while (level != NONE) {
+            long levelPrice = levelPrices[level];
+
+            if (levelPrice == price)
+                return level;
+
+            if (bid ? levelPrice < price : levelPrice > price)
+                break;
+
+            previous = level;
+            level    = levelNext[level];
+        }
+
+        int created = freeLevel;
+        if (created == NONE)
+            throw new IllegalStateException("Price level capacity exceeded");
+
+        freeLevel = levelNext[created];
+
+        levelPrices[created]   = price;
+        levelShares[created]   = 0;
+        levelOrders[created]   = 0;
+        levelBooks[created]    = book;
+        levelFirst[created]    = NONE;
+        levelLast[created]     = NONE;
+        levelPrevious[created] = previous;
+        levelNext[created]     = level;
+
+        if (previous != NONE)
+            levelNext[previous] = created;
+        else
+            bestLevels[book] = created;
+
+        if (level != NONE)
+            levelPrevious[level] = created;
+
+        return created;
+    }
+
+    private void removeLevel(int level) {
+        int previous = levelPrevious[level];
+        int next     = levelNext[level];
+
+        if (previous != NONE)
+            levelNext[previous] = next;
+        else
+            bestLevels[levelBooks[level]] = next;
+
+        if (next != NONE)
+            levelPrevious[next] = previous;
+
+        levelNext[level] = freeLevel;
+
+        freeLevel = level;
+    }
+
+    private static int book(int stockLocate, byte side) {
+        return (stockLocate << 1) | (side == BUY ? BID : ASK);
+    }
+
+}
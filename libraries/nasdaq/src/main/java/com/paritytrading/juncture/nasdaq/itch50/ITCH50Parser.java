@@ -19,10 +19,21 @@ import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
 
 import com.paritytrading.nassau.MessageListener;
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * A parser for inbound messages.
+ *
+ * <p>By default, the parser throws an exception on a message of an unknown
+ * message type and does not check the message length. In lenient mode,
+ * which is set with {@link #lenient(Errors)}, the parser checks the length
+ * of each message against the length of its message type. It skips
+ * messages of unknown message types and messages that are too short and
+ * counts them in an error statistics object instead of throwing an
+ * exception. It ignores any trailing bytes of a message that is longer than
+ * its message type.</p>
  */
 public class ITCH50Parser implements MessageListener {
 
@@ -51,12 +62,38 @@ public class ITCH50Parser implements MessageListener {
 
     private ITCH50Listener listener;
 
+    private boolean[] messageTypes;
+
+    private Errors errors;
+
     /**
      * Create a parser for inbound messages.
      *
      * @param listener the message listener
      */
     public ITCH50Parser(ITCH50Listener listener) {
+        this(listener, new boolean[256]);
+
+        Arrays.fill(this.messageTypes, true);
+    }
+
+    /**
+     * Create a parser for inbound messages of the specified message types.
+     *
+     * <p>The parser skips messages of other message types without decoding
+     * them.</p>
+     *
+     * @param listener the message listener
+     * @param messageTypes the message types
+     */
+    public ITCH50Parser(ITCH50Listener listener, byte... messageTypes) {
+        this(listener, new boolean[256]);
+
+        for (byte messageType : messageTypes)
+            this.messageTypes[messageType & 0xff] = true;
+    }
+
+    private ITCH50Parser(ITCH50Listener listener, boolean[] messageTypes) {
         this.systemEvent               = new SystemEvent();
         this.stockDirectory            = new StockDirectory();
         this.stockTradingAction        = new StockTradingAction();
@@ -81,12 +118,46 @@ public class ITCH50Parser implements MessageListener {
         this.rpii                      = new RPII();
 
         this.listener = listener;
+
+        this.messageTypes = messageTypes;
+    }
+
+    /**
+     * Set lenient mode.
+     *
+     * <p>In lenient mode, the lengths of skipped messages of other message
+     * types are checked as well.</p>
+     *
+     * @param errors the error statistics or {@code null} for the default
+     *   mode
+     */
+    public void lenient(Errors errors) {
+        this.errors = errors;
     }
 
     @Override
     public void message(ByteBuffer buffer) throws IOException {
+        if (errors == null) {
+            parse(buffer);
+            return;
+        }
+
+        if (!check(buffer))
+            return;
+
+        parse(buffer);
+
+        buffer.position(buffer.limit());
+    }
+
+    private void parse(ByteBuffer buffer) throws IOException {
         byte messageType = buffer.get();
 
+        if (!messageTypes[messageType & 0xff]) {
+            skip(buffer, messageType);
+            return;
+        }
+
         switch (messageType) {
         case MESSAGE_TYPE_SYSTEM_EVENT:
             systemEvent.get(buffer);
@@ -181,4 +252,76 @@ public class ITCH50Parser implements MessageListener {
         }
     }
 
+    private boolean check(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        if (length == 0) {
+            errors.lengthMismatches++;
+            return false;
+        }
+
+        byte messageType = buffer.get(buffer.position());
+
+        int expected = messageLength(messageType);
+        if (expected != 0 && expected <= length)
+            return true;
+
+        if (expected == 0)
+            errors.unknownMessageTypes++;
+        else
+            errors.lengthMismatches++;
+
+        buffer.position(buffer.limit());
+
+        return false;
+    }
+
+    private static void skip(ByteBuffer buffer, byte messageType) throws ITCH50Exception {
+        int length = messageLength(messageType);
+        if (length == 0)
+            throw new ITCH50Exception("Unknown message type: " + (char)messageType);
+
+        if (buffer.remaining() < length - 1)
+            throw new BufferUnderflowException();
+
+        buffer.position(buffer.position() + length - 1);
+    }
+
+    /**
+     * Error statistics for a parser in lenient mode.
+     */
+    public static class Errors {
+
+        private long unknownMessageTypes;
+
+        private long lengthMismatches;
+
+        /**
+         * Get the number of skipped messages of unknown message types.
+         *
+         * @return the number of skipped messages of unknown message types
+         */
+        public long unknownMessageTypes() {
+            return unknownMessageTypes;
+        }
+
+        /**
+         * Get the number of skipped messages that are shorter than their
+         * message type, including empty messages.
+         *
+         * @return the number of skipped messages that are too short
+         */
+        public long lengthMismatches() {
+            return lengthMismatches;
+        }
+
+        /**
+         * Reset the statistics.
+         */
+        public void reset() {
+            unknownMessageTypes = 0;
+            lengthMismatches    = 0;
+        }
+
+    }
+
 }
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A dispatcher that passes inbound messages to worker threads, partitioned
+ * by Stock Locate.
+ *
+ * <p>A message with Stock Locate {@code stockLocate} is passed to worker
+ * {@code stockLocate % workers}. Messages with Stock Locate zero, such as
+ * System Event, MWCB Decline Level and MWCB Status messages, are passed to
+ * all workers. The messages of a worker are passed to its listener in the
+ * order in which they were dispatched.</p>
+ *
+ * <p>Each worker has its own {@link ITCH50RingBuffer} with a single
+ * consumer. The dispatcher accepts either decoded messages, which it encodes
+ * into the ring buffer, or raw messages, which it copies into the ring
+ * buffer. Only one thread may dispatch messages.</p>
+ *
+ * <p>If a worker listener throws an exception, checked or unchecked, the
+ * worker discards the remaining messages and the exception is rethrown by
+ * {@link #close()}. The worker keeps consuming the discarded messages, so
+ * that the dispatcher never blocks on a failed worker.</p>
+ */
+public class ITCH50PartitionedDispatcher implements ITCH50Listener, MessageListener, Closeable {
+
+    private final ITCH50RingBuffer[] rings;
+
+    private final Worker[] workers;
+
+    private final ITCH50RingBuffer.Consumer[] consumers;
+
+    private final Thread[] threads;
+
+    private boolean started;
+
+    /**
+     * Create a dispatcher.
+     *
+     * @param listeners the message listeners, one for each worker
+     * @param slots the number of slots in the ring buffer of each worker, a
+     *   power of two
+     * @param waitStrategy the wait strategy
+     * @throws IllegalArgumentException if there are no listeners or if the
+     *   number of slots is not a positive power of two
+     */
+    public ITCH50PartitionedDispatcher(ITCH50Listener[] listeners, int slots,
+            ITCH50RingBuffer.WaitStrategy waitStrategy) {
+        if (listeners.length == 0)
+            throw new IllegalArgumentException("No listeners");
+
+        this.rings     = new ITCH50RingBuffer[listeners.length];
+        this.workers   = new Worker[listeners.length];
+        this.consumers = new ITCH50RingBuffer.Consumer[listeners.length];
+        this.threads   = new Thread[listeners.length];
+
+        for (int i = 0; i < listeners.length; i++) {
+            this.rings[i]     = new ITCH50RingBuffer(slots, waitStrategy);
+            this.workers[i]   = new Worker(listeners[i]);
+            this.consumers[i] = this.rings[i].consumer(this.workers[i]);
+            this.threads[i]   = new Thread(this.consumers[i], "ITCH50PartitionedDispatcher-" + i);
+        }
+    }
+
+    /**
+     * Start the worker threads.
+     */
+    public void start() {
+        started = true;
+
+        for (Thread thread : threads)
+            thread.start();
+    }
+
+    /**
+     * Wait for the workers to process the dispatched messages and stop the
+     * worker threads. If the worker threads have not been started, the
+     * dispatched messages are discarded.
+     *
+     * @throws InterruptedIOException if the current thread is interrupted
+     * @throws IOException if a worker listener has thrown an exception
+     */
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < workers.length; i++) {
+            while (started && threads[i].isAlive() && consumers[i].sequence() < rings[i].sequence())
+                Thread.yield();
+
+            consumers[i].halt();
+        }
+
+        try {
+            for (Thread thread : threads) {
+                if (started)
+                    thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException();
+        }
+
+        for (Worker worker : workers) {
+            Throwable failure = worker.failure;
+
+            if (failure instanceof IOException)
+                throw (IOException)failure;
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException)failure;
+            if (failure instanceof Error)
+                throw (Error)failure;
+        }
+    }
+
+    /**
+     * Dispatch a raw message. The buffer is positioned at the first byte of
+     * the message and limited to the last byte of the message.
+     *
+     * @param buffer a buffer
+     * @throws ITCH50Exception if the message is too long
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void message(ByteBuffer buffer) throws IOException {
+        /*
+         * The Stock Locate field follows the Message Type field. Messages
+         * shorter than that are passed to all workers, which lets the
+         * parsers report them.
+         */
+        int stockLocate = buffer.remaining() >= 3 ? buffer.getShort(buffer.position() + 1) & 0xffff : 0;
+
+        if (stockLocate == 0) {
+            int position = buffer.position();
+
+            for (ITCH50RingBuffer ring : rings) {
+                buffer.position(position);
+
+                ring.message(buffer);
+            }
+        } else {
+            rings[stockLocate % rings.length].message(buffer);
+        }
+    }
+
+    @Override
+    public void systemEvent(SystemEvent message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void stockDirectory(StockDirectory message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void stockTradingAction(StockTradingAction message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void regSHORestriction(RegSHORestriction message) {
+        dispatch(message.locateCode, message);
+    }
+
+    @Override
+    public void marketParticipantPosition(MarketParticipantPosition message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void mwcbDeclineLevel(MWCBDeclineLevel message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void mwcbStatus(MWCBStatus message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void ipoQuotingPeriodUpdate(IPOQuotingPeriodUpdate message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void luldAuctionCollar(LULDAuctionCollar message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void operationalHalt(OperationalHalt message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void addOrder(AddOrder message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void addOrderMPID(AddOrderMPID message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void orderExecuted(OrderExecuted message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void orderExecutedWithPrice(OrderExecutedWithPrice message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void orderCancel(OrderCancel message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void orderDelete(OrderDelete message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void orderReplace(OrderReplace message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void trade(Trade message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void crossTrade(CrossTrade message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void brokenTrade(BrokenTrade message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void noii(NOII message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    @Override
+    public void rpii(RPII message) {
+        dispatch(message.stockLocate, message);
+    }
+
+    private void dispatch(int stockLocate, Message message) {
+        if (stockLocate == 0) {
+            for (ITCH50RingBuffer ring : rings)
+                ring.publish(message);
+        } else {
+            rings[stockLocate % rings.length].publish(message);
+        }
+    }
+
+    private static class Worker implements MessageListener {
+
+        private final ITCH50Parser parser;
+
+        private volatile Throwable failure;
+
+        Worker(ITCH50Listener listener) {
+            this.parser = new ITCH50Parser(listener);
+        }
+
+        @Override
+        public void message(ByteBuffer buffer) {
+            if (failure != null) {
+                buffer.position(buffer.limit());
+                return;
+            }
+
+            try {
+                parser.message(buffer);
+            } catch (IOException | RuntimeException | Error e) {
+                failure = e;
+
+                buffer.position(buffer.limit());
+            }
+        }
+
+    }
+
+}
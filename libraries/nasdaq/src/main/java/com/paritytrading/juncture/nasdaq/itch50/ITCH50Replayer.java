@@ -0,0 +1,160 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A message listener that replays messages paced by their Timestamps.
+ *
+ * <p>The replayer passes each message to the message listener when the
+ * elapsed wall clock time since the first paced message equals the elapsed
+ * exchange time, divided by the speed. With a speed of {@link #MAX_SPEED},
+ * messages are passed on without delay. A message whose Timestamp precedes
+ * the Timestamp of the first paced message is passed on without delay.</p>
+ *
+ * <p>Messages with a Timestamp before the start time are passed on without
+ * delay. This fast-forwards the replay to a given time of day while still
+ * passing on the messages that build up instrument and order book
+ * state.</p>
+ *
+ * <p>To keep the jitter low, the replayer parks the thread until shortly
+ * before a message is due and busy-spins for the rest of the wait. The
+ * replayer occupies the thread that invokes it.</p>
+ */
+public class ITCH50Replayer implements MessageListener {
+
+    /**
+     * The speed that replays messages without delay.
+     */
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    /*
+     * The replayer busy-spins when a message is due in less than this
+     * many nanoseconds.
+     */
+    private static final long SPIN_THRESHOLD = 100_000;
+
+    private final MessageListener listener;
+
+    private final double speed;
+
+    private final long startTime;
+
+    private boolean started;
+
+    private long originTimestamp;
+
+    private long originNanoTime;
+
+    private long maxLateness;
+
+    /**
+     * Create a replayer.
+     *
+     * @param listener the message listener
+     * @param speed the speed relative to exchange time or {@link #MAX_SPEED}
+     * @throws IllegalArgumentException if the speed is not positive
+     */
+    public ITCH50Replayer(MessageListener listener, double speed) {
+        this(listener, speed, 0);
+    }
+
+    /**
+     * Create a replayer.
+     *
+     * @param listener the message listener
+     * @param speed the speed relative to exchange time or {@link #MAX_SPEED}
+     * @param startTime the start time as nanoseconds since midnight
+     * @throws IllegalArgumentException if the speed is not positive or the
+     *   start time is negative
+     */
+    public ITCH50Replayer(MessageListener listener, double speed, long startTime) {
+        if (!(speed > 0))
+            throw new IllegalArgumentException("Non-positive speed: " + speed);
+        if (startTime < 0)
+            throw new IllegalArgumentException("Negative start time: " + startTime);
+
+        this.listener  = listener;
+        this.speed     = speed;
+        this.startTime = startTime;
+    }
+
+    /**
+     * Restart pacing. The next paced message is passed on without delay and
+     * becomes the origin for the following messages.
+     */
+    public void reset() {
+        started     = false;
+        maxLateness = 0;
+    }
+
+    /**
+     * Get the maximum lateness. The lateness of a message is the time from
+     * when the message was due to when it was passed to the message
+     * listener.
+     *
+     * @return the maximum lateness in nanoseconds
+     */
+    public long maxLateness() {
+        return maxLateness;
+    }
+
+    @Override
+    public void message(ByteBuffer buffer) throws IOException {
+        if (speed != MAX_SPEED && buffer.remaining() >= ITCH50Header.LENGTH)
+            pace(ITCH50Header.timestamp(buffer, buffer.position()));
+
+        listener.message(buffer);
+    }
+
+    private void pace(long timestamp) {
+        if (timestamp < startTime)
+            return;
+
+        if (!started) {
+            started         = true;
+            originTimestamp = timestamp;
+            originNanoTime  = System.nanoTime();
+            return;
+        }
+
+        if (timestamp <= originTimestamp)
+            return;
+
+        long deadline = originNanoTime + (long)((timestamp - originTimestamp) / speed);
+
+        long remaining = deadline - System.nanoTime();
+
+        while (remaining > SPIN_THRESHOLD) {
+            LockSupport.parkNanos(remaining - SPIN_THRESHOLD);
+
+            remaining = deadline - System.nanoTime();
+        }
+
+        while (remaining > 0) {
+            Thread.onSpinWait();
+
+            remaining = deadline - System.nanoTime();
+        }
+
+        maxLateness = Math.max(maxLateness, -remaining);
+    }
+
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.nassau.MessageListener;
+import com.paritytrading.nassau.moldudp64.MoldUDP64DownstreamPacket;
+import com.paritytrading.nassau.moldudp64.MoldUDP64Server;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A republisher that fans out filtered subsets of a feed to MoldUDP64
+ * servers.
+ *
+ * <p>Each subscription selects instruments by symbol and messages by
+ * message type and has its own MoldUDP64 server, which keeps its own
+ * sequence numbers. The republisher batches the selected messages into a
+ * downstream packet per subscription and sends the packet when the next
+ * message does not fit or when {@link #flush()} is invoked.</p>
+ *
+ * <p>The republisher accepts both raw messages and decoded messages. Raw
+ * messages are copied as is, and decoded messages are encoded before they
+ * are copied. It learns the Stock Locate of each instrument from Stock
+ * Directory messages, so these messages must be passed to the republisher
+ * even if no subscription selects them. Messages with a Stock Locate of
+ * zero are passed to all subscriptions that select their message type.</p>
+ */
+public class ITCH50Republisher implements ITCH50Listener, MessageListener {
+
+    private static final int MAX_MESSAGE_LENGTH = 65535;
+
+    private final List<Subscription> subscriptions;
+
+    private final LocateTable locates;
+
+    private final ByteBuffer scratch;
+
+    /**
+     * Create a republisher.
+     */
+    public ITCH50Republisher() {
+        this.subscriptions = new ArrayList<>();
+
+        this.locates = new LocateTable();
+
+        this.scratch = ByteBuffer.allocate(MAX_MESSAGE_LENGTH);
+    }
+
+    /**
+     * Add a subscription.
+     *
+     * @param subscription a subscription
+     */
+    public void add(Subscription subscription) {
+        subscriptions.add(subscription);
+
+        if (subscription.locates == null)
+            return;
+
+        locates.add(subscription.locates);
+
+        for (long stock : subscription.stocks)
+            locates.subscribe(subscription.locates, stock);
+    }
+
+    /**
+     * Remove a subscription. Any pending messages of the subscription are
+     * discarded.
+     *
+     * @param subscription a subscription
+     */
+    public void remove(Subscription subscription) {
+        subscriptions.remove(subscription);
+
+        if (subscription.locates != null)
+            locates.remove(subscription.locates);
+
+        subscription.packet.clear();
+    }
+
+    /**
+     * Send the pending messages of all subscriptions.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        for (int i = 0; i < subscriptions.size(); i++)
+            subscriptions.get(i).flush();
+    }
+
+    /**
+     * Republish a raw message. The buffer is positioned at the first byte
+     * of the message and limited to the last byte of the message.
+     *
+     * @param buffer a buffer
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void message(ByteBuffer buffer) throws IOException {
+        /*
+         * The Stock Locate field follows the Message Type field. Messages
+         * shorter than that are dropped.
+         */
+        int position = buffer.position();
+
+        if (buffer.remaining() < 3)
+            return;
+
+        byte messageType = buffer.get(position);
+
+        int stockLocate = buffer.getShort(position + 1) & 0xffff;
+
+        locates.learn(buffer);
+
+        for (int i = 0; i < subscriptions.size(); i++) {
+            Subscription subscription = subscriptions.get(i);
+
+            if (subscription.isSelected(messageType, stockLocate)) {
+                subscription.put(buffer);
+
+                buffer.position(position);
+            }
+        }
+    }
+
+    @Override
+    public void systemEvent(SystemEvent message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void stockDirectory(StockDirectory message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void stockTradingAction(StockTradingAction message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void regSHORestriction(RegSHORestriction message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void marketParticipantPosition(MarketParticipantPosition message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void mwcbDeclineLevel(MWCBDeclineLevel message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void mwcbStatus(MWCBStatus message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void ipoQuotingPeriodUpdate(IPOQuotingPeriodUpdate message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void luldAuctionCollar(LULDAuctionCollar message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void operationalHalt(OperationalHalt message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void addOrder(AddOrder message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void addOrderMPID(AddOrderMPID message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void orderExecuted(OrderExecuted message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void orderExecutedWithPrice(OrderExecutedWithPrice message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void orderCancel(OrderCancel message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void orderDelete(OrderDelete message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void orderReplace(OrderReplace message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void trade(Trade message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void crossTrade(CrossTrade message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void brokenTrade(BrokenTrade message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void noii(NOII message) throws IOException {
+        republish(message);
+    }
+
+    @Override
+    public void rpii(RPII message) throws IOException {
+        republish(message);
+    }
+
+    private void republish(Message message) throws IOException {
+        scratch.clear();
+        message.put(scratch);
+        scratch.flip();
+
+        message(scratch);
+    }
+
+    /**
+     * A subscription.
+     */
+    public static class Subscription {
+
+        private final MoldUDP64Server server;
+
+        private final MoldUDP64DownstreamPacket packet;
+
+        private final long[] stocks;
+
+        private final LocateTable.Subscription locates;
+
+        private final boolean[] messageTypes;
+
+        /**
+         * Create a subscription for all instruments and message types.
+         *
+         * @param server the MoldUDP64 server
+         */
+        public Subscription(MoldUDP64Server server) {
+            this(server, null, null);
+        }
+
+        /**
+         * Create a subscription.
+         *
+         * @param server the MoldUDP64 server
+         * @param symbols the symbols or {@code null} for all instruments
+         * @param messageTypes the message types or {@code null} for all
+         *   message types
+         * @throws IllegalArgumentException if a symbol is longer than eight
+         *   characters
+         */
+        public Subscription(MoldUDP64Server server, String[] symbols, byte[] messageTypes) {
+            this.server = server;
+
+            this.packet = new MoldUDP64DownstreamPacket();
+
+            if (symbols != null) {
+                this.stocks = new long[symbols.length];
+
+                for (int i = 0; i < symbols.length; i++)
+                    this.stocks[i] = ITCH50Directory.encode(symbols[i]);
+
+                this.locates = new LocateTable.Subscription(symbols.length);
+            } else {
+                this.stocks = null;
+
+                this.locates = null;
+            }
+
+            this.messageTypes = new boolean[256];
+
+            if (messageTypes != null) {
+                for (byte messageType : messageTypes)
+                    this.messageTypes[messageType & 0xff] = true;
+            } else {
+                Arrays.fill(this.messageTypes, true);
+            }
+        }
+
+        /**
+         * Get the MoldUDP64 server.
+         *
+         * @return the MoldUDP64 server
+         */
+        public MoldUDP64Server server() {
+            return server;
+        }
+
+        /**
+         * Send the pending messages.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        public void flush() throws IOException {
+            if (packet.messageCount() == 0)
+                return;
+
+            server.send(packet);
+
+            packet.clear();
+        }
+
+        boolean isSelected(byte messageType, int stockLocate) {
+            if (!messageTypes[messageType & 0xff])
+                return false;
+
+            return locates == null || locates.contains(stockLocate);
+        }
+
+        void put(ByteBuffer buffer) throws IOException {
+            if (packet.remaining() < buffer.remaining())
+                flush();
+
+            packet.put(buffer);
+        }
+
+    }
+
+}
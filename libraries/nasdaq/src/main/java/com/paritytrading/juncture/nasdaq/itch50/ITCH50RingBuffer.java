@@ -0,0 +1,439 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single-producer, multiple-consumer ring buffer for inbound messages.
+ *
+ * <p>The ring buffer consists of preallocated slots of {@link #SLOT_SIZE}
+ * bytes. The producer copies each message into the next slot and publishes
+ * it by advancing its sequence. Each consumer passes the messages to its own
+ * message listener, typically a parser, in the order in which they were
+ * published. A consumer can depend on other consumers, in which case it only
+ * processes a message after its dependencies have processed it.</p>
+ *
+ * <p>A consumer processes all messages available to it in one batch before
+ * advancing its sequence. The producer waits if the ring buffer is full, and
+ * a consumer waits if no messages are available to it, using the wait
+ * strategy of the ring buffer.</p>
+ *
+ * <p>If the message listener of a consumer throws an exception, checked or
+ * unchecked, the consumer stops advancing its sequence and records the
+ * exception. The producer rethrows the exception instead of waiting for the
+ * failed consumer once the ring buffer is full.</p>
+ *
+ * <p>Only one thread may act as the producer. The ring buffer does not
+ * allocate memory after the consumers have been created.</p>
+ */
+public class ITCH50RingBuffer implements MessageListener {
+
+    /**
+     * The slot size. A slot holds a two-byte length field followed by a
+     * message.
+     */
+    public static final int SLOT_SIZE = 64;
+
+    /**
+     * A wait strategy.
+     */
+    public enum WaitStrategy {
+
+        /**
+         * Spin in a loop.
+         */
+        BUSY_SPIN {
+
+            @Override
+            void idle() {
+                Thread.onSpinWait();
+            }
+
+        },
+
+        /**
+         * Yield to other threads.
+         */
+        YIELD {
+
+            @Override
+            void idle() {
+                Thread.yield();
+            }
+
+        },
+
+        /**
+         * Park the thread for a short period.
+         */
+        PARK {
+
+            @Override
+            void idle() {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+
+        };
+
+        private static final long PARK_NANOS = 1000;
+
+        abstract void idle();
+
+    }
+
+    private final ByteBuffer buffer;
+
+    private final int mask;
+
+    private final WaitStrategy waitStrategy;
+
+    private final Sequence cursor;
+
+    private volatile Consumer[] consumers;
+
+    private long gatingSequence;
+
+    /**
+     * Create a ring buffer.
+     *
+     * @param slots the number of slots, a power of two
+     * @param waitStrategy the wait strategy
+     * @throws IllegalArgumentException if the number of slots is not a
+     *   positive power of two or if the slots do not fit in a buffer
+     */
+    public ITCH50RingBuffer(int slots, WaitStrategy waitStrategy) {
+        if (slots < 1 || Integer.bitCount(slots) != 1)
+            throw new IllegalArgumentException("Number of slots not a power of two: " + slots);
+        if (slots > Integer.MAX_VALUE / SLOT_SIZE)
+            throw new IllegalArgumentException("Too many slots: " + slots);
+
+        this.buffer = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+
+        this.mask = slots - 1;
+
+        this.waitStrategy = waitStrategy;
+
+        this.cursor = new Sequence(-1);
+
+        this.consumers = new Consumer[0];
+
+        this.gatingSequence = -1;
+    }
+
+    /**
+     * Create a consumer. Consumers should be created before the producer
+     * publishes messages: a consumer only sees messages published after its
+     * creation.
+     *
+     * @param listener the message listener
+     * @param dependencies the consumers that must process a message before
+     *   this consumer
+     * @return a consumer
+     */
+    public synchronized Consumer consumer(MessageListener listener, Consumer... dependencies) {
+        Sequence[] barrier = new Sequence[dependencies.length + 1];
+
+        barrier[0] = cursor;
+        for (int i = 0; i < dependencies.length; i++)
+            barrier[i + 1] = dependencies[i].sequence;
+
+        Consumer consumer = new Consumer(listener, barrier, cursor.get());
+
+        Consumer[] consumers = Arrays.copyOf(this.consumers, this.consumers.length + 1);
+
+        consumers[consumers.length - 1] = consumer;
+
+        this.consumers = consumers;
+
+        return consumer;
+    }
+
+    /**
+     * Get the sequence of the last published message.
+     *
+     * @return the sequence of the last published message
+     */
+    public long sequence() {
+        return cursor.get();
+    }
+
+    /**
+     * Publish a message. The message is copied from the buffer, which is
+     * positioned at the first byte of the message and limited to the last
+     * byte of the message.
+     *
+     * @param buffer a buffer
+     * @throws ITCH50Exception if the message is too long
+     * @throws IOException if the ring buffer is full and the message
+     *   listener of a consumer has thrown an exception
+     */
+    @Override
+    public void message(ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        if (length > SLOT_SIZE - 2)
+            throw new ITCH50Exception("Message too long: " + length);
+
+        long sequence = claim();
+
+        int offset = offset(sequence);
+
+        ByteBuffer slot = this.buffer;
+
+        slot.limit(offset + 2 + length);
+        slot.position(offset);
+
+        slot.putShort((short)length);
+        slot.put(buffer);
+
+        cursor.set(sequence);
+    }
+
+    /**
+     * Publish a message.
+     *
+     * @param message a message
+     * @throws java.nio.BufferOverflowException if the message is too long
+     * @throws UncheckedIOException if the ring buffer is full and the
+     *   message listener of a consumer has thrown an {@link IOException}
+     */
+    public void publish(Message message) {
+        long sequence;
+
+        try {
+            sequence = claim();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int offset = offset(sequence);
+
+        ByteBuffer slot = this.buffer;
+
+        slot.limit(offset + SLOT_SIZE);
+        slot.position(offset + 2);
+
+        message.put(slot);
+
+        slot.putShort(offset, (short)(slot.position() - offset - 2));
+
+        cursor.set(sequence);
+    }
+
+    private long claim() throws IOException {
+        long sequence = cursor.get() + 1;
+
+        long wrapPoint = sequence - (mask + 1);
+
+        while (wrapPoint > gatingSequence) {
+            gatingSequence = minimum(consumers, sequence - 1);
+
+            if (wrapPoint > gatingSequence) {
+                rethrow(consumers);
+
+                waitStrategy.idle();
+            }
+        }
+
+        return sequence;
+    }
+
+    private int offset(long sequence) {
+        return (int)(sequence & mask) * SLOT_SIZE;
+    }
+
+    private static long minimum(Consumer[] consumers, long minimum) {
+        for (Consumer consumer : consumers)
+            minimum = Math.min(minimum, consumer.sequence.get());
+
+        return minimum;
+    }
+
+    private static void rethrow(Consumer[] consumers) throws IOException {
+        for (Consumer consumer : consumers) {
+            Throwable failure = consumer.failure;
+
+            if (failure instanceof IOException)
+                throw (IOException)failure;
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException)failure;
+            if (failure instanceof Error)
+                throw (Error)failure;
+        }
+    }
+
+    private static long minimum(Sequence[] sequences) {
+        long minimum = Long.MAX_VALUE;
+
+        for (Sequence sequence : sequences)
+            minimum = Math.min(minimum, sequence.get());
+
+        return minimum;
+    }
+
+    /**
+     * A consumer.
+     */
+    public class Consumer implements Runnable {
+
+        private final MessageListener listener;
+
+        private final Sequence[] barrier;
+
+        private final Sequence sequence;
+
+        private final ByteBuffer slot;
+
+        private volatile boolean halted;
+
+        private volatile Throwable failure;
+
+        private Consumer(MessageListener listener, Sequence[] barrier, long sequence) {
+            this.listener = listener;
+            this.barrier  = barrier;
+            this.sequence = new Sequence(sequence);
+            this.slot     = buffer.duplicate();
+        }
+
+        /**
+         * Process the messages that are available to this consumer.
+         *
+         * <p>This method must only be invoked by one thread at a time.</p>
+         *
+         * <p>If the message listener throws an exception, the exception is
+         * recorded and rethrown, and the sequence of this consumer is not
+         * advanced.</p>
+         *
+         * @return the number of messages processed
+         * @throws IOException if an I/O error occurs
+         */
+        public int poll() throws IOException {
+            long current   = sequence.get();
+            long available = minimum(barrier);
+
+            if (available <= current)
+                return 0;
+
+            try {
+                for (long next = current + 1; next <= available; next++) {
+                    int offset = offset(next);
+
+                    slot.limit(offset + SLOT_SIZE);
+                    slot.position(offset);
+
+                    slot.limit(offset + 2 + (slot.getShort() & 0xffff));
+
+                    listener.message(slot);
+                }
+            } catch (IOException | RuntimeException | Error e) {
+                failure = e;
+
+                throw e;
+            }
+
+            sequence.set(available);
+
+            return (int)(available - current);
+        }
+
+        /**
+         * Process messages until this consumer is halted.
+         *
+         * @throws UncheckedIOException if an I/O error occurs
+         */
+        @Override
+        public void run() {
+            try {
+                while (!halted) {
+                    if (poll() == 0)
+                        waitStrategy.idle();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Halt this consumer. The consumer stops after processing the
+         * current batch.
+         */
+        public void halt() {
+            halted = true;
+        }
+
+        /**
+         * Get the sequence of the last message processed by this consumer.
+         *
+         * @return the sequence of the last message processed by this
+         *   consumer
+         */
+        public long sequence() {
+            return sequence.get();
+        }
+
+    }
+
+    /*
+     * The padding keeps each sequence on its own cache line.
+     */
+    @SuppressWarnings("unused")
+    private static class LeftPadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    private static class Value extends LeftPadding {
+        long value;
+    }
+
+    @SuppressWarnings("unused")
+    private static class Sequence extends Value {
+
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(Value.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long p11, p12, p13, p14, p15, p16, p17;
+
+        Sequence(long value) {
+            set(value);
+        }
+
+        long get() {
+            return (long)VALUE.getAcquire(this);
+        }
+
+        void set(long value) {
+            VALUE.setRelease(this, value);
+        }
+
+    }
+
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.foundation.ByteBuffers.*;
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import com.paritytrading.foundation.ASCII;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A snapshot of an instrument directory and an order book.
+ *
+ * <p>A snapshot records the state built from messages up to a MoldUDP64
+ * sequence number, so that recovery only needs to replay the messages after
+ * it. A snapshot consists of a header followed by sections for instruments,
+ * trading states, Reg SHO actions, operational halts and orders:</p>
+ *
+ * <ul>
+ *   <li>The header contains a magic number, a format version and the
+ *     sequence number.</li>
+ *   <li>Each section starts with a four-byte record count.</li>
+ *   <li>Instruments, trading states, Reg SHO actions and operational halts
+ *     are recorded as Stock Directory, Stock Trading Action, Reg SHO Short
+ *     Sale Price Test Restricted Indicator and Operational Halt messages.
+ *     Only the fields that the instrument directory retains are recorded:
+ *     the Tracking Number and Timestamp of each message are zero and the
+ *     Reserved field of a Stock Trading Action message is a space, so the
+ *     original values of these fields are lost.</li>
+ *   <li>Orders are recorded in time priority as Stock Locate, order
+ *     reference number, side, price and remaining shares.</li>
+ * </ul>
+ *
+ * <p>All fields are big-endian.</p>
+ */
+public class ITCH50Snapshot {
+
+    /**
+     * The default buffer size.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private static final long MAGIC = ASCII.packLong("JNCTSNAP");
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_LENGTH = 18;
+
+    private static final int ORDER_LENGTH = 19;
+
+    private static final int STOCK_LOCATES = 65536;
+
+    private static final byte[] MARKET_CODES = {
+        MARKET_CODE_NASDAQ,
+        MARKET_CODE_BX,
+        MARKET_CODE_PSX,
+    };
+
+    private static final byte[] SIDES = {
+        BUY,
+        SELL,
+    };
+
+    private final ByteBuffer buffer;
+
+    private final StockDirectory     stockDirectory;
+    private final StockTradingAction stockTradingAction;
+    private final RegSHORestriction  regSHORestriction;
+    private final OperationalHalt    operationalHalt;
+
+    /**
+     * Create a snapshot reader and writer.
+     */
+    public ITCH50Snapshot() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Create a snapshot reader and writer.
+     *
+     * @param bufferSize the buffer size
+     * @throws IllegalArgumentException if the buffer size is too small to
+     *   hold a record
+     */
+    public ITCH50Snapshot(int bufferSize) {
+        if (bufferSize < MESSAGE_LENGTH_STOCK_DIRECTORY)
+            throw new IllegalArgumentException("Buffer size too small: " + bufferSize);
+
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+
+        this.stockDirectory     = new StockDirectory();
+        this.stockTradingAction = new StockTradingAction();
+        this.regSHORestriction  = new RegSHORestriction();
+        this.operationalHalt    = new OperationalHalt();
+    }
+
+    /**
+     * Save a snapshot. The snapshot is written starting at the current
+     * position of the channel.
+     *
+     * @param channel the output channel
+     * @param sequenceNumber the sequence number of the last message that
+     *   the state reflects
+     * @param directory the instrument directory
+     * @param book the order book
+     * @throws IOException if an I/O error occurs
+     */
+    public void save(FileChannel channel, long sequenceNumber, ITCH50Directory directory,
+            ITCH50OrderBook book) throws IOException {
+        buffer.clear();
+
+        buffer.putLong(MAGIC);
+        putUnsignedShort(buffer, VERSION);
+        buffer.putLong(sequenceNumber);
+
+        saveInstruments(channel, directory);
+        saveTradingStates(channel, directory);
+        saveRegSHOActions(channel, directory);
+        saveOperationalHalts(channel, directory);
+        saveOrders(channel, book);
+
+        flush(channel);
+    }
+
+    /**
+     * Restore a snapshot. The instrument directory and the order book are
+     * cleared before the snapshot is applied to them. The snapshot is read
+     * starting at the current position of the channel.
+     *
+     * @param channel the input channel
+     * @param directory the instrument directory
+     * @param book the order book
+     * @return the sequence number of the last message that the state
+     *   reflects
+     * @throws ITCH50Exception if the snapshot is malformed
+     * @throws IOException if an I/O error occurs
+     */
+    public long restore(FileChannel channel, ITCH50Directory directory,
+            ITCH50OrderBook book) throws IOException {
+        buffer.clear();
+        buffer.flip();
+
+        require(channel, HEADER_LENGTH);
+
+        if (buffer.getLong() != MAGIC)
+            throw new ITCH50Exception("Not a snapshot");
+
+        int version = getUnsignedShort(buffer);
+        if (version != VERSION)
+            throw new ITCH50Exception("Unsupported snapshot version: " + version);
+
+        long sequenceNumber = buffer.getLong();
+
+        directory.clear();
+        book.clear();
+
+        restoreInstruments(channel, directory);
+        restoreTradingStates(channel, directory);
+        restoreRegSHOActions(channel, directory);
+        restoreOperationalHalts(channel, directory);
+        restoreOrders(channel, book);
+
+        return sequenceNumber;
+    }
+
+    private void saveInstruments(FileChannel channel, ITCH50Directory directory) throws IOException {
+        int count = 0;
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            if (directory.contains(stockLocate))
+                count++;
+        }
+
+        putCount(channel, count);
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            if (!directory.contains(stockLocate))
+                continue;
+
+            stockDirectory.stockLocate                 = stockLocate;
+            stockDirectory.trackingNumber              = 0;
+            stockDirectory.timestampHigh               = 0;
+            stockDirectory.timestampLow                = 0;
+            stockDirectory.stock                       = directory.stock(stockLocate);
+            stockDirectory.marketCategory              = directory.marketCategory(stockLocate);
+            stockDirectory.financialStatusIndicator    = directory.financialStatusIndicator(stockLocate);
+            stockDirectory.roundLotSize                = directory.roundLotSize(stockLocate);
+            stockDirectory.roundLotsOnly               = directory.roundLotsOnly(stockLocate);
+            stockDirectory.issueClassification         = directory.issueClassification(stockLocate);
+            stockDirectory.issueSubType                = directory.issueSubType(stockLocate);
+            stockDirectory.authenticity                = directory.authenticity(stockLocate);
+            stockDirectory.shortSaleThresholdIndicator = directory.shortSaleThresholdIndicator(stockLocate);
+            stockDirectory.ipoFlag                     = directory.ipoFlag(stockLocate);
+            stockDirectory.luldReferencePriceTier      = directory.luldReferencePriceTier(stockLocate);
+            stockDirectory.etpFlag                     = directory.etpFlag(stockLocate);
+            stockDirectory.etpLeverageFactor           = directory.etpLeverageFactor(stockLocate);
+            stockDirectory.inverseIndicator            = directory.inverseIndicator(stockLocate);
+
+            put(channel, stockDirectory, MESSAGE_LENGTH_STOCK_DIRECTORY);
+        }
+    }
+
+    private void saveTradingStates(FileChannel channel, ITCH50Directory directory) throws IOException {
+        int count = 0;
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            if (directory.tradingState(stockLocate) != 0)
+                count++;
+        }
+
+        putCount(channel, count);
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            if (directory.tradingState(stockLocate) == 0)
+                continue;
+
+            stockTradingAction.stockLocate    = stockLocate;
+            stockTradingAction.trackingNumber = 0;
+            stockTradingAction.timestampHigh  = 0;
+            stockTradingAction.timestampLow   = 0;
+            stockTradingAction.stock          = directory.stock(stockLocate);
+            stockTradingAction.tradingState   = directory.tradingState(stockLocate);
+            stockTradingAction.reserved       = ' ';
+            stockTradingAction.reason         = directory.reason(stockLocate);
+
+            put(channel, stockTradingAction, MESSAGE_LENGTH_STOCK_TRADING_ACTION);
+        }
+    }
+
+    private void saveRegSHOActions(FileChannel channel, ITCH50Directory directory) throws IOException {
+        int count = 0;
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            if (directory.regSHOAction(stockLocate) != 0)
+                count++;
+        }
+
+        putCount(channel, count);
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            if (directory.regSHOAction(stockLocate) == 0)
+                continue;
+
+            regSHORestriction.locateCode     = stockLocate;
+            regSHORestriction.trackingNumber = 0;
+            regSHORestriction.timestampHigh  = 0;
+            regSHORestriction.timestampLow   = 0;
+            regSHORestriction.stock          = directory.stock(stockLocate);
+            regSHORestriction.regSHOAction   = directory.regSHOAction(stockLocate);
+
+            put(channel, regSHORestriction, MESSAGE_LENGTH_REG_SHO_RESTRICTION);
+        }
+    }
+
+    private void saveOperationalHalts(FileChannel channel, ITCH50Directory directory) throws IOException {
+        int count = 0;
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            for (byte marketCode : MARKET_CODES) {
+                if (directory.operationalHaltAction(stockLocate, marketCode) != 0)
+                    count++;
+            }
+        }
+
+        putCount(channel, count);
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            for (byte marketCode : MARKET_CODES) {
+                byte operationalHaltAction = directory.operationalHaltAction(stockLocate, marketCode);
+                if (operationalHaltAction == 0)
+                    continue;
+
+                operationalHalt.stockLocate           = stockLocate;
+                operationalHalt.trackingNumber        = 0;
+                operationalHalt.timestampHigh         = 0;
+                operationalHalt.timestampLow          = 0;
+                operationalHalt.stock                 = directory.stock(stockLocate);
+                operationalHalt.marketCode            = marketCode;
+                operationalHalt.operationalHaltAction = operationalHaltAction;
+
+                put(channel, operationalHalt, MESSAGE_LENGTH_OPERATIONAL_HALT);
+            }
+        }
+    }
+
+    private void saveOrders(FileChannel channel, ITCH50OrderBook book) throws IOException {
+        putCount(channel, book.orders());
+
+        for (int stockLocate = 0; stockLocate < STOCK_LOCATES; stockLocate++) {
+            for (byte side : SIDES) {
+                int level = book.bestLevel(stockLocate, side);
+
+                while (level != ITCH50OrderBook.NONE) {
+                    long price = book.levelPrice(level);
+
+                    int order = book.firstOrder(level);
+
+                    while (order != ITCH50OrderBook.NONE) {
+                        ensure(channel, ORDER_LENGTH);
+
+                        putUnsignedShort(buffer, stockLocate);
+                        buffer.putLong(book.orderReferenceNumber(order));
+                        buffer.put(side);
+                        putUnsignedInt(buffer, price);
+                        putUnsignedInt(buffer, book.orderShares(order));
+
+                        order = book.nextOrder(order);
+                    }
+
+                    level = book.nextLevel(level);
+                }
+            }
+        }
+    }
+
+    private void restoreInstruments(FileChannel channel, ITCH50Directory directory) throws IOException {
+        int count = getCount(channel);
+
+        for (int i = 0; i < count; i++) {
+            get(channel, MESSAGE_TYPE_STOCK_DIRECTORY, MESSAGE_LENGTH_STOCK_DIRECTORY);
+
+            stockDirectory.get(buffer);
+
+            directory.stockDirectory(stockDirectory);
+        }
+    }
+
+    private void restoreTradingStates(FileChannel channel, ITCH50Directory directory) throws IOException {
+        int count = getCount(channel);
+
+        for (int i = 0; i < count; i++) {
+            get(channel, MESSAGE_TYPE_STOCK_TRADING_ACTION, MESSAGE_LENGTH_STOCK_TRADING_ACTION);
+
+            stockTradingAction.get(buffer);
+
+            directory.stockTradingAction(stockTradingAction);
+        }
+    }
+
+    private void restoreRegSHOActions(FileChannel channel, ITCH50Directory directory) throws IOException {
+        int count = getCount(channel);
+
+        for (int i = 0; i < count; i++) {
+            get(channel, MESSAGE_TYPE_REG_SHO_RESTRICTION, MESSAGE_LENGTH_REG_SHO_RESTRICTION);
+
+            regSHORestriction.get(buffer);
+
+            directory.regSHORestriction(regSHORestriction);
+        }
+    }
+
+    private void restoreOperationalHalts(FileChannel channel, ITCH50Directory directory) throws IOException {
+        int count = getCount(channel);
+
+        for (int i = 0; i < count; i++) {
+            get(channel, MESSAGE_TYPE_OPERATIONAL_HALT, MESSAGE_LENGTH_OPERATIONAL_HALT);
+
+            operationalHalt.get(buffer);
+
+            directory.operationalHalt(operationalHalt);
+        }
+    }
+
+    private void restoreOrders(FileChannel channel, ITCH50OrderBook book) throws IOException {
+        int count = getCount(channel);
+
+        for (int i = 0; i < count; i++) {
+            require(channel, ORDER_LENGTH);
+
+            int  stockLocate          = getUnsignedShort(buffer);
+            long orderReferenceNumber = buffer.getLong();
+            byte side                 = buffer.get();
+            long price                = getUnsignedInt(buffer);
+            long shares               = getUnsignedInt(buffer);
+
+            book.add(stockLocate, orderReferenceNumber, side, price, shares);
+        }
+    }
+
+    private void putCount(FileChannel channel, int count) throws IOException {
+        ensure(channel, 4);
+
+        buffer.putInt(count);
+    }
+
+    private void put(FileChannel channel, Message message, int length) throws IOException {
+        ensure(channel, length);
+
+        message.put(buffer);
+    }
+
+    private void ensure(FileChannel channel, int length) throws IOException {
+        if (buffer.remaining() < length)
+            flush(channel);
+    }
+
+    private void flush(FileChannel channel) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+
+        buffer.clear();
+    }
+
+    private int getCount(FileChannel channel) throws IOException {
+        require(channel, 4);
+
+        int count = buffer.getInt();
+        if (count < 0)
+            throw new ITCH50Exception("Malformed snapshot");
+
+        return count;
+    }
+
+    private void get(FileChannel channel, byte messageType, int length) throws IOException {
+        require(channel, length);
+
+        if (buffer.get() != messageType)
+            throw new ITCH50Exception("Malformed snapshot");
+    }
+
+    private void require(FileChannel channel, int length) throws IOException {
+        if (buffer.remaining() >= length)
+            return;
+
+        buffer.compact();
+
+        while (buffer.position() < length) {
+            if (channel.read(buffer) < 0)
+                throw new ITCH50Exception("Unexpected end of snapshot");
+        }
+
+        buffer.flip();
+    }
+
+}
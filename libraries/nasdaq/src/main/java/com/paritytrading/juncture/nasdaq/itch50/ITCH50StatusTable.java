@@ -0,0 +1,300 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+/**
+ * An instrument status table.
+ *
+ * <p>The status table handles Stock Trading Action, Reg SHO Short Sale
+ * Price Test Restricted Indicator, LULD Auction Collar, Operational Halt,
+ * MWCB Decline Level and MWCB Status messages. The status of each
+ * instrument is kept in a preallocated slot indexed by Stock Locate, and
+ * the market-wide circuit breaker status in a separate slot.</p>
+ *
+ * <p>The status table has a single writer, the thread that passes messages
+ * to it. Readers may run on other threads. They never block the writer and
+ * always see a consistent status, as each slot is protected by a sequence
+ * lock.</p>
+ *
+ * <p>Reading an instrument that has never had a status message returns
+ * zero.</p>
+ */
+public class ITCH50StatusTable extends ITCH50ListenerAdapter {
+
+    private static final int STOCK_LOCATES = 65536;
+
+    private static final int TIMESTAMP = 0;
+
+    private static final int STATE                          = 1;
+    private static final int REASON                         = 2;
+    private static final int AUCTION_COLLAR_REFERENCE_PRICE = 3;
+    private static final int UPPER_AUCTION_COLLAR_PRICE     = 4;
+    private static final int LOWER_AUCTION_COLLAR_PRICE     = 5;
+    private static final int AUCTION_COLLAR_EXTENSION       = 6;
+
+    private static final int LEVEL_1        = 1;
+    private static final int LEVEL_2        = 2;
+    private static final int LEVEL_3        = 3;
+    private static final int BREACHED_LEVEL = 4;
+
+    /*
+     * The State word packs the byte fields of an instrument.
+     */
+    private static final int TRADING_STATE_SHIFT  = 0;
+    private static final int REG_SHO_ACTION_SHIFT = 8;
+    private static final int NASDAQ_HALT_SHIFT    = 16;
+    private static final int BX_HALT_SHIFT        = 24;
+    private static final int PSX_HALT_SHIFT       = 32;
+
+    private static final int MWCB_SLOT = STOCK_LOCATES;
+
+    private final SeqLockSlots slots;
+
+    /**
+     * Create an instrument status table.
+     */
+    public ITCH50StatusTable() {
+        this.slots = new SeqLockSlots(STOCK_LOCATES + 1);
+    }
+
+    /**
+     * Get the version of the slot of an instrument. The version changes
+     * each time the status of the instrument changes.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the version of the slot
+     */
+    public long version(int stockLocate) {
+        return slots.version(stockLocate);
+    }
+
+    /**
+     * Read the status of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @param status the status
+     * @return the version of the slot
+     */
+    public long read(int stockLocate, Status status) {
+        while (true) {
+            long version = slots.acquire(stockLocate);
+
+            long timestamp                   = slots.read(stockLocate, TIMESTAMP);
+            long state                       = slots.read(stockLocate, STATE);
+            long reason                      = slots.read(stockLocate, REASON);
+            long auctionCollarReferencePrice = slots.read(stockLocate, AUCTION_COLLAR_REFERENCE_PRICE);
+            long upperAuctionCollarPrice     = slots.read(stockLocate, UPPER_AUCTION_COLLAR_PRICE);
+            long lowerAuctionCollarPrice     = slots.read(stockLocate, LOWER_AUCTION_COLLAR_PRICE);
+            long auctionCollarExtension      = slots.read(stockLocate, AUCTION_COLLAR_EXTENSION);
+
+            if (slots.validate(stockLocate, version)) {
+                status.tradingState                = (byte)(state >>> TRADING_STATE_SHIFT);
+                status.reason                      = (int)reason;
+                status.regSHOAction                = (byte)(state >>> REG_SHO_ACTION_SHIFT);
+                status.nasdaqOperationalHaltAction = (byte)(state >>> NASDAQ_HALT_SHIFT);
+                status.bxOperationalHaltAction     = (byte)(state >>> BX_HALT_SHIFT);
+                status.psxOperationalHaltAction    = (byte)(state >>> PSX_HALT_SHIFT);
+                status.auctionCollarReferencePrice = auctionCollarReferencePrice;
+                status.upperAuctionCollarPrice     = upperAuctionCollarPrice;
+                status.lowerAuctionCollarPrice     = lowerAuctionCollarPrice;
+                status.auctionCollarExtension      = auctionCollarExtension;
+                status.timestamp                   = timestamp;
+
+                return version;
+            }
+        }
+    }
+
+    /**
+     * Get the version of the market-wide circuit breaker slot. The version
+     * changes each time the market-wide circuit breaker status changes.
+     *
+     * @return the version of the slot
+     */
+    public long mwcbVersion() {
+        return slots.version(MWCB_SLOT);
+    }
+
+    /**
+     * Read the market-wide circuit breaker status.
+     *
+     * @param mwcb the market-wide circuit breaker status
+     * @return the version of the slot
+     */
+    public long readMWCB(MWCB mwcb) {
+        while (true) {
+            long version = slots.acquire(MWCB_SLOT);
+
+            long timestamp     = slots.read(MWCB_SLOT, TIMESTAMP);
+            long level1        = slots.read(MWCB_SLOT, LEVEL_1);
+            long level2        = slots.read(MWCB_SLOT, LEVEL_2);
+            long level3        = slots.read(MWCB_SLOT, LEVEL_3);
+            long breachedLevel = slots.read(MWCB_SLOT, BREACHED_LEVEL);
+
+            if (slots.validate(MWCB_SLOT, version)) {
+                mwcb.level1        = level1;
+                mwcb.level2        = level2;
+                mwcb.level3        = level3;
+                mwcb.breachedLevel = (byte)breachedLevel;
+                mwcb.timestamp     = timestamp;
+
+                return version;
+            }
+        }
+    }
+
+    @Override
+    public void stockTradingAction(StockTradingAction message) {
+        int slot = message.stockLocate;
+
+        long state = slots.get(slot, STATE);
+
+        long version = begin(slot, message.timestamp());
+
+        slots.set(slot, STATE, replace(state, TRADING_STATE_SHIFT, message.tradingState));
+        slots.set(slot, REASON, message.reason & 0xffffffffL);
+
+        slots.end(slot, version);
+    }
+
+    @Override
+    public void regSHORestriction(RegSHORestriction message) {
+        int slot = message.locateCode;
+
+        long state = slots.get(slot, STATE);
+
+        long version = begin(slot, message.timestamp());
+
+        slots.set(slot, STATE, replace(state, REG_SHO_ACTION_SHIFT, message.regSHOAction));
+
+        slots.end(slot, version);
+    }
+
+    @Override
+    public void luldAuctionCollar(LULDAuctionCollar message) {
+        int slot = message.stockLocate;
+
+        long version = begin(slot, message.timestamp());
+
+        slots.set(slot, AUCTION_COLLAR_REFERENCE_PRICE, message.auctionCollarReferencePrice);
+        slots.set(slot, UPPER_AUCTION_COLLAR_PRICE, message.upperAuctionCollarPrice);
+        slots.set(slot, LOWER_AUCTION_COLLAR_PRICE, message.lowerAuctionCollarPrice);
+        slots.set(slot, AUCTION_COLLAR_EXTENSION, message.auctionCollarExtension);
+
+        slots.end(slot, version);
+    }
+
+    @Override
+    public void operationalHalt(OperationalHalt message) {
+        int shift = shift(message.marketCode);
+        if (shift < 0)
+            return;
+
+        int slot = message.stockLocate;
+
+        long state = slots.get(slot, STATE);
+
+        long version = begin(slot, message.timestamp());
+
+        slots.set(slot, STATE, replace(state, shift, message.operationalHaltAction));
+
+        slots.end(slot, version);
+    }
+
+    @Override
+    public void mwcbDeclineLevel(MWCBDeclineLevel message) {
+        long version = begin(MWCB_SLOT, message.timestamp());
+
+        slots.set(MWCB_SLOT, LEVEL_1, message.level1);
+        slots.set(MWCB_SLOT, LEVEL_2, message.level2);
+        slots.set(MWCB_SLOT, LEVEL_3, message.level3);
+
+        slots.end(MWCB_SLOT, version);
+    }
+
+    @Override
+    public void mwcbStatus(MWCBStatus message) {
+        long version = begin(MWCB_SLOT, message.timestamp());
+
+        slots.set(MWCB_SLOT, BREACHED_LEVEL, (long)message.breachedLevel);
+
+        slots.end(MWCB_SLOT, version);
+    }
+
+    private long begin(int slot, long timestamp) {
+        long version = slots.begin(slot);
+
+        slots.set(slot, TIMESTAMP, timestamp);
+
+        return version;
+    }
+
+    private static long replace(long state, int shift, byte value) {
+        return state & ~(0xffL << shift) | (value & 0xffL) << shift;
+    }
+
+    private static int shift(byte marketCode) {
+        switch (marketCode) {
+        case MARKET_CODE_NASDAQ:
+            return NASDAQ_HALT_SHIFT;
+        case MARKET_CODE_BX:
+            return BX_HALT_SHIFT;
+        case MARKET_CODE_PSX:
+            return PSX_HALT_SHIFT;
+        default:
+            return -1;
+        }
+    }
+
+    /**
+     * The status of an instrument.
+     *
+     * <p>The Timestamp is the Timestamp of the last status message for the
+     * instrument, as nanoseconds since midnight. A field that has not been
+     * set by a status message is zero.</p>
+     */
+    public static class Status {
+        public byte tradingState;
+        public int  reason;
+        public byte regSHOAction;
+        public byte nasdaqOperationalHaltAction;
+        public byte bxOperationalHaltAction;
+        public byte psxOperationalHaltAction;
+        public long auctionCollarReferencePrice;
+        public long upperAuctionCollarPrice;
+        public long lowerAuctionCollarPrice;
+        public long auctionCollarExtension;
+        public long timestamp;
+    }
+
+    /**
+     * The market-wide circuit breaker status.
+     *
+     * <p>The Timestamp is the Timestamp of the last MWCB Decline Level or
+     * MWCB Status message, as nanoseconds since midnight. A field that has
+     * not been set by a message is zero.</p>
+     */
+    public static class MWCB {
+        public long level1;
+        public long level2;
+        public long level3;
+        public byte breachedLevel;
+        public long timestamp;
+    }
+
+}
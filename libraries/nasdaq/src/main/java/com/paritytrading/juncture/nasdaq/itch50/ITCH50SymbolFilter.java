@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A message listener that passes on the messages of subscribed
+ * instruments.
+ *
+ * <p>The filter looks only at the Stock Locate field of each message, so
+ * that messages of other instruments are dropped before they are decoded.
+ * The filter learns the Stock Locate of each instrument from Stock
+ * Directory messages and keeps the subscribed Stock Locates in a bit
+ * set.</p>
+ *
+ * <p>Messages with a Stock Locate of zero, such as System Event and MWCB
+ * messages, are always passed on. A Stock Directory message is passed on
+ * if its instrument is subscribed.</p>
+ */
+public class ITCH50SymbolFilter implements MessageListener {
+
+    private static final int STOCK_LOCATES = 65536;
+
+    private final MessageListener listener;
+
+    private final LocateTable locates;
+
+    private final LocateTable.Subscription subscription;
+
+    /**
+     * Create a filter.
+     *
+     * @param listener the message listener
+     */
+    public ITCH50SymbolFilter(MessageListener listener) {
+        this.listener = listener;
+
+        this.locates = new LocateTable();
+
+        this.subscription = new LocateTable.Subscription(STOCK_LOCATES);
+
+        this.locates.add(this.subscription);
+    }
+
+    /**
+     * Subscribe to an instrument.
+     *
+     * @param symbol the symbol
+     * @throws IllegalArgumentException if the symbol is longer than eight
+     *   characters
+     * @throws IllegalStateException if the number of subscriptions exceeds
+     *   the number of Stock Locates
+     */
+    public void subscribe(CharSequence symbol) {
+        subscribe(ITCH50Directory.encode(symbol));
+    }
+
+    /**
+     * Subscribe to an instrument.
+     *
+     * @param stock the Stock field value
+     * @throws IllegalStateException if the number of subscriptions exceeds
+     *   the number of Stock Locates
+     */
+    public void subscribe(long stock) {
+        locates.subscribe(subscription, stock);
+    }
+
+    /**
+     * Unsubscribe from an instrument.
+     *
+     * @param symbol the symbol
+     * @throws IllegalArgumentException if the symbol is longer than eight
+     *   characters
+     */
+    public void unsubscribe(CharSequence symbol) {
+        unsubscribe(ITCH50Directory.encode(symbol));
+    }
+
+    /**
+     * Unsubscribe from an instrument.
+     *
+     * @param stock the Stock field value
+     */
+    public void unsubscribe(long stock) {
+        locates.unsubscribe(subscription, stock);
+    }
+
+    /**
+     * Check if messages with a Stock Locate are passed on.
+     *
+     * @param stockLocate the Stock Locate
+     * @return true if messages with the Stock Locate are passed on,
+     *   otherwise false
+     */
+    public boolean isSubscribed(int stockLocate) {
+        return subscription.contains(stockLocate);
+    }
+
+    /**
+     * Filter a raw message. The buffer is positioned at the first byte of
+     * the message and limited to the last byte of the message.
+     *
+     * @param buffer a buffer
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void message(ByteBuffer buffer) throws IOException {
+        /*
+         * The Stock Locate field follows the Message Type field. Messages
+         * shorter than that are passed on, which lets the parser report
+         * them.
+         */
+        int position = buffer.position();
+
+        if (buffer.remaining() < 3) {
+            listener.message(buffer);
+            return;
+        }
+
+        int stockLocate = buffer.getShort(position + 1) & 0xffff;
+
+        locates.learn(buffer);
+
+        if (subscription.contains(stockLocate))
+            listener.message(buffer);
+    }
+
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+/**
+ * A conflated top of book for all instruments.
+ *
+ * <p>The top of book passes Add Order, Add Order with MPID, Order Executed,
+ * Order Executed With Price, Order Cancel, Order Delete and Order Replace
+ * messages to an order book and publishes the best bid and offer of each
+ * instrument. The order messages must not be passed to the order book
+ * separately.</p>
+ *
+ * <p>The best bid and offer of each instrument are published into a
+ * preallocated slot indexed by Stock Locate. A slot is only written when
+ * the best bid or offer has changed since the last publication. The
+ * publications are conflated by exchange time: the instruments that have
+ * changed are published when the Timestamp of an order message enters a
+ * new interval, or when {@link #flush()} is invoked. With an interval of
+ * {@link #PER_MESSAGE}, each order message is published immediately, and
+ * with an interval of {@link #PER_TIMESTAMP}, at each new Timestamp.</p>
+ *
+ * <p>The top of book has a single writer, the thread that passes messages
+ * to it. Readers may run on other threads. They never block the writer and
+ * always see a consistent best bid and offer, as each slot is protected by
+ * a sequence lock.</p>
+ */
+public class ITCH50TopOfBook extends ITCH50ListenerAdapter {
+
+    /**
+     * The interval that publishes each order message immediately.
+     */
+    public static final long PER_MESSAGE = 0;
+
+    /**
+     * The interval that publishes order messages at each new Timestamp.
+     */
+    public static final long PER_TIMESTAMP = 1;
+
+    private static final int STOCK_LOCATES = 65536;
+
+    private static final int BID_PRICE = 0;
+    private static final int BID_SIZE  = 1;
+    private static final int ASK_PRICE = 2;
+    private static final int ASK_SIZE  = 3;
+    private static final int TIMESTAMP = 4;
+
+    private final ITCH50OrderBook book;
+
+    private final long interval;
+
+    private final SeqLockSlots slots;
+
+    private final boolean[] changed;
+
+    private final int[] changes;
+
+    private int changeCount;
+
+    private long timestamp;
+
+    private long window;
+
+    /**
+     * Create a top of book.
+     *
+     * @param book the order book
+     * @param interval the conflation interval in nanoseconds of exchange
+     *   time, {@link #PER_MESSAGE} or {@link #PER_TIMESTAMP}
+     * @throws IllegalArgumentException if the interval is negative
+     */
+    public ITCH50TopOfBook(ITCH50OrderBook book, long interval) {
+        if (interval < 0)
+            throw new IllegalArgumentException("Negative interval: " + interval);
+
+        this.book     = book;
+        this.interval = interval;
+
+        this.slots = new SeqLockSlots(STOCK_LOCATES);
+
+        this.changed = new boolean[STOCK_LOCATES];
+        this.changes = new int[STOCK_LOCATES];
+    }
+
+    /**
+     * Get the order book.
+     *
+     * @return the order book
+     */
+    public ITCH50OrderBook book() {
+        return book;
+    }
+
+    /**
+     * Publish the instruments that have changed since the last
+     * publication.
+     *
+     * <p>This method must only be invoked by the writer.</p>
+     */
+    public void flush() {
+        for (int i = 0; i < changeCount; i++) {
+            int stockLocate = changes[i];
+
+            changed[stockLocate] = false;
+
+            publish(stockLocate);
+        }
+
+        changeCount = 0;
+    }
+
+    /**
+     * Get the version of the slot of an instrument. The version changes
+     * each time the best bid and offer of the instrument are published.
+     *
+     * @param stockLocate the Stock Locate
+     * @return the version of the slot
+     */
+    public long version(int stockLocate) {
+        return slots.version(stockLocate);
+    }
+
+    /**
+     * Read the best bid and offer of an instrument.
+     *
+     * @param stockLocate the Stock Locate
+     * @param quote the best bid and offer
+     * @return the version of the slot
+     */
+    public long read(int stockLocate, Quote quote) {
+        while (true) {
+            long version = slots.acquire(stockLocate);
+
+            long bidPrice  = slots.read(stockLocate, BID_PRICE);
+            long bidSize   = slots.read(stockLocate, BID_SIZE);
+            long askPrice  = slots.read(stockLocate, ASK_PRICE);
+            long askSize   = slots.read(stockLocate, ASK_SIZE);
+            long timestamp = slots.read(stockLocate, TIMESTAMP);
+
+            if (slots.validate(stockLocate, version)) {
+                quote.bidPrice  = bidPrice;
+                quote.bidSize   = bidSize;
+                quote.askPrice  = askPrice;
+                quote.askSize   = askSize;
+                quote.timestamp = timestamp;
+
+                return version;
+            }
+        }
+    }
+
+    @Override
+    public void addOrder(AddOrder message) {
+        update(message.timestamp());
+
+        book.addOrder(message);
+
+        change(message.stockLocate);
+    }
+
+    @Override
+    public void addOrderMPID(AddOrderMPID message) {
+        update(message.timestamp());
+
+        book.addOrderMPID(message);
+
+        change(message.stockLocate);
+    }
+
+    @Override
+    public void orderExecuted(OrderExecuted message) {
+        update(message.timestamp());
+
+        book.orderExecuted(message);
+
+        change(message.stockLocate);
+    }
+
+    @Override
+    public void orderExecutedWithPrice(OrderExecutedWithPrice message) {
+        update(message.timestamp());
+
+        book.orderExecutedWithPrice(message);
+
+        change(message.stockLocate);
+    }
+
+    @Override
+    public void orderCancel(OrderCancel message) {
+        update(message.timestamp());
+
+        book.orderCancel(message);
+
+        change(message.stockLocate);
+    }
+
+    @Override
+    public void orderDelete(OrderDelete message) {
+        update(message.timestamp());
+
+        book.orderDelete(message);
+
+        change(message.stockLocate);
+    }
+
+    @Override
+    public void orderReplace(OrderReplace message) {
+        update(message.timestamp());
+
+        book.orderReplace(message);
+
+        change(message.stockLocate);
+    }
+
+    private void update(long timestamp) {
+        if (interval != PER_MESSAGE) {
+            long window = timestamp / interval;
+
+            if (window != this.window) {
+                flush();
+
+                this.window = window;
+            }
+        }
+
+        this.timestamp = timestamp;
+    }
+
+    private void change(int stockLocate) {
+        if (interval == PER_MESSAGE) {
+            publish(stockLocate);
+            return;
+        }
+
+        if (changed[stockLocate])
+            return;
+
+        changed[stockLocate] = true;
+
+        changes[changeCount++] = stockLocate;
+    }
+
+    private void publish(int stockLocate) {
+        int bid = book.bestLevel(stockLocate, BUY);
+        int ask = book.bestLevel(stockLocate, SELL);
+
+        long bidPrice = bid != ITCH50OrderBook.NONE ? book.levelPrice(bid)  : 0;
+        long bidSize  = bid != ITCH50OrderBook.NONE ? book.levelShares(bid) : 0;
+        long askPrice = ask != ITCH50OrderBook.NONE ? book.levelPrice(ask)  : 0;
+        long askSize  = ask != ITCH50OrderBook.NONE ? book.levelShares(ask) : 0;
+
+        if (slots.get(stockLocate, BID_PRICE) == bidPrice && slots.get(stockLocate, BID_SIZE) == bidSize &&
+                slots.get(stockLocate, ASK_PRICE) == askPrice && slots.get(stockLocate, ASK_SIZE) == askSize)
+            return;
+
+        long version = slots.begin(stockLocate);
+
+        slots.set(stockLocate, BID_PRICE, bidPrice);
+        slots.set(stockLocate, BID_SIZE, bidSize);
+        slots.set(stockLocate, ASK_PRICE, askPrice);
+        slots.set(stockLocate, ASK_SIZE, askSize);
+        slots.set(stockLocate, TIMESTAMP, timestamp);
+
+        slots.end(stockLocate, version);
+    }
+
+    /**
+     * A best bid and offer.
+     *
+     * <p>A side without orders has a price and a size of zero. The
+     * Timestamp is the Timestamp of the last order message included in the
+     * publication, as nanoseconds since midnight.</p>
+     */
+    public static class Quote {
+        public long bidPrice;
+        public long bidSize;
+        public long askPrice;
+        public long askSize;
+        public long timestamp;
+    }
+
+}
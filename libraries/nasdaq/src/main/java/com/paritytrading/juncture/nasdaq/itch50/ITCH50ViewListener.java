@@ -0,0 +1,205 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50Views.*;
+
+import java.io.IOException;
+
+/**
+ * The interface for inbound message views.
+ *
+ * <p>A view is only valid for the duration of the callback.</p>
+ */
+public interface ITCH50ViewListener {
+
+    /**
+     * Receive a System Event message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void systemEvent(SystemEventView view) throws IOException;
+
+    /**
+     * Receive a Stock Directory message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void stockDirectory(StockDirectoryView view) throws IOException;
+
+    /**
+     * Receive a Stock Trading Action message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void stockTradingAction(StockTradingActionView view) throws IOException;
+
+    /**
+     * Receive a Reg SHO Restriction message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void regSHORestriction(RegSHORestrictionView view) throws IOException;
+
+    /**
+     * Receive a Market Participant Position message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void marketParticipantPosition(MarketParticipantPositionView view) throws IOException;
+
+    /**
+     * Receive an MWCB Decline Level message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void mwcbDeclineLevel(MWCBDeclineLevelView view) throws IOException;
+
+    /**
+     * Receive an MWCB Status message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void mwcbStatus(MWCBStatusView view) throws IOException;
+
+    /**
+     * Receive an IPO Quoting Period Update message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void ipoQuotingPeriodUpdate(IPOQuotingPeriodUpdateView view) throws IOException;
+
+    /**
+     * Receive a LULD Auction Collar message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void luldAuctionCollar(LULDAuctionCollarView view) throws IOException;
+
+    /**
+     * Receive an Operational Halt message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void operationalHalt(OperationalHaltView view) throws IOException;
+
+    /**
+     * Receive an Add Order message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void addOrder(AddOrderView view) throws IOException;
+
+    /**
+     * Receive an Add Order with MPID message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void addOrderMPID(AddOrderMPIDView view) throws IOException;
+
+    /**
+     * Receive an Order Executed message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void orderExecuted(OrderExecutedView view) throws IOException;
+
+    /**
+     * Receive an Order Executed With Price message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void orderExecutedWithPrice(OrderExecutedWithPriceView view) throws IOException;
+
+    /**
+     * Receive an Order Cancel message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void orderCancel(OrderCancelView view) throws IOException;
+
+    /**
+     * Receive an Order Delete message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void orderDelete(OrderDeleteView view) throws IOException;
+
+    /**
+     * Receive an Order Replace message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void orderReplace(OrderReplaceView view) throws IOException;
+
+    /**
+     * Receive a Trade message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void trade(TradeView view) throws IOException;
+
+    /**
+     * Receive a Cross Trade message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void crossTrade(CrossTradeView view) throws IOException;
+
+    /**
+     * Receive a Broken Trade message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void brokenTrade(BrokenTradeView view) throws IOException;
+
+    /**
+     * Receive a NOII message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void noii(NOIIView view) throws IOException;
+
+    /**
+     * Receive an RPII message.
+     *
+     * @param view the message view
+     * @throws IOException if an I/O error occurs
+     */
+    void rpii(RPIIView view) throws IOException;
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50Views.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A parser for inbound message views.
+ *
+ * <p>Instead of decoding each message, the parser wraps a view over the
+ * message in the buffer and dispatches the view. Each field is decoded only
+ * when the listener reads it.</p>
+ */
+public class ITCH50ViewParser implements MessageListener {
+
+    private final SystemEventView               systemEvent;
+    private final StockDirectoryView            stockDirectory;
+    private final StockTradingActionView        stockTradingAction;
+    private final RegSHORestrictionView         regSHORestriction;
+    private final MarketParticipantPositionView marketParticipantPosition;
+    private final MWCBDeclineLevelView          mwcbDeclineLevel;
+    private final MWCBStatusView                mwcbStatus;
+    private final IPOQuotingPeriodUpdateView    ipoQuotingPeriodUpdate;
+    private final LULDAuctionCollarView         luldAuctionCollar;
+    private final OperationalHaltView           operationalHalt;
+    private final AddOrderView                  addOrder;
+    private final AddOrderMPIDView              addOrderMPID;
+    private final OrderExecutedView             orderExecuted;
+    private final OrderExecutedWithPriceView    orderExecutedWithPrice;
+    private final OrderCancelView               orderCancel;
+    private final OrderDeleteView               orderDelete;
+    private final OrderReplaceView              orderReplace;
+    private final TradeView                     trade;
+    private final CrossTradeView                crossTrade;
+    private final BrokenTradeView               brokenTrade;
+    private final NOIIView                      noii;
+    private final RPIIView                      rpii;
+
+    private final ITCH50ViewListener listener;
+
+    /**
+     * Create a parser for inbound message views.
+     *
+     * @param listener the message view listener
+     */
+    public ITCH50ViewParser(ITCH50ViewListener listener) {
+        this.systemEvent               = new SystemEventView();
+        this.stockDirectory            = new StockDirectoryView();
+        this.stockTradingAction        = new StockTradingActionView();
+        this.regSHORestriction         = new RegSHORestrictionView();
+        this.marketParticipantPosition = new MarketParticipantPositionView();
+        this.mwcbDeclineLevel          = new MWCBDeclineLevelView();
+        this.mwcbStatus                = new MWCBStatusView();
+        this.ipoQuotingPeriodUpdate    = new IPOQuotingPeriodUpdateView();
+        this.luldAuctionCollar         = new LULDAuctionCollarView();
+        this.operationalHalt           = new OperationalHaltView();
+        this.addOrder                  = new AddOrderView();
+        this.addOrderMPID              = new AddOrderMPIDView();
+        this.orderExecuted             = new OrderExecutedView();
+        this.orderExecutedWithPrice    = new OrderExecutedWithPriceView();
+        this.orderCancel               = new OrderCancelView();
+        this.orderDelete               = new OrderDeleteView();
+        this.orderReplace              = new OrderReplaceView();
+        this.trade                     = new TradeView();
+        this.crossTrade                = new CrossTradeView();
+        this.brokenTrade               = new BrokenTradeView();
+        this.noii                      = new NOIIView();
+        this.rpii                      = new RPIIView();
+
+        this.listener = listener;
+    }
+
+    @Override
+    public void message(ByteBuffer buffer) throws IOException {
+        byte messageType = buffer.get(buffer.position());
+
+        switch (messageType) {
+        case MESSAGE_TYPE_SYSTEM_EVENT:
+            systemEvent.wrap(buffer, skip(buffer, MESSAGE_LENGTH_SYSTEM_EVENT));
+            listener.systemEvent(systemEvent);
+            break;
+        case MESSAGE_TYPE_STOCK_DIRECTORY:
+            stockDirectory.wrap(buffer, skip(buffer, MESSAGE_LENGTH_STOCK_DIRECTORY));
+            listener.stockDirectory(stockDirectory);
+            break;
+        case MESSAGE_TYPE_STOCK_TRADING_ACTION:
+            stockTradingAction.wrap(buffer, skip(buffer, MESSAGE_LENGTH_STOCK_TRADING_ACTION));
+            listener.stockTradingAction(stockTradingAction);
+            break;
+        case MESSAGE_TYPE_REG_SHO_RESTRICTION:
+            regSHORestriction.wrap(buffer, skip(buffer, MESSAGE_LENGTH_REG_SHO_RESTRICTION));
+            listener.regSHORestriction(regSHORestriction);
+            break;
+        case MESSAGE_TYPE_MARKET_PARTICIPANT_POSITION:
+            marketParticipantPosition.wrap(buffer, skip(buffer, MESSAGE_LENGTH_MARKET_PARTICIPANT_POSITION));
+            listener.marketParticipantPosition(marketParticipantPosition);
+            break;
+        case MESSAGE_TYPE_MWCB_DECLINE_LEVEL:
+            mwcbDeclineLevel.wrap(buffer, skip(buffer, MESSAGE_LENGTH_MWCB_DECLINE_LEVEL));
+            listener.mwcbDeclineLevel(mwcbDeclineLevel);
+            break;
+        case MESSAGE_TYPE_MWCB_STATUS:
+            mwcbStatus.wrap(buffer, skip(buffer, MESSAGE_LENGTH_MWCB_STATUS));
+            listener.mwcbStatus(mwcbStatus);
+            break;
+        case MESSAGE_TYPE_IPO_QUOTING_PERIOD_UPDATE:
+            ipoQuotingPeriodUpdate.wrap(buffer, skip(buffer, MESSAGE_LENGTH_IPO_QUOTING_PERIOD_UPDATE));
+            listener.ipoQuotingPeriodUpdate(ipoQuotingPeriodUpdate);
+            break;
+        case MESSAGE_TYPE_LULD_AUCTION_COLLAR:
+            luldAuctionCollar.wrap(buffer, skip(buffer, MESSAGE_LENGTH_LULD_AUCTION_COLLAR));
+            listener.luldAuctionCollar(luldAuctionCollar);
+            break;
+        case MESSAGE_TYPE_OPERATIONAL_HALT:
+            operationalHalt.wrap(buffer, skip(buffer, MESSAGE_LENGTH_OPERATIONAL_HALT));
+            listener.operationalHalt(operationalHalt);
+            break;
+        case MESSAGE_TYPE_ADD_ORDER:
+            addOrder.wrap(buffer, skip(buffer, MESSAGE_LENGTH_ADD_ORDER));
+            listener.addOrder(addOrder);
+            break;
+        case MESSAGE_TYPE_ADD_ORDER_MPID:
+            addOrderMPID.wrap(buffer, skip(buffer, MESSAGE_LENGTH_ADD_ORDER_MPID));
+            listener.addOrderMPID(addOrderMPID);
+            break;
+        case MESSAGE_TYPE_ORDER_EXECUTED:
+            orderExecuted.wrap(buffer, skip(buffer, MESSAGE_LENGTH_ORDER_EXECUTED));
+            listener.orderExecuted(orderExecuted);
+            break;
+        case MESSAGE_TYPE_ORDER_EXECUTED_WITH_PRICE:
+            orderExecutedWithPrice.wrap(buffer, skip(buffer, MESSAGE_LENGTH_ORDER_EXECUTED_WITH_PRICE));
+            listener.orderExecutedWithPrice(orderExecutedWithPrice);
+            break;
+        case MESSAGE_TYPE_ORDER_CANCEL:
+            orderCancel.wrap(buffer, skip(buffer, MESSAGE_LENGTH_ORDER_CANCEL));
+            listener.orderCancel(orderCancel);
+            break;
+        case MESSAGE_TYPE_ORDER_DELETE:
+            orderDelete.wrap(buffer, skip(buffer, MESSAGE_LENGTH_ORDER_DELETE));
+            listener.orderDelete(orderDelete);
+            break;
+        case MESSAGE_TYPE_ORDER_REPLACE:
+            orderReplace.wrap(buffer, skip(buffer, MESSAGE_LENGTH_ORDER_REPLACE));
+            listener.orderReplace(orderReplace);
+            break;
+        case MESSAGE_TYPE_TRADE:
+            trade.wrap(buffer, skip(buffer, MESSAGE_LENGTH_TRADE));
+            listener.trade(trade);
+            break;
+        case MESSAGE_TYPE_CROSS_TRADE:
+            crossTrade.wrap(buffer, skip(buffer, MESSAGE_LENGTH_CROSS_TRADE));
+            listener.crossTrade(crossTrade);
+            break;
+        case MESSAGE_TYPE_BROKEN_TRADE:
+            brokenTrade.wrap(buffer, skip(buffer, MESSAGE_LENGTH_BROKEN_TRADE));
+            listener.brokenTrade(brokenTrade);
+            break;
+        case MESSAGE_TYPE_NOII:
+            noii.wrap(buffer, skip(buffer, MESSAGE_LENGTH_NOII));
+            listener.noii(noii);
+            break;
+        case MESSAGE_TYPE_RPII:
+            rpii.wrap(buffer, skip(buffer, MESSAGE_LENGTH_RPII));
+            listener.rpii(rpii);
+            break;
+        default:
+            throw new ITCH50Exception("Unknown message type: " + (char)messageType);
+        }
+    }
+
+    private static int skip(ByteBuffer buffer, int length) {
+        int offset = buffer.position();
+
+        if (buffer.remaining() < length)
+            throw new BufferUnderflowException();
+
+        buffer.position(offset + length);
+
+        return offset;
+    }
+
+}
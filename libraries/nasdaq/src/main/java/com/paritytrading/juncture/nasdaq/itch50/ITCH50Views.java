@@ -0,0 +1,744 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.foundation.ByteBuffers.*;
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight views over inbound messages.
+ *
+ * <p>A view wraps a buffer at the offset of a message and decodes each field
+ * on access using absolute reads. A view does not modify the position or
+ * the limit of the buffer. A view is only valid as long as the underlying
+ * bytes are not modified.</p>
+ */
+public class ITCH50Views {
+
+    private ITCH50Views() {
+    }
+
+    /**
+     * A view over a message.
+     */
+    public abstract static class View {
+        ByteBuffer buffer;
+        int        offset;
+
+        /**
+         * Wrap a message in the buffer.
+         *
+         * @param buffer a buffer
+         * @param offset the offset of the Message Type field
+         */
+        public void wrap(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        /**
+         * Get the underlying buffer.
+         *
+         * @return the underlying buffer
+         */
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        /**
+         * Get the offset of the Message Type field.
+         *
+         * @return the offset of the Message Type field
+         */
+        public int offset() {
+            return offset;
+        }
+
+        /**
+         * Get the length of the message, including the Message Type field.
+         *
+         * @return the length of the message
+         */
+        public abstract int length();
+
+        /**
+         * Get the Message Type.
+         *
+         * @return the Message Type
+         */
+        public byte messageType() {
+            return buffer.get(offset);
+        }
+
+        /**
+         * Get the Stock Locate.
+         *
+         * @return the Stock Locate
+         */
+        public int stockLocate() {
+            return getUnsignedShort(buffer, offset + 1);
+        }
+
+        /**
+         * Get the Tracking Number.
+         *
+         * @return the Tracking Number
+         */
+        public int trackingNumber() {
+            return getUnsignedShort(buffer, offset + 3);
+        }
+
+        /**
+         * Get the high 16 bits of the Timestamp.
+         *
+         * @return the high 16 bits of the Timestamp
+         */
+        public int timestampHigh() {
+            return getUnsignedShort(buffer, offset + 5);
+        }
+
+        /**
+         * Get the low 32 bits of the Timestamp.
+         *
+         * @return the low 32 bits of the Timestamp
+         */
+        public long timestampLow() {
+            return getUnsignedInt(buffer, offset + 7);
+        }
+
+        /**
+         * Get the Timestamp.
+         *
+         * @return the Timestamp as nanoseconds since midnight
+         */
+        public long timestamp() {
+            return ITCH50Header.timestamp(buffer, offset);
+        }
+    }
+
+    /**
+     * A view over a System Event message.
+     */
+    public static class SystemEventView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_SYSTEM_EVENT;
+        }
+
+        public byte eventCode() {
+            return buffer.get(offset + 11);
+        }
+    }
+
+    /**
+     * A view over a Stock Directory (4.2.1) message.
+     */
+    public static class StockDirectoryView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_STOCK_DIRECTORY;
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public byte marketCategory() {
+            return buffer.get(offset + 19);
+        }
+
+        public byte financialStatusIndicator() {
+            return buffer.get(offset + 20);
+        }
+
+        public long roundLotSize() {
+            return getUnsignedInt(buffer, offset + 21);
+        }
+
+        public byte roundLotsOnly() {
+            return buffer.get(offset + 25);
+        }
+
+        public byte issueClassification() {
+            return buffer.get(offset + 26);
+        }
+
+        public short issueSubType() {
+            return buffer.getShort(offset + 27);
+        }
+
+        public byte authenticity() {
+            return buffer.get(offset + 29);
+        }
+
+        public byte shortSaleThresholdIndicator() {
+            return buffer.get(offset + 30);
+        }
+
+        public byte ipoFlag() {
+            return buffer.get(offset + 31);
+        }
+
+        public byte luldReferencePriceTier() {
+            return buffer.get(offset + 32);
+        }
+
+        public byte etpFlag() {
+            return buffer.get(offset + 33);
+        }
+
+        public long etpLeverageFactor() {
+            return getUnsignedInt(buffer, offset + 34);
+        }
+
+        public byte inverseIndicator() {
+            return buffer.get(offset + 38);
+        }
+    }
+
+    /**
+     * A view over a Stock Trading Action (4.2.2) message.
+     */
+    public static class StockTradingActionView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_STOCK_TRADING_ACTION;
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public byte tradingState() {
+            return buffer.get(offset + 19);
+        }
+
+        public byte reserved() {
+            return buffer.get(offset + 20);
+        }
+
+        public int reason() {
+            return buffer.getInt(offset + 21);
+        }
+    }
+
+    /**
+     * A view over a Reg SHO Restriction (4.2.3) message.
+     */
+    public static class RegSHORestrictionView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_REG_SHO_RESTRICTION;
+        }
+
+        public int locateCode() {
+            return stockLocate();
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public byte regSHOAction() {
+            return buffer.get(offset + 19);
+        }
+    }
+
+    /**
+     * A view over a Market Participant Position (4.2.4) message.
+     */
+    public static class MarketParticipantPositionView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_MARKET_PARTICIPANT_POSITION;
+        }
+
+        public int mpid() {
+            return buffer.getInt(offset + 11);
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 15);
+        }
+
+        public byte primaryMarketMaker() {
+            return buffer.get(offset + 23);
+        }
+
+        public byte marketMakerMode() {
+            return buffer.get(offset + 24);
+        }
+
+        public byte marketParticipantState() {
+            return buffer.get(offset + 25);
+        }
+    }
+
+    /**
+     * A view over an MWCB Decline Level (4.2.5.1) message.
+     */
+    public static class MWCBDeclineLevelView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_MWCB_DECLINE_LEVEL;
+        }
+
+        public long level1() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public long level2() {
+            return buffer.getLong(offset + 19);
+        }
+
+        public long level3() {
+            return buffer.getLong(offset + 27);
+        }
+    }
+
+    /**
+     * A view over an MWCB Status (4.2.5.2) message.
+     */
+    public static class MWCBStatusView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_MWCB_STATUS;
+        }
+
+        public byte breachedLevel() {
+            return buffer.get(offset + 11);
+        }
+    }
+
+    /**
+     * A view over an IPO Quoting Period Update (4.2.6) message.
+     */
+    public static class IPOQuotingPeriodUpdateView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_IPO_QUOTING_PERIOD_UPDATE;
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public long ipoQuotationReleaseTime() {
+            return getUnsignedInt(buffer, offset + 19);
+        }
+
+        public byte ipoQuotationReleaseQualifier() {
+            return buffer.get(offset + 23);
+        }
+
+        public long ipoPrice() {
+            return getUnsignedInt(buffer, offset + 24);
+        }
+    }
+
+    /**
+     * A view over a LULD Auction Collar (4.2.7) message.
+     */
+    public static class LULDAuctionCollarView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_LULD_AUCTION_COLLAR;
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public long auctionCollarReferencePrice() {
+            return getUnsignedInt(buffer, offset + 19);
+        }
+
+        public long upperAuctionCollarPrice() {
+            return getUnsignedInt(buffer, offset + 23);
+        }
+
+        public long lowerAuctionCollarPrice() {
+            return getUnsignedInt(buffer, offset + 27);
+        }
+
+        public long auctionCollarExtension() {
+            return getUnsignedInt(buffer, offset + 31);
+        }
+    }
+
+    /**
+     * A view over an Operational Halt (4.2.8) message.
+     */
+    public static class OperationalHaltView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_OPERATIONAL_HALT;
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public byte marketCode() {
+            return buffer.get(offset + 19);
+        }
+
+        public byte operationalHaltAction() {
+            return buffer.get(offset + 20);
+        }
+    }
+
+    /**
+     * A view over an Add Order (4.3.1) message.
+     */
+    public static class AddOrderView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ADD_ORDER;
+        }
+
+        public long orderReferenceNumber() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public byte buySellIndicator() {
+            return buffer.get(offset + 19);
+        }
+
+        public long shares() {
+            return getUnsignedInt(buffer, offset + 20);
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 24);
+        }
+
+        public long price() {
+            return getUnsignedInt(buffer, offset + 32);
+        }
+    }
+
+    /**
+     * A view over an Add Order with MPID (4.3.2) message.
+     */
+    public static class AddOrderMPIDView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ADD_ORDER_MPID;
+        }
+
+        public long orderReferenceNumber() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public byte buySellIndicator() {
+            return buffer.get(offset + 19);
+        }
+
+        public long shares() {
+            return getUnsignedInt(buffer, offset + 20);
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 24);
+        }
+
+        public long price() {
+            return getUnsignedInt(buffer, offset + 32);
+        }
+
+        public int attribution() {
+            return buffer.getInt(offset + 36);
+        }
+    }
+
+    /**
+     * A view over an Order Executed (4.4.1) message.
+     */
+    public static class OrderExecutedView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ORDER_EXECUTED;
+        }
+
+        public long orderReferenceNumber() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public long executedShares() {
+            return getUnsignedInt(buffer, offset + 19);
+        }
+
+        public long matchNumber() {
+            return buffer.getLong(offset + 23);
+        }
+    }
+
+    /**
+     * A view over an Order Executed With Price (4.4.2) message.
+     */
+    public static class OrderExecutedWithPriceView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ORDER_EXECUTED_WITH_PRICE;
+        }
+
+        public long orderReferenceNumber() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public long executedShares() {
+            return getUnsignedInt(buffer, offset + 19);
+        }
+
+        public long matchNumber() {
+            return buffer.getLong(offset + 23);
+        }
+
+        public byte printable() {
+            return buffer.get(offset + 31);
+        }
+
+        public long executionPrice() {
+            return getUnsignedInt(buffer, offset + 32);
+        }
+    }
+
+    /**
+     * A view over an Order Cancel (4.4.3) message.
+     */
+    public static class OrderCancelView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ORDER_CANCEL;
+        }
+
+        public long orderReferenceNumber() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public long canceledShares() {
+            return getUnsignedInt(buffer, offset + 19);
+        }
+    }
+
+    /**
+     * A view over an Order Delete (4.4.4) message.
+     */
+    public static class OrderDeleteView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ORDER_DELETE;
+        }
+
+        public long orderReferenceNumber() {
+            return buffer.getLong(offset + 11);
+        }
+    }
+
+    /**
+     * A view over an Order Replace (4.4.5) message.
+     */
+    public static class OrderReplaceView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_ORDER_REPLACE;
+        }
+
+        public long originalOrderReferenceNumber() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public long newOrderReferenceNumber() {
+            return buffer.getLong(offset + 19);
+        }
+
+        public long shares() {
+            return getUnsignedInt(buffer, offset + 27);
+        }
+
+        public long price() {
+            return getUnsignedInt(buffer, offset + 31);
+        }
+    }
+
+    /**
+     * A view over a Trade (4.5.1) message.
+     */
+    public static class TradeView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_TRADE;
+        }
+
+        public long orderReferenceNumber() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public byte buySellIndicator() {
+            return buffer.get(offset + 19);
+        }
+
+        public long shares() {
+            return getUnsignedInt(buffer, offset + 20);
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 24);
+        }
+
+        public long price() {
+            return getUnsignedInt(buffer, offset + 32);
+        }
+
+        public long matchNumber() {
+            return buffer.getLong(offset + 36);
+        }
+    }
+
+    /**
+     * A view over a Cross Trade (4.5.2) message.
+     */
+    public static class CrossTradeView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_CROSS_TRADE;
+        }
+
+        public long shares() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 19);
+        }
+
+        public long crossPrice() {
+            return getUnsignedInt(buffer, offset + 27);
+        }
+
+        public long matchNumber() {
+            return buffer.getLong(offset + 31);
+        }
+
+        public byte crossType() {
+            return buffer.get(offset + 39);
+        }
+    }
+
+    /**
+     * A view over a Broken Trade (4.5.3) message.
+     */
+    public static class BrokenTradeView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_BROKEN_TRADE;
+        }
+
+        public long matchNumber() {
+            return buffer.getLong(offset + 11);
+        }
+    }
+
+    /**
+     * A view over a NOII (4.6) message.
+     */
+    public static class NOIIView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_NOII;
+        }
+
+        public long pairedShares() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public long imbalanceShares() {
+            return buffer.getLong(offset + 19);
+        }
+
+        public byte imbalanceDirection() {
+            return buffer.get(offset + 27);
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 28);
+        }
+
+        public long farPrice() {
+            return getUnsignedInt(buffer, offset + 36);
+        }
+
+        public long nearPrice() {
+            return getUnsignedInt(buffer, offset + 40);
+        }
+
+        public long currentReferencePrice() {
+            return getUnsignedInt(buffer, offset + 44);
+        }
+
+        public byte crossType() {
+            return buffer.get(offset + 48);
+        }
+
+        public byte priceVariationIndicator() {
+            return buffer.get(offset + 49);
+        }
+    }
+
+    /**
+     * A view over an RPII (4.7) message.
+     */
+    public static class RPIIView extends View {
+
+        @Override
+        public int length() {
+            return MESSAGE_LENGTH_RPII;
+        }
+
+        public long stock() {
+            return buffer.getLong(offset + 11);
+        }
+
+        public byte interestFlag() {
+            return buffer.get(offset + 19);
+        }
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A table of the Stock Locates of instruments and of the subscriptions to
+ * them.
+ *
+ * <p>The table learns the Stock Locate of each instrument from raw Stock
+ * Directory messages. Each subscription keeps its subscribed instruments
+ * and a bit set of their Stock Locates, which the table keeps up to date as
+ * Stock Locates are assigned and reassigned.</p>
+ */
+final class LocateTable {
+
+    private static final int STOCK_LOCATES = 65536;
+
+    private static final int STOCK_OFFSET = 11;
+
+    private static final int STOCK_LENGTH = 8;
+
+    private final LongIntHashMap index;
+
+    private final long[] stocks;
+
+    private final List<Subscription> subscriptions;
+
+    /**
+     * Create a table.
+     */
+    LocateTable() {
+        this.index = new LongIntHashMap(STOCK_LOCATES);
+
+        this.stocks = new long[STOCK_LOCATES];
+
+        this.subscriptions = new ArrayList<>();
+    }
+
+    /**
+     * Add a subscription.
+     *
+     * @param subscription a subscription
+     */
+    void add(Subscription subscription) {
+        subscriptions.add(subscription);
+    }
+
+    /**
+     * Remove a subscription.
+     *
+     * @param subscription a subscription
+     */
+    void remove(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * Subscribe to an instrument.
+     *
+     * @param subscription a subscription
+     * @param stock the Stock field value
+     * @throws IllegalStateException if the number of subscribed instruments
+     *   exceeds the capacity of the subscription
+     */
+    void subscribe(Subscription subscription, long stock) {
+        subscription.stocks.put(stock, 0);
+
+        int stockLocate = index.get(stock);
+        if (stockLocate != LongIntHashMap.MISSING)
+            subscription.set(stockLocate, true);
+    }
+
+    /**
+     * Unsubscribe from an instrument.
+     *
+     * @param subscription a subscription
+     * @param stock the Stock field value
+     */
+    void unsubscribe(Subscription subscription, long stock) {
+        subscription.stocks.remove(stock);
+
+        int stockLocate = index.get(stock);
+        if (stockLocate != LongIntHashMap.MISSING)
+            subscription.set(stockLocate, false);
+    }
+
+    /**
+     * Learn the Stock Locate of an instrument if a raw message is a Stock
+     * Directory message. The buffer is positioned at the first byte of the
+     * message and limited to the last byte of the message. Its position is
+     * not changed.
+     *
+     * @param buffer a buffer
+     */
+    void learn(ByteBuffer buffer) {
+        int position = buffer.position();
+
+        if (buffer.remaining() < STOCK_OFFSET + STOCK_LENGTH ||
+                buffer.get(position) != MESSAGE_TYPE_STOCK_DIRECTORY)
+            return;
+
+        learn(buffer.getShort(position + 1) & 0xffff, buffer.getLong(position + STOCK_OFFSET));
+    }
+
+    private void learn(int stockLocate, long stock) {
+        long previousStock = stocks[stockLocate];
+        if (previousStock != stock && index.get(previousStock) == stockLocate)
+            index.remove(previousStock);
+
+        int previousLocate = index.put(stock, stockLocate);
+
+        stocks[stockLocate] = stock;
+
+        for (int i = 0; i < subscriptions.size(); i++) {
+            Subscription subscription = subscriptions.get(i);
+
+            if (previousLocate != LongIntHashMap.MISSING && previousLocate != stockLocate)
+                subscription.set(previousLocate, false);
+
+            subscription.set(stockLocate, subscription.stocks.get(stock) != LongIntHashMap.MISSING);
+        }
+    }
+
+    /**
+     * A subscription to instruments.
+     */
+    static final class Subscription {
+
+        private final LongIntHashMap stocks;
+
+        private final long[] subscribed;
+
+        /**
+         * Create a subscription.
+         *
+         * @param capacity the maximum number of subscribed instruments
+         */
+        Subscription(int capacity) {
+            this.stocks = new LongIntHashMap(capacity);
+
+            this.subscribed = new long[STOCK_LOCATES / Long.SIZE];
+        }
+
+        /**
+         * Check if a Stock Locate belongs to a subscribed instrument. Stock
+         * Locate zero always belongs to the subscription.
+         *
+         * @param stockLocate the Stock Locate
+         * @return true if the Stock Locate belongs to a subscribed
+         *   instrument, otherwise false
+         */
+        boolean contains(int stockLocate) {
+            return stockLocate == 0 || (subscribed[stockLocate >>> 6] & 1L << stockLocate) != 0;
+        }
+
+        private void set(int stockLocate, boolean value) {
+            if (stockLocate == 0)
+                return;
+
+            if (value)
+                subscribed[stockLocate >>> 6] |= 1L << stockLocate;
+            else
+                subscribed[stockLocate >>> 6] &= ~(1L << stockLocate);
+        }
+
+    }
+
+}
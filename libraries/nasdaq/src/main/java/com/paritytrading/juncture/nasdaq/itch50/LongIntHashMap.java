@@ -0,0 +1,192 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-capacity, open-addressing hash map from {@code long} keys to
+ * non-negative {@code int} values.
+ *
+ * <p>The map uses linear probing and backward shift deletion. Its table is
+ * allocated up front and kept at most half full, so that operations never
+ * allocate.</p>
+ */
+final class LongIntHashMap {
+
+    /**
+     * The value that indicates a missing key.
+     */
+    static final int MISSING = -1;
+
+    private final long[] keys;
+    private final int[]  values;
+
+    private final int mask;
+
+    private final int capacity;
+
+    private int size;
+
+    /**
+     * Create a map.
+     *
+     * @param capacity the maximum number of entries
+     */
+    LongIntHashMap(int capacity) {
+        int length = Integer.highestOneBit(Math.max(capacity, 1)) << 2;
+
+        this.keys   = new long[length];
+        this.values = new int[length];
+
+        this.mask     = length - 1;
+        this.capacity = capacity;
+
+        Arrays.fill(this.values, MISSING);
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the value for a key.
+     *
+     * @param key a key
+     * @return the value or {@link #MISSING} if the key is not present
+     */
+    int get(long key) {
+        int index = index(key);
+
+        while (true) {
+            int value = values[index];
+            if (value == MISSING || keys[index] == key)
+                return value;
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Put a value for a key.
+     *
+     * @param key a key
+     * @param value a non-negative value
+     * @return the previous value or {@link #MISSING} if the key was not
+     *   present
+     * @throws IllegalStateException if the map is full
+     */
+    int put(long key, int value) {
+        int index = index(key);
+
+        while (true) {
+            int previous = values[index];
+            if (previous == MISSING)
+                break;
+
+            if (keys[index] == key) {
+                values[index] = value;
+
+                return previous;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        if (size == capacity)
+            throw new IllegalStateException("Capacity exceeded: " + capacity);
+
+        keys[index]   = key;
+        values[index] = value;
+
+        size++;
+
+        return MISSING;
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key a key
+     * @return the value or {@link #MISSING} if the key was not present
+     */
+    int remove(long key) {
+        int index = index(key);
+
+        while (true) {
+            int value = values[index];
+            if (value == MISSING)
+                return MISSING;
+
+            if (keys[index] == key) {
+                shift(index);
+
+                size--;
+
+                return value;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Remove all entries.
+     */
+    void clear() {
+        Arrays.fill(values, MISSING);
+
+        size = 0;
+    }
+
+    private void shift(int hole) {
+        int index = hole;
+
+        while (true) {
+            index = (index + 1) & mask;
+
+            if (values[index] == MISSING)
+                break;
+
+            int home = index(keys[index]);
+
+            /*
+             * Move the entry into the hole unless its home slot lies
+             * cyclically between the hole and the entry.
+             */
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole]   = keys[index];
+                values[hole] = values[index];
+
+                hole = index;
+            }
+        }
+
+        values[hole] = MISSING;
+    }
+
+    private int index(long key) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+
+        return (int)(hash ^ (hash >>> 32)) & mask;
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reader for NASDAQ TotalView-ITCH 5.0 files that uses memory-mapped I/O.
+ *
+ * <p>A file consists of messages, each preceded by a two-byte length field.
+ * The reader maps the file in windows and passes each message to the
+ * message listener directly from the mapped window, without copying. The
+ * buffer passed to the message listener is positioned at the first byte of
+ * the message and limited to the last byte of the message.</p>
+ *
+ * <p>Each window starts at a message boundary. A message that crosses the
+ * end of a window is read from the next window.</p>
+ */
+public class MappedITCH50FileReader implements Closeable {
+
+    /**
+     * The default window size.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    /**
+     * The minimum window size, equal to the maximum length of a message
+     * including the length field.
+     */
+    public static final int MIN_WINDOW_SIZE = 2 + 65535;
+
+    private final FileChannel channel;
+
+    private final MessageListener listener;
+
+    private final int windowSize;
+
+    private final long size;
+
+    private long position;
+
+    /**
+     * Create a reader.
+     *
+     * @param channel the input channel
+     * @param listener the message listener
+     * @throws IOException if an I/O error occurs
+     */
+    public MappedITCH50FileReader(FileChannel channel, MessageListener listener) throws IOException {
+        this(channel, listener, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Create a reader.
+     *
+     * @param channel the input channel
+     * @param listener the message listener
+     * @param windowSize the window size
+     * @throws IllegalArgumentException if the window size is less than
+     *   {@link #MIN_WINDOW_SIZE}
+     * @throws IOException if an I/O error occurs
+     */
+    public MappedITCH50FileReader(FileChannel channel, MessageListener listener,
+            int windowSize) throws IOException {
+        if (windowSize < MIN_WINDOW_SIZE)
+            throw new IllegalArgumentException("Window size too small: " + windowSize);
+
+        this.channel    = channel;
+        this.listener   = listener;
+        this.windowSize = windowSize;
+
+        this.size     = channel.size();
+        this.position = channel.position();
+    }
+
+    /**
+     * Open a reader.
+     *
+     * @param file the input file
+     * @param listener the message listener
+     * @return a reader
+     * @throws IOException if an I/O error occurs
+     */
+    public static MappedITCH50FileReader open(File file, MessageListener listener) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            return new MappedITCH50FileReader(channel, listener);
+        } catch (IOException e) {
+            channel.close();
+
+            throw e;
+        }
+    }
+
+    /**
+     * Get the file position of the next message.
+     *
+     * @return the file position of the next message
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Read messages from the next window.
+     *
+     * @return the number of messages read or -1 if the end of the file has
+     *   been reached
+     * @throws ITCH50Exception if the file ends in the middle of a message
+     * @throws IOException if an I/O error occurs
+     */
+    public int read() throws IOException {
+        if (position >= size)
+            return -1;
+
+        int length = (int)Math.min(windowSize, size - position);
+
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+        int offset   = 0;
+        int messages = 0;
+
+        while (offset + 2 <= length) {
+            int messageLength = window.getShort(offset) & 0xffff;
+
+            int next = offset + 2 + messageLength;
+            if (next > length)
+                break;
+
+            window.limit(next);
+            window.position(offset + 2);
+
+            listener.message(window);
+
+            window.limit(length);
+
+            offset = next;
+
+            messages++;
+        }
+
+        position += offset;
+
+        if (messages == 0)
+            throw new ITCH50Exception("Unexpected end of file");
+
+        return messages;
+    }
+
+    /**
+     * Read all messages until the end of the file.
+     *
+     * @return the number of messages read
+     * @throws ITCH50Exception if the file ends in the middle of a message
+     * @throws IOException if an I/O error occurs
+     */
+    public long readAll() throws IOException {
+        long messages = 0;
+
+        while (true) {
+            int count = read();
+            if (count < 0)
+                break;
+
+            messages += count;
+        }
+
+        return messages;
+    }
+
+    /**
+     * Close the underlying channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
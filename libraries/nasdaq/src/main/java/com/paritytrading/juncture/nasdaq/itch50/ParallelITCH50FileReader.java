@@ -0,0 +1,376 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A reader for NASDAQ TotalView-ITCH 5.0 files that decodes messages in
+ * parallel, sharded by Stock Locate.
+ *
+ * <p>A file consists of messages, each preceded by a two-byte length field.
+ * The reader processes the file in batches of chunks in three steps:</p>
+ *
+ * <ol>
+ *   <li>One pass over the length fields splits the batch into chunks on
+ *     message boundaries.</li>
+ *   <li>Each chunk is indexed in parallel: the offsets of its messages are
+ *     assigned to shards by Stock Locate.</li>
+ *   <li>Each shard is decoded in parallel with its own parser. The messages
+ *     of a shard are passed to the listener of the shard in file
+ *     order.</li>
+ * </ol>
+ *
+ * <p>A message with Stock Locate {@code stockLocate} belongs to shard
+ * {@code stockLocate % shards}. Messages with Stock Locate zero, such as
+ * System Event, MWCB Decline Level and MWCB Status messages, are passed to
+ * all shards.</p>
+ *
+ * <p>A listener is only invoked by one thread at a time, but not always by
+ * the same thread.</p>
+ */
+public class ParallelITCH50FileReader implements Closeable {
+
+    /**
+     * The default chunk size.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private static final int MIN_CHUNK_SIZE = 2 + 65535;
+
+    private final FileChannel channel;
+
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+
+    private final long size;
+
+    private final Chunk[] chunks;
+
+    private final Shard[] shards;
+
+    private long position;
+
+    /**
+     * Create a reader.
+     *
+     * @param channel the input channel
+     * @param listeners the message listeners, one for each shard
+     * @param pool the thread pool
+     * @throws IOException if an I/O error occurs
+     */
+    public ParallelITCH50FileReader(FileChannel channel, ITCH50Listener[] listeners,
+            ForkJoinPool pool) throws IOException {
+        this(channel, listeners, pool, DEFAULT_CHUNK_SIZE, pool.getParallelism());
+    }
+
+    /**
+     * Create a reader.
+     *
+     * @param channel the input channel
+     * @param listeners the message listeners, one for each shard
+     * @param pool the thread pool
+     * @param chunkSize the chunk size
+     * @param chunks the number of chunks in a batch
+     * @throws IllegalArgumentException if there are no listeners, if the
+     *   chunk size is less than the maximum length of a message including
+     *   the length field or if the number of chunks is not positive
+     * @throws IOException if an I/O error occurs
+     */
+    public ParallelITCH50FileReader(FileChannel channel, ITCH50Listener[] listeners,
+            ForkJoinPool pool, int chunkSize, int chunks) throws IOException {
+        if (listeners.length == 0)
+            throw new IllegalArgumentException("No listeners");
+        if (chunkSize < MIN_CHUNK_SIZE)
+            throw new IllegalArgumentException("Chunk size too small: " + chunkSize);
+        if (chunks < 1)
+            throw new IllegalArgumentException("Too few chunks: " + chunks);
+
+        this.channel   = channel;
+        this.pool      = pool;
+        this.chunkSize = chunkSize;
+
+        this.size     = channel.size();
+        this.position = channel.position();
+
+        this.chunks = new Chunk[chunks];
+        for (int i = 0; i < chunks; i++)
+            this.chunks[i] = new Chunk(listeners.length);
+
+        this.shards = new Shard[listeners.length];
+        for (int i = 0; i < listeners.length; i++)
+            this.shards[i] = new Shard(i, listeners[i]);
+    }
+
+    /**
+     * Read messages from the next batch of chunks.
+     *
+     * @return the number of messages read or -1 if the end of the file has
+     *   been reached
+     * @throws ITCH50Exception if the file ends in the middle of a message
+     * @throws IOException if an I/O error occurs
+     */
+    public long read() throws IOException {
+        if (position >= size)
+            return -1;
+
+        int count = split();
+
+        List<ForkJoinTask<?>> indexTasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            indexTasks.add(new IndexTask(chunks[i]));
+
+        execute(indexTasks);
+
+        List<ForkJoinTask<?>> decodeTasks = new ArrayList<>(shards.length);
+        for (Shard shard : shards)
+            decodeTasks.add(new DecodeTask(shard, count));
+
+        execute(decodeTasks);
+
+        long messages = 0;
+
+        for (int i = 0; i < count; i++)
+            messages += chunks[i].messages;
+
+        for (int i = 0; i < count; i++)
+            chunks[i].buffer = null;
+
+        return messages;
+    }
+
+    /**
+     * Read all messages until the end of the file.
+     *
+     * @return the number of messages read
+     * @throws ITCH50Exception if the file ends in the middle of a message
+     * @throws IOException if an I/O error occurs
+     */
+    public long readAll() throws IOException {
+        long messages = 0;
+
+        while (true) {
+            long count = read();
+            if (count < 0)
+                break;
+
+            messages += count;
+        }
+
+        return messages;
+    }
+
+    /**
+     * Close the underlying channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int split() throws IOException {
+        int count = 0;
+
+        while (count < chunks.length && position < size) {
+            int length = (int)Math.min(chunkSize, size - position);
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            int offset = 0;
+
+            while (offset + 2 <= length) {
+                int next = offset + 2 + (buffer.getShort(offset) & 0xffff);
+                if (next > length)
+                    break;
+
+                offset = next;
+            }
+
+            if (offset == 0)
+                throw new ITCH50Exception("Unexpected end of file");
+
+            buffer.limit(offset);
+
+            chunks[count++].buffer = buffer;
+
+            position += offset;
+        }
+
+        return count;
+    }
+
+    private void execute(List<ForkJoinTask<?>> tasks) throws IOException {
+        try {
+            pool.invoke(new RecursiveAction() {
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class Chunk {
+
+        MappedByteBuffer buffer;
+
+        final int[][] offsets;
+        final int[]   counts;
+
+        int messages;
+
+        Chunk(int shards) {
+            this.offsets = new int[shards][1024];
+            this.counts  = new int[shards];
+        }
+
+        void add(int shard, int offset) {
+            int[] shardOffsets = offsets[shard];
+
+            int count = counts[shard];
+            if (count == shardOffsets.length) {
+                shardOffsets   = Arrays.copyOf(shardOffsets, 2 * count);
+                offsets[shard] = shardOffsets;
+            }
+
+            shardOffsets[count] = offset;
+
+            counts[shard] = count + 1;
+        }
+
+    }
+
+    private static class IndexTask extends RecursiveAction {
+
+        private final Chunk chunk;
+
+        IndexTask(Chunk chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            ByteBuffer buffer = chunk.buffer;
+
+            int shards = chunk.counts.length;
+
+            Arrays.fill(chunk.counts, 0);
+
+            int limit    = buffer.limit();
+            int offset   = 0;
+            int messages = 0;
+
+            while (offset < limit) {
+                int length = buffer.getShort(offset) & 0xffff;
+
+                /*
+                 * The Stock Locate field follows the length and Message Type
+                 * fields. Messages shorter than that are passed to all
+                 * shards, which lets the parser report them.
+                 */
+                int stockLocate = length >= 3 ? buffer.getShort(offset + 3) & 0xffff : 0;
+
+                if (stockLocate == 0) {
+                    for (int shard = 0; shard < shards; shard++)
+                        chunk.add(shard, offset);
+                } else {
+                    chunk.add(stockLocate % shards, offset);
+                }
+
+                offset += 2 + length;
+
+                messages++;
+            }
+
+            chunk.messages = messages;
+        }
+
+    }
+
+    private static class Shard {
+
+        final int index;
+
+        final ITCH50Parser parser;
+
+        Shard(int index, ITCH50Listener listener) {
+            this.index  = index;
+            this.parser = new ITCH50Parser(listener);
+        }
+
+    }
+
+    private class DecodeTask extends RecursiveAction {
+
+        private final Shard shard;
+
+        private final int count;
+
+        DecodeTask(Shard shard, int count) {
+            this.shard = shard;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (int i = 0; i < count; i++)
+                    decode(chunks[i]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void decode(Chunk chunk) throws IOException {
+            ByteBuffer buffer = chunk.buffer.duplicate();
+
+            int   limit   = buffer.limit();
+            int[] offsets = chunk.offsets[shard.index];
+            int   count   = chunk.counts[shard.index];
+
+            for (int i = 0; i < count; i++) {
+                int offset = offsets[i];
+
+                buffer.limit(offset + 2 + (buffer.getShort(offset) & 0xffff));
+                buffer.position(offset + 2);
+
+                shard.parser.message(buffer);
+
+                buffer.limit(limit);
+            }
+        }
+
+    }
+
+}
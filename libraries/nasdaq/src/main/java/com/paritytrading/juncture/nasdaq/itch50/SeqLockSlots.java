@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A fixed number of slots, each protected by a sequence lock.
+ *
+ * <p>A slot holds a version followed by {@link #FIELDS} fields. The version
+ * is odd while the single writer updates the slot and is incremented by two
+ * on each update. A reader reads the fields between {@link #acquire(int)}
+ * and {@link #validate(int, long)} and retries if the slot has changed in
+ * between.</p>
+ */
+final class SeqLockSlots {
+
+    /**
+     * The number of fields in a slot.
+     */
+    static final int FIELDS = 7;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /*
+     * A slot is the size of a cache line to limit false sharing between
+     * instruments. As the array is not aligned to a cache line, a slot may
+     * still span two cache lines.
+     */
+    private static final int SLOT_SIZE = FIELDS + 1;
+
+    private static final int VERSION = 0;
+
+    private final long[] slots;
+
+    /**
+     * Create slots.
+     *
+     * @param slots the number of slots
+     */
+    SeqLockSlots(int slots) {
+        this.slots = new long[slots * SLOT_SIZE];
+    }
+
+    /**
+     * Get the version of a slot.
+     *
+     * @param slot the slot
+     * @return the version of the slot
+     */
+    long version(int slot) {
+        return (long)SLOTS.getAcquire(slots, slot * SLOT_SIZE + VERSION);
+    }
+
+    /**
+     * Get a field. This method must only be invoked by the writer.
+     *
+     * @param slot the slot
+     * @param field the field
+     * @return the value of the field
+     */
+    long get(int slot, int field) {
+        return slots[slot * SLOT_SIZE + 1 + field];
+    }
+
+    /**
+     * Begin an update of a slot.
+     *
+     * @param slot the slot
+     * @return the version of the slot before the update
+     */
+    long begin(int slot) {
+        int offset = slot * SLOT_SIZE;
+
+        long version = slots[offset + VERSION];
+
+        SLOTS.setOpaque(slots, offset + VERSION, version + 1);
+
+        VarHandle.storeStoreFence();
+
+        return version;
+    }
+
+    /**
+     * Set a field during an update.
+     *
+     * @param slot the slot
+     * @param field the field
+     * @param value the value
+     */
+    void set(int slot, int field, long value) {
+        SLOTS.setOpaque(slots, slot * SLOT_SIZE + 1 + field, value);
+    }
+
+    /**
+     * End an update of a slot.
+     *
+     * @param slot the slot
+     * @param version the version returned by {@link #begin(int)}
+     */
+    void end(int slot, long version) {
+        SLOTS.setRelease(slots, slot * SLOT_SIZE + VERSION, version + 2);
+    }
+
+    /**
+     * Begin a read of a slot. Wait until no update is in progress.
+     *
+     * @param slot the slot
+     * @return the version of the slot
+     */
+    long acquire(int slot) {
+        while (true) {
+            long version = (long)SLOTS.getAcquire(slots, slot * SLOT_SIZE + VERSION);
+            if ((version & 1) == 0)
+                return version;
+
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Read a field during a read.
+     *
+     * @param slot the slot
+     * @param field the field
+     * @return the value of the field
+     */
+    long read(int slot, int field) {
+        return (long)SLOTS.getOpaque(slots, slot * SLOT_SIZE + 1 + field);
+    }
+
+    /**
+     * End a read of a slot.
+     *
+     * @param slot the slot
+     * @param version the version returned by {@link #acquire(int)}
+     * @return true if the fields read are consistent, otherwise false
+     */
+    boolean validate(int slot, long version) {
+        VarHandle.loadLoadFence();
+
+        return (long)SLOTS.getOpaque(slots, slot * SLOT_SIZE + VERSION) == version;
+    }
+
+}
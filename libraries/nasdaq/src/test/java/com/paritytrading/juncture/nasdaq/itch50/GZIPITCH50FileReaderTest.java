@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GZIPITCH50FileReaderTest {
+
+    private static final int BUFFER_SIZE = 128 * 1024;
+
+    private static final int[] MEMBER_MESSAGES = { 100, 5000, 10, 2000, 1, 3000, 500 };
+
+    @TempDir
+    Path directory;
+
+    private ForkJoinPool pool;
+
+    private Path file;
+
+    private int messages;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+
+        file = directory.resolve("test.gz");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        for (int count : MEMBER_MESSAGES) {
+            try (GZIPOutputStream member = new GZIPOutputStream(bytes)) {
+                for (int i = 0; i < count; i++)
+                    member.write(message(messages++));
+            }
+        }
+
+        Files.write(file, bytes.toByteArray());
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void readSequentially() throws IOException {
+        assertEquals(messages, readAll(null));
+    }
+
+    @Test
+    void readInParallel() throws IOException {
+        assertEquals(messages, readAll(pool));
+    }
+
+    @Test
+    void corruptMemberSequentially() throws IOException {
+        corrupt();
+
+        assertThrows(IOException.class, () -> readAll(null, buffer -> { }));
+    }
+
+    @Test
+    void corruptMemberInParallel() throws IOException {
+        corrupt();
+
+        assertThrows(IOException.class, () -> readAll(pool, buffer -> { }));
+    }
+
+    @Test
+    void notInGZIPFormat() throws IOException {
+        Files.write(file, new byte[] { 0, 1, 2, 3 });
+
+        assertThrows(IOException.class, () -> readAll(pool));
+    }
+
+    private long readAll(ForkJoinPool pool) throws IOException {
+        Verifier verifier = new Verifier();
+
+        long count = readAll(pool, verifier);
+
+        assertEquals(count, verifier.next);
+
+        return count;
+    }
+
+    private long readAll(ForkJoinPool pool, MessageListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                GZIPITCH50FileReader reader = new GZIPITCH50FileReader(channel,
+                    listener, pool, BUFFER_SIZE)) {
+            return reader.readAll();
+        }
+    }
+
+    private void corrupt() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+
+        bytes[bytes.length / 2] ^= 0xff;
+
+        Files.write(file, bytes);
+    }
+
+    private static byte[] message(int sequence) {
+        int length = 4 + sequence % 200;
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + length);
+
+        buffer.putShort((short)length);
+        buffer.putInt(sequence);
+
+        while (buffer.hasRemaining())
+            buffer.put((byte)sequence);
+
+        return buffer.array();
+    }
+
+    private static class Verifier implements MessageListener {
+
+        int next;
+
+        @Override
+        public void message(ByteBuffer buffer) {
+            assertEquals(4 + next % 200, buffer.remaining());
+            assertEquals(next, buffer.getInt());
+
+            while (buffer.hasRemaining())
+                assertEquals((byte)next, buffer.get());
+
+            next++;
+        }
+
+    }
+
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ITCH50BarAggregatorTest {
+
+    private static final long INTERVAL = 1000;
+
+    private static final long HORIZON = 2000;
+
+    private static final int EXECUTIONS = 8;
+
+    private ITCH50OrderBook book;
+
+    private List<String> bars;
+
+    private ITCH50BarAggregator aggregator;
+
+    private long matchNumber;
+
+    @BeforeEach
+    void setUp() {
+        book = new ITCH50OrderBook(16, 16);
+
+        bars = new ArrayList<>();
+
+        aggregator = aggregator(INTERVAL, HORIZON, EXECUTIONS);
+    }
+
+    @Test
+    void bar() throws IOException {
+        trade(1, 100, 10, 5);
+        trade(1, 200, 12, 5);
+        trade(2, 300, 50, 1);
+        trade(1, 400, 9, 10);
+        trade(1, 500, 11, 5);
+
+        aggregator.flush();
+
+        assertEquals(List.of(
+                    "bar 1 0 10 12 9 11 25 255 4",
+                    "bar 2 0 50 50 50 50 1 50 1"),
+                bars);
+    }
+
+    @Test
+    void barPerInterval() throws IOException {
+        trade(1, 100, 10, 1);
+        trade(1, 1100, 20, 1);
+        trade(1, 3100, 30, 1);
+
+        assertEquals(List.of(
+                    "bar 1 0 10 10 10 10 1 10 1",
+                    "bar 1 1000 20 20 20 20 1 20 1"),
+                bars);
+    }
+
+    @Test
+    void executions() throws IOException {
+        addOrder(1, 1, 15);
+        orderExecuted(1, 100, 1, 3);
+
+        OrderExecutedWithPrice orderExecutedWithPrice = new OrderExecutedWithPrice();
+
+        orderExecutedWithPrice.stockLocate          = 1;
+        orderExecutedWithPrice.timestampLow         = 200;
+        orderExecutedWithPrice.orderReferenceNumber = 1;
+        orderExecutedWithPrice.executedShares       = 2;
+        orderExecutedWithPrice.matchNumber          = ++matchNumber;
+        orderExecutedWithPrice.printable            = NO;
+        orderExecutedWithPrice.executionPrice       = 16;
+
+        aggregator.orderExecutedWithPrice(orderExecutedWithPrice);
+
+        CrossTrade crossTrade = new CrossTrade();
+
+        crossTrade.stockLocate  = 1;
+        crossTrade.timestampLow = 300;
+        crossTrade.shares       = 0;
+        crossTrade.crossPrice   = 17;
+        crossTrade.matchNumber  = ++matchNumber;
+
+        aggregator.crossTrade(crossTrade);
+
+        crossTrade.shares      = 4;
+        crossTrade.matchNumber = ++matchNumber;
+
+        aggregator.crossTrade(crossTrade);
+
+        aggregator.flush();
+
+        assertEquals(List.of("bar 1 0 15 17 15 17 7 113 2"), bars);
+    }
+
+    @Test
+    void brokenTradeInOpenInterval() throws IOException {
+        trade(1, 100, 10, 1);
+        long broken = trade(1, 200, 20, 1);
+        trade(1, 300, 15, 1);
+
+        brokenTrade(1, 400, broken);
+
+        aggregator.flush();
+
+        assertEquals(List.of("bar 1 0 10 15 10 15 2 25 2"), bars);
+    }
+
+    @Test
+    void brokenTradeInPassedInterval() throws IOException {
+        long broken = trade(1, 100, 10, 1);
+        trade(1, 200, 20, 1);
+
+        brokenTrade(1, 1100, broken);
+
+        assertEquals(List.of(
+                    "bar 1 0 10 20 10 20 2 30 2",
+                    "correction 1 0 20 20 20 20 1 20 1"),
+                bars);
+    }
+
+    @Test
+    void brokenTradeBeyondHorizon() throws IOException {
+        long broken = trade(1, 100, 10, 1);
+
+        trade(1, 3100, 20, 1);
+
+        assertEquals(1, aggregator.executions());
+
+        brokenTrade(1, 3200, broken);
+
+        assertEquals(List.of("bar 1 0 10 10 10 10 1 10 1"), bars);
+    }
+
+    @Test
+    void brokenTradeInPartlyExpiredHorizon() throws IOException {
+        aggregator = aggregator(60, 90, EXECUTIONS);
+
+        trade(1, 65, 10, 100);
+        long broken = trade(1, 100, 20, 100);
+        trade(1, 130, 30, 100);
+        trade(1, 185, 40, 100);
+
+        brokenTrade(1, 190, broken);
+
+        assertEquals(List.of(
+                    "bar 1 60 10 20 10 20 200 3000 2",
+                    "bar 1 120 30 30 30 30 100 3000 1",
+                    "correction 1 60 10 10 10 10 100 1000 1"),
+                bars);
+    }
+
+    @Test
+    void evictPassedIntervalsWhenFull() throws IOException {
+        for (int i = 0; i < EXECUTIONS; i++)
+            trade(1, 100 + i, 10, 1);
+
+        for (int i = 0; i < EXECUTIONS; i++)
+            trade(1, 1100 + i, 20, 1);
+
+        aggregator.flush();
+
+        assertEquals(EXECUTIONS, aggregator.executions());
+        assertEquals(List.of(
+                    "bar 1 0 10 10 10 10 8 80 8",
+                    "bar 1 1000 20 20 20 20 8 160 8"),
+                bars);
+    }
+
+    @Test
+    void capacityExceeded() throws IOException {
+        for (int i = 0; i < EXECUTIONS; i++)
+            trade(1, 100 + i, 10, 1);
+
+        assertThrows(IllegalStateException.class, () -> trade(1, 200, 10, 1));
+    }
+
+    private ITCH50BarAggregator aggregator(long interval, long horizon, int executions) {
+        return new ITCH50BarAggregator(book, interval, horizon, executions, new ITCH50BarAggregator.Listener() {
+
+            @Override
+            public void bar(ITCH50BarAggregator.Bar bar) {
+                bars.add("bar " + format(bar));
+            }
+
+            @Override
+            public void correction(ITCH50BarAggregator.Bar bar) {
+                bars.add("correction " + format(bar));
+            }
+
+        });
+    }
+
+    private long trade(int stockLocate, long timestamp, long price, long shares) throws IOException {
+        Trade message = new Trade();
+
+        message.stockLocate  = stockLocate;
+        message.timestampLow = timestamp;
+        message.price        = price;
+        message.shares       = shares;
+        message.matchNumber  = ++matchNumber;
+
+        aggregator.trade(message);
+
+        return message.matchNumber;
+    }
+
+    private void addOrder(int stockLocate, long orderReferenceNumber, long price) throws IOException {
+        AddOrder message = new AddOrder();
+
+        message.stockLocate          = stockLocate;
+        message.orderReferenceNumber = orderReferenceNumber;
+        message.buySellIndicator     = BUY;
+        message.shares               = 100;
+        message.price                = price;
+
+        aggregator.addOrder(message);
+        book.addOrder(message);
+    }
+
+    private void orderExecuted(int stockLocate, long timestamp, long orderReferenceNumber,
+            long executedShares) throws IOException {
+        OrderExecuted message = new OrderExecuted();
+
+        message.stockLocate          = stockLocate;
+        message.timestampLow         = timestamp;
+        message.orderReferenceNumber = orderReferenceNumber;
+        message.executedShares       = executedShares;
+        message.matchNumber          = ++matchNumber;
+
+        aggregator.orderExecuted(message);
+        book.orderExecuted(message);
+    }
+
+    private void brokenTrade(int stockLocate, long timestamp, long matchNumber) throws IOException {
+        BrokenTrade message = new BrokenTrade();
+
+        message.stockLocate  = stockLocate;
+        message.timestampLow = timestamp;
+        message.matchNumber  = matchNumber;
+
+        aggregator.brokenTrade(message);
+    }
+
+    private static String format(ITCH50BarAggregator.Bar bar) {
+        return bar.stockLocate + " " + bar.timestamp + " " + bar.open + " " + bar.high + " " +
+            bar.low + " " + bar.close + " " + bar.volume + " " + bar.notional + " " + bar.trades;
+    }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ITCH50IndexTest {
+
+    private static final int STRIDE = 16;
+
+    private static final int FOO = 1;
+    private static final int BAR = 2;
+    private static final int BAZ = 3;
+
+    private static final int ORDERS = 50_000;
+
+    private static final int LONG_MESSAGE_LENGTH = 1000;
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    private List<Long> fooOrders;
+    private List<Long> barOrders;
+
+    private List<Long> positions;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("test.itch");
+
+        fooOrders = new ArrayList<>();
+        barOrders = new ArrayList<>();
+
+        positions = new ArrayList<>();
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 * 1024 * 1024);
+
+        put(buffer, stockDirectory(FOO, "FOO"));
+        put(buffer, stockDirectory(BAR, "BAR"));
+        put(buffer, stockDirectory(BAZ, "BAZ"));
+
+        /*
+         * FOO is actively traded and BAR thinly traded, so that the messages
+         * of BAR are further apart than a block.
+         */
+        for (long orderReferenceNumber = 1; orderReferenceNumber <= ORDERS; orderReferenceNumber++) {
+            int stockLocate = orderReferenceNumber % 10_000 == 0 ? BAR : FOO;
+
+            put(buffer, addOrder(stockLocate, orderReferenceNumber));
+
+            (stockLocate == FOO ? fooOrders : barOrders).add(orderReferenceNumber);
+        }
+
+        /*
+         * A message longer than any known message type must still be read
+         * whole.
+         */
+        buffer.putShort((short)LONG_MESSAGE_LENGTH);
+        buffer.put((byte)'?');
+        buffer.putShort((short)BAZ);
+        buffer.put(new byte[LONG_MESSAGE_LENGTH - 3]);
+
+        buffer.flip();
+
+        try (FileChannel channel = open(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    @Test
+    void read() throws IOException {
+        ITCH50Index index = build();
+
+        assertEquals(Files.size(file), index.size());
+
+        assertIndex(index);
+    }
+
+    @Test
+    void saveAndLoad() throws IOException {
+        File sidecar = directory.resolve("test.itch.index").toFile();
+
+        build().save(sidecar);
+
+        ITCH50Index index = ITCH50Index.load(sidecar);
+
+        assertEquals(Files.size(file), index.size());
+
+        assertIndex(index);
+    }
+
+    @Test
+    void position() throws IOException {
+        ITCH50Index index = build();
+
+        assertEquals(0, index.position(0));
+
+        for (int i = 0; i < positions.size(); i += 1000) {
+            long position = index.position(timestamp(i + 1));
+
+            assertTrue(position <= positions.get(i));
+            assertTrue(position > positions.get(i) - STRIDE * (2 + MESSAGE_LENGTH_ADD_ORDER) * 2);
+        }
+    }
+
+    @Test
+    void loadNotAnIndexFile() throws IOException {
+        File sidecar = directory.resolve("test.itch.index").toFile();
+
+        Files.write(sidecar.toPath(), new byte[64]);
+
+        assertThrows(ITCH50Exception.class, () -> ITCH50Index.load(sidecar));
+    }
+
+    @Test
+    void fileDoesNotMatchIndex() throws IOException {
+        ITCH50Index index = build();
+
+        try (FileChannel channel = open(StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(1), channel.size());
+        }
+
+        try (FileChannel channel = open(StandardOpenOption.READ)) {
+            assertThrows(ITCH50Exception.class, () -> index.read(channel, FOO, buffer -> { }));
+        }
+    }
+
+    private void assertIndex(ITCH50Index index) throws IOException {
+        assertEquals(FOO, index.locate("FOO"));
+        assertEquals(BAR, index.locate("BAR"));
+        assertEquals(ITCH50Directory.NONE, index.locate("QUX"));
+
+        assertEquals(1 + fooOrders.size(), index.messages(FOO));
+        assertEquals(1 + barOrders.size(), index.messages(BAR));
+        assertEquals(2, index.messages(BAZ));
+
+        assertEquals(fooOrders, read(index, FOO));
+        assertEquals(barOrders, read(index, BAR));
+
+        List<Integer> lengths = new ArrayList<>();
+
+        try (FileChannel channel = open(StandardOpenOption.READ)) {
+            index.read(channel, BAZ, buffer -> lengths.add(buffer.remaining()));
+        }
+
+        assertEquals(List.of(MESSAGE_LENGTH_STOCK_DIRECTORY, LONG_MESSAGE_LENGTH), lengths);
+    }
+
+    private List<Long> read(ITCH50Index index, int stockLocate) throws IOException {
+        List<Long> orders = new ArrayList<>();
+
+        ITCH50Parser parser = new ITCH50Parser(new ITCH50ListenerAdapter() {
+
+            @Override
+            public void addOrder(AddOrder message) {
+                orders.add(message.orderReferenceNumber);
+            }
+
+        });
+
+        try (FileChannel channel = open(StandardOpenOption.READ)) {
+            assertEquals(index.messages(stockLocate), index.read(channel, stockLocate, parser));
+        }
+
+        return orders;
+    }
+
+    private ITCH50Index build() throws IOException {
+        try (FileChannel channel = open(StandardOpenOption.READ)) {
+            return ITCH50Index.build(channel, STRIDE);
+        }
+    }
+
+    private FileChannel open(StandardOpenOption... options) throws IOException {
+        return FileChannel.open(file, options);
+    }
+
+    private void put(ByteBuffer buffer, Message message) {
+        positions.add((long)buffer.position());
+
+        int position = buffer.position();
+
+        buffer.position(position + 2);
+
+        message.put(buffer);
+
+        buffer.putShort(position, (short)(buffer.position() - position - 2));
+    }
+
+    private StockDirectory stockDirectory(int stockLocate, String symbol) {
+        StockDirectory message = new StockDirectory();
+
+        message.stockLocate   = stockLocate;
+        message.timestampHigh = 0;
+        message.timestampLow  = timestamp(positions.size());
+        message.stock         = ITCH50Directory.encode(symbol);
+
+        return message;
+    }
+
+    private AddOrder addOrder(int stockLocate, long orderReferenceNumber) {
+        AddOrder message = new AddOrder();
+
+        message.stockLocate          = stockLocate;
+        message.timestampHigh        = 0;
+        message.timestampLow         = timestamp(positions.size());
+        message.orderReferenceNumber = orderReferenceNumber;
+        message.buySellIndicator     = BUY;
+        message.shares               = 100;
+        message.stock                = ITCH50Directory.encode(stockLocate == FOO ? "FOO" : "BAR");
+        message.price                = 10_0000;
+
+        return message;
+    }
+
+    private static long timestamp(int message) {
+        return 1000L * message;
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ITCH50MergerTest {
+
+    private static final int BUFFER_SIZE = 2 + 65535;
+
+    private static final int MESSAGES = 10000;
+
+    private final List<String> messages = new ArrayList<>();
+
+    private ITCH50Merger merger;
+
+    @Test
+    void interleavedTimestamps() throws IOException {
+        long[] first  = new long[MESSAGES];
+        long[] second = new long[MESSAGES];
+        long[] third  = new long[MESSAGES];
+
+        for (int i = 0; i < MESSAGES; i++) {
+            first[i]  = 3 * i;
+            second[i] = 3 * i + 1;
+            third[i]  = 3 * i + 2;
+        }
+
+        assertEquals(3 * MESSAGES, readAll(source(first), source(second), source(third)));
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            expected.add("0 " + (3 * i) + " " + i);
+            expected.add("1 " + (3 * i + 1) + " " + i);
+            expected.add("2 " + (3 * i + 2) + " " + i);
+        }
+
+        assertEquals(expected, messages);
+    }
+
+    @Test
+    void unevenSources() throws IOException {
+        readAll(source(1, 2, 10, 11), source(), source(3, 4, 5, 12));
+
+        assertEquals(List.of("0 1 0", "0 2 1", "2 3 0", "2 4 1", "2 5 2",
+                    "0 10 2", "0 11 3", "2 12 3"), messages);
+    }
+
+    @Test
+    void equalTimestamps() throws IOException {
+        readAll(source(1, 2, 2, 3), source(2, 3), source(1, 3));
+
+        assertEquals(List.of("0 1 0", "2 1 0", "0 2 1", "0 2 2", "1 2 0",
+                    "0 3 3", "1 3 1", "2 3 1"), messages);
+    }
+
+    @Test
+    void cutOffInLength() throws IOException {
+        byte[] second = Arrays.copyOf(source(2, 4), 2 + MESSAGE_LENGTH_ADD_ORDER + 1);
+
+        ITCH50Exception e = assertThrows(ITCH50Exception.class,
+                () -> readAll(source(1, 3, 5), second));
+
+        assertEquals("Unexpected end of file", e.getMessage());
+        assertEquals(List.of("0 1 0", "1 2 0"), messages);
+    }
+
+    @Test
+    void cutOffInMessage() throws IOException {
+        byte[] second = Arrays.copyOf(source(2, 4), 2 * (2 + MESSAGE_LENGTH_ADD_ORDER) - 1);
+
+        ITCH50Exception e = assertThrows(ITCH50Exception.class,
+                () -> readAll(source(1, 3, 5), second));
+
+        assertEquals("Unexpected end of file", e.getMessage());
+        assertEquals(List.of("0 1 0", "1 2 0"), messages);
+    }
+
+    @Test
+    void listenersDoNotMatch() {
+        ReadableByteChannel[] channels = { channel(source(1)), channel(source(2)) };
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ITCH50Merger(channels, new MessageListener[] { new Recorder(0) }));
+    }
+
+    private long readAll(byte[]... sources) throws IOException {
+        ReadableByteChannel[] channels  = new ReadableByteChannel[sources.length];
+        MessageListener[]     listeners = new MessageListener[sources.length];
+
+        for (int i = 0; i < sources.length; i++) {
+            channels[i]  = channel(sources[i]);
+            listeners[i] = new Recorder(i);
+        }
+
+        merger = new ITCH50Merger(channels, listeners, BUFFER_SIZE);
+
+        try {
+            return merger.readAll();
+        } finally {
+            merger.close();
+        }
+    }
+
+    private static ReadableByteChannel channel(byte[] source) {
+        return Channels.newChannel(new ByteArrayInputStream(source));
+    }
+
+    private static byte[] source(long... timestamps) {
+        ByteBuffer buffer = ByteBuffer.allocate(timestamps.length * (2 + MESSAGE_LENGTH_ADD_ORDER));
+
+        AddOrder message = new AddOrder();
+
+        message.stockLocate      = 1;
+        message.buySellIndicator = BUY;
+        message.shares           = 100;
+        message.price            = 10_0000;
+
+        for (int i = 0; i < timestamps.length; i++) {
+            message.timestampHigh        = (int)(timestamps[i] >>> 32);
+            message.timestampLow         = timestamps[i] & 0xffffffffL;
+            message.orderReferenceNumber = i;
+
+            buffer.putShort((short)MESSAGE_LENGTH_ADD_ORDER);
+
+            message.put(buffer);
+        }
+
+        return buffer.array();
+    }
+
+    private class Recorder implements MessageListener {
+
+        private final int source;
+
+        Recorder(int source) {
+            this.source = source;
+        }
+
+        @Override
+        public void message(ByteBuffer buffer) {
+            assertEquals(source, merger.source());
+
+            int position = buffer.position();
+
+            long timestamp            = ITCH50Header.timestamp(buffer, position);
+            long orderReferenceNumber = buffer.getLong(position + ITCH50Header.LENGTH);
+
+            messages.add(source + " " + timestamp + " " + orderReferenceNumber);
+        }
+
+    }
+
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ITCH50OrderBookTest {
+
+    private static final int FOO = 1;
+    private static final int BAR = 2;
+
+    private static final int ORDERS = 256;
+
+    private static final int LEVELS = 64;
+
+    private ITCH50OrderBook book;
+
+    @BeforeEach
+    void setUp() {
+        book = new ITCH50OrderBook(ORDERS, LEVELS);
+    }
+
+    @Test
+    void priceLevels() {
+        book.add(FOO, 1, BUY, 100, 10);
+        book.add(FOO, 2, BUY, 102, 20);
+        book.add(FOO, 3, BUY, 101, 30);
+        book.add(FOO, 4, SELL, 104, 40);
+        book.add(FOO, 5, SELL, 103, 50);
+        book.add(BAR, 6, BUY, 200, 60);
+
+        assertEquals(List.of("102 20 1", "101 30 1", "100 10 1"), levels(FOO, BUY));
+        assertEquals(List.of("103 50 1", "104 40 1"), levels(FOO, SELL));
+        assertEquals(List.of("200 60 1"), levels(BAR, BUY));
+        assertEquals(List.of(), levels(BAR, SELL));
+
+        assertEquals(6, book.orders());
+    }
+
+    @Test
+    void timePriority() {
+        book.add(FOO, 1, BUY, 100, 10);
+        book.add(FOO, 2, BUY, 100, 20);
+        book.add(FOO, 3, BUY, 100, 30);
+
+        assertEquals(List.of("100 60 3"), levels(FOO, BUY));
+        assertEquals(List.of(1L, 2L, 3L), orders(book.bestLevel(FOO, BUY)));
+
+        book.delete(book.order(2));
+
+        assertEquals(List.of(1L, 3L), orders(book.bestLevel(FOO, BUY)));
+
+        book.add(FOO, 4, BUY, 100, 40);
+
+        assertEquals(List.of(1L, 3L, 4L), orders(book.bestLevel(FOO, BUY)));
+    }
+
+    @Test
+    void order() {
+        int order = book.add(FOO, 1, SELL, 100, 10);
+
+        assertEquals(order, book.order(1));
+        assertEquals(1, book.orderReferenceNumber(order));
+        assertEquals(FOO, book.orderStockLocate(order));
+        assertEquals(SELL, book.orderSide(order));
+        assertEquals(100, book.orderPrice(order));
+        assertEquals(10, book.orderShares(order));
+        assertEquals(book.bestLevel(FOO, SELL), book.orderLevel(order));
+
+        assertEquals(ITCH50OrderBook.NONE, book.order(2));
+    }
+
+    @Test
+    void messages() {
+        AddOrder addOrder = new AddOrder();
+
+        addOrder.stockLocate          = FOO;
+        addOrder.orderReferenceNumber = 1;
+        addOrder.buySellIndicator     = BUY;
+        addOrder.shares               = 100;
+        addOrder.price                = 10;
+
+        book.addOrder(addOrder);
+
+        OrderExecuted orderExecuted = new OrderExecuted();
+
+        orderExecuted.orderReferenceNumber = 1;
+        orderExecuted.executedShares       = 30;
+
+        book.orderExecuted(orderExecuted);
+
+        OrderCancel orderCancel = new OrderCancel();
+
+        orderCancel.orderReferenceNumber = 1;
+        orderCancel.canceledShares       = 20;
+
+        book.orderCancel(orderCancel);
+
+        assertEquals(List.of("10 50 1"), levels(FOO, BUY));
+
+        OrderReplace orderReplace = new OrderReplace();
+
+        orderReplace.originalOrderReferenceNumber = 1;
+        orderReplace.newOrderReferenceNumber      = 2;
+        orderReplace.shares                       = 70;
+        orderReplace.price                        = 11;
+
+        book.orderReplace(orderReplace);
+
+        assertEquals(ITCH50OrderBook.NONE, book.order(1));
+        assertEquals(List.of("11 70 1"), levels(FOO, BUY));
+
+        OrderExecutedWithPrice orderExecutedWithPrice = new OrderExecutedWithPrice();
+
+        orderExecutedWithPrice.orderReferenceNumber = 2;
+        orderExecutedWithPrice.executedShares       = 70;
+
+        book.orderExecutedWithPrice(orderExecutedWithPrice);
+
+        assertEquals(0, book.orders());
+        assertEquals(List.of(), levels(FOO, BUY));
+    }
+
+    @Test
+    void unknownOrders() {
+        book.add(FOO, 1, BUY, 100, 10);
+
+        OrderDelete orderDelete = new OrderDelete();
+
+        orderDelete.orderReferenceNumber = 2;
+
+        book.orderDelete(orderDelete);
+
+        OrderReplace orderReplace = new OrderReplace();
+
+        orderReplace.originalOrderReferenceNumber = 2;
+        orderReplace.newOrderReferenceNumber      = 3;
+
+        book.orderReplace(orderReplace);
+
+        assertEquals(1, book.orders());
+        assertEquals(ITCH50OrderBook.NONE, book.order(3));
+    }
+
+    @Test
+    void duplicateOrderReferenceNumber() {
+        book.add(FOO, 1, BUY, 100, 10);
+        book.add(FOO, 1, BUY, 101, 20);
+
+        assertEquals(1, book.orders());
+        assertEquals(List.of("101 20 1"), levels(FOO, BUY));
+    }
+
+    @Test
+    void orderCapacityExceeded() {
+        ITCH50OrderBook book = new ITCH50OrderBook(2, LEVELS);
+
+        book.add(FOO, 1, BUY, 100, 10);
+        book.add(FOO, 2, BUY, 100, 10);
+
+        assertThrows(IllegalStateException.class, () -> book.add(FOO, 3, BUY, 100, 10));
+
+        book.delete(book.order(1));
+
+        book.add(FOO, 3, BUY, 100, 10);
+
+        assertEquals(2, book.orders());
+    }
+
+    @Test
+    void levelCapacityExceeded() {
+        ITCH50OrderBook book = new ITCH50OrderBook(ORDERS, 2);
+
+        book.add(FOO, 1, BUY, 100, 10);
+        book.add(FOO, 2, SELL, 101, 10);
+
+        assertThrows(IllegalStateException.class, () -> book.add(FOO, 3, BUY, 99, 10));
+
+        assertEquals(2, book.orders());
+        assertEquals(ITCH50OrderBook.NONE, book.order(3));
+
+        book.add(FOO, 3, BUY, 100, 10);
+
+        assertEquals(3, book.orders());
+    }
+
+    @Test
+    void clear() {
+        for (int i = 0; i < ORDERS; i++)
+            book.add(FOO, i, i % 2 == 0 ? BUY : SELL, i % (LEVELS / 2), 10);
+
+        book.clear();
+
+        assertEquals(0, book.orders());
+        assertEquals(ITCH50OrderBook.NONE, book.bestLevel(FOO, BUY));
+        assertEquals(ITCH50OrderBook.NONE, book.bestLevel(FOO, SELL));
+
+        for (int i = 0; i < ORDERS; i++)
+            book.add(BAR, i, BUY, i % LEVELS, 10);
+
+        assertEquals(ORDERS, book.orders());
+    }
+
+    @Test
+    void randomOperations() {
+        Random random = new Random(1);
+
+        Map<Long, Order> model = new LinkedHashMap<>();
+
+        long nextOrderReferenceNumber = 1;
+
+        for (int i = 0; i < 100_000; i++) {
+            int operation = random.nextInt(4);
+
+            if (model.size() < ORDERS / 2 && operation == 0 || model.isEmpty()) {
+                Order order = new Order(1 + random.nextInt(3), random.nextBoolean() ? BUY : SELL,
+                        1 + random.nextInt(10), 1 + random.nextInt(100));
+
+                long orderReferenceNumber = nextOrderReferenceNumber++;
+
+                book.add(order.stockLocate, orderReferenceNumber, order.side, order.price, order.shares);
+
+                model.put(orderReferenceNumber, order);
+
+                continue;
+            }
+
+            long orderReferenceNumber = model.keySet().stream().skip(random.nextInt(model.size())).findFirst().get();
+
+            Order order = model.get(orderReferenceNumber);
+
+            int handle = book.order(orderReferenceNumber);
+
+            switch (operation) {
+            case 1:
+                long shares = 1 + random.nextInt(100);
+
+                book.reduce(handle, shares);
+
+                if (shares >= order.shares)
+                    model.remove(orderReferenceNumber);
+                else
+                    order.shares -= shares;
+
+                break;
+            case 2:
+                book.delete(handle);
+
+                model.remove(orderReferenceNumber);
+
+                break;
+            default:
+                OrderReplace message = new OrderReplace();
+
+                message.originalOrderReferenceNumber = orderReferenceNumber;
+                message.newOrderReferenceNumber      = nextOrderReferenceNumber++;
+                message.price                        = 1 + random.nextInt(10);
+                message.shares                       = 1 + random.nextInt(100);
+
+                book.orderReplace(message);
+
+                model.remove(orderReferenceNumber);
+                model.put(message.newOrderReferenceNumber,
+                        new Order(order.stockLocate, order.side, message.price, message.shares));
+
+                break;
+            }
+
+            if (i % 100 == 0)
+                assertModel(model);
+        }
+
+        assertModel(model);
+    }
+
+    private void assertModel(Map<Long, Order> model) {
+        assertEquals(model.size(), book.orders());
+
+        for (int stockLocate = 1; stockLocate <= 3; stockLocate++) {
+            for (byte side : new byte[] { BUY, SELL }) {
+                List<String> expected = new ArrayList<>();
+
+                for (int i = 1; i <= 10; i++) {
+                    long price = side == BUY ? 11 - i : i;
+
+                    List<Long> orders = new ArrayList<>();
+
+                    long shares = 0;
+
+                    for (Map.Entry<Long, Order> entry : model.entrySet()) {
+                        Order order = entry.getValue();
+
+                        if (order.stockLocate == stockLocate && order.side == side && order.price == price) {
+                            orders.add(entry.getKey());
+
+                            shares += order.shares;
+                        }
+                    }
+
+                    if (!orders.isEmpty())
+                        expected.add(price + " " + shares + " " + orders);
+                }
+
+                List<String> actual = new ArrayList<>();
+
+                for (int level = book.bestLevel(stockLocate, side); level != ITCH50OrderBook.NONE; level = book.nextLevel(level)) {
+                    assertEquals(stockLocate, book.levelStockLocate(level));
+                    assertEquals(side, book.levelSide(level));
+
+                    actual.add(book.levelPrice(level) + " " + book.levelShares(level) + " " + orders(level));
+                }
+
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    private List<String> levels(int stockLocate, byte side) {
+        List<String> levels = new ArrayList<>();
+
+        for (int level = book.bestLevel(stockLocate, side); level != ITCH50OrderBook.NONE; level = book.nextLevel(level))
+            levels.add(book.levelPrice(level) + " " + book.levelShares(level) + " " + book.levelOrders(level));
+
+        return levels;
+    }
+
+    private List<Long> orders(int level) {
+        List<Long> orders = new ArrayList<>();
+
+        for (int order = book.firstOrder(level); order != ITCH50OrderBook.NONE; order = book.nextOrder(order))
+            orders.add(book.orderReferenceNumber(order));
+
+        assertEquals(book.levelOrders(level), orders.size());
+
+        return orders;
+    }
+
+    private static class Order {
+
+        final int  stockLocate;
+        final byte side;
+        final long price;
+
+        long shares;
+
+        Order(int stockLocate, byte side, long price, long shares) {
+            this.stockLocate = stockLocate;
+            this.side        = side;
+            this.price       = price;
+            this.shares      = shares;
+        }
+
+    }
+
+}
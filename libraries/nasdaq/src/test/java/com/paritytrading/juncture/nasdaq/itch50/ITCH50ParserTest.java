@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ITCH50ParserTest {
+
+    private List<Long> crossTrades;
+
+    private ITCH50Listener listener;
+
+    private ITCH50Parser.Errors errors;
+
+    @BeforeEach
+    void setUp() {
+        crossTrades = new ArrayList<>();
+
+        listener = new ITCH50ListenerAdapter() {
+
+            @Override
+            public void crossTrade(CrossTrade message) {
+                crossTrades.add(message.shares);
+            }
+
+        };
+
+        errors = new ITCH50Parser.Errors();
+    }
+
+    @Test
+    void crossTrade() throws IOException {
+        ByteBuffer buffer = crossTrade(1L << 40);
+
+        assertEquals(MESSAGE_LENGTH_CROSS_TRADE, buffer.remaining());
+
+        new ITCH50Parser(listener).message(buffer);
+
+        assertEquals(List.of(1L << 40), crossTrades);
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void unknownMessageType() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] { '?', 0, 0 });
+
+        assertThrows(ITCH50Exception.class, () -> new ITCH50Parser(listener).message(buffer));
+    }
+
+    @Test
+    void lenientUnknownMessageType() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] { '?', 0, 0 });
+
+        lenient(new ITCH50Parser(listener)).message(buffer);
+
+        assertEquals(1, errors.unknownMessageTypes());
+        assertEquals(0, errors.lengthMismatches());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void lenientShortMessage() throws IOException {
+        ByteBuffer buffer = crossTrade(100);
+
+        buffer.limit(buffer.limit() - 1);
+
+        lenient(new ITCH50Parser(listener)).message(buffer);
+
+        assertEquals(List.of(), crossTrades);
+        assertEquals(0, errors.unknownMessageTypes());
+        assertEquals(1, errors.lengthMismatches());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void lenientEmptyMessage() throws IOException {
+        lenient(new ITCH50Parser(listener)).message(ByteBuffer.allocate(0));
+
+        assertEquals(1, errors.lengthMismatches());
+    }
+
+    @Test
+    void lenientLongMessage() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MESSAGE_LENGTH_CROSS_TRADE + 4);
+
+        buffer.put(crossTrade(100));
+        buffer.putInt(-1);
+        buffer.flip();
+
+        lenient(new ITCH50Parser(listener)).message(buffer);
+
+        assertEquals(List.of(100L), crossTrades);
+        assertEquals(0, errors.unknownMessageTypes());
+        assertEquals(0, errors.lengthMismatches());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void lenientSkippedMessageType() throws IOException {
+        ITCH50Parser parser = lenient(new ITCH50Parser(listener, MESSAGE_TYPE_SYSTEM_EVENT));
+
+        ByteBuffer buffer = crossTrade(100);
+
+        parser.message(buffer);
+
+        assertEquals(List.of(), crossTrades);
+        assertEquals(0, errors.lengthMismatches());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    private ITCH50Parser lenient(ITCH50Parser parser) {
+        parser.lenient(errors);
+
+        return parser;
+    }
+
+    private static ByteBuffer crossTrade(long shares) {
+        CrossTrade message = new CrossTrade();
+
+        message.stockLocate    = 1;
+        message.trackingNumber = 2;
+        message.timestampHigh  = 3;
+        message.timestampLow   = 4;
+        message.shares         = shares;
+        message.stock          = ITCH50Directory.encode("FOO");
+        message.crossPrice     = 10_0000;
+        message.matchNumber    = 5;
+        message.crossType      = CROSS_TYPE_OPENING_CROSS;
+
+        ByteBuffer buffer = ByteBuffer.allocate(MESSAGE_LENGTH_CROSS_TRADE);
+
+        message.put(buffer);
+        buffer.flip();
+
+        return buffer;
+    }
+
+}
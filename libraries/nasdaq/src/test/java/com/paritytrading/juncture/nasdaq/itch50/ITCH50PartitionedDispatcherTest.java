@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ITCH50PartitionedDispatcherTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int SLOTS = 8;
+
+    private static final int MESSAGES = 1000;
+
+    @Test
+    void partitionByStockLocate() throws IOException {
+        List<List<Integer>> received = new ArrayList<>();
+
+        ITCH50Listener[] listeners = new ITCH50Listener[2];
+
+        for (int i = 0; i < listeners.length; i++) {
+            List<Integer> messages = new ArrayList<>();
+
+            received.add(messages);
+
+            listeners[i] = new ITCH50ListenerAdapter() {
+
+                @Override
+                public void addOrder(AddOrder message) {
+                    messages.add((int)message.orderReferenceNumber);
+                }
+
+            };
+        }
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (ITCH50PartitionedDispatcher dispatcher = dispatcher(listeners)) {
+                dispatcher.start();
+
+                for (int i = 0; i < MESSAGES; i++)
+                    dispatcher.addOrder(addOrder(1 + i % 2, i));
+            }
+        });
+
+        for (int i = 0; i < listeners.length; i++) {
+            List<Integer> messages = received.get(i);
+
+            assertEquals(MESSAGES / 2, messages.size());
+
+            for (int j = 0; j < messages.size(); j++)
+                assertEquals(2 * j + (1 - i), messages.get(j));
+        }
+    }
+
+    @Test
+    void rethrowUncheckedException() {
+        IllegalStateException failure = new IllegalStateException();
+
+        ITCH50Listener listener = new ITCH50ListenerAdapter() {
+
+            @Override
+            public void addOrder(AddOrder message) {
+                if (message.orderReferenceNumber == 10)
+                    throw failure;
+            }
+
+        };
+
+        ITCH50PartitionedDispatcher dispatcher = dispatcher(listener);
+
+        Throwable thrown = assertTimeoutPreemptively(TIMEOUT, () -> {
+            dispatcher.start();
+
+            for (int i = 0; i < MESSAGES; i++)
+                dispatcher.addOrder(addOrder(1, i));
+
+            return assertThrows(IllegalStateException.class, dispatcher::close);
+        });
+
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    void rethrowIOException() {
+        IOException failure = new IOException();
+
+        ITCH50Listener listener = new ITCH50ListenerAdapter() {
+
+            @Override
+            public void addOrder(AddOrder message) throws IOException {
+                throw failure;
+            }
+
+        };
+
+        ITCH50PartitionedDispatcher dispatcher = dispatcher(listener);
+
+        Throwable thrown = assertTimeoutPreemptively(TIMEOUT, () -> {
+            dispatcher.start();
+
+            for (int i = 0; i < MESSAGES; i++)
+                dispatcher.addOrder(addOrder(1, i));
+
+            return assertThrows(IOException.class, dispatcher::close);
+        });
+
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    void closeBeforeStart() {
+        ITCH50PartitionedDispatcher dispatcher = dispatcher(new ITCH50ListenerAdapter() {
+        });
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            for (int i = 0; i < SLOTS; i++)
+                dispatcher.addOrder(addOrder(1, i));
+
+            dispatcher.close();
+        });
+    }
+
+    private static ITCH50PartitionedDispatcher dispatcher(ITCH50Listener... listeners) {
+        return new ITCH50PartitionedDispatcher(listeners, SLOTS, ITCH50RingBuffer.WaitStrategy.YIELD);
+    }
+
+    private static AddOrder addOrder(int stockLocate, long orderReferenceNumber) {
+        AddOrder message = new AddOrder();
+
+        message.stockLocate          = stockLocate;
+        message.orderReferenceNumber = orderReferenceNumber;
+        message.buySellIndicator     = BUY;
+        message.shares               = 100;
+        message.price                = 10000;
+
+        return message;
+    }
+
+}
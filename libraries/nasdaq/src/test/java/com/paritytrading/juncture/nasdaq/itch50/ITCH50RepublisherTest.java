@@ -0,0 +1,287 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.paritytrading.nassau.moldudp64.MoldUDP64Server;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ITCH50RepublisherTest {
+
+    private static final int MAX_PAYLOAD_LENGTH = 1400;
+
+    private static final int HEADER_LENGTH = 20;
+
+    private static final int END_OF_SESSION = 65535;
+
+    private static final int FOO = 1;
+    private static final int BAR = 2;
+
+    private ITCH50Republisher republisher;
+
+    private Endpoint first;
+
+    private Endpoint second;
+
+    private ByteBuffer buffer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        republisher = new ITCH50Republisher();
+
+        first  = new Endpoint();
+        second = new Endpoint();
+
+        buffer = ByteBuffer.allocate(MAX_PAYLOAD_LENGTH);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void filterBySymbolAndMessageType() throws IOException {
+        republisher.add(new ITCH50Republisher.Subscription(first.server, new String[] { "FOO" },
+                    new byte[] { MESSAGE_TYPE_SYSTEM_EVENT, MESSAGE_TYPE_STOCK_DIRECTORY, MESSAGE_TYPE_ADD_ORDER }));
+
+        republish(systemEvent());
+        republish(stockDirectory(FOO, "FOO"));
+        republish(stockDirectory(BAR, "BAR"));
+        republish(addOrder(FOO, 1));
+        republish(addOrder(BAR, 2));
+        republish(orderDelete(FOO, 1));
+
+        republisher.flush();
+
+        List<Packet> packets = first.receive();
+
+        assertEquals(1, packets.size());
+        assertEquals(1, packets.get(0).sequenceNumber);
+        assertEquals(List.of("S 0", "R 1", "A 1"), packets.get(0).messages);
+    }
+
+    @Test
+    void flushFullPacket() throws IOException {
+        republisher.add(new ITCH50Republisher.Subscription(first.server));
+
+        int messagesPerPacket = MAX_PAYLOAD_LENGTH / (2 + MESSAGE_LENGTH_ADD_ORDER);
+
+        for (int i = 0; i < 2 * messagesPerPacket + 1; i++)
+            republish(addOrder(FOO, i));
+
+        List<Packet> packets = first.receive();
+
+        assertEquals(2, packets.size());
+        assertEquals(1, packets.get(0).sequenceNumber);
+        assertEquals(messagesPerPacket, packets.get(0).messages.size());
+        assertEquals(1 + messagesPerPacket, packets.get(1).sequenceNumber);
+        assertEquals(messagesPerPacket, packets.get(1).messages.size());
+
+        republisher.flush();
+
+        packets = first.receive();
+
+        assertEquals(1, packets.size());
+        assertEquals(1 + 2 * messagesPerPacket, packets.get(0).sequenceNumber);
+        assertEquals(List.of("A 1"), packets.get(0).messages);
+    }
+
+    @Test
+    void separateSubscriptions() throws IOException {
+        republisher.add(new ITCH50Republisher.Subscription(first.server, new String[] { "FOO" }, null));
+        republisher.add(new ITCH50Republisher.Subscription(second.server, new String[] { "BAR" }, null));
+
+        republisher.stockDirectory(stockDirectory(FOO, "FOO"));
+        republisher.stockDirectory(stockDirectory(BAR, "BAR"));
+        republisher.addOrder(addOrder(FOO, 1));
+        republisher.addOrder(addOrder(BAR, 2));
+        republisher.addOrder(addOrder(FOO, 3));
+        republisher.systemEvent(systemEvent());
+
+        republisher.flush();
+
+        List<Packet> firstPackets = first.receive();
+
+        assertEquals(1, firstPackets.size());
+        assertEquals(1, firstPackets.get(0).sequenceNumber);
+        assertEquals(List.of("R 1", "A 1", "A 1", "S 0"), firstPackets.get(0).messages);
+
+        List<Packet> secondPackets = second.receive();
+
+        assertEquals(1, secondPackets.size());
+        assertEquals(1, secondPackets.get(0).sequenceNumber);
+        assertEquals(List.of("R 2", "A 2", "S 0"), secondPackets.get(0).messages);
+    }
+
+    @Test
+    void removedSubscription() throws IOException {
+        ITCH50Republisher.Subscription subscription = new ITCH50Republisher.Subscription(first.server);
+
+        republisher.add(subscription);
+        republisher.add(new ITCH50Republisher.Subscription(second.server));
+
+        republish(systemEvent());
+
+        republisher.remove(subscription);
+
+        republish(addOrder(FOO, 1));
+
+        republisher.flush();
+
+        assertEquals(List.of(), first.receive());
+        assertEquals(List.of("S 0", "A 1"), second.receive().get(0).messages);
+    }
+
+    private void republish(Message message) throws IOException {
+        buffer.clear();
+        message.put(buffer);
+        buffer.flip();
+
+        republisher.message(buffer);
+    }
+
+    private static SystemEvent systemEvent() {
+        SystemEvent message = new SystemEvent();
+
+        message.stockLocate = 0;
+        message.eventCode   = EVENT_CODE_START_OF_MESSAGES;
+
+        return message;
+    }
+
+    private static StockDirectory stockDirectory(int stockLocate, String symbol) {
+        StockDirectory message = new StockDirectory();
+
+        message.stockLocate = stockLocate;
+        message.stock       = ITCH50Directory.encode(symbol);
+
+        return message;
+    }
+
+    private static AddOrder addOrder(int stockLocate, long orderReferenceNumber) {
+        AddOrder message = new AddOrder();
+
+        message.stockLocate          = stockLocate;
+        message.orderReferenceNumber = orderReferenceNumber;
+        message.buySellIndicator     = BUY;
+        message.shares               = 100;
+        message.stock                = ITCH50Directory.encode(stockLocate == FOO ? "FOO" : "BAR");
+        message.price                = 10_0000;
+
+        return message;
+    }
+
+    private static OrderDelete orderDelete(int stockLocate, long orderReferenceNumber) {
+        OrderDelete message = new OrderDelete();
+
+        message.stockLocate          = stockLocate;
+        message.orderReferenceNumber = orderReferenceNumber;
+
+        return message;
+    }
+
+    private static class Packet {
+
+        final long sequenceNumber;
+
+        final List<String> messages;
+
+        Packet(long sequenceNumber) {
+            this.sequenceNumber = sequenceNumber;
+
+            this.messages = new ArrayList<>();
+        }
+
+    }
+
+    /*
+     * A MoldUDP64 server that sends to a receiver on the loopback
+     * interface. The receiver reads downstream packets until the server
+     * sends an End of Session packet.
+     */
+    private static class Endpoint {
+
+        final DatagramChannel receiver;
+
+        final MoldUDP64Server server;
+
+        Endpoint() throws IOException {
+            receiver = DatagramChannel.open();
+            receiver.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+            DatagramChannel sender = DatagramChannel.open();
+            sender.connect(receiver.getLocalAddress());
+
+            server = new MoldUDP64Server(sender, "test");
+        }
+
+        List<Packet> receive() throws IOException {
+            server.sendEndOfSession();
+
+            return assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                List<Packet> packets = new ArrayList<>();
+
+                ByteBuffer datagram = ByteBuffer.allocate(HEADER_LENGTH + MAX_PAYLOAD_LENGTH);
+
+                while (true) {
+                    datagram.clear();
+                    receiver.receive(datagram);
+                    datagram.flip();
+
+                    datagram.position(10);
+
+                    Packet packet = new Packet(datagram.getLong());
+
+                    int messageCount = datagram.getShort() & 0xffff;
+                    if (messageCount == END_OF_SESSION)
+                        return packets;
+
+                    for (int i = 0; i < messageCount; i++) {
+                        int length = datagram.getShort() & 0xffff;
+                        int next   = datagram.position() + length;
+
+                        packet.messages.add((char)datagram.get() + " " + (datagram.getShort() & 0xffff));
+
+                        datagram.position(next);
+                    }
+
+                    packets.add(packet);
+                }
+            });
+        }
+
+        void close() throws IOException {
+            server.close();
+            receiver.close();
+        }
+
+    }
+
+}
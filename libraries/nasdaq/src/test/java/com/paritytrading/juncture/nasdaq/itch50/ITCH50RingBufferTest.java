@@ -0,0 +1,294 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.paritytrading.nassau.MessageListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ITCH50RingBufferTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int SLOTS = 4;
+
+    private static final int MESSAGES = 100_000;
+
+    private final ByteBuffer message = ByteBuffer.allocate(ITCH50RingBuffer.SLOT_SIZE);
+
+    @Test
+    void slotsNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> ringBuffer(3));
+        assertThrows(IllegalArgumentException.class, () -> ringBuffer(0));
+    }
+
+    @Test
+    void tooManySlots() {
+        assertThrows(IllegalArgumentException.class, () -> ringBuffer(1 << 25));
+    }
+
+    @Test
+    void messageTooLong() {
+        ITCH50RingBuffer ringBuffer = ringBuffer(SLOTS);
+
+        assertThrows(ITCH50Exception.class,
+                () -> ringBuffer.message(ByteBuffer.allocate(ITCH50RingBuffer.SLOT_SIZE - 1)));
+
+        assertEquals(-1, ringBuffer.sequence());
+    }
+
+    @Test
+    void wrapAround() throws IOException {
+        ITCH50RingBuffer ringBuffer = ringBuffer(SLOTS);
+
+        List<Integer> received = new ArrayList<>();
+
+        ITCH50RingBuffer.Consumer consumer = ringBuffer.consumer(buffer -> received.add(buffer.getInt()));
+
+        List<Integer> expected = new ArrayList<>();
+
+        for (int i = 0; i < 5 * SLOTS; i++) {
+            ringBuffer.message(message(i, i % 20));
+
+            expected.add(i);
+
+            if (i % SLOTS == SLOTS - 1)
+                assertEquals(SLOTS, consumer.poll());
+        }
+
+        assertEquals(0, consumer.poll());
+
+        assertEquals(expected, received);
+        assertEquals(5 * SLOTS - 1, consumer.sequence());
+    }
+
+    @Test
+    void messageLength() throws IOException {
+        ITCH50RingBuffer ringBuffer = ringBuffer(SLOTS);
+
+        List<Integer> lengths = new ArrayList<>();
+
+        ITCH50RingBuffer.Consumer consumer = ringBuffer.consumer(buffer -> {
+            lengths.add(buffer.remaining());
+
+            buffer.position(buffer.limit());
+        });
+
+        ringBuffer.message(message(0, 0));
+        ringBuffer.message(message(1, ITCH50RingBuffer.SLOT_SIZE - 6));
+
+        consumer.poll();
+
+        assertEquals(List.of(4, ITCH50RingBuffer.SLOT_SIZE - 2), lengths);
+    }
+
+    @Test
+    void publish() throws IOException {
+        ITCH50RingBuffer ringBuffer = ringBuffer(SLOTS);
+
+        List<Long> received = new ArrayList<>();
+
+        ITCH50RingBuffer.Consumer consumer = ringBuffer.consumer(new ITCH50Parser(new ITCH50ListenerAdapter() {
+
+            @Override
+            public void orderDelete(OrderDelete message) {
+                received.add(message.orderReferenceNumber);
+            }
+
+        }));
+
+        OrderDelete message = new OrderDelete();
+
+        message.orderReferenceNumber = 123;
+
+        ringBuffer.publish(message);
+
+        assertEquals(1, consumer.poll());
+        assertEquals(List.of(123L), received);
+    }
+
+    @Test
+    void dependency() throws IOException {
+        ITCH50RingBuffer ringBuffer = ringBuffer(SLOTS);
+
+        List<String> received = new ArrayList<>();
+
+        ITCH50RingBuffer.Consumer first  = ringBuffer.consumer(buffer -> received.add("first " + buffer.getInt()));
+        ITCH50RingBuffer.Consumer second = ringBuffer.consumer(buffer -> received.add("second " + buffer.getInt()), first);
+
+        ringBuffer.message(message(0, 0));
+        ringBuffer.message(message(1, 0));
+
+        assertEquals(0, second.poll());
+        assertEquals(2, first.poll());
+        assertEquals(2, second.poll());
+
+        assertEquals(List.of("first 0", "first 1", "second 0", "second 1"), received);
+    }
+
+    @Test
+    void concurrentConsumers() {
+        ITCH50RingBuffer ringBuffer = ringBuffer(SLOTS);
+
+        AtomicLong firstErrors  = new AtomicLong();
+        AtomicLong secondErrors = new AtomicLong();
+
+        Sequencer firstSequencer = new Sequencer(firstErrors);
+
+        ITCH50RingBuffer.Consumer first = ringBuffer.consumer(firstSequencer);
+
+        Sequencer secondSequencer = new Sequencer(secondErrors) {
+
+            @Override
+            public void message(ByteBuffer buffer) {
+                if (first.sequence() < next)
+                    errors.incrementAndGet();
+
+                super.message(buffer);
+            }
+
+        };
+
+        ITCH50RingBuffer.Consumer second = ringBuffer.consumer(secondSequencer, first);
+
+        Thread firstThread  = new Thread(first);
+        Thread secondThread = new Thread(second);
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            firstThread.start();
+            secondThread.start();
+
+            for (int i = 0; i < MESSAGES; i++)
+                ringBuffer.message(message(i, i % 20));
+
+            while (second.sequence() < ringBuffer.sequence())
+                Thread.yield();
+
+            first.halt();
+            second.halt();
+
+            firstThread.join();
+            secondThread.join();
+        });
+
+        assertEquals(0, firstErrors.get());
+        assertEquals(0, secondErrors.get());
+
+        assertEquals(MESSAGES, firstSequencer.next);
+        assertEquals(MESSAGES, secondSequencer.next);
+    }
+
+    @Test
+    void failedConsumer() throws IOException {
+        ITCH50RingBuffer ringBuffer = ringBuffer(SLOTS);
+
+        ITCH50RingBuffer.Consumer consumer = ringBuffer.consumer(buffer -> {
+            throw new IOException("failure");
+        });
+
+        ringBuffer.message(message(0, 0));
+
+        IOException failure = assertThrows(IOException.class, consumer::poll);
+
+        assertEquals(-1, consumer.sequence());
+
+        for (int i = 1; i < SLOTS; i++)
+            ringBuffer.message(message(i, 0));
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            assertSame(failure, assertThrows(IOException.class, () -> ringBuffer.message(message(SLOTS, 0))));
+        });
+
+        assertEquals(SLOTS - 1, ringBuffer.sequence());
+    }
+
+    @Test
+    void failedConcurrentConsumer() {
+        ITCH50RingBuffer ringBuffer = ringBuffer(SLOTS);
+
+        RuntimeException failure = new IllegalStateException("failure");
+
+        ITCH50RingBuffer.Consumer consumer = ringBuffer.consumer(buffer -> {
+            if (buffer.getInt() == SLOTS)
+                throw failure;
+        });
+
+        Thread thread = new Thread(consumer);
+
+        thread.setUncaughtExceptionHandler((t, e) -> { });
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            thread.start();
+
+            assertSame(failure, assertThrows(RuntimeException.class, () -> {
+                for (int i = 0; ; i++)
+                    ringBuffer.message(message(i, 0));
+            }));
+
+            thread.join();
+        });
+    }
+
+    private ByteBuffer message(int value, int padding) {
+        message.clear();
+        message.putInt(value);
+
+        for (int i = 0; i < padding; i++)
+            message.put((byte)value);
+
+        message.flip();
+
+        return message;
+    }
+
+    private static ITCH50RingBuffer ringBuffer(int slots) {
+        return new ITCH50RingBuffer(slots, ITCH50RingBuffer.WaitStrategy.YIELD);
+    }
+
+    private static class Sequencer implements MessageListener {
+
+        final AtomicLong errors;
+
+        int next;
+
+        Sequencer(AtomicLong errors) {
+            this.errors = errors;
+        }
+
+        @Override
+        public void message(ByteBuffer buffer) {
+            if (buffer.getInt() != next || buffer.remaining() != next % 20)
+                errors.incrementAndGet();
+
+            while (buffer.hasRemaining()) {
+                if (buffer.get() != (byte)next)
+                    errors.incrementAndGet();
+            }
+
+            next++;
+        }
+
+    }
+
+}
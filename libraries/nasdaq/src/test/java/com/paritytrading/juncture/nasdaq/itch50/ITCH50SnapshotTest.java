@@ -0,0 +1,219 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static java.nio.file.StandardOpenOption.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ITCH50SnapshotTest {
+
+    private static final int FOO = 1;
+    private static final int BAR = 2;
+
+    private static final long SEQUENCE_NUMBER = 123;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTrip() throws IOException {
+        ITCH50Directory instruments = new ITCH50Directory();
+
+        stockDirectory(instruments, FOO, "FOO", MARKET_CATEGORY_NASDAQ_GLOBAL_SELECT_MARKET, 100);
+        stockDirectory(instruments, BAR, "BAR", MARKET_CATEGORY_NYSE, 10);
+
+        StockTradingAction stockTradingAction = new StockTradingAction();
+
+        stockTradingAction.stockLocate  = FOO;
+        stockTradingAction.stock        = ITCH50Directory.encode("FOO");
+        stockTradingAction.tradingState = TRADING_STATE_HALTED;
+        stockTradingAction.reason       = 0x4c554450;
+
+        instruments.stockTradingAction(stockTradingAction);
+
+        RegSHORestriction regSHORestriction = new RegSHORestriction();
+
+        regSHORestriction.locateCode   = BAR;
+        regSHORestriction.stock        = ITCH50Directory.encode("BAR");
+        regSHORestriction.regSHOAction = REG_SHO_ACTION_SHORT_SALE_PRICE_TEST;
+
+        instruments.regSHORestriction(regSHORestriction);
+
+        OperationalHalt operationalHalt = new OperationalHalt();
+
+        operationalHalt.stockLocate           = BAR;
+        operationalHalt.stock                 = ITCH50Directory.encode("BAR");
+        operationalHalt.marketCode            = MARKET_CODE_BX;
+        operationalHalt.operationalHaltAction = OPERATIONAL_HALT_ACTION_OPERATIONALLY_HALTED;
+
+        instruments.operationalHalt(operationalHalt);
+
+        ITCH50OrderBook book = new ITCH50OrderBook(16, 16);
+
+        book.add(FOO, 1, BUY, 100, 10);
+        book.add(FOO, 2, BUY, 101, 20);
+        book.add(FOO, 3, BUY, 100, 30);
+        book.add(FOO, 4, SELL, 102, 40);
+        book.add(BAR, 5, SELL, 200, 50);
+
+        Path file = directory.resolve("snapshot");
+
+        try (FileChannel channel = FileChannel.open(file, CREATE_NEW, WRITE)) {
+            new ITCH50Snapshot().save(channel, SEQUENCE_NUMBER, instruments, book);
+        }
+
+        ITCH50Directory restoredInstruments = new ITCH50Directory();
+
+        ITCH50OrderBook restoredBook = new ITCH50OrderBook(16, 16);
+
+        /*
+         * Restore with a buffer that holds only a few records at a time and
+         * into state that the snapshot must replace.
+         */
+        stockDirectory(restoredInstruments, 3, "BAZ", MARKET_CATEGORY_NYSE, 1);
+
+        restoredBook.add(3, 6, BUY, 1, 1);
+
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            assertEquals(SEQUENCE_NUMBER, new ITCH50Snapshot(64).restore(channel,
+                        restoredInstruments, restoredBook));
+        }
+
+        assertEquals(2, restoredInstruments.size());
+        assertFalse(restoredInstruments.contains(3));
+
+        for (int stockLocate : new int[] { FOO, BAR })
+            assertInstrument(instruments, restoredInstruments, stockLocate);
+
+        assertEquals(book.orders(), restoredBook.orders());
+
+        for (int stockLocate : new int[] { FOO, BAR }) {
+            for (byte side : new byte[] { BUY, SELL })
+                assertEquals(orders(book, stockLocate, side), orders(restoredBook, stockLocate, side));
+        }
+
+        assertEquals(List.of("101 2 20", "100 1 10", "100 3 30"), orders(restoredBook, FOO, BUY));
+        assertEquals(ITCH50OrderBook.NONE, restoredBook.order(6));
+    }
+
+    @Test
+    void notASnapshot() throws IOException {
+        Path file = directory.resolve("snapshot");
+
+        try (FileChannel channel = FileChannel.open(file, CREATE_NEW, WRITE)) {
+            channel.write(ByteBuffer.wrap("JNCTSNAX\0\1\0\0\0\0\0\0\0\0".getBytes("US-ASCII")));
+        }
+
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            assertThrows(ITCH50Exception.class, () -> new ITCH50Snapshot().restore(channel,
+                        new ITCH50Directory(), new ITCH50OrderBook(16, 16)));
+        }
+    }
+
+    @Test
+    void truncatedSnapshot() throws IOException {
+        ITCH50Directory instruments = new ITCH50Directory();
+
+        stockDirectory(instruments, FOO, "FOO", MARKET_CATEGORY_NASDAQ_GLOBAL_SELECT_MARKET, 100);
+
+        Path file = directory.resolve("snapshot");
+
+        try (FileChannel channel = FileChannel.open(file, CREATE_NEW, WRITE)) {
+            new ITCH50Snapshot().save(channel, SEQUENCE_NUMBER, instruments, new ITCH50OrderBook(16, 16));
+
+            channel.truncate(channel.size() - 1);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            assertThrows(ITCH50Exception.class, () -> new ITCH50Snapshot().restore(channel,
+                        new ITCH50Directory(), new ITCH50OrderBook(16, 16)));
+        }
+    }
+
+    private static void stockDirectory(ITCH50Directory instruments, int stockLocate, String symbol,
+            byte marketCategory, long roundLotSize) {
+        StockDirectory message = new StockDirectory();
+
+        message.stockLocate                 = stockLocate;
+        message.stock                       = ITCH50Directory.encode(symbol);
+        message.marketCategory              = marketCategory;
+        message.financialStatusIndicator    = FINANCIAL_STATUS_INDICATOR_NORMAL;
+        message.roundLotSize                = roundLotSize;
+        message.roundLotsOnly               = NO;
+        message.issueClassification         = 'C';
+        message.issueSubType                = 0x5a20;
+        message.authenticity                = AUTHENTICITY_PRODUCTION;
+        message.shortSaleThresholdIndicator = NO;
+        message.ipoFlag                     = YES;
+        message.luldReferencePriceTier      = '1';
+        message.etpFlag                     = NO;
+        message.etpLeverageFactor           = 2;
+        message.inverseIndicator            = NO;
+
+        instruments.stockDirectory(message);
+    }
+
+    private static void assertInstrument(ITCH50Directory expected, ITCH50Directory actual, int stockLocate) {
+        assertTrue(actual.contains(stockLocate));
+
+        assertEquals(expected.stock(stockLocate), actual.stock(stockLocate));
+        assertEquals(stockLocate, actual.locate(expected.stock(stockLocate)));
+        assertEquals(expected.marketCategory(stockLocate), actual.marketCategory(stockLocate));
+        assertEquals(expected.financialStatusIndicator(stockLocate), actual.financialStatusIndicator(stockLocate));
+        assertEquals(expected.roundLotSize(stockLocate), actual.roundLotSize(stockLocate));
+        assertEquals(expected.roundLotsOnly(stockLocate), actual.roundLotsOnly(stockLocate));
+        assertEquals(expected.issueClassification(stockLocate), actual.issueClassification(stockLocate));
+        assertEquals(expected.issueSubType(stockLocate), actual.issueSubType(stockLocate));
+        assertEquals(expected.authenticity(stockLocate), actual.authenticity(stockLocate));
+        assertEquals(expected.shortSaleThresholdIndicator(stockLocate), actual.shortSaleThresholdIndicator(stockLocate));
+        assertEquals(expected.ipoFlag(stockLocate), actual.ipoFlag(stockLocate));
+        assertEquals(expected.luldReferencePriceTier(stockLocate), actual.luldReferencePriceTier(stockLocate));
+        assertEquals(expected.etpFlag(stockLocate), actual.etpFlag(stockLocate));
+        assertEquals(expected.etpLeverageFactor(stockLocate), actual.etpLeverageFactor(stockLocate));
+        assertEquals(expected.inverseIndicator(stockLocate), actual.inverseIndicator(stockLocate));
+
+        assertEquals(expected.tradingState(stockLocate), actual.tradingState(stockLocate));
+        assertEquals(expected.reason(stockLocate), actual.reason(stockLocate));
+        assertEquals(expected.regSHOAction(stockLocate), actual.regSHOAction(stockLocate));
+
+        for (byte marketCode : new byte[] { MARKET_CODE_NASDAQ, MARKET_CODE_BX, MARKET_CODE_PSX }) {
+            assertEquals(expected.operationalHaltAction(stockLocate, marketCode),
+                    actual.operationalHaltAction(stockLocate, marketCode));
+        }
+    }
+
+    private static List<String> orders(ITCH50OrderBook book, int stockLocate, byte side) {
+        List<String> orders = new ArrayList<>();
+
+        for (int level = book.bestLevel(stockLocate, side); level != ITCH50OrderBook.NONE; level = book.nextLevel(level)) {
+            for (int order = book.firstOrder(level); order != ITCH50OrderBook.NONE; order = book.nextOrder(order))
+                orders.add(book.levelPrice(level) + " " + book.orderReferenceNumber(order) + " " + book.orderShares(order));
+        }
+
+        return orders;
+    }
+
+}
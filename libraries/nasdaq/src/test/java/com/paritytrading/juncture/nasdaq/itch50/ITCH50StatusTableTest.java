@@ -0,0 +1,189 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ITCH50StatusTableTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int FOO = 1;
+    private static final int BAR = 2;
+
+    private static final int UPDATES = 1_000_000;
+
+    private ITCH50StatusTable table;
+
+    private ITCH50StatusTable.Status status;
+
+    @BeforeEach
+    void setUp() {
+        table = new ITCH50StatusTable();
+
+        status = new ITCH50StatusTable.Status();
+    }
+
+    @Test
+    void neverUpdated() {
+        assertEquals(0, table.read(FOO, status));
+
+        assertEquals(0, status.tradingState);
+        assertEquals(0, status.timestamp);
+    }
+
+    @Test
+    void stockTradingAction() {
+        StockTradingAction message = new StockTradingAction();
+
+        message.stockLocate  = FOO;
+        message.timestampLow = 100;
+        message.tradingState = TRADING_STATE_HALTED;
+        message.reason       = 0x4c554450;
+
+        table.stockTradingAction(message);
+
+        assertEquals(2, table.read(FOO, status));
+        assertEquals(TRADING_STATE_HALTED, status.tradingState);
+        assertEquals(0x4c554450, status.reason);
+        assertEquals(100, status.timestamp);
+
+        assertEquals(0, table.version(BAR));
+    }
+
+    @Test
+    void packedFields() {
+        StockTradingAction stockTradingAction = new StockTradingAction();
+
+        stockTradingAction.stockLocate  = FOO;
+        stockTradingAction.tradingState = TRADING_STATE_TRADING;
+
+        table.stockTradingAction(stockTradingAction);
+
+        RegSHORestriction regSHORestriction = new RegSHORestriction();
+
+        regSHORestriction.locateCode   = FOO;
+        regSHORestriction.regSHOAction = REG_SHO_ACTION_SHORT_SALE_PRICE_TEST;
+
+        table.regSHORestriction(regSHORestriction);
+
+        OperationalHalt operationalHalt = new OperationalHalt();
+
+        operationalHalt.stockLocate           = FOO;
+        operationalHalt.marketCode            = MARKET_CODE_BX;
+        operationalHalt.operationalHaltAction = OPERATIONAL_HALT_ACTION_OPERATIONALLY_HALTED;
+
+        table.operationalHalt(operationalHalt);
+
+        operationalHalt.marketCode = 'Z';
+
+        table.operationalHalt(operationalHalt);
+
+        assertEquals(6, table.read(FOO, status));
+        assertEquals(TRADING_STATE_TRADING, status.tradingState);
+        assertEquals(REG_SHO_ACTION_SHORT_SALE_PRICE_TEST, status.regSHOAction);
+        assertEquals(0, status.nasdaqOperationalHaltAction);
+        assertEquals(OPERATIONAL_HALT_ACTION_OPERATIONALLY_HALTED, status.bxOperationalHaltAction);
+        assertEquals(0, status.psxOperationalHaltAction);
+    }
+
+    @Test
+    void mwcb() {
+        MWCBDeclineLevel mwcbDeclineLevel = new MWCBDeclineLevel();
+
+        mwcbDeclineLevel.timestampLow = 100;
+        mwcbDeclineLevel.level1       = 1;
+        mwcbDeclineLevel.level2       = 2;
+        mwcbDeclineLevel.level3       = 3;
+
+        table.mwcbDeclineLevel(mwcbDeclineLevel);
+
+        MWCBStatus mwcbStatus = new MWCBStatus();
+
+        mwcbStatus.timestampLow  = 200;
+        mwcbStatus.breachedLevel = '1';
+
+        table.mwcbStatus(mwcbStatus);
+
+        ITCH50StatusTable.MWCB mwcb = new ITCH50StatusTable.MWCB();
+
+        assertEquals(4, table.readMWCB(mwcb));
+        assertEquals(1, mwcb.level1);
+        assertEquals(2, mwcb.level2);
+        assertEquals(3, mwcb.level3);
+        assertEquals('1', mwcb.breachedLevel);
+        assertEquals(200, mwcb.timestamp);
+
+        assertEquals(4, table.mwcbVersion());
+    }
+
+    @Test
+    void concurrentReader() {
+        AtomicBoolean done = new AtomicBoolean();
+
+        AtomicLong inconsistent = new AtomicLong();
+
+        Thread reader = new Thread(() -> {
+            ITCH50StatusTable.Status status = new ITCH50StatusTable.Status();
+
+            while (!done.get()) {
+                if (table.read(FOO, status) == 0)
+                    continue;
+
+                long price = status.auctionCollarReferencePrice;
+
+                if (status.upperAuctionCollarPrice != price + 1 || status.lowerAuctionCollarPrice != price - 1 ||
+                        status.auctionCollarExtension != price || status.timestamp != price)
+                    inconsistent.incrementAndGet();
+            }
+        });
+
+        LULDAuctionCollar message = new LULDAuctionCollar();
+
+        message.stockLocate = FOO;
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            reader.start();
+
+            for (int i = 1; i <= UPDATES; i++) {
+                message.timestampLow                = i;
+                message.auctionCollarReferencePrice = i;
+                message.upperAuctionCollarPrice     = i + 1;
+                message.lowerAuctionCollarPrice     = i - 1;
+                message.auctionCollarExtension      = i;
+
+                table.luldAuctionCollar(message);
+            }
+
+            done.set(true);
+
+            reader.join();
+        });
+
+        assertEquals(0, inconsistent.get());
+
+        assertEquals(2L * UPDATES, table.read(FOO, status));
+        assertEquals(UPDATES, status.auctionCollarReferencePrice);
+    }
+
+}
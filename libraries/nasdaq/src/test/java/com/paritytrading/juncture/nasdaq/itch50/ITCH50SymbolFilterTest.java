@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ITCH50SymbolFilterTest {
+
+    private static final int FOO = 1;
+    private static final int BAR = 2;
+
+    private List<String> messages;
+
+    private ITCH50SymbolFilter filter;
+
+    private ByteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        messages = new ArrayList<>();
+
+        filter = new ITCH50SymbolFilter(buffer -> {
+            messages.add((char)buffer.get(buffer.position()) + " " + (buffer.getShort(buffer.position() + 1) & 0xffff));
+
+            buffer.position(buffer.limit());
+        });
+
+        buffer = ByteBuffer.allocate(64);
+    }
+
+    @Test
+    void subscribeBeforeStockDirectory() throws IOException {
+        filter.subscribe("FOO");
+
+        filter(stockDirectory(FOO, "FOO"));
+        filter(stockDirectory(BAR, "BAR"));
+        filter(addOrder(FOO));
+        filter(addOrder(BAR));
+
+        assertEquals(List.of("R 1", "A 1"), messages);
+        assertTrue(filter.isSubscribed(FOO));
+        assertFalse(filter.isSubscribed(BAR));
+    }
+
+    @Test
+    void subscribeAfterStockDirectory() throws IOException {
+        filter(stockDirectory(FOO, "FOO"));
+        filter(stockDirectory(BAR, "BAR"));
+        filter(addOrder(BAR));
+
+        filter.subscribe("BAR");
+
+        filter(addOrder(FOO));
+        filter(addOrder(BAR));
+
+        assertEquals(List.of("A 2"), messages);
+        assertFalse(filter.isSubscribed(FOO));
+        assertTrue(filter.isSubscribed(BAR));
+    }
+
+    @Test
+    void unsubscribe() throws IOException {
+        filter.subscribe("FOO");
+
+        filter(stockDirectory(FOO, "FOO"));
+        filter(addOrder(FOO));
+
+        filter.unsubscribe("FOO");
+
+        filter(addOrder(FOO));
+
+        assertEquals(List.of("R 1", "A 1"), messages);
+        assertFalse(filter.isSubscribed(FOO));
+    }
+
+    @Test
+    void reassignStockLocate() throws IOException {
+        filter.subscribe("FOO");
+
+        filter(stockDirectory(FOO, "FOO"));
+        filter(addOrder(FOO));
+
+        filter(stockDirectory(FOO, "BAR"));
+        filter(addOrder(FOO));
+
+        filter(stockDirectory(BAR, "FOO"));
+        filter(addOrder(FOO));
+        filter(addOrder(BAR));
+
+        assertEquals(List.of("R 1", "A 1", "R 2", "A 2"), messages);
+        assertFalse(filter.isSubscribed(FOO));
+        assertTrue(filter.isSubscribed(BAR));
+    }
+
+    @Test
+    void moveStock() throws IOException {
+        filter.subscribe("FOO");
+
+        filter(stockDirectory(FOO, "FOO"));
+        filter(stockDirectory(BAR, "FOO"));
+        filter(addOrder(FOO));
+        filter(addOrder(BAR));
+
+        assertEquals(List.of("R 1", "R 2", "A 2"), messages);
+        assertFalse(filter.isSubscribed(FOO));
+        assertTrue(filter.isSubscribed(BAR));
+    }
+
+    @Test
+    void stockLocateZero() throws IOException {
+        filter(systemEvent());
+
+        filter.subscribe("FOO");
+
+        filter(systemEvent());
+
+        assertEquals(List.of("S 0", "S 0"), messages);
+        assertTrue(filter.isSubscribed(0));
+    }
+
+    @Test
+    void shortMessage() throws IOException {
+        List<Integer> lengths = new ArrayList<>();
+
+        ITCH50SymbolFilter filter = new ITCH50SymbolFilter(buffer -> lengths.add(buffer.remaining()));
+
+        filter.message(ByteBuffer.wrap(new byte[] { MESSAGE_TYPE_ADD_ORDER, 0 }));
+
+        assertEquals(List.of(2), lengths);
+    }
+
+    private void filter(Message message) throws IOException {
+        buffer.clear();
+        message.put(buffer);
+        buffer.flip();
+
+        filter.message(buffer);
+    }
+
+    private static SystemEvent systemEvent() {
+        SystemEvent message = new SystemEvent();
+
+        message.stockLocate = 0;
+        message.eventCode   = EVENT_CODE_START_OF_MESSAGES;
+
+        return message;
+    }
+
+    private static StockDirectory stockDirectory(int stockLocate, String symbol) {
+        StockDirectory message = new StockDirectory();
+
+        message.stockLocate = stockLocate;
+        message.stock       = ITCH50Directory.encode(symbol);
+
+        return message;
+    }
+
+    private static AddOrder addOrder(int stockLocate) {
+        AddOrder message = new AddOrder();
+
+        message.stockLocate      = stockLocate;
+        message.buySellIndicator = BUY;
+        message.shares           = 100;
+        message.price            = 10_0000;
+
+        return message;
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ITCH50TopOfBookTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static final int FOO = 1;
+
+    private static final int UPDATES = 1_000_000;
+
+    private final AddOrder addOrder = new AddOrder();
+
+    private final OrderDelete orderDelete = new OrderDelete();
+
+    private final ITCH50TopOfBook.Quote quote = new ITCH50TopOfBook.Quote();
+
+    @Test
+    void perMessage() {
+        ITCH50TopOfBook top = topOfBook(ITCH50TopOfBook.PER_MESSAGE);
+
+        addOrder(top, 1, 1, BUY, 100, 10);
+
+        assertEquals(2, top.read(FOO, quote));
+        assertQuote(100, 10, 0, 0, 1);
+
+        addOrder(top, 2, 2, SELL, 101, 20);
+
+        assertEquals(4, top.read(FOO, quote));
+        assertQuote(100, 10, 101, 20, 2);
+
+        orderDelete(top, 3, 1);
+
+        assertEquals(6, top.read(FOO, quote));
+        assertQuote(0, 0, 101, 20, 3);
+    }
+
+    @Test
+    void unchangedTopOfBook() {
+        ITCH50TopOfBook top = topOfBook(ITCH50TopOfBook.PER_MESSAGE);
+
+        addOrder(top, 1, 1, BUY, 100, 10);
+        addOrder(top, 2, 2, BUY, 99, 10);
+
+        assertEquals(2, top.version(FOO));
+    }
+
+    @Test
+    void perTimestamp() {
+        ITCH50TopOfBook top = topOfBook(ITCH50TopOfBook.PER_TIMESTAMP);
+
+        addOrder(top, 1, 1, BUY, 100, 10);
+        addOrder(top, 1, 2, BUY, 101, 10);
+
+        assertEquals(0, top.version(FOO));
+
+        addOrder(top, 2, 3, SELL, 102, 10);
+
+        assertEquals(2, top.read(FOO, quote));
+        assertQuote(101, 10, 0, 0, 1);
+
+        top.flush();
+
+        assertEquals(4, top.read(FOO, quote));
+        assertQuote(101, 10, 102, 10, 2);
+    }
+
+    @Test
+    void interval() {
+        ITCH50TopOfBook top = topOfBook(1000);
+
+        addOrder(top, 100, 1, BUY, 100, 10);
+        addOrder(top, 900, 2, SELL, 101, 10);
+
+        assertEquals(0, top.version(FOO));
+
+        addOrder(top, 1100, 3, BUY, 99, 10);
+
+        assertEquals(2, top.read(FOO, quote));
+        assertQuote(100, 10, 101, 10, 900);
+    }
+
+    @Test
+    void concurrentReader() {
+        ITCH50TopOfBook top = topOfBook(ITCH50TopOfBook.PER_TIMESTAMP);
+
+        AtomicBoolean done = new AtomicBoolean();
+
+        AtomicLong inconsistent = new AtomicLong();
+
+        Thread reader = new Thread(() -> {
+            ITCH50TopOfBook.Quote quote = new ITCH50TopOfBook.Quote();
+
+            while (!done.get()) {
+                if (top.read(FOO, quote) == 0)
+                    continue;
+
+                if (quote.bidSize != quote.bidPrice || quote.askPrice != quote.bidPrice + 1 ||
+                        quote.askSize != quote.askPrice || quote.timestamp != quote.bidPrice)
+                    inconsistent.incrementAndGet();
+            }
+        });
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            reader.start();
+
+            /*
+             * Each Timestamp replaces both sides, so that a published
+             * quote is consistent only if it is not torn.
+             */
+            for (int i = 1; i <= UPDATES; i++) {
+                if (i > 1) {
+                    orderDelete(top, i, 2 * i - 2);
+                    orderDelete(top, i, 2 * i - 1);
+                }
+
+                addOrder(top, i, 2 * i, BUY, i, i);
+                addOrder(top, i, 2 * i + 1, SELL, i + 1, i + 1);
+            }
+
+            top.flush();
+
+            done.set(true);
+
+            reader.join();
+        });
+
+        assertEquals(0, inconsistent.get());
+
+        assertEquals(2L * UPDATES, top.read(FOO, quote));
+        assertQuote(UPDATES, UPDATES, UPDATES + 1, UPDATES + 1, UPDATES);
+    }
+
+    private static ITCH50TopOfBook topOfBook(long interval) {
+        return new ITCH50TopOfBook(new ITCH50OrderBook(16, 16), interval);
+    }
+
+    private void addOrder(ITCH50TopOfBook top, long timestamp, long orderReferenceNumber,
+            byte side, long price, long shares) {
+        addOrder.stockLocate          = FOO;
+        addOrder.timestampHigh        = 0;
+        addOrder.timestampLow         = timestamp;
+        addOrder.orderReferenceNumber = orderReferenceNumber;
+        addOrder.buySellIndicator     = side;
+        addOrder.shares               = shares;
+        addOrder.price                = price;
+
+        top.addOrder(addOrder);
+    }
+
+    private void orderDelete(ITCH50TopOfBook top, long timestamp, long orderReferenceNumber) {
+        orderDelete.stockLocate          = FOO;
+        orderDelete.timestampHigh        = 0;
+        orderDelete.timestampLow         = timestamp;
+        orderDelete.orderReferenceNumber = orderReferenceNumber;
+
+        top.orderDelete(orderDelete);
+    }
+
+    private void assertQuote(long bidPrice, long bidSize, long askPrice, long askSize, long timestamp) {
+        assertEquals(bidPrice, quote.bidPrice);
+        assertEquals(bidSize, quote.bidSize);
+        assertEquals(askPrice, quote.askPrice);
+        assertEquals(askSize, quote.askSize);
+        assertEquals(timestamp, quote.timestamp);
+    }
+
+}
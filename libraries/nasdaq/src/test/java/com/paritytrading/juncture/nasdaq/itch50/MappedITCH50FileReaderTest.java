@@ -0,0 +1,191 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.paritytrading.nassau.binaryfile.BinaryFILEReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedITCH50FileReaderTest {
+
+    /*
+     * The window size is odd and all messages including the length field
+     * are of even length, so that each window ends in the middle of a
+     * message.
+     */
+    private static final int WINDOW_SIZE = MappedITCH50FileReader.MIN_WINDOW_SIZE;
+
+    private static final int MESSAGES = 20000;
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    private Set<Long> boundaries;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("test.itch");
+
+        boundaries = new HashSet<>();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        for (int i = 0; i < MESSAGES; i++) {
+            boundaries.add((long)bytes.size());
+
+            bytes.write(message(i));
+        }
+
+        Files.write(file, bytes.toByteArray());
+    }
+
+    @Test
+    void readAll() throws IOException {
+        List<ByteBuffer> messages = new ArrayList<>();
+
+        try (FileChannel channel = open();
+                MappedITCH50FileReader reader = new MappedITCH50FileReader(channel,
+                    buffer -> messages.add(copy(buffer)), WINDOW_SIZE)) {
+            assertEquals(MESSAGES, reader.readAll());
+        }
+
+        assertEquals(readSequentially(), messages);
+    }
+
+    @Test
+    void remapAtMessageBoundaries() throws IOException {
+        List<ByteBuffer> messages = new ArrayList<>();
+
+        int windows = 0;
+
+        try (FileChannel channel = open();
+                MappedITCH50FileReader reader = new MappedITCH50FileReader(channel,
+                    buffer -> messages.add(copy(buffer)), WINDOW_SIZE)) {
+            while (reader.read() >= 0) {
+                windows++;
+
+                assertTrue(boundaries.contains(reader.position()) || reader.position() == Files.size(file));
+                assertTrue(reader.position() < (long)windows * WINDOW_SIZE);
+            }
+        }
+
+        assertTrue(windows > 1);
+
+        assertEquals(readSequentially(), messages);
+    }
+
+    @Test
+    void maximumMessageLength() throws IOException {
+        byte[] message = new byte[WINDOW_SIZE];
+
+        message[0] = (byte)0xff;
+        message[1] = (byte)0xff;
+
+        Arrays.fill(message, 2, message.length, (byte)'x');
+
+        Files.write(file, message);
+        Files.write(file, message(0), StandardOpenOption.APPEND);
+
+        List<ByteBuffer> messages = new ArrayList<>();
+
+        try (FileChannel channel = open();
+                MappedITCH50FileReader reader = new MappedITCH50FileReader(channel,
+                    buffer -> messages.add(copy(buffer)), WINDOW_SIZE)) {
+            assertEquals(1, reader.read());
+            assertEquals(WINDOW_SIZE, reader.position());
+            assertEquals(1, reader.read());
+            assertEquals(-1, reader.read());
+        }
+
+        assertEquals(readSequentially(), messages);
+    }
+
+    @Test
+    void unexpectedEndOfFile() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 1);
+        }
+
+        try (FileChannel channel = open();
+                MappedITCH50FileReader reader = new MappedITCH50FileReader(channel,
+                    buffer -> { }, WINDOW_SIZE)) {
+            assertThrows(ITCH50Exception.class, reader::readAll);
+        }
+    }
+
+    @Test
+    void windowSizeTooSmall() throws IOException {
+        try (FileChannel channel = open()) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> new MappedITCH50FileReader(channel, buffer -> { }, WINDOW_SIZE - 1));
+        }
+    }
+
+    private List<ByteBuffer> readSequentially() throws IOException {
+        List<ByteBuffer> messages = new ArrayList<>();
+
+        try (BinaryFILEReader reader = new BinaryFILEReader(open(), buffer -> messages.add(copy(buffer)))) {
+            while (reader.read() >= 0);
+        }
+
+        return messages;
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    private static ByteBuffer copy(ByteBuffer buffer) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+
+        copy.put(buffer);
+        copy.flip();
+
+        return copy;
+    }
+
+    private static byte[] message(int sequence) {
+        int length = sequence % 1000 == 999 ? 30000 : 4 + 2 * (sequence % 150);
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + length);
+
+        buffer.putShort((short)length);
+        buffer.putInt(sequence);
+
+        while (buffer.hasRemaining())
+            buffer.put((byte)sequence);
+
+        return buffer.array();
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 Juncture authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.paritytrading.juncture.nasdaq.itch50;
+
+import static com.paritytrading.juncture.nasdaq.itch50.ITCH50.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.paritytrading.nassau.binaryfile.BinaryFILEReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParallelITCH50FileReaderTest {
+
+    /*
+     * The chunk size is odd and all messages including the length field
+     * are of even length, so that each chunk ends in the middle of a
+     * message.
+     */
+    private static final int CHUNK_SIZE = 2 + 65535;
+
+    private static final int CHUNKS = 2;
+
+    private static final int SHARDS = 3;
+
+    private static final int STOCK_LOCATES = 7;
+
+    private static final int MESSAGES = 30000;
+
+    private static final int SYSTEM_EVENT_INTERVAL = 50;
+
+    @TempDir
+    Path directory;
+
+    private ForkJoinPool pool;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+
+        file = directory.resolve("test.itch");
+
+        ByteBuffer buffer = ByteBuffer.allocate(MESSAGES * (2 + MESSAGE_LENGTH_ADD_ORDER));
+
+        for (int i = 0; i < MESSAGES; i++) {
+            if (i % SYSTEM_EVENT_INTERVAL == 0)
+                put(buffer, systemEvent(i));
+            else
+                put(buffer, addOrder(1 + i % STOCK_LOCATES, i));
+        }
+
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void readAll() throws IOException {
+        Recorder[] shards = readInParallel();
+
+        List<Entry> messages = readSequentially();
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            List<Entry> expected = new ArrayList<>();
+
+            for (Entry message : messages) {
+                if (message.stockLocate == 0 || message.stockLocate % SHARDS == shard)
+                    expected.add(message);
+            }
+
+            assertEquals(expected, shards[shard].messages);
+        }
+    }
+
+    @Test
+    void stockLocateZeroToAllShards() throws IOException {
+        Recorder[] shards = readInParallel();
+
+        for (Recorder shard : shards) {
+            long systemEvents = shard.messages.stream()
+                .filter(message -> message.stockLocate == 0)
+                .count();
+
+            assertEquals(MESSAGES / SYSTEM_EVENT_INTERVAL, systemEvents);
+        }
+    }
+
+    @Test
+    void unexpectedEndOfFile() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        assertThrows(ITCH50Exception.class, this::readInParallel);
+    }
+
+    @Test
+    void noListeners() throws IOException {
+        try (FileChannel channel = open()) {
+            assertThrows(IllegalArgumentException.class, () -> new ParallelITCH50FileReader(channel,
+                        new ITCH50Listener[0], pool, CHUNK_SIZE, CHUNKS));
+        }
+    }
+
+    private Recorder[] readInParallel() throws IOException {
+        Recorder[] shards = new Recorder[SHARDS];
+        for (int i = 0; i < SHARDS; i++)
+            shards[i] = new Recorder();
+
+        try (FileChannel channel = open();
+                ParallelITCH50FileReader reader = new ParallelITCH50FileReader(channel,
+                    shards, pool, CHUNK_SIZE, CHUNKS)) {
+            assertEquals(MESSAGES, reader.readAll());
+        }
+
+        return shards;
+    }
+
+    private List<Entry> readSequentially() throws IOException {
+        Recorder recorder = new Recorder();
+
+        try (BinaryFILEReader reader = new BinaryFILEReader(open(), new ITCH50Parser(recorder))) {
+            while (reader.read() >= 0);
+        }
+
+        return recorder.messages;
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    private static void put(ByteBuffer buffer, Message message) {
+        int position = buffer.position();
+
+        buffer.position(position + 2);
+
+        message.put(buffer);
+
+        buffer.putShort(position, (short)(buffer.position() - position - 2));
+    }
+
+    private static SystemEvent systemEvent(int sequence) {
+        SystemEvent message = new SystemEvent();
+
+        message.stockLocate  = 0;
+        message.timestampLow = sequence;
+        message.eventCode    = EVENT_CODE_START_OF_MESSAGES;
+
+        return message;
+    }
+
+    private static AddOrder addOrder(int stockLocate, int sequence) {
+        AddOrder message = new AddOrder();
+
+        message.stockLocate          = stockLocate;
+        message.timestampLow         = sequence;
+        message.orderReferenceNumber = sequence;
+        message.buySellIndicator     = BUY;
+        message.shares               = 100;
+        message.price                = 10_0000;
+
+        return message;
+    }
+
+    private static class Entry {
+
+        final int  stockLocate;
+        final long timestamp;
+
+        Entry(int stockLocate, long timestamp) {
+            this.stockLocate = stockLocate;
+            this.timestamp   = timestamp;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Entry))
+                return false;
+
+            Entry other = (Entry)obj;
+
+            return stockLocate == other.stockLocate && timestamp == other.timestamp;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * stockLocate + Long.hashCode(timestamp);
+        }
+
+        @Override
+        public String toString() {
+            return stockLocate + " " + timestamp;
+        }
+
+    }
+
+    private static class Recorder extends ITCH50ListenerAdapter {
+
+        final List<Entry> messages = new ArrayList<>();
+
+        @Override
+        public void systemEvent(SystemEvent message) {
+            messages.add(new Entry(message.stockLocate, message.timestamp()));
+        }
+
+        @Override
+        public void addOrder(AddOrder message) {
+            messages.add(new Entry(message.stockLocate, message.timestamp()));
+        }
+
+    }
+
+}